@@ -0,0 +1,51 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.OutboxService;
+import com.example.bankcards.service.engine.BalanceEngine;
+import com.example.bankcards.service.impl.CardServiceImpl;
+import com.example.bankcards.service.impl.InMemoryCardServiceImpl;
+import com.example.bankcards.service.limit.SpendingLimiter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+
+@Configuration
+@ConditionalOnProperty(name = "bankcards.engine.mode", havingValue = "in-memory")
+public class BalanceEngineConfig {
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public BalanceEngine balanceEngine(JdbcTemplate jdbcTemplate,
+                                       PlatformTransactionManager transactionManager,
+                                       OutboxService outboxService,
+                                       @Value("${bankcards.engine.journal-dir:data/journal}") String journalDir,
+                                       @Value("${bankcards.engine.fsync:true}") boolean fsync,
+                                       @Value("${bankcards.engine.segment-size-bytes:67108864}") long segmentSizeBytes,
+                                       @Value("${bankcards.engine.partitions:4}") int partitions,
+                                       @Value("${bankcards.engine.flush-batch-size:1000}") int flushBatchSize,
+                                       @Value("${bankcards.engine.flush-interval-ms:200}") long flushIntervalMs) {
+        return new BalanceEngine(jdbcTemplate, new TransactionTemplate(transactionManager), outboxService,
+                Path.of(journalDir), fsync, segmentSizeBytes, partitions, flushBatchSize, flushIntervalMs);
+    }
+
+    @Bean
+    @Primary
+    public CardService inMemoryCardService(CardServiceImpl cardServiceImpl,
+                                           BalanceEngine balanceEngine,
+                                           UserRepository userRepository,
+                                           CardRepository cardRepository,
+                                           SpendingLimiter spendingLimiter,
+                                           @Value("${bankcards.engine.transfer-timeout-ms:5000}") long transferTimeoutMs) {
+        return new InMemoryCardServiceImpl(cardServiceImpl, balanceEngine, userRepository, cardRepository, spendingLimiter,
+                transferTimeoutMs);
+    }
+}
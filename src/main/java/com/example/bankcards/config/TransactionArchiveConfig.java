@@ -0,0 +1,19 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.service.archive.TransactionArchive;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+@Configuration
+public class TransactionArchiveConfig {
+
+    // Read paths use the archive whether or not the archiver runs in this instance.
+    @Bean(initMethod = "open", destroyMethod = "close")
+    public TransactionArchive transactionArchive(@Value("${bankcards.archive.dir:data/archive}") String archiveDir,
+                                                 @Value("${bankcards.archive.block-records:256}") int blockRecords) {
+        return new TransactionArchive(Path.of(archiveDir), blockRecords);
+    }
+}
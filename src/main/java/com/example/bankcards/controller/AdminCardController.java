@@ -1,8 +1,11 @@
 package com.example.bankcards.controller;
 
 import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.CardLimitsRequest;
 import com.example.bankcards.dto.CreateCardRequest;
+import com.example.bankcards.dto.TurnoverRebuildDto;
 import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.TurnoverService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -20,8 +23,10 @@ import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
@@ -32,6 +37,7 @@ import org.springframework.web.bind.annotation.RestController;
 public class AdminCardController {
 
     private final CardService cardService;
+    private final TurnoverService turnoverService;
 
     @Operation(summary = "Create a new card for any user", description = "Requires ADMIN role.")
     @ApiResponse(responseCode = "201", description = "Card created successfully", content = @Content)
@@ -75,4 +81,31 @@ public class AdminCardController {
         cardService.deleteCard(cardId);
         return ResponseEntity.noContent().build();
     }
-}
\ No newline at end of file
+
+    @Operation(summary = "Set the number of balance stripes of a card", description = "Spreads inbound credits of a hot card over the given number of balance slots; 1 turns striping off. Slot balances are folded into the card first. Requires ADMIN role.")
+    @ApiResponse(responseCode = "400", description = "Stripe count out of range", content = @Content)
+    @ApiResponse(responseCode = "404", description = "Card not found", content = @Content)
+    @PutMapping("/cards/{cardId}/balance-stripes")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CardDto> updateBalanceStripes(@Parameter(description = "ID of the card") @PathVariable Long cardId,
+                                                        @Parameter(description = "Number of balance slots, 1 to 64") @RequestParam int count) {
+        return ResponseEntity.ok(cardService.updateBalanceStripes(cardId, count));
+    }
+
+    @Operation(summary = "Set the spending limits of a card", description = "Limits outbound transfers of the card over the trailing 24 hours and 30 days. A missing limit removes it. Requires ADMIN role.")
+    @ApiResponse(responseCode = "400", description = "Invalid limits", content = @Content)
+    @ApiResponse(responseCode = "404", description = "Card not found", content = @Content)
+    @PutMapping("/cards/{cardId}/limits")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CardDto> updateSpendingLimits(@Parameter(description = "ID of the card") @PathVariable Long cardId,
+                                                        @Valid @RequestBody CardLimitsRequest request) {
+        return ResponseEntity.ok(cardService.updateSpendingLimits(cardId, request));
+    }
+
+    @Operation(summary = "Rebuild the daily card turnover", description = "Recomputes the daily turnover of all cards from the ledger, in parallel over ranges of card ids. The current day is left as it is. Requires ADMIN role.")
+    @PostMapping("/turnover/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<TurnoverRebuildDto> rebuildTurnover() {
+        return ResponseEntity.ok(turnoverService.rebuild());
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.dto.UpdateUserRolesRequestDto;
+import com.example.bankcards.dto.UserDto;
+import com.example.bankcards.service.UserService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/admin")
+@RequiredArgsConstructor
+@Tag(name = "2. Administration", description = "Endpoints for administrators to manage cards and users")
+@SecurityRequirement(name = "bearerAuth")
+public class AdminUserController {
+
+    private final UserService userService;
+
+    @Operation(summary = "Disable a user by ID", description = "The user can no longer log in and all of its tokens are revoked. Requires ADMIN role.")
+    @ApiResponse(responseCode = "404", description = "User not found", content = @Content)
+    @PostMapping("/users/{userId}/disable")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<UserDto> disableUser(@Parameter(description = "ID of the user to be disabled") @PathVariable Long userId) {
+        return ResponseEntity.ok(userService.setEnabled(userId, false));
+    }
+
+    @Operation(summary = "Enable a user by ID", description = "Requires ADMIN role.")
+    @ApiResponse(responseCode = "404", description = "User not found", content = @Content)
+    @PostMapping("/users/{userId}/enable")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<UserDto> enableUser(@Parameter(description = "ID of the user to be enabled") @PathVariable Long userId) {
+        return ResponseEntity.ok(userService.setEnabled(userId, true));
+    }
+
+    @Operation(summary = "Replace the roles of a user", description = "All tokens of the user are revoked, so the new roles apply from its next login. Requires ADMIN role.")
+    @ApiResponse(responseCode = "400", description = "Unknown role", content = @Content)
+    @ApiResponse(responseCode = "404", description = "User not found", content = @Content)
+    @PutMapping("/users/{userId}/roles")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<UserDto> updateUserRoles(@Parameter(description = "ID of the user") @PathVariable Long userId,
+                                                   @Valid @RequestBody UpdateUserRolesRequestDto request) {
+        return ResponseEntity.ok(userService.updateRoles(userId, request));
+    }
+}
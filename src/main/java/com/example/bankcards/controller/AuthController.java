@@ -5,6 +5,7 @@ import com.example.bankcards.dto.LoginRequestDto;
 import com.example.bankcards.dto.RegistrationRequestDto;
 import com.example.bankcards.dto.UserDto;
 import com.example.bankcards.security.JwtService;
+import com.example.bankcards.security.LoginAttemptLimiter;
 import com.example.bankcards.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -12,11 +13,13 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -34,6 +37,7 @@ public class AuthController {
     private final UserService userService;
     private final AuthenticationManager authenticationManager;
     private final JwtService jwtService;
+    private final LoginAttemptLimiter loginAttemptLimiter;
 
     @Operation(summary = "Register a new user", description = "Creates a new user account. The default role 'USER' will be assigned.")
     @ApiResponses({
@@ -51,17 +55,28 @@ public class AuthController {
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Authentication successful",
                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = AuthResponseDto.class))),
-            @ApiResponse(responseCode = "403", description = "Bad credentials", content = @Content)
+            @ApiResponse(responseCode = "403", description = "Bad credentials", content = @Content),
+            @ApiResponse(responseCode = "429", description = "Too many failed logins for the user from the client address, or from the address", content = @Content),
+            @ApiResponse(responseCode = "503", description = "Too many logins in progress", content = @Content)
     })
     @PostMapping("/login")
-    public ResponseEntity<AuthResponseDto> authenticateUser(@Valid @RequestBody LoginRequestDto loginRequest) {
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(
-                        loginRequest.getUsername(),
-                        loginRequest.getPassword()
-                )
-        );
+    public ResponseEntity<AuthResponseDto> authenticateUser(@Valid @RequestBody LoginRequestDto loginRequest,
+                                                            HttpServletRequest request) {
+        loginAttemptLimiter.check(loginRequest.getUsername(), request.getRemoteAddr());
+        Authentication authentication;
+        try {
+            authentication = authenticationManager.authenticate(
+                    new UsernamePasswordAuthenticationToken(
+                            loginRequest.getUsername(),
+                            loginRequest.getPassword()
+                    )
+            );
+        } catch (BadCredentialsException e) {
+            loginAttemptLimiter.onFailure(loginRequest.getUsername(), request.getRemoteAddr());
+            throw e;
+        }
 
+        loginAttemptLimiter.onSuccess(loginRequest.getUsername(), request.getRemoteAddr());
         UserDetails userDetails = (UserDetails) authentication.getPrincipal();
 
         String jwtToken = jwtService.generateToken(userDetails);
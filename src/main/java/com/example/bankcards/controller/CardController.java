@@ -0,0 +1,95 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.dto.CardTurnoverDto;
+import com.example.bankcards.dto.TransactionPageDto;
+import com.example.bankcards.service.StatementExportService;
+import com.example.bankcards.service.TransactionHistoryService;
+import com.example.bankcards.service.TurnoverService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api/cards")
+@RequiredArgsConstructor
+@Tag(name = "3. User Resources", description = "Endpoints for accessing user-specific data")
+@SecurityRequirement(name = "bearerAuth")
+public class CardController {
+
+    private static final MediaType TEXT_CSV = new MediaType("text", "csv", StandardCharsets.UTF_8);
+
+    private final TransactionHistoryService transactionHistoryService;
+    private final StatementExportService statementExportService;
+    private final TurnoverService turnoverService;
+
+    @Operation(summary = "Get transaction history of own card", description = "Returns incoming and outgoing transactions of the card, newest first. Pass the nextCursor of a page to get the next, older page. Requires USER role.")
+    @ApiResponse(responseCode = "400", description = "Invalid cursor or page size", content = @Content)
+    @ApiResponse(responseCode = "404", description = "Card not found or does not belong to the user", content = @Content)
+    @GetMapping("/{cardId}/transactions")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<TransactionPageDto> getCardTransactions(
+            @Parameter(description = "ID of the card") @PathVariable Long cardId,
+            @Parameter(description = "nextCursor of the previous page; omit for the newest transactions") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size, 1 to 100") @RequestParam(defaultValue = "20") int size,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        return ResponseEntity.ok(transactionHistoryService.getCardTransactions(cardId, userDetails.getUsername(), cursor, size));
+    }
+
+    @Operation(summary = "Export a statement of own card", description = "Streams all transactions of the card within the given days, oldest first, as NDJSON (one JSON object per line) or CSV. Both days are inclusive. Requires USER role.")
+    @ApiResponse(responseCode = "400", description = "Invalid period", content = @Content)
+    @ApiResponse(responseCode = "404", description = "Card not found or does not belong to the user", content = @Content)
+    @GetMapping("/{cardId}/statement")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<StreamingResponseBody> exportStatement(
+            @Parameter(description = "ID of the card") @PathVariable Long cardId,
+            @Parameter(description = "First day of the period, ISO date (e.g., 2025-01-01)")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Last day of the period, ISO date (e.g., 2025-12-31)")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @Parameter(description = "NDJSON or CSV") @RequestParam(defaultValue = "NDJSON") StatementExportService.Format format,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        StreamingResponseBody body = statementExportService.exportCardStatement(cardId, userDetails.getUsername(), from, to, format);
+        boolean csv = format == StatementExportService.Format.CSV;
+        String fileName = "card-" + cardId + "-statement-" + from + "-" + to + (csv ? ".csv" : ".ndjson");
+        return ResponseEntity.ok()
+                .contentType(csv ? TEXT_CSV : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(fileName).build().toString())
+                .body(body);
+    }
+
+    @Operation(summary = "Get the turnover of own card", description = "Returns inbound and outbound totals of the card for every day with transfers within the given days, and their sums. Both days are inclusive. Requires USER role.")
+    @ApiResponse(responseCode = "400", description = "Invalid period", content = @Content)
+    @ApiResponse(responseCode = "404", description = "Card not found or does not belong to the user", content = @Content)
+    @GetMapping("/{cardId}/turnover")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<CardTurnoverDto> getCardTurnover(
+            @Parameter(description = "ID of the card") @PathVariable Long cardId,
+            @Parameter(description = "First day of the period, ISO date (e.g., 2025-01-01)")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Last day of the period, ISO date (e.g., 2025-12-31)")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        return ResponseEntity.ok(turnoverService.getCardTurnover(cardId, userDetails.getUsername(), from, to));
+    }
+}
@@ -2,9 +2,15 @@ package com.example.bankcards.controller;
 
 import com.example.bankcards.exception.InsufficientFundsException;
 import com.example.bankcards.exception.InvalidOperationException;
+import com.example.bankcards.exception.RequestInProgressException;
 import com.example.bankcards.exception.ResourceNotFoundException;
+import com.example.bankcards.exception.ServiceOverloadedException;
+import com.example.bankcards.exception.SpendingLimitExceededException;
+import com.example.bankcards.exception.SuspiciousTransferException;
+import com.example.bankcards.exception.TooManyLoginAttemptsException;
 import com.example.bankcards.exception.UserAlreadyExistsException;
 import org.springframework.context.support.DefaultMessageSourceResolvable;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -18,7 +24,7 @@ import java.util.stream.Collectors;
 
 @ControllerAdvice
 public class ExceptionHandlerController {
-    @ExceptionHandler({ResourceNotFoundException.class, UserAlreadyExistsException.class, InvalidOperationException.class, InsufficientFundsException.class})
+    @ExceptionHandler({ResourceNotFoundException.class, UserAlreadyExistsException.class, InvalidOperationException.class, InsufficientFundsException.class, RequestInProgressException.class, SpendingLimitExceededException.class, SuspiciousTransferException.class, TooManyLoginAttemptsException.class, ServiceOverloadedException.class})
     public ResponseEntity<Map<String, String>> handleCustomExceptions(RuntimeException ex) {
         ResponseStatus responseStatus = ex.getClass().getAnnotation(ResponseStatus.class);
         HttpStatus status = (responseStatus != null) ? responseStatus.value() : HttpStatus.INTERNAL_SERVER_ERROR;
@@ -26,6 +32,11 @@ public class ExceptionHandlerController {
         return new ResponseEntity<>(Map.of("error", ex.getMessage()), status);
     }
 
+    @ExceptionHandler(ConcurrencyFailureException.class)
+    public ResponseEntity<Map<String, String>> handleConcurrencyFailure(ConcurrencyFailureException ex) {
+        return new ResponseEntity<>(Map.of("error", "Card is busy with another operation, please retry."), HttpStatus.CONFLICT);
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Map<String, Object>> handleValidationExceptions(MethodArgumentNotValidException ex) {
         Map<String, String> errors = ex.getBindingResult().getFieldErrors().stream()
@@ -0,0 +1,74 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.dto.ScheduledTransferDto;
+import com.example.bankcards.dto.ScheduledTransferRequestDto;
+import com.example.bankcards.service.ScheduledTransferService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.net.URI;
+
+@RestController
+@RequestMapping("/api/transactions/scheduled")
+@RequiredArgsConstructor
+@Tag(name = "4. Transactions", description = "Endpoints for performing financial transactions")
+@SecurityRequirement(name = "bearerAuth")
+public class ScheduledTransferController {
+
+    private final ScheduledTransferService scheduledTransferService;
+
+    @Operation(summary = "Schedule a transfer between own cards", description = "Runs the transfer at the given time, once or then daily, weekly or monthly. Funds and card status are checked at each run; a failed run of a recurring transfer is retried at its next run. Requires USER role.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "201", description = "Transfer scheduled", content = @Content(mediaType = "application/json")),
+            @ApiResponse(responseCode = "400", description = "Invalid request (e.g., first run in the past, same source and destination card)", content = @Content),
+            @ApiResponse(responseCode = "404", description = "Card not found or does not belong to the user", content = @Content)
+    })
+    @PostMapping
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<ScheduledTransferDto> createScheduledTransfer(@Valid @RequestBody ScheduledTransferRequestDto request,
+                                                                        @AuthenticationPrincipal UserDetails userDetails) {
+        ScheduledTransferDto created = scheduledTransferService.createScheduledTransfer(userDetails.getUsername(), request);
+        return ResponseEntity.created(URI.create("/api/transactions/scheduled/" + created.getId())).body(created);
+    }
+
+    @Operation(summary = "Get own scheduled transfers", description = "Returns the scheduled transfers of the authenticated user with the outcome of their last run. Requires USER role.")
+    @GetMapping
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<Page<ScheduledTransferDto>> getScheduledTransfers(@Parameter(hidden = true) Pageable pageable,
+                                                                            @AuthenticationPrincipal UserDetails userDetails) {
+        return ResponseEntity.ok(scheduledTransferService.getScheduledTransfers(userDetails.getUsername(), pageable));
+    }
+
+    @Operation(summary = "Cancel a scheduled transfer", description = "Stops all further runs of an active scheduled transfer. Requires USER role.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Scheduled transfer cancelled", content = @Content(mediaType = "application/json")),
+            @ApiResponse(responseCode = "400", description = "Scheduled transfer is no longer active", content = @Content),
+            @ApiResponse(responseCode = "404", description = "Scheduled transfer not found or does not belong to the user", content = @Content)
+    })
+    @DeleteMapping("/{scheduleId}")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<ScheduledTransferDto> cancelScheduledTransfer(@Parameter(description = "ID of the scheduled transfer") @PathVariable Long scheduleId,
+                                                                        @AuthenticationPrincipal UserDetails userDetails) {
+        return ResponseEntity.ok(scheduledTransferService.cancelScheduledTransfer(scheduleId, userDetails.getUsername()));
+    }
+}
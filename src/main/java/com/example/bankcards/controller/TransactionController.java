@@ -1,9 +1,14 @@
 package com.example.bankcards.controller;
 
+import com.example.bankcards.dto.BatchTransferRequestDto;
+import com.example.bankcards.dto.BatchTransferResultDto;
 import com.example.bankcards.dto.TransactionDto;
 import com.example.bankcards.dto.TransferRequestDto;
 import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.IdempotentTransferService;
+import com.example.bankcards.service.fraud.VelocityGate;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
@@ -16,11 +21,18 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.stream.Collectors;
+
 @RestController
 @RequestMapping("/api/transactions")
 @RequiredArgsConstructor
@@ -29,16 +41,22 @@ import org.springframework.web.bind.annotation.RestController;
 public class TransactionController {
 
     private final CardService cardService;
+    private final IdempotentTransferService idempotentTransferService;
+    private final VelocityGate velocityGate;
 
     @Operation(summary = "Transfer funds between own cards", description = "Performs a fund transfer between two cards belonging to the authenticated user. This operation is transactional. Requires USER role.")
     @ApiResponses({
             @ApiResponse(responseCode = "201", description = "Transfer successful", content = @Content(mediaType = "application/json")),
             @ApiResponse(responseCode = "400", description = "Invalid operation (e.g., insufficient funds, card not active)", content = @Content),
-            @ApiResponse(responseCode = "404", description = "Card not found or does not belong to the user", content = @Content)
+            @ApiResponse(responseCode = "404", description = "Card not found or does not belong to the user", content = @Content),
+            @ApiResponse(responseCode = "409", description = "A request with the same idempotency key is still being processed", content = @Content),
+            @ApiResponse(responseCode = "429", description = "Transfer rejected by the velocity checks of the source card", content = @Content)
     })
     @PostMapping("/transfer")
     @PreAuthorize("hasRole('USER')")
     public ResponseEntity<TransactionDto> createTransfer(@Valid @RequestBody TransferRequestDto transferRequest,
+                                                         @Parameter(description = "Client-generated key; retries with the same key return the original transfer instead of moving money again")
+                                                         @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
                                                          @AuthenticationPrincipal UserDetails userDetails
     ) {
 
@@ -47,7 +65,79 @@ public class TransactionController {
         }
 
         String currentUsername = userDetails.getUsername();
-        TransactionDto createdTransaction = cardService.transferBetweenOwnCards(currentUsername, transferRequest);
+        TransactionDto createdTransaction;
+        if (idempotencyKey == null) {
+            velocityGate.check(currentUsername, transferRequest.getFromCardId(), transferRequest.getAmount());
+            createdTransaction = cardService.transferBetweenOwnCards(currentUsername, transferRequest);
+        } else {
+            // Checks the velocity gate itself, only for keys it has not seen, so replays are not counted again.
+            createdTransaction = idempotentTransferService.transfer(currentUsername, idempotencyKey, transferRequest);
+        }
         return new ResponseEntity<>(createdTransaction, HttpStatus.CREATED);
     }
-}
\ No newline at end of file
+
+    @Operation(summary = "Apply a batch of transfers between own cards", description = "Locks all cards of the batch at once and applies the transfers in one database transaction. In ALL_OR_NOTHING mode nothing is applied if any transfer fails; in BEST_EFFORT mode failing transfers are skipped. Requires USER role.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Batch processed, see the outcome of each transfer", content = @Content(mediaType = "application/json")),
+            @ApiResponse(responseCode = "400", description = "Invalid batch (e.g., empty or too large)", content = @Content),
+            @ApiResponse(responseCode = "429", description = "The batch was rejected by the velocity checks of one of its source cards", content = @Content)
+    })
+    @PostMapping("/transfers/batch")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<BatchTransferResultDto> createTransferBatch(@Valid @RequestBody BatchTransferRequestDto batchRequest,
+                                                                      @AuthenticationPrincipal UserDetails userDetails
+    ) {
+
+        if (userDetails == null) {
+            return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+        }
+
+        velocityGate.checkBatch(userDetails.getUsername(), batchRequest.getTransfers().stream()
+                .collect(Collectors.groupingBy(TransferRequestDto::getFromCardId, LinkedHashMap::new,
+                        Collectors.mapping(TransferRequestDto::getAmount, Collectors.toList()))));
+        BatchTransferResultDto result = cardService.transferBatchBetweenOwnCards(userDetails.getUsername(), batchRequest);
+        return ResponseEntity.ok(result);
+    }
+
+    @Operation(summary = "Submit a transfer between own cards for asynchronous processing", description = "Stores the transfer as PENDING and returns at once; a background worker applies it shortly after. Poll the URL in the Location header for the outcome. Requires USER role.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "202", description = "Transfer accepted for processing", content = @Content(mediaType = "application/json")),
+            @ApiResponse(responseCode = "400", description = "Invalid request (e.g., same source and destination card)", content = @Content),
+            @ApiResponse(responseCode = "404", description = "Card not found or does not belong to the user", content = @Content),
+            @ApiResponse(responseCode = "429", description = "Transfer rejected by the velocity checks of the source card", content = @Content)
+    })
+    @PostMapping("/transfers/async")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<TransactionDto> submitTransfer(@Valid @RequestBody TransferRequestDto transferRequest,
+                                                         @AuthenticationPrincipal UserDetails userDetails
+    ) {
+
+        if (userDetails == null) {
+            return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+        }
+
+        velocityGate.check(userDetails.getUsername(), transferRequest.getFromCardId(), transferRequest.getAmount());
+        TransactionDto submitted = cardService.submitTransfer(userDetails.getUsername(), transferRequest);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/transactions/" + submitted.getId()))
+                .body(submitted);
+    }
+
+    @Operation(summary = "Get a transaction", description = "Returns a transaction that involves a card of the authenticated user, e.g. to poll the status of an asynchronous transfer. Requires USER role.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Transaction found", content = @Content(mediaType = "application/json")),
+            @ApiResponse(responseCode = "404", description = "Transaction not found or does not involve the user's cards", content = @Content)
+    })
+    @GetMapping("/{transactionId}")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<TransactionDto> getTransaction(@PathVariable Long transactionId,
+                                                         @AuthenticationPrincipal UserDetails userDetails
+    ) {
+
+        if (userDetails == null) {
+            return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+        }
+
+        return ResponseEntity.ok(cardService.getTransaction(transactionId, userDetails.getUsername()));
+    }
+}
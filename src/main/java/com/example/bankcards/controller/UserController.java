@@ -1,17 +1,25 @@
 package com.example.bankcards.controller;
 
+import com.example.bankcards.dto.CardBalanceDto;
 import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.ChangePasswordRequestDto;
+import com.example.bankcards.dto.TransactionPageDto;
 import com.example.bankcards.entity.enums.CardStatus;
 import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.LedgerService;
+import com.example.bankcards.service.TransactionHistoryService;
+import com.example.bankcards.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -19,10 +27,14 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.LocalDateTime;
+
 @RestController
 @RequestMapping("/api/users")
 @RequiredArgsConstructor
@@ -31,6 +43,9 @@ import org.springframework.web.bind.annotation.RestController;
 public class UserController {
 
     private final CardService cardService;
+    private final LedgerService ledgerService;
+    private final TransactionHistoryService transactionHistoryService;
+    private final UserService userService;
 
     @Operation(summary = "Get cards for a specific user", description = "Retrieves a paginated and filterable list of cards. Requires ADMIN role OR the user must be requesting their own data.")
     @ApiResponse(responseCode = "404", description = "User not found", content = @Content)
@@ -46,6 +61,41 @@ public class UserController {
         return ResponseEntity.ok(cards);
     }
 
+    @Operation(summary = "Get transaction history of a user", description = "Returns transactions of all cards of the user, newest first. Pass the nextCursor of a page to get the next, older page. Requires ADMIN role OR the user must be requesting their own data.")
+    @ApiResponse(responseCode = "400", description = "Invalid cursor or page size", content = @Content)
+    @ApiResponse(responseCode = "404", description = "User not found", content = @Content)
+    @GetMapping("/{userId}/transactions")
+    @PreAuthorize("hasRole('ADMIN') or #userId == authentication.principal.id")
+    public ResponseEntity<TransactionPageDto> getUserTransactions(
+            @Parameter(description = "ID of the user whose transactions to retrieve") @PathVariable Long userId,
+            @Parameter(description = "nextCursor of the previous page; omit for the newest transactions") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size, 1 to 100") @RequestParam(defaultValue = "20") int size
+    ) {
+        return ResponseEntity.ok(transactionHistoryService.getUserTransactions(userId, cursor, size));
+    }
+
+    @Operation(summary = "Revoke all tokens of a user", description = "Invalidates every token issued to the user so far; it has to log in again. Requires ADMIN role OR the user must be revoking their own tokens.")
+    @ApiResponse(responseCode = "204", description = "Tokens revoked")
+    @ApiResponse(responseCode = "404", description = "User not found", content = @Content)
+    @PostMapping("/{userId}/tokens/revoke")
+    @PreAuthorize("hasRole('ADMIN') or #userId == authentication.principal.id")
+    public ResponseEntity<Void> revokeTokens(
+            @Parameter(description = "ID of the user whose tokens to revoke") @PathVariable Long userId) {
+        userService.revokeTokens(userId);
+        return ResponseEntity.noContent().build();
+    }
+
+    @Operation(summary = "Change own password", description = "Requires the current password. All tokens of the user are revoked; it has to log in again. Requires USER role.")
+    @ApiResponse(responseCode = "204", description = "Password changed")
+    @ApiResponse(responseCode = "400", description = "Current password is incorrect or the new one is invalid", content = @Content)
+    @PutMapping("/password")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<Void> changePassword(@Valid @RequestBody ChangePasswordRequestDto request,
+                                               @AuthenticationPrincipal UserDetails userDetails) {
+        userService.changePassword(userDetails.getUsername(), request);
+        return ResponseEntity.noContent().build();
+    }
+
     @Operation(summary = "Request to block own card", description = "Allows an authenticated user to block one of their own cards. Requires USER role.")
     @ApiResponse(responseCode = "404", description = "Card not found or does not belong to the user", content = @Content)
     @PostMapping("/cards/{cardId}/block-request")
@@ -56,4 +106,17 @@ public class UserController {
         CardDto updatedCard = cardService.requestCardBlock(cardId, userDetails.getUsername());
         return ResponseEntity.ok(updatedCard);
     }
-}
\ No newline at end of file
+
+    @Operation(summary = "Get the balance of own card at a point in time", description = "Computes the balance from the ledger: the latest balance snapshot before the given moment plus the ledger entries since. Defaults to now. Requires USER role.")
+    @ApiResponse(responseCode = "404", description = "Card not found or does not belong to the user", content = @Content)
+    @GetMapping("/cards/{cardId}/balance")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<CardBalanceDto> getCardBalance(
+            @Parameter(description = "ID of the card") @PathVariable Long cardId,
+            @Parameter(description = "Moment to compute the balance for, ISO date-time (e.g., 2025-01-31T23:59:59)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        CardBalanceDto balance = ledgerService.getBalance(cardId, userDetails.getUsername(), at);
+        return ResponseEntity.ok(balance);
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.bankcards.dto;
+
+import lombok.Data;
+
+@Data
+public class BatchTransferItemResultDto {
+    public static final String COMPLETED = "COMPLETED";
+    public static final String FAILED = "FAILED";
+    public static final String SKIPPED = "SKIPPED";
+
+    private int index;
+    private String status;
+    private TransactionDto transaction;
+    private String error;
+}
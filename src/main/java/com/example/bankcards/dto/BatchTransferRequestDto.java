@@ -0,0 +1,24 @@
+package com.example.bankcards.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BatchTransferRequestDto {
+    @NotEmpty(message = "Transfers cannot be empty")
+    private List<@Valid TransferRequestDto> transfers;
+
+    @NotNull(message = "Mode cannot be null")
+    private Mode mode = Mode.ALL_OR_NOTHING;
+
+    public enum Mode {
+        // Nothing is applied unless every transfer in the batch succeeds.
+        ALL_OR_NOTHING,
+        // Valid transfers are applied, failing ones are reported and skipped.
+        BEST_EFFORT
+    }
+}
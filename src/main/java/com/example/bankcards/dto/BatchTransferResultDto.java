@@ -0,0 +1,13 @@
+package com.example.bankcards.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BatchTransferResultDto {
+    private String mode;
+    private int completed;
+    private int failed;
+    private List<BatchTransferItemResultDto> results;
+}
@@ -0,0 +1,13 @@
+package com.example.bankcards.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+public class CardBalanceDto {
+    private Long cardId;
+    private BigDecimal balance;
+    private LocalDateTime at;
+}
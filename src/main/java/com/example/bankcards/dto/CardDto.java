@@ -11,4 +11,7 @@ public class CardDto {
     private String expiryDate;
     private String status;
     private BigDecimal balance;
+    private String currency;
+    private BigDecimal dailyLimit;
+    private BigDecimal monthlyLimit;
 }
\ No newline at end of file
@@ -0,0 +1,19 @@
+package com.example.bankcards.dto;
+
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.PositiveOrZero;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+// A missing limit removes it.
+@Data
+public class CardLimitsRequest {
+    @PositiveOrZero(message = "Daily limit cannot be negative")
+    @Digits(integer = 13, fraction = 2, message = "Daily limit must have at most 2 decimal places")
+    private BigDecimal dailyLimit;
+
+    @PositiveOrZero(message = "Monthly limit cannot be negative")
+    @Digits(integer = 13, fraction = 2, message = "Monthly limit must have at most 2 decimal places")
+    private BigDecimal monthlyLimit;
+}
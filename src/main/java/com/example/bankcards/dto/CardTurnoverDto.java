@@ -0,0 +1,20 @@
+package com.example.bankcards.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+public class CardTurnoverDto {
+    private Long cardId;
+    private LocalDate from;
+    private LocalDate to;
+    private BigDecimal inboundAmount;
+    private long inboundCount;
+    private BigDecimal outboundAmount;
+    private long outboundCount;
+    // Only days with transfers are listed.
+    private List<DailyTurnoverDto> days;
+}
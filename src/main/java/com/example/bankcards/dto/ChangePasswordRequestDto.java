@@ -0,0 +1,15 @@
+package com.example.bankcards.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+@Data
+public class ChangePasswordRequestDto {
+    @NotBlank(message = "Current password cannot be blank")
+    private String currentPassword;
+
+    @NotBlank(message = "New password cannot be blank")
+    @Size(min = 8, max = 100, message = "Password must be at least 8 characters long")
+    private String newPassword;
+}
@@ -19,4 +19,8 @@ public class CreateCardRequest {
     @NotBlank(message = "Expiry date cannot be blank")
     @Pattern(regexp = "^(0[1-9]|1[0-2])\\/(\\d{4})$", message = "Expiry date must be in MM/YYYY format")
     private String expiryDate;
+
+    // BYN when not given.
+    @Pattern(regexp = "^[A-Z]{3}$", message = "Currency must be a three-letter ISO 4217 code")
+    private String currency;
 }
\ No newline at end of file
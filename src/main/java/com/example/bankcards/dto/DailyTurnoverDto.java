@@ -0,0 +1,19 @@
+package com.example.bankcards.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyTurnoverDto {
+    private LocalDate date;
+    private BigDecimal inboundAmount;
+    private long inboundCount;
+    private BigDecimal outboundAmount;
+    private long outboundCount;
+}
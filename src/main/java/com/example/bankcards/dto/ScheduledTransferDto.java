@@ -0,0 +1,21 @@
+package com.example.bankcards.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+public class ScheduledTransferDto {
+    private Long id;
+    private Long cardFromId;
+    private Long cardToId;
+    private BigDecimal amount;
+    private String frequency;
+    private LocalDateTime startsAt;
+    private LocalDateTime nextRunAt;
+    private String status;
+    private LocalDateTime lastRunAt;
+    private String lastError;
+    private LocalDateTime createdAt;
+}
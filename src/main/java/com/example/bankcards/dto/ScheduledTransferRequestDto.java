@@ -0,0 +1,31 @@
+package com.example.bankcards.dto;
+
+import com.example.bankcards.entity.enums.ScheduleFrequency;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.Future;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+public class ScheduledTransferRequestDto {
+    @NotNull(message = "Source card ID cannot be null")
+    private Long fromCardId;
+
+    @NotNull(message = "Destination card ID cannot be null")
+    private Long toCardId;
+
+    @NotNull(message = "Amount cannot be null")
+    @Positive(message = "Amount must be positive")
+    @Digits(integer = 13, fraction = 2, message = "Amount must have at most 2 decimal places")
+    private BigDecimal amount;
+
+    @NotNull(message = "First run cannot be null")
+    @Future(message = "First run must be in the future")
+    private LocalDateTime firstRunAt;
+
+    private ScheduleFrequency frequency = ScheduleFrequency.ONCE;
+}
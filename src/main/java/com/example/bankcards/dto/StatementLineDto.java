@@ -0,0 +1,24 @@
+package com.example.bankcards.dto;
+
+import com.example.bankcards.entity.enums.TransactionStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+public class StatementLineDto {
+    private Long id;
+    private LocalDateTime createdAt;
+    private Long cardFromId;
+    private Long cardToId;
+    private BigDecimal amount;
+    private String currency;
+    private TransactionStatus status;
+    private String description;
+    private BigDecimal creditedAmount;
+    private String creditedCurrency;
+    private BigDecimal fxRate;
+}
@@ -12,6 +12,9 @@ public class TransactionDto {
     private Long cardToId;
     private BigDecimal amount;
     private String currency;
+    private BigDecimal creditedAmount;
+    private String creditedCurrency;
+    private BigDecimal fxRate;
     private String status;
     private String description;
     private LocalDateTime createdAt;
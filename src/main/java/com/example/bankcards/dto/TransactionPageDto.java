@@ -0,0 +1,13 @@
+package com.example.bankcards.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class TransactionPageDto {
+    private List<TransactionDto> content;
+    private int size;
+    // Opaque position of the last returned transaction; null when there are no older ones.
+    private String nextCursor;
+}
@@ -0,0 +1,17 @@
+package com.example.bankcards.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TurnoverRebuildDto {
+    // Days before this one were rebuilt from the ledger.
+    private LocalDate rebuiltBefore;
+    private int chunks;
+    private long rows;
+}
@@ -0,0 +1,12 @@
+package com.example.bankcards.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+import java.util.Set;
+
+@Data
+public class UpdateUserRolesRequestDto {
+    @NotEmpty(message = "Roles cannot be empty")
+    private Set<String> roles;
+}
@@ -2,6 +2,7 @@ package com.example.bankcards.entity;
 
 import com.example.bankcards.entity.enums.CardStatus;
 import com.example.bankcards.util.PanAttributeConverter;
+import com.example.bankcards.util.YearMonthAttributeConverter;
 import jakarta.persistence.Column;
 import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
@@ -15,11 +16,14 @@ import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import jakarta.persistence.Version;
 import lombok.Getter;
 import lombok.Setter;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 
 @Entity
 @Table(name = "cards")
@@ -27,6 +31,8 @@ import java.time.LocalDateTime;
 @Setter
 public class Card {
 
+    public static final String DEFAULT_CURRENCY = "BYN";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -45,8 +51,10 @@ public class Card {
     @Column(name = "holder_name", length = 100)
     private String holderName;
 
-    @Column(name = "expiry_date", length = 7)
-    private String expiryDate; // MM/YYYY
+    // Valid through the last day of this month.
+    @Convert(converter = YearMonthAttributeConverter.class)
+    @Column(name = "expiry_date")
+    private YearMonth expiryDate;
 
     @Enumerated(EnumType.STRING)
     @Column(name = "status", length = 20)
@@ -55,9 +63,31 @@ public class Card {
     @Column(name = "balance", precision = 15, scale = 2)
     private BigDecimal balance;
 
+    @Column(name = "currency", nullable = false, length = 3, updatable = false)
+    private String currency;
+
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    // Number of balance slots inbound credits are spread over; 1 means the card is not striped.
+    @Column(name = "stripe_count", nullable = false)
+    private Integer stripeCount;
+
+    // Outbound limits over the trailing 24 hours and 30 days; null means no limit.
+    @Column(name = "daily_limit", precision = 15, scale = 2)
+    private BigDecimal dailyLimit;
+
+    @Column(name = "monthly_limit", precision = 15, scale = 2)
+    private BigDecimal monthlyLimit;
+
+    // Sum of the balance slots of a striped card; only loaded by the paths that report or check the full balance.
+    @Transient
+    private BigDecimal slotBalance;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -67,5 +97,16 @@ public class Card {
         if (balance == null) {
             balance = BigDecimal.ZERO;
         }
+        if (currency == null) {
+            currency = DEFAULT_CURRENCY;
+        }
+        if (stripeCount == null) {
+            stripeCount = 1;
+        }
+    }
+
+    // Balance including the credits still parked in the slots of a striped card.
+    public BigDecimal getTotalBalance() {
+        return slotBalance == null ? balance : balance.add(slotBalance);
     }
 }
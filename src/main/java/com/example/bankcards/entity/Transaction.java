@@ -13,8 +13,10 @@ import java.time.LocalDateTime;
 @Setter
 public class Transaction {
 
+    // Pooled sequence ids keep Hibernate insert batching enabled, which IDENTITY would turn off.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transactions_id_seq")
+    @SequenceGenerator(name = "transactions_id_seq", sequenceName = "transactions_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -31,6 +33,16 @@ public class Transaction {
     @Column(name = "currency", length = 10)
     private String currency;
 
+    // Set only for cross-currency transfers: what the destination card received, in its currency, and the rate used.
+    @Column(name = "credited_amount", precision = 15, scale = 2)
+    private BigDecimal creditedAmount;
+
+    @Column(name = "credited_currency", length = 10)
+    private String creditedCurrency;
+
+    @Column(name = "fx_rate", precision = 19, scale = 8)
+    private BigDecimal fxRate;
+
     @Enumerated(EnumType.STRING)
     @Column(name = "status", length = 20)
     private TransactionStatus status;
@@ -48,4 +60,9 @@ public class Transaction {
             status = TransactionStatus.COMPLETED;
         }
     }
+
+    // Amount that reached the destination card, in the currency of that card.
+    public BigDecimal getDestinationAmount() {
+        return creditedAmount == null ? amount : creditedAmount;
+    }
 }
\ No newline at end of file
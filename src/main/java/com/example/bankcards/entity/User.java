@@ -40,6 +40,9 @@ public class User {
     @Column(name = "enabled")
     private boolean enabled = true;
 
+    @Column(name = "token_version", nullable = false)
+    private int tokenVersion;
+
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
 
@@ -0,0 +1,20 @@
+package com.example.bankcards.entity.enums;
+
+public enum OutboxEventType {
+    TRANSFER_COMPLETED("TRANSACTION"),
+    CARD_CREATED("CARD"),
+    CARD_BLOCKED("CARD"),
+    CARD_ACTIVATED("CARD"),
+    CARD_EXPIRED("CARD"),
+    CARD_DELETED("CARD");
+
+    private final String aggregateType;
+
+    OutboxEventType(String aggregateType) {
+        this.aggregateType = aggregateType;
+    }
+
+    public String getAggregateType() {
+        return aggregateType;
+    }
+}
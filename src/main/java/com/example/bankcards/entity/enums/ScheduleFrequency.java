@@ -0,0 +1,34 @@
+package com.example.bankcards.entity.enums;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+public enum ScheduleFrequency {
+    ONCE(null),
+    DAILY(ChronoUnit.DAYS),
+    WEEKLY(ChronoUnit.WEEKS),
+    MONTHLY(ChronoUnit.MONTHS);
+
+    private final ChronoUnit unit;
+
+    ScheduleFrequency(ChronoUnit unit) {
+        this.unit = unit;
+    }
+
+    /**
+     * First run strictly after the given moment, or null for a one-off transfer. Runs are counted from the start,
+     * so a schedule starting on the 31st comes back to the 31st after shorter months, and runs missed while
+     * nothing was running collapse into the next one.
+     */
+    public LocalDateTime nextAfter(LocalDateTime start, LocalDateTime after) {
+        if (unit == null) {
+            return null;
+        }
+        long periods = Math.max(0, unit.between(start, after));
+        LocalDateTime next = start.plus(periods, unit);
+        while (!next.isAfter(after)) {
+            next = start.plus(++periods, unit);
+        }
+        return next;
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.bankcards.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+public class SpendingLimitExceededException extends RuntimeException {
+    public SpendingLimitExceededException(String message) {
+        super(message);
+    }
+}
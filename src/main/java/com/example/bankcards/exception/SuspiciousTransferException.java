@@ -0,0 +1,11 @@
+package com.example.bankcards.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class SuspiciousTransferException extends RuntimeException {
+    public SuspiciousTransferException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.BalanceSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface BalanceSnapshotRepository extends JpaRepository<BalanceSnapshot, Long> {
+
+    Optional<BalanceSnapshot> findFirstByCardIdAndAsOfLessThanEqualOrderByAsOfDesc(Long cardId, LocalDateTime at);
+
+    @Query(value = "select last_seq from ledger_compaction where id = 1 for update", nativeQuery = true)
+    long lockLastCompaction();
+
+    @Modifying
+    @Query(value = "update ledger_compaction set last_seq = :seq where id = 1", nativeQuery = true)
+    int saveLastCompaction(@Param("seq") long seq);
+
+    // Stamps the unfolded entries up to :asOf of every card that has at least :minEntries of them.
+    @Modifying
+    @Query(value = "update ledger_entries set snapshot_seq = :seq " +
+            "where snapshot_seq is null and created_at <= :asOf and card_id in (" +
+            "      select e.card_id from ledger_entries e where e.snapshot_seq is null and e.created_at <= :asOf " +
+            "      group by e.card_id having count(*) >= :minEntries)", nativeQuery = true)
+    int stampEntries(@Param("seq") long seq, @Param("asOf") LocalDateTime asOf, @Param("minEntries") long minEntries);
+
+    // One new snapshot per card with entries stamped by run :seq, on top of its latest snapshot.
+    @Modifying
+    @Query(value = "insert into balance_snapshots (card_id, balance, as_of, seq) " +
+            "select p.card_id, coalesce(s.balance, 0) + p.delta, :asOf, :seq " +
+            "from (select e.card_id as card_id, " +
+            "             sum(case when e.entry_type = 'CREDIT' then e.amount else -e.amount end) as delta " +
+            "      from ledger_entries e " +
+            "      where e.snapshot_seq = :seq " +
+            "      group by e.card_id) p " +
+            "left join balance_snapshots s on s.card_id = p.card_id " +
+            "      and s.seq = (select max(s3.seq) from balance_snapshots s3 where s3.card_id = p.card_id)",
+            nativeQuery = true)
+    int compact(@Param("seq") long seq, @Param("asOf") LocalDateTime asOf);
+}
@@ -0,0 +1,44 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.CardBalanceSlot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface CardBalanceSlotRepository extends JpaRepository<CardBalanceSlot, Long> {
+
+    // Matches nothing for a card without slots, or when the card is not active or not owned by the user.
+    // The card row is only read, so concurrent credits to a striped card do not queue on it.
+    @Modifying
+    @Query(value = "update card_balance_slots set balance = balance + :amount " +
+            "where card_id = :cardId " +
+            "and slot = (select mod(:random, c.stripe_count) from cards c join users u on u.id = c.owner_id " +
+            "            where c.id = :cardId and c.status = 'ACTIVE' and u.username = :username)", nativeQuery = true)
+    int creditSlot(@Param("cardId") Long cardId, @Param("username") String username,
+                   @Param("amount") BigDecimal amount, @Param("random") int random);
+
+    @Query(value = "select id from card_balance_slots where card_id = :cardId order by slot for update", nativeQuery = true)
+    List<Long> lockSlots(@Param("cardId") Long cardId);
+
+    @Query("select coalesce(sum(s.balance), 0) from CardBalanceSlot s where s.card.id = :cardId")
+    BigDecimal sumBalance(@Param("cardId") Long cardId);
+
+    // Pairs of card id and slot total, for the cards that have slots.
+    @Query("select s.card.id, sum(s.balance) from CardBalanceSlot s where s.card.id in :cardIds group by s.card.id")
+    List<Object[]> sumBalances(@Param("cardIds") Collection<Long> cardIds);
+
+    @Modifying
+    @Query("update CardBalanceSlot s set s.balance = 0 where s.card.id = :cardId")
+    int resetBalances(@Param("cardId") Long cardId);
+
+    @Modifying
+    @Query("delete from CardBalanceSlot s where s.card.id = :cardId")
+    int deleteByCardId(@Param("cardId") Long cardId);
+}
@@ -1,10 +1,79 @@
 package com.example.bankcards.repository;
 
 import com.example.bankcards.entity.Card;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface CardRepository extends JpaRepository<Card, Long>, JpaSpecificationExecutor<Card> {
-}
\ No newline at end of file
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from Card c where c.id in :ids and c.owner.id = :ownerId order by c.id")
+    List<Card> findAllByIdInAndOwnerIdForUpdate(@Param("ids") Collection<Long> ids, @Param("ownerId") Long ownerId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from Card c where c.id in :ids order by c.id")
+    List<Card> findAllByIdInForUpdate(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("update Card c set c.balance = c.balance - :amount, c.version = c.version + 1 " +
+            "where c.id = :id and c.status = com.example.bankcards.entity.enums.CardStatus.ACTIVE " +
+            "and c.balance >= :amount " +
+            "and c.owner.id in (select u.id from User u where u.username = :username)")
+    int debitBalance(@Param("id") Long id, @Param("username") String username, @Param("amount") BigDecimal amount);
+
+    @Modifying
+    @Query("update Card c set c.balance = c.balance + :amount, c.version = c.version + 1 " +
+            "where c.id = :id and c.status = com.example.bankcards.entity.enums.CardStatus.ACTIVE " +
+            "and c.owner.id in (select u.id from User u where u.username = :username)")
+    int creditBalance(@Param("id") Long id, @Param("username") String username, @Param("amount") BigDecimal amount);
+
+    // Striped cards may keep part of their money in slots, which the caller has summed under the card row lock.
+    @Modifying
+    @Query("update Card c set c.balance = c.balance - :amount, c.version = c.version + 1 " +
+            "where c.id = :id and c.status = com.example.bankcards.entity.enums.CardStatus.ACTIVE " +
+            "and c.balance + :slotBalance >= :amount " +
+            "and c.owner.id in (select u.id from User u where u.username = :username)")
+    int debitStripedBalance(@Param("id") Long id, @Param("username") String username,
+                            @Param("amount") BigDecimal amount, @Param("slotBalance") BigDecimal slotBalance);
+
+    @Modifying
+    @Query("update Card c set c.balance = c.balance + :amount, c.version = c.version + 1 where c.id = :id")
+    int addBalance(@Param("id") Long id, @Param("amount") BigDecimal amount);
+
+    @Modifying
+    @Query("update Card c set c.stripeCount = :stripeCount, c.version = c.version + 1 where c.id = :id")
+    int updateStripeCount(@Param("id") Long id, @Param("stripeCount") int stripeCount);
+
+    // Locks the card row; folding and striped debits both take it before touching the slots.
+    @Query(value = "select stripe_count from cards where id = :id for update", nativeQuery = true)
+    Integer lockStripeCount(@Param("id") Long id);
+
+    @Query("select c.owner.id from Card c where c.id = :id")
+    Optional<Long> findOwnerId(@Param("id") Long id);
+
+    // Pairs of id and currency, for the cards of the user only.
+    @Query("select c.id, c.currency from Card c where c.id in :ids and c.owner.username = :username")
+    List<Object[]> findCurrencies(@Param("ids") Collection<Long> ids, @Param("username") String username);
+
+    @Query("select c.id from Card c where c.owner.id = :ownerId order by c.id")
+    List<Long> findIdsByOwnerId(@Param("ownerId") Long ownerId);
+
+    @Query("select c.id from Card c where c.stripeCount > 1 order by c.id")
+    List<Long> findStripedCardIds();
+
+    // Hibernate ignores lock timeout hints on PostgreSQL, so the limit is set for the current transaction only.
+    @Query(value = "select set_config('lock_timeout', :timeout, true)", nativeQuery = true)
+    String setLockTimeout(@Param("timeout") String timeout);
+}
@@ -0,0 +1,21 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.LedgerEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Repository
+public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, Long> {
+
+    @Query("select coalesce(sum(case when e.entryType = com.example.bankcards.entity.enums.LedgerEntryType.CREDIT " +
+            "then e.amount else -e.amount end), 0) from LedgerEntry e " +
+            "where e.card.id = :cardId and e.createdAt <= :upTo " +
+            "and (e.createdAt > :after or e.snapshotSeq is null or e.snapshotSeq > :seq)")
+    BigDecimal sumAmounts(@Param("cardId") Long cardId, @Param("after") LocalDateTime after, @Param("seq") long seq,
+                          @Param("upTo") LocalDateTime upTo);
+}
@@ -0,0 +1,41 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.ScheduledTransfer;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ScheduledTransferRepository extends JpaRepository<ScheduledTransfer, Long> {
+
+    // Pairs of id and next run of the active schedules due before the given moment, soonest first.
+    @Query("select s.id, s.nextRunAt from ScheduledTransfer s " +
+            "where s.status = com.example.bankcards.entity.enums.ScheduledTransferStatus.ACTIVE and s.nextRunAt < :before " +
+            "order by s.nextRunAt")
+    List<Object[]> findDueBefore(@Param("before") LocalDateTime before, Pageable pageable);
+
+    // Rows locked by another instance are skipped: once it commits, their next run has moved past now.
+    @Query(value = "select * from scheduled_transfers where id in (:ids) and status = 'ACTIVE' and next_run_at <= :now " +
+            "order by id for update skip locked", nativeQuery = true)
+    List<ScheduledTransfer> lockDue(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    @EntityGraph(attributePaths = {"cardFrom", "cardTo"})
+    Page<ScheduledTransfer> findByOwnerUsernameOrderById(String username, Pageable pageable);
+
+    // Waits for a run holding the row, so the status read is the one the run left.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from ScheduledTransfer s where s.id = :id " +
+            "and s.owner.id in (select u.id from User u where u.username = :username)")
+    Optional<ScheduledTransfer> findByIdAndOwnerUsernameForUpdate(@Param("id") Long id, @Param("username") String username);
+}
@@ -1,9 +1,67 @@
 package com.example.bankcards.repository;
 
+import com.example.bankcards.dto.StatementLineDto;
 import com.example.bankcards.entity.Transaction;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
-}
\ No newline at end of file
+
+    @EntityGraph(attributePaths = {"cardFrom", "cardTo"})
+    Optional<Transaction> findWithCardsById(Long id);
+
+    @Query("select distinct t.cardFrom.id from Transaction t " +
+            "where t.status = com.example.bankcards.entity.enums.TransactionStatus.PENDING")
+    List<Long> findPendingSourceCardIds(Pageable pageable);
+
+    @Query("select t.cardTo.id from Transaction t " +
+            "where t.cardFrom.id = :cardId and t.status = com.example.bankcards.entity.enums.TransactionStatus.PENDING " +
+            "order by t.id")
+    List<Long> findPendingTargetCardIds(@Param("cardId") Long cardId, Pageable pageable);
+
+    @Query("select t from Transaction t " +
+            "where t.cardFrom.id = :cardId and t.status = com.example.bankcards.entity.enums.TransactionStatus.PENDING " +
+            "order by t.id")
+    List<Transaction> findPendingBySourceCard(@Param("cardId") Long cardId, Pageable pageable);
+
+    // Row-value comparison lets the (card, created_at, id) indexes seek straight to the page start; the plain
+    // created_at bound lets PostgreSQL prune the monthly partitions newer than the page.
+    @Query(value = "select * from transactions t where t.card_from_id = :cardId " +
+            "and t.created_at <= :createdAt and (t.created_at, t.id) < (:createdAt, :id) " +
+            "order by t.created_at desc, t.id desc limit :limit", nativeQuery = true)
+    List<Transaction> findOutgoingBefore(@Param("cardId") Long cardId, @Param("createdAt") LocalDateTime createdAt,
+                                         @Param("id") Long id, @Param("limit") int limit);
+
+    @Query(value = "select * from transactions t where t.card_to_id = :cardId " +
+            "and t.created_at <= :createdAt and (t.created_at, t.id) < (:createdAt, :id) " +
+            "order by t.created_at desc, t.id desc limit :limit", nativeQuery = true)
+    List<Transaction> findIncomingBefore(@Param("cardId") Long cardId, @Param("createdAt") LocalDateTime createdAt,
+                                         @Param("id") Long id, @Param("limit") int limit);
+
+    // Rows are read as unmanaged projections in fetch-size chunks, so neither the JDBC driver nor the
+    // persistence context holds more than one chunk however long the period is.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new com.example.bankcards.dto.StatementLineDto(t.id, t.createdAt, t.cardFrom.id, t.cardTo.id, " +
+            "t.amount, t.currency, t.status, t.description, t.creditedAmount, t.creditedCurrency, t.fxRate) " +
+            "from Transaction t " +
+            "where (t.cardFrom.id = :cardId or t.cardTo.id = :cardId) and t.createdAt >= :from and t.createdAt < :to " +
+            "order by t.createdAt, t.id")
+    Stream<StatementLineDto> streamStatement(@Param("cardId") Long cardId, @Param("from") LocalDateTime from,
+                                             @Param("to") LocalDateTime to);
+}
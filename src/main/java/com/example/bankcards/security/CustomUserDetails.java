@@ -9,9 +9,21 @@ import java.util.Collection;
 @Getter
 public class CustomUserDetails extends User {
     private final Long id;
+    private final int tokenVersion;
 
     public CustomUserDetails(Long id, String username, String password, Collection<? extends GrantedAuthority> authorities) {
-        super(username, password, authorities);
+        this(id, username, password, authorities, 0);
+    }
+
+    public CustomUserDetails(Long id, String username, String password, Collection<? extends GrantedAuthority> authorities,
+                             int tokenVersion) {
+        this(id, username, password, true, authorities, tokenVersion);
+    }
+
+    public CustomUserDetails(Long id, String username, String password, boolean enabled,
+                             Collection<? extends GrantedAuthority> authorities, int tokenVersion) {
+        super(username, password, enabled, true, true, true, authorities);
         this.id = id;
+        this.tokenVersion = tokenVersion;
     }
-}
\ No newline at end of file
+}
@@ -18,9 +18,17 @@ import java.util.stream.Collectors;
 public class CustomUserDetailsService implements UserDetailsService {
 
     private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        // Authentication erases the credentials of the principal it is given, so the cached one is never handed out.
+        CustomUserDetails cached = principalCache.get(username, this::loadPrincipal);
+        return new CustomUserDetails(cached.getId(), cached.getUsername(), cached.getPassword(), cached.isEnabled(),
+                cached.getAuthorities(), cached.getTokenVersion());
+    }
+
+    private CustomUserDetails loadPrincipal(String username) {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + username));
 
@@ -32,7 +40,9 @@ public class CustomUserDetailsService implements UserDetailsService {
                 user.getId(),
                 user.getUsername(),
                 user.getPassword(),
-                authorities
+                user.isEnabled(),
+                authorities,
+                user.getTokenVersion()
         );
     }
 }
\ No newline at end of file
@@ -1,10 +1,11 @@
 package com.example.bankcards.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -16,11 +17,25 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 
+/**
+ * Authenticates bearer tokens, from their claims in stateless mode and by loading the user otherwise.
+ */
 @Component
-@RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
+    private final TokenVersionService tokenVersionService;
+    private final boolean stateless;
+
+    public JwtAuthenticationFilter(JwtService jwtService,
+                                   UserDetailsService userDetailsService,
+                                   TokenVersionService tokenVersionService,
+                                   @Value("${security.jwt.stateless:true}") boolean stateless) {
+        this.jwtService = jwtService;
+        this.userDetailsService = userDetailsService;
+        this.tokenVersionService = tokenVersionService;
+        this.stateless = stateless;
+    }
 
     @Override
     protected void doFilterInternal(
@@ -30,20 +45,18 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     ) throws ServletException, IOException {
 
         final String authHeader = request.getHeader("Authorization");
-        final String jwt;
-        final String username;
 
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             filterChain.doFilter(request, response);
             return;
         }
 
-        jwt = authHeader.substring(7);
-        username = jwtService.extractUsername(jwt);
-
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
-            if (jwtService.isTokenValid(jwt, userDetails)) {
+        // One parse checks signature and expiry; an invalid token leaves the request unauthenticated.
+        if (SecurityContextHolder.getContext().getAuthentication() == null) {
+            UserDetails userDetails = jwtService.validateToken(authHeader.substring(7))
+                    .map(this::authenticate)
+                    .orElse(null);
+            if (userDetails != null) {
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                         userDetails,
                         null,
@@ -55,4 +68,24 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
         filterChain.doFilter(request, response);
     }
-}
\ No newline at end of file
+
+    private UserDetails authenticate(Claims claims) {
+        CustomUserDetails principal = jwtService.toPrincipal(claims).orElse(null);
+        if (stateless && principal != null) {
+            return tokenVersionService.isCurrent(principal.getId(), principal.getTokenVersion()) ? principal : null;
+        }
+        String username = claims.getSubject();
+        if (username == null) {
+            return null;
+        }
+        UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+        if (!username.equals(userDetails.getUsername()) || !userDetails.isEnabled()) {
+            return null;
+        }
+        if (principal != null && userDetails instanceof CustomUserDetails user
+                && user.getTokenVersion() != principal.getTokenVersion()) {
+            return null;
+        }
+        return userDetails;
+    }
+}
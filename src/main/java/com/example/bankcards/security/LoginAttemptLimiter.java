@@ -0,0 +1,67 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.exception.TooManyLoginAttemptsException;
+import com.example.bankcards.util.BoundedTtlCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Throttles logins after too many failures per (username, client address) or per client address.
+ */
+@Component
+public class LoginAttemptLimiter {
+
+    private final boolean enabled;
+    private final int maxPerUsername;
+    private final int maxPerAddress;
+    private final BoundedTtlCache<String, AtomicInteger> attempts;
+    private final Counter throttled;
+
+    public LoginAttemptLimiter(MeterRegistry meterRegistry,
+                               @Value("${security.login-limit.enabled:true}") boolean enabled,
+                               @Value("${security.login-limit.max-per-username:10}") int maxPerUsername,
+                               @Value("${security.login-limit.max-per-address:50}") int maxPerAddress,
+                               @Value("${security.login-limit.window-ms:60000}") long windowMs,
+                               @Value("${security.login-limit.max-tracked:100000}") int maxTracked) {
+        this.enabled = enabled;
+        this.maxPerUsername = maxPerUsername;
+        this.maxPerAddress = maxPerAddress;
+        this.attempts = new BoundedTtlCache<>(maxTracked, windowMs);
+        this.throttled = meterRegistry.counter("bankcards.login.throttled");
+    }
+
+    public void check(String username, String address) {
+        if (!enabled) {
+            return;
+        }
+        if (failures(userKey(username, address)) >= maxPerUsername || failures("addr:" + address) >= maxPerAddress) {
+            throttled.increment();
+            throw new TooManyLoginAttemptsException("Too many login attempts, please retry later.");
+        }
+    }
+
+    public void onFailure(String username, String address) {
+        if (!enabled) {
+            return;
+        }
+        attempts.computeIfAbsent(userKey(username, address), k -> new AtomicInteger()).incrementAndGet();
+        attempts.computeIfAbsent("addr:" + address, k -> new AtomicInteger()).incrementAndGet();
+    }
+
+    public void onSuccess(String username, String address) {
+        attempts.remove(userKey(username, address));
+    }
+
+    private int failures(String key) {
+        AtomicInteger count = attempts.get(key);
+        return count == null ? 0 : count.get();
+    }
+
+    private static String userKey(String username, String address) {
+        return "user:" + address + ":" + username;
+    }
+}
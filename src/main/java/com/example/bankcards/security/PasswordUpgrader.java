@@ -0,0 +1,82 @@
+package com.example.bankcards.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Re-encodes outdated password hashes in the background after a successful login.
+ */
+@Slf4j
+@Component
+public class PasswordUpgrader {
+
+    private final PasswordEncoder passwordEncoder;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ThreadPoolExecutor executor;
+    private final Counter upgraded;
+    private final Counter skipped;
+
+    public PasswordUpgrader(PasswordEncoder passwordEncoder,
+                            JdbcTemplate jdbcTemplate,
+                            ApplicationEventPublisher eventPublisher,
+                            MeterRegistry meterRegistry,
+                            @Value("${security.password-hashing.upgrade-queue-capacity:100}") int queueCapacity) {
+        this.passwordEncoder = passwordEncoder;
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "password-upgrade");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.upgraded = meterRegistry.counter("bankcards.password-hash.upgraded");
+        this.skipped = meterRegistry.counter("bankcards.password-hash.upgrade-skipped");
+    }
+
+    public void upgradeIfOutdated(CustomUserDetails user, String rawPassword) {
+        String storedHash = user.getPassword();
+        if (storedHash == null || !passwordEncoder.upgradeEncoding(storedHash)) {
+            return;
+        }
+        try {
+            executor.execute(() -> upgrade(user.getId(), user.getUsername(), storedHash, rawPassword));
+        } catch (RejectedExecutionException e) {
+            skipped.increment();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private void upgrade(Long userId, String username, String storedHash, String rawPassword) {
+        try {
+            String newHash = passwordEncoder.encode(rawPassword);
+            int updated = jdbcTemplate.update("update users set password_hash = ? where id = ? and password_hash = ?",
+                    newHash, userId, storedHash);
+            if (updated == 1) {
+                upgraded.increment();
+                eventPublisher.publishEvent(new UserSecurityChangedEvent(userId, username));
+            }
+        } catch (RuntimeException e) {
+            skipped.increment();
+            log.warn("Could not upgrade the password hash of user {}", userId, e);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.util.BoundedTtlCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Bounded, expiring cache of principals by username, dropped when their user changes.
+ */
+@Component
+public class PrincipalCache {
+
+    private final boolean enabled;
+    private final BoundedTtlCache<String, CustomUserDetails> principals;
+    private final ConcurrentMap<String, CompletableFuture<CustomUserDetails>> loading = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+
+    public PrincipalCache(MeterRegistry meterRegistry,
+                          @Value("${security.principal-cache.enabled:false}") boolean enabled,
+                          @Value("${security.principal-cache.size:10000}") int size,
+                          @Value("${security.principal-cache.ttl-ms:60000}") long ttlMs) {
+        this.enabled = enabled;
+        this.principals = new BoundedTtlCache<>(size, ttlMs);
+        this.hits = meterRegistry.counter("bankcards.principal-cache.hits");
+        this.misses = meterRegistry.counter("bankcards.principal-cache.misses");
+        FunctionCounter.builder("bankcards.principal-cache.evictions", principals, BoundedTtlCache::evictionCount)
+                .register(meterRegistry);
+        Gauge.builder("bankcards.principal-cache.size", principals, BoundedTtlCache::size).register(meterRegistry);
+    }
+
+    public CustomUserDetails get(String username, Function<String, CustomUserDetails> loader) {
+        if (!enabled) {
+            return loader.apply(username);
+        }
+        CustomUserDetails cached = principals.get(username);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        CompletableFuture<CustomUserDetails> own = new CompletableFuture<>();
+        CompletableFuture<CustomUserDetails> running = loading.putIfAbsent(username, own);
+        if (running != null) {
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        try {
+            CustomUserDetails principal = loader.apply(username);
+            synchronized (this) {
+                if (loading.remove(username, own)) {
+                    principals.put(username, principal);
+                }
+            }
+            own.complete(principal);
+            return principal;
+        } catch (RuntimeException e) {
+            loading.remove(username, own);
+            own.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserSecurityChanged(UserSecurityChangedEvent event) {
+        invalidate(event.username());
+    }
+
+    public synchronized void invalidate(String username) {
+        principals.remove(username);
+        loading.remove(username);
+    }
+}
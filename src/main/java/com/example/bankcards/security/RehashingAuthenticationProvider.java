@@ -0,0 +1,31 @@
+package com.example.bankcards.security;
+
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Password authentication that leaves the re-encoding of outdated hashes to the {@link PasswordUpgrader}.
+ */
+public class RehashingAuthenticationProvider extends DaoAuthenticationProvider {
+
+    // Absent where only the web layer is loaded.
+    private final PasswordUpgrader passwordUpgrader;
+
+    public RehashingAuthenticationProvider(UserDetailsService userDetailsService, PasswordEncoder passwordEncoder,
+                                           PasswordUpgrader passwordUpgrader) {
+        super(userDetailsService);
+        setPasswordEncoder(passwordEncoder);
+        this.passwordUpgrader = passwordUpgrader;
+    }
+
+    @Override
+    protected Authentication createSuccessAuthentication(Object principal, Authentication authentication, UserDetails user) {
+        if (passwordUpgrader != null && user instanceof CustomUserDetails customUser && authentication.getCredentials() != null) {
+            passwordUpgrader.upgradeIfOutdated(customUser, authentication.getCredentials().toString());
+        }
+        return super.createSuccessAuthentication(principal, authentication, user);
+    }
+}
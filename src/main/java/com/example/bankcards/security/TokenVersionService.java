@@ -0,0 +1,54 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.util.BoundedTtlCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Checks token versions against a short-lived cache of the current version of each user.
+ */
+@Service
+public class TokenVersionService {
+
+    // Disabled and deleted users have no valid version.
+    private static final int REVOKED = -1;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BoundedTtlCache<Long, Integer> versions;
+    // Bumped by every invalidation; a lookup only caches its result if none happened while it ran.
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public TokenVersionService(JdbcTemplate jdbcTemplate,
+                               @Value("${security.jwt.version-cache-size:100000}") int cacheSize,
+                               @Value("${security.jwt.version-cache-ttl-ms:10000}") long cacheTtlMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.versions = new BoundedTtlCache<>(cacheSize, cacheTtlMs);
+    }
+
+    public boolean isCurrent(long userId, int tokenVersion) {
+        Integer current = versions.get(userId);
+        if (current == null) {
+            long stamp = invalidations.get();
+            List<Integer> found = jdbcTemplate.queryForList(
+                    "select token_version from users where id = ? and enabled = true", Integer.class, userId);
+            current = found.isEmpty() ? REVOKED : found.get(0);
+            synchronized (this) {
+                if (invalidations.get() == stamp) {
+                    versions.put(userId, current);
+                }
+            }
+        }
+        return current == tokenVersion;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onUserSecurityChanged(UserSecurityChangedEvent event) {
+        invalidations.incrementAndGet();
+        versions.remove(event.userId());
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.bankcards.security;
+
+/**
+ * Published when anything a principal or a token of the user is built from changes.
+ */
+public record UserSecurityChangedEvent(Long userId, String username) {
+}
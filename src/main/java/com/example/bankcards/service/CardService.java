@@ -1,6 +1,9 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.dto.BatchTransferRequestDto;
+import com.example.bankcards.dto.BatchTransferResultDto;
 import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.CardLimitsRequest;
 import com.example.bankcards.dto.CreateCardRequest;
 import com.example.bankcards.dto.TransactionDto;
 import com.example.bankcards.dto.TransferRequestDto;
@@ -8,11 +11,28 @@ import com.example.bankcards.entity.enums.CardStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.Collection;
+import java.util.Optional;
+
 public interface CardService {
     CardDto createCard(CreateCardRequest request);
 
     TransactionDto transferBetweenOwnCards(String username, TransferRequestDto request);
 
+    TransactionDto transferBetweenOwnCards(String username, TransferRequestDto request, String idempotencyKey);
+
+    TransactionDto submitTransfer(String username, TransferRequestDto request);
+
+    int processPendingTransfers(Long cardFromId, int limit);
+
+    int executeScheduledTransfers(Collection<Long> scheduleIds);
+
+    TransactionDto getTransaction(Long transactionId, String username);
+
+    Optional<TransactionDto> findTransferByIdempotencyKey(String username, String idempotencyKey);
+
+    BatchTransferResultDto transferBatchBetweenOwnCards(String username, BatchTransferRequestDto request);
+
     Page<CardDto> getCardsByUserId(Long userId, CardStatus status, String panLast4, Pageable pageable);
 
     Page<CardDto> getAllCards(Pageable pageable);
@@ -23,5 +43,11 @@ public interface CardService {
 
     void deleteCard(Long cardId);
 
+    CardDto updateBalanceStripes(Long cardId, int stripeCount);
+
+    void foldBalanceStripes(Long cardId);
+
+    CardDto updateSpendingLimits(Long cardId, CardLimitsRequest request);
+
     CardDto requestCardBlock(Long cardId, String username);
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+package com.example.bankcards.service;
+
+import java.math.BigDecimal;
+
+public interface FxRateService {
+    Conversion convert(BigDecimal amount, String fromCurrency, String toCurrency);
+
+    boolean isSupported(String currency);
+
+    int refresh();
+
+    /**
+     * The converted amount, rounded to cents, and the rate it was converted at.
+     */
+    record Conversion(BigDecimal rate, BigDecimal amount) {
+    }
+}
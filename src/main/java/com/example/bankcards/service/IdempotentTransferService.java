@@ -0,0 +1,8 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.TransactionDto;
+import com.example.bankcards.dto.TransferRequestDto;
+
+public interface IdempotentTransferService {
+    TransactionDto transfer(String username, String idempotencyKey, TransferRequestDto request);
+}
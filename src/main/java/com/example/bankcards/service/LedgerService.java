@@ -0,0 +1,15 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.CardBalanceDto;
+import com.example.bankcards.entity.Transaction;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface LedgerService {
+    void recordTransfers(List<Transaction> transactions);
+
+    CardBalanceDto getBalance(Long cardId, String username, LocalDateTime at);
+
+    int compactSnapshots();
+}
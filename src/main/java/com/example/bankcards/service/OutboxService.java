@@ -0,0 +1,19 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.Transaction;
+import com.example.bankcards.entity.enums.OutboxEventType;
+
+import java.util.List;
+
+public interface OutboxService {
+    void recordTransfers(List<Transaction> transactions);
+
+    void recordCardEvent(OutboxEventType type, Card card);
+
+    void recordCardDeleted(Long cardId);
+
+    void recordCardsExpired(List<Long> cardIds);
+
+    int relay();
+}
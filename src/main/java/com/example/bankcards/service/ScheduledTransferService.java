@@ -0,0 +1,14 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.ScheduledTransferDto;
+import com.example.bankcards.dto.ScheduledTransferRequestDto;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+public interface ScheduledTransferService {
+    ScheduledTransferDto createScheduledTransfer(String username, ScheduledTransferRequestDto request);
+
+    Page<ScheduledTransferDto> getScheduledTransfers(String username, Pageable pageable);
+
+    ScheduledTransferDto cancelScheduledTransfer(Long scheduleId, String username);
+}
@@ -0,0 +1,14 @@
+package com.example.bankcards.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+
+public interface StatementExportService {
+    StreamingResponseBody exportCardStatement(Long cardId, String username, LocalDate from, LocalDate to, Format format);
+
+    enum Format {
+        NDJSON,
+        CSV
+    }
+}
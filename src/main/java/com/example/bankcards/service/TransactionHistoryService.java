@@ -0,0 +1,9 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.TransactionPageDto;
+
+public interface TransactionHistoryService {
+    TransactionPageDto getUserTransactions(Long userId, String cursor, int size);
+
+    TransactionPageDto getCardTransactions(Long cardId, String username, String cursor, int size);
+}
@@ -0,0 +1,18 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.CardTurnoverDto;
+import com.example.bankcards.dto.TurnoverRebuildDto;
+import com.example.bankcards.entity.LedgerEntry;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface TurnoverService {
+    void recordEntries(List<LedgerEntry> entries);
+
+    CardTurnoverDto getCardTurnover(Long cardId, String username, LocalDate from, LocalDate to);
+
+    int foldDeltas();
+
+    TurnoverRebuildDto rebuild();
+}
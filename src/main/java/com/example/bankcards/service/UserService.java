@@ -1,8 +1,18 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.dto.ChangePasswordRequestDto;
 import com.example.bankcards.dto.RegistrationRequestDto;
+import com.example.bankcards.dto.UpdateUserRolesRequestDto;
 import com.example.bankcards.dto.UserDto;
 
 public interface UserService {
     UserDto registerNewUser(RegistrationRequestDto requestDto);
-}
\ No newline at end of file
+
+    void revokeTokens(Long userId);
+
+    void changePassword(String username, ChangePasswordRequestDto requestDto);
+
+    UserDto setEnabled(Long userId, boolean enabled);
+
+    UserDto updateRoles(Long userId, UpdateUserRolesRequestDto requestDto);
+}
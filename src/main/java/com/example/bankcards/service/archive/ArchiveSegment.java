@@ -0,0 +1,276 @@
+package com.example.bankcards.service.archive;
+
+import com.example.bankcards.dto.StatementLineDto;
+import com.example.bankcards.entity.enums.TransactionStatus;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * One immutable archive file: deflated blocks of records per card, with a sparse block index at the end.
+ */
+class ArchiveSegment {
+
+    static final int MAGIC = 0x424b4152;
+    private static final byte VERSION = 2;
+    private static final int FOOTER_SIZE = Long.BYTES + Integer.BYTES;
+    private static final long NO_CARD = 0L;
+    private static final long NO_AMOUNT = Long.MIN_VALUE;
+    private static final TransactionStatus[] STATUSES = TransactionStatus.values();
+
+    private final Path path;
+    private final byte version;
+    private final MappedByteBuffer buffer;
+    // Ordered by card, then by the first timestamp of the block.
+    private final List<Block> index;
+
+    private ArchiveSegment(Path path, byte version, MappedByteBuffer buffer, List<Block> index) {
+        this.path = path;
+        this.version = version;
+        this.buffer = buffer;
+        this.index = index;
+    }
+
+    record Block(long cardId, long firstMicros, long lastMicros, long offset, int length, int rawLength, int records) {
+    }
+
+    Path path() {
+        return path;
+    }
+
+    static void write(Path target, List<StatementLineDto> lines, int blockRecords) throws IOException {
+        Map<Long, List<StatementLineDto>> byCard = new TreeMap<>();
+        for (StatementLineDto line : lines) {
+            if (line.getCardFromId() != null) {
+                byCard.computeIfAbsent(line.getCardFromId(), id -> new ArrayList<>()).add(line);
+            }
+            if (line.getCardToId() != null && !line.getCardToId().equals(line.getCardFromId())) {
+                byCard.computeIfAbsent(line.getCardToId(), id -> new ArrayList<>()).add(line);
+            }
+        }
+
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(Integer.BYTES + 1).putInt(MAGIC).put(VERSION).flip();
+            writeFully(channel, header);
+
+            List<Block> blocks = new ArrayList<>();
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            try {
+                for (Map.Entry<Long, List<StatementLineDto>> card : byCard.entrySet()) {
+                    List<StatementLineDto> cardLines = card.getValue();
+                    cardLines.sort(Comparator.comparing(StatementLineDto::getCreatedAt).thenComparing(StatementLineDto::getId));
+                    for (int start = 0; start < cardLines.size(); start += blockRecords) {
+                        List<StatementLineDto> chunk = cardLines.subList(start, Math.min(start + blockRecords, cardLines.size()));
+                        byte[] raw = encode(chunk);
+                        byte[] compressed = deflate(deflater, raw);
+                        blocks.add(new Block(card.getKey(), toMicros(chunk.get(0).getCreatedAt()),
+                                toMicros(chunk.get(chunk.size() - 1).getCreatedAt()), channel.position(),
+                                compressed.length, raw.length, chunk.size()));
+                        writeFully(channel, ByteBuffer.wrap(compressed));
+                    }
+                }
+            } finally {
+                deflater.end();
+            }
+
+            long indexOffset = channel.position();
+            ByteBuffer trailer = ByteBuffer.allocate(Integer.BYTES + blocks.size() * (4 * Long.BYTES + 3 * Integer.BYTES) + FOOTER_SIZE);
+            trailer.putInt(blocks.size());
+            for (Block block : blocks) {
+                trailer.putLong(block.cardId()).putLong(block.firstMicros()).putLong(block.lastMicros())
+                        .putLong(block.offset()).putInt(block.length()).putInt(block.rawLength()).putInt(block.records());
+            }
+            trailer.putLong(indexOffset).putInt(MAGIC).flip();
+            writeFully(channel, trailer);
+            channel.force(true);
+        }
+    }
+
+    static ArchiveSegment open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.limit() < Integer.BYTES + 1 + FOOTER_SIZE || buffer.getInt(0) != MAGIC
+                    || buffer.getInt(buffer.limit() - Integer.BYTES) != MAGIC) {
+                throw new IOException("Not an archive segment: " + path);
+            }
+            byte version = buffer.get(Integer.BYTES);
+            if (version < 1 || version > VERSION) {
+                throw new IOException("Unsupported archive segment version " + version + ": " + path);
+            }
+            ByteBuffer trailer = buffer.duplicate().position((int) buffer.getLong(buffer.limit() - FOOTER_SIZE));
+            int count = trailer.getInt();
+            List<Block> index = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                index.add(new Block(trailer.getLong(), trailer.getLong(), trailer.getLong(), trailer.getLong(),
+                        trailer.getInt(), trailer.getInt(), trailer.getInt()));
+            }
+            return new ArchiveSegment(path, version, buffer, index);
+        }
+    }
+
+    // Blocks of the card that may hold records with fromMicros <= createdAt < toMicros.
+    List<Block> blocks(long cardId, long fromMicros, long toMicros) {
+        int low = 0;
+        int high = index.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (index.get(middle).cardId() < cardId) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        List<Block> blocks = new ArrayList<>();
+        for (int i = low; i < index.size() && index.get(i).cardId() == cardId; i++) {
+            Block block = index.get(i);
+            if (block.lastMicros() >= fromMicros && block.firstMicros() < toMicros) {
+                blocks.add(block);
+            }
+        }
+        return blocks;
+    }
+
+    List<StatementLineDto> read(Block block) {
+        byte[] compressed = new byte[block.length()];
+        buffer.get((int) block.offset(), compressed);
+        byte[] raw = new byte[block.rawLength()];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            inflater.inflate(raw);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt block at " + block.offset() + " in archive segment " + path, e);
+        } finally {
+            inflater.end();
+        }
+
+        ByteBuffer records = ByteBuffer.wrap(raw);
+        List<StatementLineDto> lines = new ArrayList<>(block.records());
+        while (records.hasRemaining()) {
+            int end = records.getInt() + records.position();
+            long id = records.getLong();
+            LocalDateTime createdAt = fromMicros(records.getLong());
+            Long cardFromId = toId(records.getLong());
+            Long cardToId = toId(records.getLong());
+            BigDecimal amount = BigDecimal.valueOf(records.getLong(), 2);
+            TransactionStatus status = STATUSES[records.get()];
+            String currency = readString(records);
+            String description = readString(records);
+            BigDecimal creditedAmount = null;
+            String creditedCurrency = null;
+            BigDecimal fxRate = null;
+            if (version >= 2) {
+                long credited = records.getLong();
+                creditedAmount = credited == NO_AMOUNT ? null : BigDecimal.valueOf(credited, 2);
+                creditedCurrency = readString(records);
+                String rate = readString(records);
+                fxRate = rate == null ? null : new BigDecimal(rate);
+            }
+            lines.add(new StatementLineDto(id, createdAt, cardFromId, cardToId, amount, currency, status, description,
+                    creditedAmount, creditedCurrency, fxRate));
+            records.position(end);
+        }
+        return lines;
+    }
+
+    static long toMicros(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + dateTime.getNano() / 1_000;
+    }
+
+    static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000), (int) Math.floorMod(micros, 1_000_000) * 1_000, ZoneOffset.UTC);
+    }
+
+    private static byte[] encode(List<StatementLineDto> lines) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(lines.size() * 96);
+        for (StatementLineDto line : lines) {
+            byte[] currency = bytes(line.getCurrency());
+            byte[] description = bytes(line.getDescription());
+            byte[] creditedCurrency = bytes(line.getCreditedCurrency());
+            byte[] fxRate = bytes(line.getFxRate() == null ? null : line.getFxRate().toPlainString());
+            int length = 6 * Long.BYTES + 1 + 4 * Short.BYTES + sizeOf(currency) + sizeOf(description)
+                    + sizeOf(creditedCurrency) + sizeOf(fxRate);
+            ByteBuffer record = ByteBuffer.allocate(Integer.BYTES + length)
+                    .putInt(length)
+                    .putLong(line.getId())
+                    .putLong(toMicros(line.getCreatedAt()))
+                    .putLong(line.getCardFromId() == null ? NO_CARD : line.getCardFromId())
+                    .putLong(line.getCardToId() == null ? NO_CARD : line.getCardToId())
+                    .putLong(line.getAmount().movePointRight(2).longValueExact())
+                    .put((byte) line.getStatus().ordinal());
+            putString(record, currency);
+            putString(record, description);
+            record.putLong(line.getCreditedAmount() == null ? NO_AMOUNT : line.getCreditedAmount().movePointRight(2).longValueExact());
+            putString(record, creditedCurrency);
+            putString(record, fxRate);
+            out.writeBytes(record.array());
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] deflate(Deflater deflater, byte[] raw) {
+        deflater.reset();
+        deflater.setInput(raw);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2 + 64);
+        byte[] chunk = new byte[8192];
+        while (!deflater.finished()) {
+            out.write(chunk, 0, deflater.deflate(chunk));
+        }
+        return out.toByteArray();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    // Null is stored as length -1.
+    private static byte[] bytes(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int sizeOf(byte[] value) {
+        return value == null ? 0 : value.length;
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] value) {
+        if (value == null) {
+            buffer.putShort((short) -1);
+        } else {
+            buffer.putShort((short) value.length).put(value);
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        short length = buffer.getShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] value = new byte[length];
+        buffer.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    private static Long toId(long value) {
+        return value == NO_CARD ? null : value;
+    }
+}
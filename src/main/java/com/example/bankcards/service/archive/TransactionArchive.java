@@ -0,0 +1,135 @@
+package com.example.bankcards.service.archive;
+
+import com.example.bankcards.dto.StatementLineDto;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Cold storage of transactions in immutable segment files, read back in (created_at, id) order.
+ */
+public class TransactionArchive {
+
+    private static final String SUFFIX = ".archive";
+    private static final Comparator<StatementLineDto> OLDEST_FIRST = Comparator
+            .comparing(StatementLineDto::getCreatedAt)
+            .thenComparing(StatementLineDto::getId);
+
+    private final Path directory;
+    private final int blockRecords;
+    private final List<ArchiveSegment> segments = new CopyOnWriteArrayList<>();
+    private long nextSegment = 1;
+
+    public TransactionArchive(Path directory, int blockRecords) {
+        this.directory = directory;
+        this.blockRecords = blockRecords;
+    }
+
+    public synchronized void open() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path path : files.sorted().toList()) {
+                String name = path.getFileName().toString();
+                if (name.endsWith(".tmp")) {
+                    Files.delete(path); // a write that never completed
+                } else if (name.endsWith(SUFFIX)) {
+                    segments.add(ArchiveSegment.open(path));
+                    nextSegment = Long.parseLong(name.substring(0, name.length() - SUFFIX.length())) + 1;
+                }
+            }
+        }
+    }
+
+    public synchronized void close() {
+        segments.clear();
+    }
+
+    /**
+     * Writes the lines as a new segment. The segment becomes visible only once it is completely on disk.
+     */
+    public synchronized void append(List<StatementLineDto> lines) throws IOException {
+        if (lines.isEmpty()) {
+            return;
+        }
+        Files.createDirectories(directory);
+        String name = String.format("%020d", nextSegment);
+        Path temporary = directory.resolve(name + ".tmp");
+        Path target = directory.resolve(name + SUFFIX);
+        ArchiveSegment.write(temporary, lines, blockRecords);
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+        segments.add(ArchiveSegment.open(target));
+        nextSegment++;
+    }
+
+    /**
+     * Passes the archived transactions of the card with {@code from <= createdAt < to} to the consumer,
+     * oldest first, until it returns false.
+     */
+    public void forEach(Long cardId, LocalDateTime from, LocalDateTime to, Predicate<StatementLineDto> consumer) {
+        scan(cardId, ArchiveSegment.toMicros(from), ArchiveSegment.toMicros(to), false, line -> true, consumer);
+    }
+
+    /**
+     * Returns up to {@code limit} archived transactions of the card that come before the given position, newest first.
+     */
+    public List<StatementLineDto> findBefore(Long cardId, LocalDateTime createdAt, long id, int limit) {
+        List<StatementLineDto> lines = new ArrayList<>(limit);
+        scan(cardId, Long.MIN_VALUE, ArchiveSegment.toMicros(createdAt) + 1, true,
+                line -> line.getCreatedAt().isBefore(createdAt) || line.getCreatedAt().isEqual(createdAt) && line.getId() < id,
+                line -> lines.add(line) && lines.size() < limit);
+        return lines;
+    }
+
+    private void scan(long cardId, long fromMicros, long toMicros, boolean descending,
+                      Predicate<StatementLineDto> filter, Predicate<StatementLineDto> consumer) {
+        List<Map.Entry<ArchiveSegment, ArchiveSegment.Block>> blocks = new ArrayList<>();
+        for (ArchiveSegment segment : segments) {
+            segment.blocks(cardId, fromMicros, toMicros).forEach(block -> blocks.add(Map.entry(segment, block)));
+        }
+        if (blocks.isEmpty()) {
+            return;
+        }
+        Comparator<Map.Entry<ArchiveSegment, ArchiveSegment.Block>> order = descending
+                ? Comparator.comparingLong(entry -> -entry.getValue().lastMicros())
+                : Comparator.comparingLong(entry -> entry.getValue().firstMicros());
+        blocks.sort(order);
+
+        // Blocks of different segments may overlap in time. A buffered line is released only once no block
+        // still to be read can hold anything that sorts before it.
+        TreeSet<StatementLineDto> pending = new TreeSet<>(OLDEST_FIRST);
+        for (int i = 0; i < blocks.size(); i++) {
+            for (StatementLineDto line : blocks.get(i).getKey().read(blocks.get(i).getValue())) {
+                long micros = ArchiveSegment.toMicros(line.getCreatedAt());
+                if (micros >= fromMicros && micros < toMicros && filter.test(line)) {
+                    pending.add(line);
+                }
+            }
+            boolean last = i == blocks.size() - 1;
+            long boundary = last ? 0 : descending ? blocks.get(i + 1).getValue().lastMicros() : blocks.get(i + 1).getValue().firstMicros();
+            while (!pending.isEmpty()) {
+                StatementLineDto next = descending ? pending.last() : pending.first();
+                long micros = ArchiveSegment.toMicros(next.getCreatedAt());
+                if (!last && (descending ? micros <= boundary : micros >= boundary)) {
+                    break;
+                }
+                pending.remove(next);
+                if (!consumer.test(next)) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.bankcards.service.archive;
+
+import com.example.bankcards.dto.StatementLineDto;
+import com.example.bankcards.entity.enums.TransactionStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Moves settled transactions past the configured age from the database into the {@link TransactionArchive}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "bankcards.archive.enabled", havingValue = "true")
+public class TransactionArchiver {
+
+    private static final String SELECT_LINES = "select id, created_at, card_from_id, card_to_id, amount, currency, status, " +
+            "description, credited_amount, credited_currency, fx_rate ";
+    private static final RowMapper<StatementLineDto> LINE_MAPPER = (rs, rowNum) -> new StatementLineDto(rs.getLong("id"),
+            rs.getTimestamp("created_at").toLocalDateTime(), rs.getObject("card_from_id", Long.class),
+            rs.getObject("card_to_id", Long.class), rs.getBigDecimal("amount"), rs.getString("currency"),
+            TransactionStatus.valueOf(rs.getString("status")), rs.getString("description"),
+            rs.getBigDecimal("credited_amount"), rs.getString("credited_currency"), rs.getBigDecimal("fx_rate"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionArchive archive;
+    private final int minAgeDays;
+    private final int chunkSize;
+
+    public TransactionArchiver(JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               TransactionArchive archive,
+                               @Value("${bankcards.archive.min-age-days:365}") int minAgeDays,
+                               @Value("${bankcards.archive.chunk-size:10000}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.archive = archive;
+        this.minAgeDays = minAgeDays;
+        this.chunkSize = chunkSize;
+    }
+
+    @Scheduled(fixedDelayString = "${bankcards.archive.interval-ms:3600000}", initialDelayString = "${bankcards.archive.interval-ms:3600000}")
+    public void archiveOldTransactions() {
+        int archived = archiveOlderThan(LocalDateTime.now().minusDays(minAgeDays));
+        if (archived > 0) {
+            log.info("Archived {} transactions older than {} days", archived, minAgeDays);
+        }
+    }
+
+    public int archiveOlderThan(LocalDateTime cutoff) {
+        int total = 0;
+        Integer moved;
+        do {
+            moved = transactionTemplate.execute(status -> archiveChunk(cutoff));
+            total += moved;
+        } while (moved == chunkSize);
+        return total;
+    }
+
+    private int archiveChunk(LocalDateTime cutoff) {
+        List<StatementLineDto> lines = jdbcTemplate.query(SELECT_LINES + "from transactions " +
+                "where created_at < ? and status <> 'PENDING' order by created_at, id limit ? for update",
+                LINE_MAPPER, Timestamp.valueOf(cutoff), chunkSize);
+        if (lines.isEmpty()) {
+            return 0;
+        }
+        append(lines);
+        // On PostgreSQL the foreign keys no longer cascade (see the partitioning migration), so a replayed key
+        // would find its transaction gone.
+        jdbcTemplate.batchUpdate("delete from idempotency_keys where transaction_id = ?", lines, lines.size(),
+                (ps, line) -> ps.setLong(1, line.getId()));
+        jdbcTemplate.batchUpdate("update ledger_entries set transaction_id = null where transaction_id = ?", lines,
+                lines.size(), (ps, line) -> ps.setLong(1, line.getId()));
+        // created_at lets PostgreSQL go straight to the right monthly partition.
+        jdbcTemplate.batchUpdate("delete from transactions where id = ? and created_at = ?", lines, lines.size(),
+                (ps, line) -> {
+                    ps.setLong(1, line.getId());
+                    ps.setTimestamp(2, Timestamp.valueOf(line.getCreatedAt()));
+                });
+        return lines.size();
+    }
+
+    /**
+     * Copies every row of the table, e.g. a partition about to leave {@code transactions}, into the archive
+     * without deleting anything. Exporting the same rows again is harmless.
+     */
+    public int exportTable(String table) {
+        int total = 0;
+        StatementLineDto last = null;
+        while (true) {
+            List<StatementLineDto> lines = last == null
+                    ? jdbcTemplate.query(SELECT_LINES + "from " + table + " order by created_at, id limit ?", LINE_MAPPER, chunkSize)
+                    : jdbcTemplate.query(SELECT_LINES + "from " + table + " where (created_at, id) > (?, ?) " +
+                    "order by created_at, id limit ?", LINE_MAPPER, Timestamp.valueOf(last.getCreatedAt()), last.getId(), chunkSize);
+            append(lines);
+            total += lines.size();
+            if (lines.size() < chunkSize) {
+                return total;
+            }
+            last = lines.get(lines.size() - 1);
+        }
+    }
+
+    private void append(List<StatementLineDto> lines) {
+        try {
+            archive.append(lines);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write archive segment", e);
+        }
+    }
+}
@@ -0,0 +1,511 @@
+package com.example.bankcards.service.engine;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.Transaction;
+import com.example.bankcards.entity.enums.CardStatus;
+import com.example.bankcards.entity.enums.LedgerEntryType;
+import com.example.bankcards.entity.enums.TransactionStatus;
+import com.example.bankcards.exception.InsufficientFundsException;
+import com.example.bankcards.exception.InvalidOperationException;
+import com.example.bankcards.exception.ResourceNotFoundException;
+import com.example.bankcards.service.OutboxService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedTransferQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory card balances with a write-ahead journal, written behind to the database; single instance only.
+ */
+@Slf4j
+public class BalanceEngine {
+
+    public static final String DESCRIPTION = "Transfer between own cards";
+
+    private static final int ID_BLOCK_SIZE = 50;
+    private static final int MAX_JOURNAL_GROUP = 1024;
+    private static final Runnable STOP = () -> { };
+    private static final Transfer STOP_TRANSFER = new Transfer(0, 0, 0, 0);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboxService outboxService;
+    private final BalanceJournal journal;
+    private final Partition[] partitions;
+    private final LinkedTransferQueue<Transfer> journalQueue = new LinkedTransferQueue<>();
+    private final ConcurrentLinkedQueue<JournalRecord> unflushed = new ConcurrentLinkedQueue<>();
+    private final int flushBatchSize;
+    private final long flushIntervalMs;
+
+    private ScheduledExecutorService flusher;
+    private Thread journalWriter;
+    private volatile boolean running;
+    private volatile Throwable failure;
+
+    // Owned by the journal writer thread.
+    private long sequence;
+    private long nextTransactionId;
+    private long transactionIdLimit;
+
+    // Guarded by flushLock; a batch that failed to flush is retried before newer records.
+    private final Object flushLock = new Object();
+    private List<JournalRecord> flushing = List.of();
+
+    public BalanceEngine(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, OutboxService outboxService,
+                         Path journalDirectory, boolean fsync, long segmentSizeBytes, int partitionCount, int flushBatchSize,
+                         long flushIntervalMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.outboxService = outboxService;
+        this.journal = new BalanceJournal(journalDirectory, fsync, segmentSizeBytes);
+        this.flushBatchSize = flushBatchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.partitions = new Partition[partitionCount];
+        for (int i = 0; i < partitionCount; i++) {
+            partitions[i] = new Partition();
+        }
+    }
+
+    public synchronized void start() throws IOException {
+        recover();
+        for (int i = 0; i < partitions.length; i++) {
+            partitions[i].thread = startThread(partitions[i], "balance-partition-" + i);
+        }
+        journalWriter = startThread(this::writeJournal, "balance-journal");
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "balance-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        running = true;
+    }
+
+    public synchronized void stop() throws InterruptedException, IOException {
+        if (journalWriter == null) {
+            return;
+        }
+        running = false;
+        for (Partition partition : partitions) {
+            partition.execute(STOP);
+        }
+        for (Partition partition : partitions) {
+            partition.thread.join();
+        }
+        journalQueue.add(STOP_TRANSFER);
+        journalWriter.join();
+        flusher.shutdown();
+        flusher.awaitTermination(flushIntervalMs * 10, TimeUnit.MILLISECONDS);
+        flushQuietly();
+        journal.close();
+        journalWriter = null;
+    }
+
+    /**
+     * Completes with the journaled transfer, or exceptionally with the reason the transfer was refused.
+     */
+    public CompletableFuture<JournalRecord> submit(long userId, long fromCardId, long toCardId, BigDecimal amount) {
+        if (failure != null) {
+            throw new IllegalStateException("Balance engine stopped after a journal failure.", failure);
+        }
+        if (!running) {
+            throw new IllegalStateException("Balance engine is not running.");
+        }
+        Transfer transfer = new Transfer(userId, fromCardId, toCardId,
+                amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+        Partition source = partitionOf(fromCardId);
+        source.execute(() -> debit(source, transfer));
+        return transfer.future;
+    }
+
+    public void updateStatus(long cardId, CardStatus status) {
+        Partition partition = partitionOf(cardId);
+        partition.execute(() -> {
+            CardState card = partition.cards.get(cardId);
+            if (card != null) {
+                card.status = status;
+            }
+        });
+    }
+
+    public void forget(long cardId) {
+        Partition partition = partitionOf(cardId);
+        partition.execute(() -> partition.cards.remove(cardId));
+    }
+
+    /**
+     * Writes every journaled transfer to the database.
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            flushPending();
+        }
+    }
+
+    private void flushPending() {
+        while (true) {
+            if (flushing.isEmpty()) {
+                List<JournalRecord> batch = new ArrayList<>();
+                JournalRecord record;
+                while (batch.size() < flushBatchSize && (record = unflushed.poll()) != null) {
+                    batch.add(record);
+                }
+                if (batch.isEmpty()) {
+                    return;
+                }
+                flushing = batch;
+            }
+            writeToDatabase(flushing);
+            long flushedSequence = flushing.get(flushing.size() - 1).sequence();
+            flushing = List.of();
+            try {
+                journal.deleteSegmentsUpTo(flushedSequence);
+            } catch (IOException e) {
+                log.warn("Could not delete flushed journal segments", e);
+            }
+        }
+    }
+
+    public static BigDecimal toAmount(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    public static LocalDateTime toDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    private void debit(Partition partition, Transfer transfer) {
+        try {
+            CardState card = partition.card(transfer.fromCardId);
+            RuntimeException rejection = rejection(card, transfer.fromCardId, transfer.userId);
+            if (rejection == null && card.balanceCents < transfer.amountCents) {
+                rejection = new InsufficientFundsException("Insufficient funds on card " + transfer.fromCardId);
+            }
+            if (rejection != null) {
+                transfer.future.completeExceptionally(rejection);
+                return;
+            }
+            card.balanceCents -= transfer.amountCents;
+            transfer.currency = card.currency;
+        } catch (RuntimeException e) {
+            transfer.future.completeExceptionally(e);
+            return;
+        }
+        Partition target = partitionOf(transfer.toCardId);
+        target.execute(() -> credit(target, transfer));
+    }
+
+    private void credit(Partition partition, Transfer transfer) {
+        RuntimeException rejection;
+        CardState card = null;
+        try {
+            card = partition.card(transfer.toCardId);
+            rejection = rejection(card, transfer.toCardId, transfer.userId);
+            // Journal records carry a single amount, so both cards have to hold the same currency.
+            if (rejection == null && !card.currency.equals(transfer.currency)) {
+                rejection = new InvalidOperationException("Cross-currency transfers are not supported while the in-memory balance engine is enabled.");
+            }
+        } catch (RuntimeException e) {
+            rejection = e;
+        }
+        if (rejection != null) {
+            Partition source = partitionOf(transfer.fromCardId);
+            source.execute(() -> refund(source, transfer));
+            transfer.future.completeExceptionally(rejection);
+            return;
+        }
+        card.balanceCents += transfer.amountCents;
+        // Enqueued while the credit is only visible to this partition, so anything spending the credited money
+        // is journaled after this transfer and a replay can never overdraw a card.
+        journalQueue.add(transfer);
+    }
+
+    private void refund(Partition partition, Transfer transfer) {
+        CardState card = partition.cards.get(transfer.fromCardId);
+        if (card != null) {
+            card.balanceCents += transfer.amountCents;
+        }
+    }
+
+    private RuntimeException rejection(CardState card, long cardId, long userId) {
+        if (card == null || card.ownerId != userId) {
+            return new ResourceNotFoundException("Card with id " + cardId + " not found or does not belong to user " + userId);
+        }
+        if (card.status != CardStatus.ACTIVE) {
+            return new InvalidOperationException("Card " + cardId + " is not active. Current status: " + card.status);
+        }
+        return null;
+    }
+
+    private void writeJournal() {
+        List<Transfer> group = new ArrayList<>();
+        try {
+            while (true) {
+                group.add(journalQueue.take());
+                journalQueue.drainTo(group, MAX_JOURNAL_GROUP - 1);
+                boolean stopping = group.remove(STOP_TRANSFER);
+                if (!group.isEmpty()) {
+                    appendGroup(group);
+                }
+                if (stopping) {
+                    return;
+                }
+                group.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException e) {
+            // The in-memory balances are now ahead of the journal, so the engine stops; a restart replays the journal.
+            log.error("Balance journal write failed, the engine stops accepting transfers", e);
+            failure = e;
+            running = false;
+            group.forEach(transfer -> transfer.future.completeExceptionally(
+                    new IllegalStateException("Balance journal write failed.", e)));
+        }
+    }
+
+    // One fsync covers the whole group of transfers that queued up while the previous group was written.
+    private void appendGroup(List<Transfer> group) throws IOException {
+        long now = System.currentTimeMillis();
+        List<JournalRecord> records = new ArrayList<>(group.size());
+        for (Transfer transfer : group) {
+            records.add(new JournalRecord(++sequence, nextTransactionId(), transfer.fromCardId, transfer.toCardId,
+                    transfer.amountCents, now));
+        }
+        journal.append(records);
+        unflushed.addAll(records);
+        for (int i = 0; i < group.size(); i++) {
+            group.get(i).future.complete(records.get(i));
+        }
+    }
+
+    // Takes ids from the shared sequence in the same blocks as Hibernate's pooled-lo optimizer.
+    private long nextTransactionId() {
+        if (nextTransactionId == transactionIdLimit) {
+            nextTransactionId = jdbcTemplate.queryForObject("select nextval('transactions_id_seq')", Long.class);
+            transactionIdLimit = nextTransactionId + ID_BLOCK_SIZE;
+        }
+        return nextTransactionId++;
+    }
+
+    private void recover() throws IOException {
+        long checkpoint = jdbcTemplate.queryForObject(
+                "select last_sequence from balance_engine_checkpoint where id = 1", Long.class);
+        List<JournalRecord> records = journal.readAll();
+        List<JournalRecord> pending = records.stream()
+                .filter(record -> record.sequence() > checkpoint)
+                .toList();
+        for (int from = 0; from < pending.size(); from += flushBatchSize) {
+            writeToDatabase(pending.subList(from, Math.min(from + flushBatchSize, pending.size())));
+        }
+        if (!pending.isEmpty()) {
+            log.info("Replayed {} journaled transfers into the database", pending.size());
+        }
+        journal.deleteExistingSegments();
+        sequence = records.isEmpty() ? checkpoint : Math.max(checkpoint, records.get(records.size() - 1).sequence());
+        journal.open(sequence + 1);
+    }
+
+    private void writeToDatabase(List<JournalRecord> records) {
+        // Card rows are updated in ascending id order, like the JPA transfer path.
+        Map<Long, Long> deltas = new TreeMap<>();
+        for (JournalRecord record : records) {
+            deltas.merge(record.fromCardId(), -record.amountCents(), Long::sum);
+            deltas.merge(record.toCardId(), record.amountCents(), Long::sum);
+        }
+        List<Object[]> balanceUpdates = deltas.entrySet().stream()
+                .map(delta -> new Object[]{toAmount(delta.getValue()), delta.getKey()})
+                .toList();
+        // A card deleted before the flush is stored as null, as ON DELETE SET NULL would have done.
+        List<Object[]> inserts = records.stream()
+                .map(record -> new Object[]{record.transactionId(), record.fromCardId(), record.toCardId(),
+                        toAmount(record.amountCents()), record.fromCardId(), TransactionStatus.COMPLETED.name(), DESCRIPTION,
+                        Timestamp.valueOf(toDateTime(record.createdAtMillis()))})
+                .toList();
+        List<Object[]> ledgerEntries = new ArrayList<>(records.size() * 2);
+        for (JournalRecord record : records) {
+            Timestamp createdAt = Timestamp.valueOf(toDateTime(record.createdAtMillis()));
+            BigDecimal amount = toAmount(record.amountCents());
+            ledgerEntries.add(new Object[]{record.transactionId(), LedgerEntryType.DEBIT.name(), amount, createdAt, record.fromCardId()});
+            ledgerEntries.add(new Object[]{record.transactionId(), LedgerEntryType.CREDIT.name(), amount, createdAt, record.toCardId()});
+        }
+        // Daily turnover shares, one delta row per card and day of the batch.
+        Map<TurnoverDay, long[]> turnover = new HashMap<>();
+        for (JournalRecord record : records) {
+            LocalDate date = toDateTime(record.createdAtMillis()).toLocalDate();
+            long[] outbound = turnover.computeIfAbsent(new TurnoverDay(record.fromCardId(), date), day -> new long[4]);
+            outbound[2] += record.amountCents();
+            outbound[3]++;
+            long[] inbound = turnover.computeIfAbsent(new TurnoverDay(record.toCardId(), date), day -> new long[4]);
+            inbound[0] += record.amountCents();
+            inbound[1]++;
+        }
+        List<Object[]> turnoverDeltas = turnover.entrySet().stream()
+                .map(day -> new Object[]{Date.valueOf(day.getKey().date()), toAmount(day.getValue()[0]), day.getValue()[1],
+                        toAmount(day.getValue()[2]), day.getValue()[3], day.getKey().cardId()})
+                .toList();
+        long lastSequence = records.get(records.size() - 1).sequence();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate("update cards set balance = balance + ?, version = version + 1 where id = ?",
+                    balanceUpdates);
+            jdbcTemplate.batchUpdate("insert into transactions (id, card_from_id, card_to_id, amount, currency, status, description, created_at) " +
+                    "values (?, (select id from cards where id = ?), (select id from cards where id = ?), ?, " +
+                    "coalesce((select currency from cards where id = ?), 'BYN'), ?, ?, ?)", inserts);
+            jdbcTemplate.batchUpdate("insert into ledger_entries (id, card_id, transaction_id, entry_type, amount, created_at) " +
+                    "select nextval('ledger_entries_id_seq'), id, ?, ?, ?, ? from cards where id = ?", ledgerEntries);
+            jdbcTemplate.batchUpdate("insert into card_turnover_deltas (card_id, turnover_date, inbound_amount, inbound_count, outbound_amount, outbound_count) " +
+                    "select id, ?, ?, ?, ?, ? from cards where id = ?", turnoverDeltas);
+            outboxService.recordTransfers(completedTransfers(records, deltas.keySet()));
+            jdbcTemplate.update("update balance_engine_checkpoint set last_sequence = ? where id = 1", lastSequence);
+        });
+    }
+
+    // The events of the batch, with the currency the insert took from the source card.
+    private List<Transaction> completedTransfers(List<JournalRecord> records, Collection<Long> cardIds) {
+        Map<Long, String> currencies = new HashMap<>();
+        String placeholders = String.join(",", Collections.nCopies(cardIds.size(), "?"));
+        jdbcTemplate.query("select id, currency from cards where id in (" + placeholders + ")",
+                (RowCallbackHandler) rs -> currencies.put(rs.getLong(1), rs.getString(2)), cardIds.toArray());
+        List<Transaction> transactions = new ArrayList<>(records.size());
+        for (JournalRecord record : records) {
+            Transaction transaction = new Transaction();
+            transaction.setId(record.transactionId());
+            transaction.setCardFrom(cardReference(record.fromCardId()));
+            transaction.setCardTo(cardReference(record.toCardId()));
+            transaction.setAmount(toAmount(record.amountCents()));
+            transaction.setCurrency(currencies.getOrDefault(record.fromCardId(), "BYN"));
+            transaction.setStatus(TransactionStatus.COMPLETED);
+            transaction.setCreatedAt(toDateTime(record.createdAtMillis()));
+            transactions.add(transaction);
+        }
+        return transactions;
+    }
+
+    private static Card cardReference(long cardId) {
+        Card card = new Card();
+        card.setId(cardId);
+        return card;
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Balance engine flush failed, it will be retried", e);
+        }
+    }
+
+    private Partition partitionOf(long cardId) {
+        return partitions[(int) Math.floorMod(cardId, (long) partitions.length)];
+    }
+
+    private static Thread startThread(Runnable task, String name) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    private final class Partition implements Runnable {
+
+        private final LinkedTransferQueue<Runnable> queue = new LinkedTransferQueue<>();
+        private final Map<Long, CardState> cards = new HashMap<>();
+        private Thread thread;
+
+        void execute(Runnable task) {
+            queue.add(task);
+        }
+
+        // Loaded from the database on first use; from then on the partition owns the balance.
+        CardState card(long cardId) {
+            CardState card = cards.get(cardId);
+            if (card == null) {
+                // Money parked in the slots of a striped card is part of its balance.
+                String sql = "select c.owner_id, c.status, c.currency, c.balance + " +
+                        "(select coalesce(sum(s.balance), 0) from card_balance_slots s where s.card_id = c.id) " +
+                        "from cards c where c.id = ?";
+                card = jdbcTemplate.query(sql, (rs, rowNum) -> new CardState(rs.getLong(1), CardStatus.valueOf(rs.getString(2)),
+                                rs.getString(3), rs.getBigDecimal(4).setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact()), cardId)
+                        .stream().findFirst().orElse(null);
+                if (card != null) {
+                    cards.put(cardId, card);
+                }
+            }
+            return card;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    Runnable task = queue.take();
+                    if (task == STOP) {
+                        return;
+                    }
+                    task.run();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static final class CardState {
+        private final long ownerId;
+        private final String currency;
+        private CardStatus status;
+        private long balanceCents;
+
+        CardState(long ownerId, CardStatus status, String currency, long balanceCents) {
+            this.ownerId = ownerId;
+            this.status = status;
+            this.currency = currency;
+            this.balanceCents = balanceCents;
+        }
+    }
+
+    private static final class Transfer {
+        private final long userId;
+        private final long fromCardId;
+        private final long toCardId;
+        private final long amountCents;
+        private final CompletableFuture<JournalRecord> future = new CompletableFuture<>();
+        // Set by the source partition before the transfer is handed to the destination one.
+        private String currency;
+
+        Transfer(long userId, long fromCardId, long toCardId, long amountCents) {
+            this.userId = userId;
+            this.fromCardId = fromCardId;
+            this.toCardId = toCardId;
+            this.amountCents = amountCents;
+        }
+    }
+
+    private record TurnoverDay(long cardId, LocalDate date) {
+    }
+}
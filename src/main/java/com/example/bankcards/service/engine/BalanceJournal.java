@@ -0,0 +1,113 @@
+package com.example.bankcards.service.engine;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+/**
+ * Append-only write-ahead journal of segment files named after their first sequence number.
+ */
+class BalanceJournal {
+
+    private static final String SUFFIX = ".journal";
+
+    private final Path directory;
+    private final boolean fsync;
+    private final long segmentSizeBytes;
+    private final ConcurrentSkipListMap<Long, Path> closedSegments = new ConcurrentSkipListMap<>();
+
+    private FileChannel channel;
+    private Path currentSegment;
+
+    BalanceJournal(Path directory, boolean fsync, long segmentSizeBytes) {
+        this.directory = directory;
+        this.fsync = fsync;
+        this.segmentSizeBytes = segmentSizeBytes;
+    }
+
+    List<JournalRecord> readAll() {
+        List<JournalRecord> records = new ArrayList<>();
+        for (Path segment : existingSegments()) {
+            try {
+                ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(segment));
+                JournalRecord record;
+                while ((record = JournalRecord.readFrom(buffer)) != null) {
+                    records.add(record);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read journal segment " + segment, e);
+            }
+        }
+        return records;
+    }
+
+    void deleteExistingSegments() {
+        for (Path segment : existingSegments()) {
+            try {
+                Files.deleteIfExists(segment);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not delete journal segment " + segment, e);
+            }
+        }
+    }
+
+    void open(long firstSequence) throws IOException {
+        Files.createDirectories(directory);
+        currentSegment = directory.resolve(String.format("%020d%s", firstSequence, SUFFIX));
+        channel = FileChannel.open(currentSegment, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    void append(List<JournalRecord> records) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(records.size() * JournalRecord.SIZE);
+        records.forEach(record -> record.writeTo(buffer));
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        if (fsync) {
+            channel.force(false);
+        }
+        if (channel.size() >= segmentSizeBytes) {
+            long lastSequence = records.get(records.size() - 1).sequence();
+            channel.close();
+            closedSegments.put(lastSequence, currentSegment);
+            open(lastSequence + 1);
+        }
+    }
+
+    void deleteSegmentsUpTo(long sequence) throws IOException {
+        Map<Long, Path> flushed = closedSegments.headMap(sequence, true);
+        for (Path segment : flushed.values()) {
+            Files.deleteIfExists(segment);
+        }
+        flushed.clear();
+    }
+
+    void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    private List<Path> existingSegments() {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(SUFFIX))
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not list journal directory " + directory, e);
+        }
+    }
+}
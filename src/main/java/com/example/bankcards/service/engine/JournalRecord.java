@@ -0,0 +1,43 @@
+package com.example.bankcards.service.engine;
+
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+
+/**
+ * One applied transfer as written to the balance journal. Amounts are kept in minor units (scale 2).
+ */
+public record JournalRecord(long sequence, long transactionId, long fromCardId, long toCardId,
+                            long amountCents, long createdAtMillis) {
+
+    static final int PAYLOAD_SIZE = 6 * Long.BYTES;
+    static final int SIZE = PAYLOAD_SIZE + Integer.BYTES;
+
+    void writeTo(ByteBuffer buffer) {
+        int start = buffer.position();
+        buffer.putLong(sequence)
+                .putLong(transactionId)
+                .putLong(fromCardId)
+                .putLong(toCardId)
+                .putLong(amountCents)
+                .putLong(createdAtMillis);
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate().position(start).limit(start + PAYLOAD_SIZE));
+        buffer.putInt((int) crc.getValue());
+    }
+
+    // Returns null when the bytes do not hold a complete, intact record (e.g. a torn write at the end of a segment).
+    static JournalRecord readFrom(ByteBuffer buffer) {
+        if (buffer.remaining() < SIZE) {
+            return null;
+        }
+        int start = buffer.position();
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate().position(start).limit(start + PAYLOAD_SIZE));
+        JournalRecord record = new JournalRecord(buffer.getLong(), buffer.getLong(), buffer.getLong(),
+                buffer.getLong(), buffer.getLong(), buffer.getLong());
+        if (buffer.getInt() != (int) crc.getValue()) {
+            return null;
+        }
+        return record;
+    }
+}
@@ -0,0 +1,275 @@
+package com.example.bankcards.service.fraud;
+
+import com.example.bankcards.exception.SuspiciousTransferException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Burst and amount spike checks of transfers against the recent transfers of each (user, source card).
+ */
+@Slf4j
+@Component
+public class VelocityGate {
+
+    public enum Action { REJECT, FLAG }
+
+    private static final int WAYS = 4;
+
+    enum Verdict { PASS, BURST_FLAGGED, SPIKE_FLAGGED, BURST_REJECTED, SPIKE_REJECTED }
+
+    private final boolean enabled;
+    private final int burstMaxTransfers;
+    private final long burstWindowMillis;
+    private final Action burstAction;
+    private final double spikeFactor;
+    private final int spikeHistory;
+    private final int spikeMinHistory;
+    private final long spikeMinCents;
+    private final Action spikeAction;
+
+    private final int capacity;
+    private final int setMask;
+    // Per-instance hash seed, so colliding pairs cannot be worked out ahead of time.
+    private final long seed = ThreadLocalRandom.current().nextLong() | 1;
+    private final int stripeMask;
+    private final Object[] locks;
+    // Owner of each slot.
+    private final String[] usernames;
+    private final long[] cardIds;
+    // Ring of slot s occupies [s * capacity, (s + 1) * capacity); heads point at the next entry to write.
+    private final long[] timestamps;
+    private final long[] amounts;
+    private final int[] heads;
+    private final int[] sizes;
+
+    private final Counter burstFlagged;
+    private final Counter spikeFlagged;
+    private final Counter burstRejected;
+    private final Counter spikeRejected;
+
+    public VelocityGate(MeterRegistry meterRegistry,
+                        @Value("${bankcards.fraud.enabled:true}") boolean enabled,
+                        @Value("${bankcards.fraud.slots:16384}") int slots,
+                        @Value("${bankcards.fraud.stripes:64}") int stripes,
+                        @Value("${bankcards.fraud.burst.max-transfers:10}") int burstMaxTransfers,
+                        @Value("${bankcards.fraud.burst.window-ms:10000}") long burstWindowMillis,
+                        @Value("${bankcards.fraud.burst.action:REJECT}") Action burstAction,
+                        @Value("${bankcards.fraud.spike.factor:10.0}") double spikeFactor,
+                        @Value("${bankcards.fraud.spike.history:16}") int spikeHistory,
+                        @Value("${bankcards.fraud.spike.min-history:5}") int spikeMinHistory,
+                        @Value("${bankcards.fraud.spike.min-amount:1000.00}") BigDecimal spikeMinAmount,
+                        @Value("${bankcards.fraud.spike.action:FLAG}") Action spikeAction) {
+        this.enabled = enabled;
+        this.burstMaxTransfers = Math.max(1, burstMaxTransfers);
+        this.burstWindowMillis = burstWindowMillis;
+        this.burstAction = burstAction;
+        this.spikeFactor = spikeFactor;
+        this.spikeHistory = Math.max(1, spikeHistory);
+        this.spikeMinHistory = Math.max(1, Math.min(spikeMinHistory, this.spikeHistory));
+        this.spikeMinCents = toCents(spikeMinAmount);
+        this.spikeAction = spikeAction;
+
+        int setCount = Math.max(1, powerOfTwo(slots) / WAYS);
+        int slotCount = setCount * WAYS;
+        int stripeCount = Math.min(powerOfTwo(stripes), setCount);
+        this.capacity = Math.max(this.burstMaxTransfers, this.spikeHistory);
+        this.setMask = setCount - 1;
+        this.stripeMask = stripeCount - 1;
+        this.locks = new Object[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            this.locks[i] = new Object();
+        }
+        this.usernames = new String[slotCount];
+        this.cardIds = new long[slotCount];
+        this.timestamps = new long[slotCount * capacity];
+        this.amounts = new long[slotCount * capacity];
+        this.heads = new int[slotCount];
+        this.sizes = new int[slotCount];
+
+        this.burstFlagged = meterRegistry.counter("bankcards.fraud.flagged", "rule", "burst");
+        this.spikeFlagged = meterRegistry.counter("bankcards.fraud.flagged", "rule", "spike");
+        this.burstRejected = meterRegistry.counter("bankcards.fraud.rejected", "rule", "burst");
+        this.spikeRejected = meterRegistry.counter("bankcards.fraud.rejected", "rule", "spike");
+    }
+
+    /**
+     * Records a transfer from the card, or throws if a rejecting rule matches it.
+     */
+    public void check(String username, Long cardId, BigDecimal amount) {
+        if (!enabled) {
+            return;
+        }
+        report(evaluate(username, cardId, toCents(amount), System.currentTimeMillis()), username, cardId, amount);
+    }
+
+    /**
+     * Checks a batch by source card; nothing is recorded if any card is rejected.
+     */
+    public void checkBatch(String username, Map<Long, List<BigDecimal>> amountsByCard) {
+        if (!enabled) {
+            return;
+        }
+        long nowMillis = System.currentTimeMillis();
+        List<Verdict> verdicts = new ArrayList<>(amountsByCard.size());
+        for (Map.Entry<Long, List<BigDecimal>> card : amountsByCard.entrySet()) {
+            Verdict verdict = inspect(username, card.getKey(), toCents(largest(card.getValue())), card.getValue().size(),
+                    nowMillis);
+            if (verdict == Verdict.BURST_REJECTED || verdict == Verdict.SPIKE_REJECTED) {
+                report(verdict, username, card.getKey(), largest(card.getValue()));
+            }
+            verdicts.add(verdict);
+        }
+        int i = 0;
+        for (Map.Entry<Long, List<BigDecimal>> card : amountsByCard.entrySet()) {
+            record(username, card.getKey(), card.getValue(), nowMillis);
+            report(verdicts.get(i++), username, card.getKey(), largest(card.getValue()));
+        }
+    }
+
+    private void report(Verdict verdict, String username, Long cardId, BigDecimal amount) {
+        switch (verdict) {
+            case BURST_REJECTED -> {
+                burstRejected.increment();
+                throw new SuspiciousTransferException("Too many transfers from card " + cardId + ", please try again later.");
+            }
+            case SPIKE_REJECTED -> {
+                spikeRejected.increment();
+                throw new SuspiciousTransferException("Transfer amount is unusually high for card " + cardId + ".");
+            }
+            case BURST_FLAGGED -> {
+                burstFlagged.increment();
+                log.warn("Transfer burst from card {} of user {}", cardId, username);
+            }
+            case SPIKE_FLAGGED -> {
+                spikeFlagged.increment();
+                log.warn("Transfer amount spike from card {} of user {}: {}", cardId, username, amount);
+            }
+            case PASS -> {
+            }
+        }
+    }
+
+    Verdict evaluate(String username, long cardId, long cents, long nowMillis) {
+        int set = setOf(username, cardId);
+        synchronized (locks[set & stripeMask]) {
+            int slot = claim(set, username, cardId, nowMillis);
+            Verdict verdict = inspect(slot, cents, 1, nowMillis);
+            if (slot >= 0 && verdict != Verdict.BURST_REJECTED && verdict != Verdict.SPIKE_REJECTED) {
+                append(slot, cents, nowMillis);
+            }
+            return verdict;
+        }
+    }
+
+    private Verdict inspect(String username, long cardId, long cents, int count, long nowMillis) {
+        int set = setOf(username, cardId);
+        synchronized (locks[set & stripeMask]) {
+            return inspect(claim(set, username, cardId, nowMillis), cents, count, nowMillis);
+        }
+    }
+
+    private void record(String username, long cardId, List<BigDecimal> amounts, long nowMillis) {
+        int set = setOf(username, cardId);
+        synchronized (locks[set & stripeMask]) {
+            int slot = claim(set, username, cardId, nowMillis);
+            if (slot < 0) {
+                return;
+            }
+            for (BigDecimal amount : amounts) {
+                append(slot, toCents(amount), nowMillis);
+            }
+        }
+    }
+
+    // Callers hold the stripe lock of the set. count is the number of transfers about to be made, cents the largest.
+    private Verdict inspect(int slot, long cents, int count, long nowMillis) {
+        if (slot < 0) {
+            return burstAction == Action.REJECT ? Verdict.BURST_REJECTED : Verdict.BURST_FLAGGED;
+        }
+        int base = slot * capacity;
+        int head = heads[slot];
+        int size = sizes[slot];
+
+        // Burst when the window already holds more than max-transfers - count of them; timestamps only grow.
+        int allowed = burstMaxTransfers - count;
+        boolean burst = allowed < 0 || size > allowed
+                && nowMillis - timestamps[base + Math.floorMod(head - allowed - 1, capacity)] < burstWindowMillis;
+        boolean spike = false;
+        int history = Math.min(size, spikeHistory);
+        if (history >= spikeMinHistory && cents >= spikeMinCents) {
+            long sum = 0;
+            for (int i = 1; i <= history; i++) {
+                sum += amounts[base + Math.floorMod(head - i, capacity)];
+            }
+            spike = cents > (double) sum / history * spikeFactor;
+        }
+
+        if (burst && burstAction == Action.REJECT) {
+            return Verdict.BURST_REJECTED;
+        }
+        if (spike && spikeAction == Action.REJECT) {
+            return Verdict.SPIKE_REJECTED;
+        }
+        return burst ? Verdict.BURST_FLAGGED : spike ? Verdict.SPIKE_FLAGGED : Verdict.PASS;
+    }
+
+    // Slot of the pair in its set, else the least recently used one past its burst window, else -1.
+    private int claim(int set, String username, long cardId, long nowMillis) {
+        int victim = -1;
+        long victimLast = Long.MAX_VALUE;
+        for (int slot = set * WAYS; slot < (set + 1) * WAYS; slot++) {
+            if (cardIds[slot] == cardId && username.equals(usernames[slot])) {
+                return slot;
+            }
+            long last = sizes[slot] == 0 ? Long.MIN_VALUE : timestamps[slot * capacity + Math.floorMod(heads[slot] - 1, capacity)];
+            if (last < victimLast) {
+                victim = slot;
+                victimLast = last;
+            }
+        }
+        if (victimLast != Long.MIN_VALUE && nowMillis - victimLast < burstWindowMillis) {
+            return -1;
+        }
+        usernames[victim] = username;
+        cardIds[victim] = cardId;
+        heads[victim] = 0;
+        sizes[victim] = 0;
+        return victim;
+    }
+
+    private void append(int slot, long cents, long nowMillis) {
+        int head = heads[slot];
+        timestamps[slot * capacity + head] = nowMillis;
+        amounts[slot * capacity + head] = cents;
+        heads[slot] = head + 1 == capacity ? 0 : head + 1;
+        sizes[slot] = Math.min(sizes[slot] + 1, capacity);
+    }
+
+    private int setOf(String username, long cardId) {
+        long hash = (cardId ^ ((long) username.hashCode() << 32)) * seed;
+        hash = (hash ^ (hash >>> 29)) * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 32) & setMask;
+    }
+
+    private static BigDecimal largest(List<BigDecimal> amounts) {
+        return amounts.stream().max(BigDecimal::compareTo).orElse(BigDecimal.ZERO);
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private static int powerOfTwo(int value) {
+        return value <= 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.service.CardService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves the money collected in the slots of striped cards back into {@code cards.balance}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BalanceStripeFoldJob {
+
+    private final CardRepository cardRepository;
+    private final CardService cardService;
+
+    @Scheduled(fixedDelayString = "${bankcards.striping.fold-interval-ms:1000}")
+    public void foldStripedCards() {
+        for (Long cardId : cardRepository.findStripedCardIds()) {
+            try {
+                cardService.foldBalanceStripes(cardId);
+            } catch (DataAccessException e) {
+                log.warn("Could not fold balance slots of card {}, will retry", cardId, e);
+            }
+        }
+    }
+}
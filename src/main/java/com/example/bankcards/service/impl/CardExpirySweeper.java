@@ -0,0 +1,97 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.entity.enums.CardStatus;
+import com.example.bankcards.service.OutboxService;
+import com.example.bankcards.service.engine.BalanceEngine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.YearMonth;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Moves active cards past their expiry month to EXPIRED, in short chunks.
+ */
+@Slf4j
+@Component
+public class CardExpirySweeper {
+
+    private static final String LOCK_EXPIRED = "select id from cards where status = 'ACTIVE' and expiry_date < ? " +
+            "limit ? for update skip locked";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboxService outboxService;
+    // Present only while the in-memory balance engine is enabled; it keeps card statuses of its own.
+    private final BalanceEngine balanceEngine;
+    private final Counter expired;
+    private final int chunkSize;
+
+    public CardExpirySweeper(JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             OutboxService outboxService,
+                             ObjectProvider<BalanceEngine> balanceEngine,
+                             MeterRegistry meterRegistry,
+                             @Value("${bankcards.expiry.chunk-size:1000}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.outboxService = outboxService;
+        this.balanceEngine = balanceEngine.getIfAvailable();
+        this.expired = meterRegistry.counter("bankcards.cards.expired");
+        this.chunkSize = chunkSize;
+    }
+
+    @Scheduled(fixedDelayString = "${bankcards.expiry.sweep-interval-ms:3600000}",
+            initialDelayString = "${bankcards.expiry.sweep-interval-ms:3600000}")
+    public void sweepExpiredCards() {
+        try {
+            sweep(YearMonth.now());
+        } catch (DataAccessException e) {
+            log.warn("Could not expire cards, will retry", e);
+        }
+    }
+
+    /**
+     * Expires the active cards whose expiry month is before the given one and returns how many there were.
+     */
+    int sweep(YearMonth current) {
+        Date firstValidMonth = Date.valueOf(current.atDay(1));
+        int total = 0;
+        List<Long> chunk;
+        do {
+            chunk = transactionTemplate.execute(status -> expireChunk(firstValidMonth));
+            if (balanceEngine != null) {
+                chunk.forEach(cardId -> balanceEngine.updateStatus(cardId, CardStatus.EXPIRED));
+            }
+            total += chunk.size();
+            expired.increment(chunk.size());
+        } while (chunk.size() == chunkSize);
+        if (total > 0) {
+            log.info("Expired {} cards", total);
+        }
+        return total;
+    }
+
+    private List<Long> expireChunk(Date firstValidMonth) {
+        List<Long> cardIds = jdbcTemplate.queryForList(LOCK_EXPIRED, Long.class, firstValidMonth, chunkSize);
+        if (cardIds.isEmpty()) {
+            return cardIds;
+        }
+        // The version bump makes a concurrent entity update of the card retry instead of writing ACTIVE back.
+        jdbcTemplate.update("update cards set status = 'EXPIRED', version = version + 1 where id in ("
+                + String.join(", ", Collections.nCopies(cardIds.size(), "?")) + ")", cardIds.toArray());
+        outboxService.recordCardsExpired(cardIds);
+        return cardIds;
+    }
+}
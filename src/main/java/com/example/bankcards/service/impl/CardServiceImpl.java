@@ -1,52 +1,105 @@
 package com.example.bankcards.service.impl;
 
+import com.example.bankcards.dto.BatchTransferItemResultDto;
+import com.example.bankcards.dto.BatchTransferRequestDto;
+import com.example.bankcards.dto.BatchTransferResultDto;
+import com.example.bankcards.dto.CardLimitsRequest;
 import com.example.bankcards.dto.CardDto;
 import com.example.bankcards.dto.CreateCardRequest;
 import com.example.bankcards.dto.TransactionDto;
 import com.example.bankcards.dto.TransferRequestDto;
 import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardBalanceSlot;
+import com.example.bankcards.entity.IdempotencyKey;
+import com.example.bankcards.entity.ScheduledTransfer;
 import com.example.bankcards.entity.Transaction;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.entity.enums.CardStatus;
+import com.example.bankcards.entity.enums.OutboxEventType;
+import com.example.bankcards.entity.enums.ScheduledTransferStatus;
 import com.example.bankcards.entity.enums.TransactionStatus;
 import com.example.bankcards.exception.InsufficientFundsException;
 import com.example.bankcards.exception.InvalidOperationException;
 import com.example.bankcards.exception.ResourceNotFoundException;
+import com.example.bankcards.exception.SpendingLimitExceededException;
+import com.example.bankcards.repository.CardBalanceSlotRepository;
 import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.IdempotencyKeyRepository;
+import com.example.bankcards.repository.ScheduledTransferRepository;
 import com.example.bankcards.repository.TransactionRepository;
 import com.example.bankcards.repository.UserRepository;
 import com.example.bankcards.repository.specification.CardSpecification;
 import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.FxRateService;
+import com.example.bankcards.service.LedgerService;
+import com.example.bankcards.service.OutboxService;
+import com.example.bankcards.service.limit.SpendingLimiter;
 import com.example.bankcards.util.mapper.CardMapper;
 import com.example.bankcards.util.mapper.TransactionMapper;
+import com.example.bankcards.util.retry.RetryOnConflict;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeSet;
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class CardServiceImpl implements CardService {
 
+    private static final int MAX_BALANCE_STRIPES = 64;
+
     private final CardRepository cardRepository;
+    private final CardBalanceSlotRepository cardBalanceSlotRepository;
     private final UserRepository userRepository;
     private final TransactionRepository transactionRepository;
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final ScheduledTransferRepository scheduledTransferRepository;
+    private final LedgerService ledgerService;
+    private final OutboxService outboxService;
+    private final FxRateService fxRateService;
+    private final SpendingLimiter spendingLimiter;
     private final CardMapper cardMapper;
     private final TransactionMapper transactionMapper;
 
+    @Value("${bankcards.transfer.lock-timeout-ms:3000}")
+    private long lockTimeoutMs;
+
+    @Value("${bankcards.transfer.batch-max-size:100}")
+    private int batchMaxSize;
+
     @Override
     @Transactional
     public CardDto createCard(CreateCardRequest request) {
         User owner = userRepository.findById(request.getOwnerId())
                 .orElseThrow(() -> new ResourceNotFoundException("User with id " + request.getOwnerId() + " not found."));
 
+        if (request.getCurrency() != null && !fxRateService.isSupported(request.getCurrency())) {
+            throw new InvalidOperationException("Currency " + request.getCurrency() + " is not supported.");
+        }
         Card card = cardMapper.toEntity(request);
+        if (isExpired(card)) {
+            throw new InvalidOperationException("Expiry date " + request.getExpiryDate() + " is in the past.");
+        }
         card.setOwner(owner);
 
         String plainPan = generateDummyPan();
@@ -54,6 +107,7 @@ public class CardServiceImpl implements CardService {
         card.setPanLast4(plainPan.substring(plainPan.length() - 4));
 
         Card savedCard = cardRepository.save(card);
+        outboxService.recordCardEvent(OutboxEventType.CARD_CREATED, savedCard);
         return cardMapper.toDto(savedCard);
     }
 
@@ -65,58 +119,282 @@ public class CardServiceImpl implements CardService {
         Specification<Card> spec = CardSpecification.filterBy(userId, status, panLast4);
         Page<Card> cardsPage = cardRepository.findAll(spec, pageable);
 
+        loadSlotBalances(cardsPage.getContent());
         return cardsPage.map(cardMapper::toDto);
     }
 
     @Override
     @Transactional
+    @RetryOnConflict
     public TransactionDto transferBetweenOwnCards(String username, TransferRequestDto request) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User with username " + username + " not found."));
-        Long userId = user.getId();
-
         if (Objects.equals(request.getFromCardId(), request.getToCardId())) {
             throw new InvalidOperationException("Source and destination cards cannot be the same.");
         }
-
-        Card fromCard = findCardByIdAndUserId(request.getFromCardId(), userId);
-        Card toCard = findCardByIdAndUserId(request.getToCardId(), userId);
+        Long fromCardId = request.getFromCardId();
+        Long toCardId = request.getToCardId();
         BigDecimal amount = request.getAmount();
+        Map<Long, String> currencies = new HashMap<>();
+        cardRepository.findCurrencies(List.of(fromCardId, toCardId), username).forEach(row -> currencies.put((Long) row[0], (String) row[1]));
+        Transaction transaction = newTransaction(cardRepository.getReferenceById(fromCardId), cardRepository.getReferenceById(toCardId),
+                amount, currencies.get(fromCardId), TransactionStatus.COMPLETED, "Transfer between own cards");
+        BigDecimal credited = convert(transaction, currencies.get(fromCardId), currencies.get(toCardId));
 
-        validateCardForTransfer(fromCard, amount);
-        validateCardForTransfer(toCard, null);
+        // Each leg is a single conditional UPDATE. Legs are applied in ascending card id order,
+        // so opposite transfers A->B and B->A take row locks in the same order and cannot deadlock.
+        cardRepository.setLockTimeout(lockTimeoutMs + "ms");
+        if (fromCardId < toCardId) {
+            debit(fromCardId, username, amount);
+            credit(toCardId, username, credited);
+        } else {
+            credit(toCardId, username, credited);
+            debit(fromCardId, username, amount);
+        }
+        // Checked once both legs went through, so the card is known to belong to the user.
+        spendingLimiter.reserve(fromCardId, amount);
 
-        fromCard.setBalance(fromCard.getBalance().subtract(request.getAmount()));
-        toCard.setBalance(toCard.getBalance().add(request.getAmount()));
+        transaction = transactionRepository.save(transaction);
+        ledgerService.recordTransfers(List.of(transaction));
+        outboxService.recordTransfers(List.of(transaction));
+        return transactionMapper.toDto(transaction);
+    }
+
+    @Override
+    @Transactional
+    public TransactionDto transferBetweenOwnCards(String username, TransferRequestDto request, String idempotencyKey) {
+        Optional<IdempotencyKey> stored = idempotencyKeyRepository.findByUsernameAndKey(username, idempotencyKey);
+        if (stored.isPresent()) {
+            return transactionMapper.toDto(stored.get().getTransaction());
+        }
 
-        Transaction transaction = logTransaction(fromCard, toCard, request.getAmount(), TransactionStatus.COMPLETED, "Transfer between own cards");
+        TransactionDto transaction = transferBetweenOwnCards(username, request);
 
-        cardRepository.save(fromCard);
-        cardRepository.save(toCard);
+        // The unique (username, key) constraint stops a duplicate that raced past the lookup on another instance.
+        IdempotencyKey key = new IdempotencyKey();
+        key.setUsername(username);
+        key.setKey(idempotencyKey);
+        key.setTransaction(transactionRepository.getReferenceById(transaction.getId()));
+        idempotencyKeyRepository.saveAndFlush(key);
+        return transaction;
+    }
+
+    @Override
+    @Transactional
+    public TransactionDto submitTransfer(String username, TransferRequestDto request) {
+        if (Objects.equals(request.getFromCardId(), request.getToCardId())) {
+            throw new InvalidOperationException("Source and destination cards cannot be the same.");
+        }
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new ResourceNotFoundException("User with username " + username + " not found."));
+        Card fromCard = findCardByIdAndUserId(request.getFromCardId(), user.getId());
+        Card toCard = findCardByIdAndUserId(request.getToCardId(), user.getId());
+
+        // Funds and card status are checked when a worker applies the transfer.
+        Transaction transaction = transactionRepository.save(newTransaction(fromCard, toCard, request.getAmount(), fromCard.getCurrency(),
+                TransactionStatus.PENDING, "Transfer between own cards"));
         return transactionMapper.toDto(transaction);
     }
 
+    @Override
+    @Transactional
+    public int processPendingTransfers(Long cardFromId, int limit) {
+        Optional<Long> ownerId = cardRepository.findOwnerId(cardFromId);
+        if (ownerId.isEmpty()) {
+            return 0;
+        }
+        Pageable batch = PageRequest.of(0, limit);
+        TreeSet<Long> cardIds = new TreeSet<>(transactionRepository.findPendingTargetCardIds(cardFromId, batch));
+        if (cardIds.isEmpty()) {
+            return 0;
+        }
+        cardIds.add(cardFromId);
+
+        // All cards of the group are locked once, in ascending id order. Pending rows are read only after that,
+        // so a worker on another instance that got the lock first has already moved them out of PENDING.
+        cardRepository.setLockTimeout(lockTimeoutMs + "ms");
+        Map<Long, Card> cards = cardRepository.findAllByIdInAndOwnerIdForUpdate(cardIds, ownerId.get()).stream()
+                .collect(Collectors.toMap(Card::getId, Function.identity()));
+        loadSlotBalances(cards.values());
+        Map<Long, BigDecimal> balances = new HashMap<>();
+        cards.values().forEach(card -> balances.put(card.getId(), card.getTotalBalance()));
+
+        List<Transaction> completed = new ArrayList<>();
+        int processed = 0;
+        for (Transaction transaction : transactionRepository.findPendingBySourceCard(cardFromId, batch)) {
+            Long toCardId = transaction.getCardTo() == null ? null : transaction.getCardTo().getId();
+            if (toCardId != null && !cardIds.contains(toCardId)) {
+                continue; // submitted after the cards were locked, left for the next round
+            }
+            try {
+                bookTransfer(transaction, cardFromId, toCardId, cards, balances, ownerId.get());
+                transaction.setStatus(TransactionStatus.COMPLETED);
+                completed.add(transaction);
+            } catch (ResourceNotFoundException | InvalidOperationException | InsufficientFundsException | SpendingLimitExceededException ex) {
+                transaction.setStatus(TransactionStatus.FAILED);
+                transaction.setDescription(ex.getMessage());
+            }
+            processed++;
+        }
+
+        writeBalances(cards, balances);
+        ledgerService.recordTransfers(completed);
+        outboxService.recordTransfers(completed);
+        return processed;
+    }
+
+    @Override
+    @Transactional
+    public int executeScheduledTransfers(Collection<Long> scheduleIds) {
+        LocalDateTime now = LocalDateTime.now();
+        List<ScheduledTransfer> due = scheduledTransferRepository.lockDue(scheduleIds, now);
+        if (due.isEmpty()) {
+            return 0;
+        }
+
+        // Cards of all schedules are locked by one query, in ascending id order; schedules only ever name cards of their owner.
+        TreeSet<Long> cardIds = new TreeSet<>();
+        due.forEach(schedule -> {
+            cardIds.add(schedule.getCardFrom().getId());
+            cardIds.add(schedule.getCardTo().getId());
+        });
+        cardRepository.setLockTimeout(lockTimeoutMs + "ms");
+        Map<Long, Card> cards = cardRepository.findAllByIdInForUpdate(cardIds).stream()
+                .collect(Collectors.toMap(Card::getId, Function.identity()));
+        loadSlotBalances(cards.values());
+        Map<Long, BigDecimal> balances = new HashMap<>();
+        cards.values().forEach(card -> balances.put(card.getId(), card.getTotalBalance()));
+
+        List<Transaction> transactions = new ArrayList<>();
+        for (ScheduledTransfer schedule : due) {
+            Long fromCardId = schedule.getCardFrom().getId();
+            Long toCardId = schedule.getCardTo().getId();
+            Card fromCard = cards.get(fromCardId);
+            Transaction transaction = newTransaction(fromCard, cards.get(toCardId), schedule.getAmount(),
+                    fromCard == null ? null : fromCard.getCurrency(), TransactionStatus.COMPLETED, "Scheduled transfer " + schedule.getId());
+            try {
+                bookTransfer(transaction, fromCardId, toCardId, cards, balances, schedule.getOwner().getId());
+                transactions.add(transaction);
+                schedule.setLastError(null);
+            } catch (ResourceNotFoundException | InvalidOperationException | InsufficientFundsException | SpendingLimitExceededException ex) {
+                schedule.setLastError(ex.getMessage());
+            }
+            advance(schedule, now);
+        }
+
+        writeBalances(cards, balances);
+        List<Transaction> saved = transactionRepository.saveAll(transactions);
+        ledgerService.recordTransfers(saved);
+        outboxService.recordTransfers(saved);
+        return due.size();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public TransactionDto getTransaction(Long transactionId, String username) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new ResourceNotFoundException("User with username " + username + " not found."));
+        return transactionRepository.findWithCardsById(transactionId)
+                .filter(transaction -> isOwnedBy(transaction.getCardFrom(), user) || isOwnedBy(transaction.getCardTo(), user))
+                .map(transactionMapper::toDto)
+                .orElseThrow(() -> new ResourceNotFoundException("Transaction with id " + transactionId + " not found."));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<TransactionDto> findTransferByIdempotencyKey(String username, String idempotencyKey) {
+        return idempotencyKeyRepository.findByUsernameAndKey(username, idempotencyKey)
+                .map(key -> transactionMapper.toDto(key.getTransaction()));
+    }
+
+    @Override
+    @Transactional
+    public BatchTransferResultDto transferBatchBetweenOwnCards(String username, BatchTransferRequestDto request) {
+        List<TransferRequestDto> transfers = request.getTransfers();
+        if (transfers.size() > batchMaxSize) {
+            throw new InvalidOperationException("A batch may contain at most " + batchMaxSize + " transfers.");
+        }
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new ResourceNotFoundException("User with username " + username + " not found."));
+        Long userId = user.getId();
+
+        // Every card of the batch is locked by one query, in ascending id order.
+        TreeSet<Long> cardIds = new TreeSet<>();
+        transfers.forEach(transfer -> {
+            cardIds.add(transfer.getFromCardId());
+            cardIds.add(transfer.getToCardId());
+        });
+        cardRepository.setLockTimeout(lockTimeoutMs + "ms");
+        Map<Long, Card> cards = cardRepository.findAllByIdInAndOwnerIdForUpdate(cardIds, userId).stream()
+                .collect(Collectors.toMap(Card::getId, Function.identity()));
+        loadSlotBalances(cards.values());
+        Map<Long, BigDecimal> balances = new HashMap<>();
+        cards.values().forEach(card -> balances.put(card.getId(), card.getTotalBalance()));
+
+        List<BatchTransferItemResultDto> results = new ArrayList<>();
+        List<BatchTransferItemResultDto> completed = new ArrayList<>();
+        List<Transaction> transactions = new ArrayList<>();
+        List<SpendingLimiter.Reservation> reservations = new ArrayList<>();
+        for (int i = 0; i < transfers.size(); i++) {
+            TransferRequestDto transfer = transfers.get(i);
+            BatchTransferItemResultDto result = new BatchTransferItemResultDto();
+            result.setIndex(i);
+            results.add(result);
+            try {
+                transactions.add(applyBatchItem(transfer, cards, balances, userId, reservations));
+                result.setStatus(BatchTransferItemResultDto.COMPLETED);
+                completed.add(result);
+            } catch (ResourceNotFoundException | InvalidOperationException | InsufficientFundsException | SpendingLimitExceededException ex) {
+                result.setStatus(BatchTransferItemResultDto.FAILED);
+                result.setError(ex.getMessage());
+            }
+        }
+
+        int failed = results.size() - completed.size();
+        if (failed > 0 && request.getMode() == BatchTransferRequestDto.Mode.ALL_OR_NOTHING) {
+            completed.forEach(result -> result.setStatus(BatchTransferItemResultDto.SKIPPED));
+            reservations.forEach(reservation -> spendingLimiter.complete(reservation, false));
+            return batchResult(request, 0, failed, results);
+        }
+
+        writeBalances(cards, balances);
+        List<Transaction> saved = transactionRepository.saveAll(transactions);
+        ledgerService.recordTransfers(saved);
+        outboxService.recordTransfers(saved);
+        for (int i = 0; i < saved.size(); i++) {
+            completed.get(i).setTransaction(transactionMapper.toDto(saved.get(i)));
+        }
+        return batchResult(request, completed.size(), failed, results);
+    }
+
     @Override
     public Page<CardDto> getAllCards(Pageable pageable) {
-        return cardRepository.findAll(pageable).map(cardMapper::toDto);
+        Page<Card> cardsPage = cardRepository.findAll(pageable);
+        loadSlotBalances(cardsPage.getContent());
+        return cardsPage.map(cardMapper::toDto);
     }
 
     @Override
     @Transactional
+    @RetryOnConflict
     public CardDto blockCard(Long cardId) {
         Card card = findCardById(cardId);
         card.setStatus(CardStatus.BLOCKED);
         Card updatedCard = cardRepository.save(card);
-        return cardMapper.toDto(updatedCard);
+        outboxService.recordCardEvent(OutboxEventType.CARD_BLOCKED, updatedCard);
+        return toDto(updatedCard);
     }
 
     @Override
     @Transactional
+    @RetryOnConflict
     public CardDto activateCard(Long cardId) {
         Card card = findCardById(cardId);
+        if (isExpired(card)) {
+            throw new InvalidOperationException("Card " + cardId + " expired in " + cardMapper.formatExpiryDate(card.getExpiryDate()) + ".");
+        }
         card.setStatus(CardStatus.ACTIVE);
         Card updatedCard = cardRepository.save(card);
-        return cardMapper.toDto(updatedCard);
+        outboxService.recordCardEvent(OutboxEventType.CARD_ACTIVATED, updatedCard);
+        return toDto(updatedCard);
     }
 
     @Override
@@ -126,17 +404,86 @@ public class CardServiceImpl implements CardService {
             throw new ResourceNotFoundException("Card with id " + cardId + " not found.");
         }
         cardRepository.deleteById(cardId);
+        outboxService.recordCardDeleted(cardId);
+    }
+
+    @Override
+    @Transactional
+    @RetryOnConflict
+    public CardDto updateBalanceStripes(Long cardId, int stripeCount) {
+        if (stripeCount < 1 || stripeCount > MAX_BALANCE_STRIPES) {
+            throw new InvalidOperationException("Stripe count must be between 1 and " + MAX_BALANCE_STRIPES + ".");
+        }
+        if (cardRepository.lockStripeCount(cardId) == null) {
+            throw new ResourceNotFoundException("Card with id " + cardId + " not found.");
+        }
+        foldSlots(cardId);
+        cardBalanceSlotRepository.deleteByCardId(cardId);
+        if (stripeCount > 1) {
+            Card card = cardRepository.getReferenceById(cardId);
+            List<CardBalanceSlot> slots = new ArrayList<>(stripeCount);
+            for (int slot = 0; slot < stripeCount; slot++) {
+                CardBalanceSlot balanceSlot = new CardBalanceSlot();
+                balanceSlot.setCard(card);
+                balanceSlot.setSlot(slot);
+                balanceSlot.setBalance(BigDecimal.ZERO);
+                slots.add(balanceSlot);
+            }
+            cardBalanceSlotRepository.saveAll(slots);
+        }
+        cardRepository.updateStripeCount(cardId, stripeCount);
+        return toDto(findCardById(cardId));
     }
 
     @Override
     @Transactional
+    public void foldBalanceStripes(Long cardId) {
+        Integer stripeCount = cardRepository.lockStripeCount(cardId);
+        if (stripeCount != null && stripeCount > 1) {
+            foldSlots(cardId);
+        }
+    }
+
+    @Override
+    @Transactional
+    @RetryOnConflict
+    public CardDto updateSpendingLimits(Long cardId, CardLimitsRequest request) {
+        Card card = findCardById(cardId);
+        card.setDailyLimit(request.getDailyLimit());
+        card.setMonthlyLimit(request.getMonthlyLimit());
+        spendingLimiter.updateLimits(cardId, request.getDailyLimit(), request.getMonthlyLimit());
+        return toDto(card);
+    }
+
+    @Override
+    @Transactional
+    @RetryOnConflict
     public CardDto requestCardBlock(Long cardId, String username) {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new ResourceNotFoundException("User " + username + " not found."));
         Card card = findCardByIdAndUserId(cardId, user.getId());
         card.setStatus(CardStatus.BLOCKED);
         Card updatedCard = cardRepository.save(card);
-        return cardMapper.toDto(updatedCard);
+        outboxService.recordCardEvent(OutboxEventType.CARD_BLOCKED, updatedCard);
+        return toDto(updatedCard);
+    }
+
+    private CardDto toDto(Card card) {
+        loadSlotBalances(List.of(card));
+        return cardMapper.toDto(card);
+    }
+
+    // One query for the striped cards among them; the others have no slots and keep a null slot balance.
+    private void loadSlotBalances(Collection<Card> cards) {
+        Map<Long, Card> striped = cards.stream()
+                .filter(card -> card.getStripeCount() != null && card.getStripeCount() > 1)
+                .collect(Collectors.toMap(Card::getId, Function.identity()));
+        if (striped.isEmpty()) {
+            return;
+        }
+        striped.values().forEach(card -> card.setSlotBalance(BigDecimal.ZERO));
+        cardBalanceSlotRepository.sumBalances(striped.keySet())
+                .forEach(row -> striped.get((Long) row[0]).setSlotBalance((BigDecimal) row[1]));
     }
 
     private Card findCardById(Long cardId) {
@@ -150,24 +497,163 @@ public class CardServiceImpl implements CardService {
                 .orElseThrow(() -> new ResourceNotFoundException("Card with id " + cardId + " not found or does not belong to user " + userId));
     }
 
+    private Transaction applyBatchItem(TransferRequestDto transfer, Map<Long, Card> cards, Map<Long, BigDecimal> balances, Long userId,
+                                       List<SpendingLimiter.Reservation> reservations) {
+        Card fromCard = cards.get(transfer.getFromCardId());
+        Transaction transaction = newTransaction(fromCard, cards.get(transfer.getToCardId()), transfer.getAmount(),
+                fromCard == null ? null : fromCard.getCurrency(), TransactionStatus.COMPLETED, "Batch transfer between own cards");
+        reservations.add(bookTransfer(transaction, transfer.getFromCardId(), transfer.getToCardId(), cards, balances, userId));
+        return transaction;
+    }
+
+    // Checks one transfer against the running balances of locked cards and books it there; cards are written once at the end.
+    private SpendingLimiter.Reservation bookTransfer(Transaction transaction, Long fromCardId, Long toCardId, Map<Long, Card> cards,
+                                                    Map<Long, BigDecimal> balances, Long userId) {
+        BigDecimal amount = transaction.getAmount();
+        if (Objects.equals(fromCardId, toCardId)) {
+            throw new InvalidOperationException("Source and destination cards cannot be the same.");
+        }
+        Card fromCard = findLockedCard(cards, fromCardId, userId);
+        Card toCard = findLockedCard(cards, toCardId, userId);
+
+        validateCardForTransfer(fromCard, null);
+        validateCardForTransfer(toCard, null);
+        if (balances.get(fromCard.getId()).compareTo(amount) < 0) {
+            throw new InsufficientFundsException("Insufficient funds on card " + fromCard.getId());
+        }
+        BigDecimal credited = convert(transaction, fromCard.getCurrency(), toCard.getCurrency());
+        SpendingLimiter.Reservation reservation = spendingLimiter.reserve(fromCard.getId(), amount);
+
+        balances.merge(fromCard.getId(), amount.negate(), BigDecimal::add);
+        balances.merge(toCard.getId(), credited, BigDecimal::add);
+        return reservation;
+    }
+
+    // A failed run of a one-off schedule is final; recurring ones try again at their next run.
+    private void advance(ScheduledTransfer schedule, LocalDateTime now) {
+        schedule.setLastRunAt(now);
+        LocalDateTime next = schedule.getFrequency().nextAfter(schedule.getStartsAt(), now);
+        if (next != null) {
+            schedule.setNextRunAt(next);
+        } else {
+            schedule.setStatus(schedule.getLastError() == null ? ScheduledTransferStatus.COMPLETED : ScheduledTransferStatus.FAILED);
+        }
+    }
+
+    // Slot money read at lock time stays in the slots; only the card row is written.
+    private void writeBalances(Map<Long, Card> cards, Map<Long, BigDecimal> balances) {
+        balances.forEach((cardId, balance) -> {
+            Card card = cards.get(cardId);
+            card.setBalance(balance.subtract(card.getTotalBalance().subtract(card.getBalance())));
+        });
+    }
+
+    private boolean isOwnedBy(Card card, User user) {
+        return card != null && card.getOwner().getId().equals(user.getId());
+    }
+
+    private Card findLockedCard(Map<Long, Card> cards, Long cardId, Long userId) {
+        Card card = cards.get(cardId);
+        if (card == null) {
+            throw new ResourceNotFoundException("Card with id " + cardId + " not found or does not belong to user " + userId);
+        }
+        return card;
+    }
+
+    private BatchTransferResultDto batchResult(BatchTransferRequestDto request, int completed, int failed, List<BatchTransferItemResultDto> results) {
+        BatchTransferResultDto result = new BatchTransferResultDto();
+        result.setMode(request.getMode().name());
+        result.setCompleted(completed);
+        result.setFailed(failed);
+        result.setResults(results);
+        return result;
+    }
+
+    private void debit(Long cardId, String username, BigDecimal amount) {
+        if (cardRepository.debitBalance(cardId, username, amount) == 1) {
+            return;
+        }
+        Integer stripeCount = cardRepository.lockStripeCount(cardId);
+        if (stripeCount == null || stripeCount <= 1) {
+            throw transferRejection(cardId, username, amount);
+        }
+        // The card row lock keeps the fold job out, so the slot sum read next cannot move money under us.
+        BigDecimal slotBalance = cardBalanceSlotRepository.sumBalance(cardId);
+        if (cardRepository.debitStripedBalance(cardId, username, amount, slotBalance) == 0) {
+            // Only the slots can change while the row is locked, so once the card itself checks out the funds were short.
+            transferRejection(cardId, username, null);
+            throw new InsufficientFundsException("Insufficient funds on card " + cardId);
+        }
+    }
+
+    // Striped cards take the credit in a random slot; other cards fall through to their own row.
+    private void credit(Long cardId, String username, BigDecimal amount) {
+        int random = ThreadLocalRandom.current().nextInt(Integer.MAX_VALUE);
+        if (cardBalanceSlotRepository.creditSlot(cardId, username, amount, random) == 0
+                && cardRepository.creditBalance(cardId, username, amount) == 0) {
+            throw transferRejection(cardId, username, null);
+        }
+    }
+
+    // Caller holds the card row lock; the slot locks hold back new credits until the move commits.
+    private void foldSlots(Long cardId) {
+        if (cardBalanceSlotRepository.lockSlots(cardId).isEmpty()) {
+            return;
+        }
+        BigDecimal slotBalance = cardBalanceSlotRepository.sumBalance(cardId);
+        if (slotBalance.signum() != 0) {
+            cardRepository.addBalance(cardId, slotBalance);
+            cardBalanceSlotRepository.resetBalances(cardId);
+        }
+    }
+
+    // Only runs when an update matched no row, to tell the caller why the transfer was refused.
+    // Throws when the card is missing, not owned or not active.
+    private RuntimeException transferRejection(Long cardId, String username, BigDecimal amountToWithdraw) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new ResourceNotFoundException("User with username " + username + " not found."));
+        Card card = findCardByIdAndUserId(cardId, user.getId());
+        loadSlotBalances(List.of(card));
+        validateCardForTransfer(card, amountToWithdraw);
+        return new InvalidOperationException("Card " + cardId + " was changed by another operation, please retry.");
+    }
+
     private void validateCardForTransfer(Card card, BigDecimal amountToWithdraw) {
         if (card.getStatus() != CardStatus.ACTIVE) {
             throw new InvalidOperationException("Card " + card.getId() + " is not active. Current status: " + card.getStatus());
         }
-        if (amountToWithdraw != null && card.getBalance().compareTo(amountToWithdraw) < 0) {
+        if (amountToWithdraw != null && card.getTotalBalance().compareTo(amountToWithdraw) < 0) {
             throw new InsufficientFundsException("Insufficient funds on card " + card.getId());
         }
     }
 
-    private Transaction logTransaction(Card from, Card to, BigDecimal amount, TransactionStatus status, String description) {
+    // Transfers rely on the status alone; the expiry sweeper moves cards past their month to EXPIRED.
+    private boolean isExpired(Card card) {
+        return card.getExpiryDate() != null && card.getExpiryDate().isBefore(YearMonth.now());
+    }
+
+    // Amounts and limits of a transfer are in the currency of the source card.
+    private Transaction newTransaction(Card from, Card to, BigDecimal amount, String currency, TransactionStatus status, String description) {
         Transaction transaction = new Transaction();
         transaction.setCardFrom(from);
         transaction.setCardTo(to);
         transaction.setAmount(amount);
         transaction.setStatus(status);
         transaction.setDescription(description);
-        transaction.setCurrency("BYN");
-        return transactionRepository.save(transaction);
+        transaction.setCurrency(currency);
+        return transaction;
+    }
+
+    // Returns what the destination card is credited. Unknown cards are left to the balance updates to report.
+    private BigDecimal convert(Transaction transaction, String fromCurrency, String toCurrency) {
+        if (fromCurrency == null || toCurrency == null || fromCurrency.equals(toCurrency)) {
+            return transaction.getAmount();
+        }
+        FxRateService.Conversion conversion = fxRateService.convert(transaction.getAmount(), fromCurrency, toCurrency);
+        transaction.setCreditedAmount(conversion.amount());
+        transaction.setCreditedCurrency(toCurrency);
+        transaction.setFxRate(conversion.rate());
+        return conversion.amount();
     }
 
     private String generateDummyPan() {
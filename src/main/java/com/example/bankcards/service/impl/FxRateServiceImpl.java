@@ -0,0 +1,101 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.exception.InvalidOperationException;
+import com.example.bankcards.service.FxRateService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Exchange rates from {@code fx_rates}, held in memory as an immutable snapshot with inverse and cross rates.
+ */
+@Slf4j
+@Service
+public class FxRateServiceImpl implements FxRateService {
+
+    private static final int RATE_SCALE = 8;
+    private static final int AMOUNT_SCALE = 2;
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile Map<String, BigDecimal> rates;
+
+    public FxRateServiceImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        refresh();
+    }
+
+    @Override
+    public Conversion convert(BigDecimal amount, String fromCurrency, String toCurrency) {
+        BigDecimal rate = rates.get(pair(fromCurrency, toCurrency));
+        if (rate == null) {
+            throw new InvalidOperationException("No exchange rate from " + fromCurrency + " to " + toCurrency + ".");
+        }
+        BigDecimal converted = amount.multiply(rate).setScale(AMOUNT_SCALE, RoundingMode.HALF_UP);
+        if (converted.signum() <= 0) {
+            throw new InvalidOperationException("Amount is too small to convert from " + fromCurrency + " to " + toCurrency + ".");
+        }
+        return new Conversion(rate, converted);
+    }
+
+    @Override
+    public boolean isSupported(String currency) {
+        return rates.containsKey(pair(currency, currency));
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${bankcards.fx.refresh-interval-ms:60000}",
+            initialDelayString = "${bankcards.fx.refresh-interval-ms:60000}")
+    public int refresh() {
+        Map<String, BigDecimal> direct = new HashMap<>();
+        jdbcTemplate.query("select base_currency, quote_currency, rate from fx_rates", rs -> {
+            direct.put(pair(rs.getString(1), rs.getString(2)), rs.getBigDecimal(3));
+        });
+        rates = Map.copyOf(derive(direct));
+        log.debug("Loaded {} exchange rates", direct.size());
+        return direct.size();
+    }
+
+    // Stored rates win over inverses, and both over cross rates through the first common currency in code order.
+    private static Map<String, BigDecimal> derive(Map<String, BigDecimal> direct) {
+        Map<String, Map<String, BigDecimal>> graph = new TreeMap<>();
+        direct.forEach((pair, rate) -> {
+            String[] currencies = pair.split("/");
+            graph.computeIfAbsent(currencies[0], key -> new TreeMap<>()).put(currencies[1], rate);
+            graph.computeIfAbsent(currencies[1], key -> new TreeMap<>())
+                    .putIfAbsent(currencies[0], BigDecimal.ONE.divide(rate, RATE_SCALE, RoundingMode.HALF_UP));
+        });
+
+        Map<String, BigDecimal> rates = new HashMap<>();
+        for (String from : graph.keySet()) {
+            rates.put(pair(from, from), BigDecimal.ONE);
+            for (String to : graph.keySet()) {
+                BigDecimal rate = graph.get(from).get(to);
+                for (Iterator<Map.Entry<String, BigDecimal>> via = graph.get(from).entrySet().iterator();
+                     rate == null && via.hasNext(); ) {
+                    Map.Entry<String, BigDecimal> first = via.next();
+                    BigDecimal second = graph.get(first.getKey()).get(to);
+                    if (second != null) {
+                        rate = first.getValue().multiply(second, MathContext.DECIMAL64).setScale(RATE_SCALE, RoundingMode.HALF_UP);
+                    }
+                }
+                if (rate != null && !from.equals(to)) {
+                    rates.put(pair(from, to), rate);
+                }
+            }
+        }
+        return rates;
+    }
+
+    private static String pair(String from, String to) {
+        return from + "/" + to;
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.dto.TransactionDto;
+import com.example.bankcards.dto.TransferRequestDto;
+import com.example.bankcards.exception.InvalidOperationException;
+import com.example.bankcards.exception.RequestInProgressException;
+import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.IdempotentTransferService;
+import com.example.bankcards.service.fraud.VelocityGate;
+import com.example.bankcards.util.BoundedTtlCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Deduplicates transfers by {@code Idempotency-Key}, in memory and in {@code idempotency_keys}.
+ */
+@Service
+public class IdempotentTransferServiceImpl implements IdempotentTransferService {
+
+    private static final int MAX_KEY_LENGTH = 100;
+
+    private final CardService cardService;
+    private final VelocityGate velocityGate;
+    private final BoundedTtlCache<String, TransactionDto> completedTransfers;
+    private final ConcurrentMap<String, CompletableFuture<TransactionDto>> inFlightTransfers = new ConcurrentHashMap<>();
+    private final long waitTimeoutMs;
+
+    public IdempotentTransferServiceImpl(CardService cardService,
+                                         VelocityGate velocityGate,
+                                         @Value("${bankcards.idempotency.cache-size:10000}") int cacheSize,
+                                         @Value("${bankcards.idempotency.cache-ttl-ms:3600000}") long cacheTtlMs,
+                                         @Value("${bankcards.idempotency.wait-timeout-ms:10000}") long waitTimeoutMs) {
+        this.cardService = cardService;
+        this.velocityGate = velocityGate;
+        this.completedTransfers = new BoundedTtlCache<>(cacheSize, cacheTtlMs);
+        this.waitTimeoutMs = waitTimeoutMs;
+    }
+
+    @Override
+    public TransactionDto transfer(String username, String idempotencyKey, TransferRequestDto request) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new InvalidOperationException("Idempotency key must be between 1 and " + MAX_KEY_LENGTH + " characters.");
+        }
+        String cacheKey = username + ':' + idempotencyKey;
+
+        TransactionDto cached = completedTransfers.get(cacheKey);
+        if (cached != null) {
+            return matchRequest(cached, request, idempotencyKey);
+        }
+
+        CompletableFuture<TransactionDto> own = new CompletableFuture<>();
+        CompletableFuture<TransactionDto> running = inFlightTransfers.putIfAbsent(cacheKey, own);
+        if (running != null) {
+            return matchRequest(awaitResult(running, idempotencyKey), request, idempotencyKey);
+        }
+
+        try {
+            TransactionDto transaction = cardService.findTransferByIdempotencyKey(username, idempotencyKey)
+                    .orElseGet(() -> {
+                        velocityGate.check(username, request.getFromCardId(), request.getAmount());
+                        return executeOnce(username, idempotencyKey, request);
+                    });
+            completedTransfers.put(cacheKey, transaction);
+            own.complete(transaction);
+            return matchRequest(transaction, request, idempotencyKey);
+        } catch (RuntimeException ex) {
+            own.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlightTransfers.remove(cacheKey, own);
+        }
+    }
+
+    private TransactionDto executeOnce(String username, String idempotencyKey, TransferRequestDto request) {
+        try {
+            return cardService.transferBetweenOwnCards(username, request, idempotencyKey);
+        } catch (DataIntegrityViolationException ex) {
+            // Another instance stored the same key first; our transfer was rolled back, so return theirs.
+            return cardService.findTransferByIdempotencyKey(username, idempotencyKey)
+                    .orElseThrow(() -> ex);
+        }
+    }
+
+    private TransactionDto awaitResult(CompletableFuture<TransactionDto> running, String idempotencyKey) {
+        try {
+            return running.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(ex.getCause());
+        } catch (TimeoutException ex) {
+            throw new RequestInProgressException("A request with idempotency key " + idempotencyKey + " is still being processed.");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RequestInProgressException("A request with idempotency key " + idempotencyKey + " is still being processed.");
+        }
+    }
+
+    private TransactionDto matchRequest(TransactionDto transaction, TransferRequestDto request, String idempotencyKey) {
+        boolean sameTransfer = Objects.equals(transaction.getCardFromId(), request.getFromCardId())
+                && Objects.equals(transaction.getCardToId(), request.getToCardId())
+                && transaction.getAmount().compareTo(request.getAmount()) == 0;
+        if (!sameTransfer) {
+            throw new InvalidOperationException("Idempotency key " + idempotencyKey + " was already used for a different transfer.");
+        }
+        return transaction;
+    }
+}
@@ -0,0 +1,203 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.dto.BatchTransferRequestDto;
+import com.example.bankcards.dto.BatchTransferResultDto;
+import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.CardLimitsRequest;
+import com.example.bankcards.dto.CreateCardRequest;
+import com.example.bankcards.dto.TransactionDto;
+import com.example.bankcards.dto.TransferRequestDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.entity.enums.CardStatus;
+import com.example.bankcards.entity.enums.TransactionStatus;
+import com.example.bankcards.exception.InvalidOperationException;
+import com.example.bankcards.exception.RequestInProgressException;
+import com.example.bankcards.exception.ResourceNotFoundException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.engine.BalanceEngine;
+import com.example.bankcards.service.engine.JournalRecord;
+import com.example.bankcards.service.limit.SpendingLimiter;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * {@link CardService} that books transfers between own cards through the {@link BalanceEngine}.
+ */
+public class InMemoryCardServiceImpl implements CardService {
+
+    private final CardService delegate;
+    private final BalanceEngine balanceEngine;
+    private final UserRepository userRepository;
+    private final CardRepository cardRepository;
+    private final SpendingLimiter spendingLimiter;
+    private final long transferTimeoutMs;
+    private final ConcurrentMap<String, Long> userIds = new ConcurrentHashMap<>();
+    // A card keeps its currency for life.
+    private final ConcurrentMap<Long, String> currencies = new ConcurrentHashMap<>();
+
+    public InMemoryCardServiceImpl(CardService delegate, BalanceEngine balanceEngine, UserRepository userRepository,
+                                   CardRepository cardRepository, SpendingLimiter spendingLimiter, long transferTimeoutMs) {
+        this.delegate = delegate;
+        this.balanceEngine = balanceEngine;
+        this.userRepository = userRepository;
+        this.cardRepository = cardRepository;
+        this.spendingLimiter = spendingLimiter;
+        this.transferTimeoutMs = transferTimeoutMs;
+    }
+
+    @Override
+    public CardDto createCard(CreateCardRequest request) {
+        return delegate.createCard(request);
+    }
+
+    @Override
+    public TransactionDto transferBetweenOwnCards(String username, TransferRequestDto request) {
+        if (Objects.equals(request.getFromCardId(), request.getToCardId())) {
+            throw new InvalidOperationException("Source and destination cards cannot be the same.");
+        }
+        Long userId = userIds.computeIfAbsent(username, name -> userRepository.findByUsername(name)
+                .map(User::getId)
+                .orElseThrow(() -> new ResourceNotFoundException("User with username " + name + " not found.")));
+
+        // There is no transaction here, so the reservation is given back by hand when the engine refuses the transfer.
+        SpendingLimiter.Reservation reservation = spendingLimiter.reserve(request.getFromCardId(), request.getAmount());
+        try {
+            JournalRecord record = balanceEngine.submit(userId, request.getFromCardId(), request.getToCardId(), request.getAmount())
+                    .get(transferTimeoutMs, TimeUnit.MILLISECONDS);
+            spendingLimiter.complete(reservation, true);
+            return toDto(record, username);
+        } catch (ExecutionException e) {
+            spendingLimiter.complete(reservation, false);
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            // The transfer may still go through, so it stays counted.
+            spendingLimiter.complete(reservation, true);
+            throw new RequestInProgressException("Transfer is still being processed, check the transaction history before retrying.");
+        } catch (InterruptedException e) {
+            spendingLimiter.complete(reservation, true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the transfer.", e);
+        }
+    }
+
+    @Override
+    public TransactionDto transferBetweenOwnCards(String username, TransferRequestDto request, String idempotencyKey) {
+        throw new InvalidOperationException("Idempotent transfers are not supported while the in-memory balance engine is enabled.");
+    }
+
+    @Override
+    public TransactionDto submitTransfer(String username, TransferRequestDto request) {
+        throw new InvalidOperationException("Asynchronous transfers are not supported while the in-memory balance engine is enabled.");
+    }
+
+    @Override
+    public int processPendingTransfers(Long cardFromId, int limit) {
+        // Booking through the database would bypass the balances the engine holds in memory.
+        throw new InvalidOperationException("Asynchronous transfers are not supported while the in-memory balance engine is enabled.");
+    }
+
+    @Override
+    public int executeScheduledTransfers(Collection<Long> scheduleIds) {
+        throw new InvalidOperationException("Scheduled transfers are not supported while the in-memory balance engine is enabled.");
+    }
+
+    @Override
+    public TransactionDto getTransaction(Long transactionId, String username) {
+        return delegate.getTransaction(transactionId, username);
+    }
+
+    @Override
+    public Optional<TransactionDto> findTransferByIdempotencyKey(String username, String idempotencyKey) {
+        return delegate.findTransferByIdempotencyKey(username, idempotencyKey);
+    }
+
+    @Override
+    public BatchTransferResultDto transferBatchBetweenOwnCards(String username, BatchTransferRequestDto request) {
+        throw new InvalidOperationException("Batch transfers are not supported while the in-memory balance engine is enabled.");
+    }
+
+    @Override
+    public Page<CardDto> getCardsByUserId(Long userId, CardStatus status, String panLast4, Pageable pageable) {
+        return delegate.getCardsByUserId(userId, status, panLast4, pageable);
+    }
+
+    @Override
+    public Page<CardDto> getAllCards(Pageable pageable) {
+        return delegate.getAllCards(pageable);
+    }
+
+    @Override
+    public CardDto blockCard(Long cardId) {
+        CardDto card = delegate.blockCard(cardId);
+        balanceEngine.updateStatus(cardId, CardStatus.BLOCKED);
+        return card;
+    }
+
+    @Override
+    public CardDto activateCard(Long cardId) {
+        CardDto card = delegate.activateCard(cardId);
+        balanceEngine.updateStatus(cardId, CardStatus.ACTIVE);
+        return card;
+    }
+
+    @Override
+    public void deleteCard(Long cardId) {
+        delegate.deleteCard(cardId);
+        balanceEngine.forget(cardId);
+    }
+
+    @Override
+    public CardDto updateBalanceStripes(Long cardId, int stripeCount) {
+        return delegate.updateBalanceStripes(cardId, stripeCount);
+    }
+
+    @Override
+    public void foldBalanceStripes(Long cardId) {
+        delegate.foldBalanceStripes(cardId);
+    }
+
+    @Override
+    public CardDto updateSpendingLimits(Long cardId, CardLimitsRequest request) {
+        return delegate.updateSpendingLimits(cardId, request);
+    }
+
+    @Override
+    public CardDto requestCardBlock(Long cardId, String username) {
+        CardDto card = delegate.requestCardBlock(cardId, username);
+        balanceEngine.updateStatus(cardId, CardStatus.BLOCKED);
+        return card;
+    }
+
+    private TransactionDto toDto(JournalRecord record, String username) {
+        TransactionDto dto = new TransactionDto();
+        dto.setId(record.transactionId());
+        dto.setCardFromId(record.fromCardId());
+        dto.setCardToId(record.toCardId());
+        dto.setAmount(BalanceEngine.toAmount(record.amountCents()));
+        dto.setCurrency(currencies.computeIfAbsent(record.fromCardId(), cardId ->
+                cardRepository.findCurrencies(List.of(cardId), username).stream()
+                        .map(row -> (String) row[1])
+                        .findFirst()
+                        .orElse(Card.DEFAULT_CURRENCY)));
+        dto.setStatus(TransactionStatus.COMPLETED.name());
+        dto.setDescription(BalanceEngine.DESCRIPTION);
+        dto.setCreatedAt(BalanceEngine.toDateTime(record.createdAtMillis()));
+        return dto;
+    }
+}
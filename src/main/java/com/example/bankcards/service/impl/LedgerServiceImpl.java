@@ -0,0 +1,104 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.dto.CardBalanceDto;
+import com.example.bankcards.entity.BalanceSnapshot;
+import com.example.bankcards.entity.LedgerEntry;
+import com.example.bankcards.entity.Transaction;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.entity.enums.LedgerEntryType;
+import com.example.bankcards.exception.ResourceNotFoundException;
+import com.example.bankcards.repository.BalanceSnapshotRepository;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.LedgerEntryRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.LedgerService;
+import com.example.bankcards.service.TurnoverService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Double-entry ledger; a balance is the latest snapshot plus the entries it has not folded.
+ */
+@Service
+@RequiredArgsConstructor
+public class LedgerServiceImpl implements LedgerService {
+
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final LedgerEntryRepository ledgerEntryRepository;
+    private final BalanceSnapshotRepository balanceSnapshotRepository;
+    private final CardRepository cardRepository;
+    private final UserRepository userRepository;
+    private final TurnoverService turnoverService;
+
+    @Value("${bankcards.ledger.compaction-min-entries:100}")
+    private long compactionMinEntries;
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordTransfers(List<Transaction> transactions) {
+        List<LedgerEntry> entries = new ArrayList<>(transactions.size() * 2);
+        for (Transaction transaction : transactions) {
+            entries.add(newEntry(transaction, LedgerEntryType.DEBIT));
+            entries.add(newEntry(transaction, LedgerEntryType.CREDIT));
+        }
+        ledgerEntryRepository.saveAll(entries);
+        turnoverService.recordEntries(entries);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CardBalanceDto getBalance(Long cardId, String username, LocalDateTime at) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new ResourceNotFoundException("User " + username + " not found."));
+        cardRepository.findById(cardId)
+                .filter(card -> card.getOwner().getId().equals(user.getId()))
+                .orElseThrow(() -> new ResourceNotFoundException("Card with id " + cardId + " not found or does not belong to user " + user.getId()));
+
+        LocalDateTime moment = at != null ? at : LocalDateTime.now();
+        Optional<BalanceSnapshot> snapshot = balanceSnapshotRepository.findFirstByCardIdAndAsOfLessThanEqualOrderByAsOfDesc(cardId, moment);
+        BigDecimal base = snapshot.map(BalanceSnapshot::getBalance).orElse(BigDecimal.ZERO);
+        LocalDateTime after = snapshot.map(BalanceSnapshot::getAsOf).orElse(EPOCH);
+        long seq = snapshot.map(BalanceSnapshot::getSeq).orElse(0L);
+
+        CardBalanceDto balance = new CardBalanceDto();
+        balance.setCardId(cardId);
+        balance.setBalance(base.add(ledgerEntryRepository.sumAmounts(cardId, after, seq, moment)));
+        balance.setAt(moment);
+        return balance;
+    }
+
+    @Override
+    @Transactional
+    @Scheduled(fixedDelayString = "${bankcards.ledger.compaction-interval-ms:300000}",
+            initialDelayString = "${bankcards.ledger.compaction-interval-ms:300000}")
+    public int compactSnapshots() {
+        // The lock row also keeps two runs from building on the same snapshot.
+        long seq = balanceSnapshotRepository.lockLastCompaction() + 1;
+        LocalDateTime asOf = LocalDateTime.now();
+        if (balanceSnapshotRepository.stampEntries(seq, asOf, compactionMinEntries) == 0) {
+            return 0;
+        }
+        balanceSnapshotRepository.saveLastCompaction(seq);
+        return balanceSnapshotRepository.compact(seq, asOf);
+    }
+
+    private LedgerEntry newEntry(Transaction transaction, LedgerEntryType type) {
+        LedgerEntry entry = new LedgerEntry();
+        entry.setCard(type == LedgerEntryType.DEBIT ? transaction.getCardFrom() : transaction.getCardTo());
+        entry.setTransaction(transaction);
+        entry.setEntryType(type);
+        entry.setAmount(type == LedgerEntryType.DEBIT ? transaction.getAmount() : transaction.getDestinationAmount());
+        return entry;
+    }
+}
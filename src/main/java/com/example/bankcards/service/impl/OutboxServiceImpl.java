@@ -0,0 +1,166 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.Transaction;
+import com.example.bankcards.entity.enums.CardStatus;
+import com.example.bankcards.entity.enums.OutboxEventType;
+import com.example.bankcards.service.OutboxService;
+import com.example.bankcards.service.outbox.OutboxEvent;
+import com.example.bankcards.service.outbox.OutboxSink;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes domain events to {@code outbox} with their change and relays them to the sinks at least once.
+ */
+@Slf4j
+@Service
+public class OutboxServiceImpl implements OutboxService {
+
+    private static final String INSERT_EVENT = "insert into outbox (aggregate_type, aggregate_id, event_type, payload, created_at) " +
+            "values (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final List<OutboxSink> sinks;
+    private final Counter relayed;
+    private final Counter failed;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+
+    public OutboxServiceImpl(JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             ObjectMapper objectMapper,
+                             List<OutboxSink> sinks,
+                             MeterRegistry meterRegistry,
+                             @Value("${bankcards.outbox.batch-size:1000}") int batchSize,
+                             @Value("${bankcards.outbox.max-batches-per-run:100}") int maxBatchesPerRun) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.sinks = sinks;
+        this.relayed = meterRegistry.counter("bankcards.outbox.relayed");
+        this.failed = meterRegistry.counter("bankcards.outbox.relay.failures");
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordTransfers(List<Transaction> transactions) {
+        List<Object[]> events = new ArrayList<>(transactions.size());
+        for (Transaction transaction : transactions) {
+            Map<String, Object> payload = new LinkedHashMap<>();
+            payload.put("transactionId", transaction.getId());
+            payload.put("fromCardId", transaction.getCardFrom().getId());
+            payload.put("toCardId", transaction.getCardTo().getId());
+            payload.put("amount", transaction.getAmount());
+            payload.put("currency", transaction.getCurrency());
+            if (transaction.getCreditedAmount() != null) {
+                payload.put("creditedAmount", transaction.getCreditedAmount());
+                payload.put("creditedCurrency", transaction.getCreditedCurrency());
+                payload.put("fxRate", transaction.getFxRate());
+            }
+            payload.put("createdAt", transaction.getCreatedAt());
+            events.add(event(OutboxEventType.TRANSFER_COMPLETED, transaction.getId(), payload));
+        }
+        jdbcTemplate.batchUpdate(INSERT_EVENT, events);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordCardEvent(OutboxEventType type, Card card) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("cardId", card.getId());
+        payload.put("ownerId", card.getOwner().getId());
+        payload.put("panLast4", card.getPanLast4());
+        payload.put("currency", card.getCurrency());
+        payload.put("status", card.getStatus());
+        jdbcTemplate.update(INSERT_EVENT, event(type, card.getId(), payload));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordCardDeleted(Long cardId) {
+        jdbcTemplate.update(INSERT_EVENT, event(OutboxEventType.CARD_DELETED, cardId, Map.of("cardId", cardId)));
+    }
+
+    // Cards are expired by set-based updates, so only what the update knows goes into the payload.
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordCardsExpired(List<Long> cardIds) {
+        jdbcTemplate.batchUpdate(INSERT_EVENT, cardIds.stream()
+                .map(cardId -> event(OutboxEventType.CARD_EXPIRED, cardId, Map.of("cardId", cardId, "status", CardStatus.EXPIRED)))
+                .toList());
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${bankcards.outbox.relay-interval-ms:200}",
+            initialDelayString = "${bankcards.outbox.relay-interval-ms:200}")
+    public int relay() {
+        // Keeps going while batches come back full, up to a bound so one run cannot starve the scheduler.
+        int total = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            int delivered;
+            try {
+                delivered = transactionTemplate.execute(status -> relayBatch());
+            } catch (RuntimeException e) {
+                failed.increment();
+                log.error("Outbox relay failed, the batch will be delivered again", e);
+                break;
+            }
+            total += delivered;
+            if (delivered < batchSize) {
+                break;
+            }
+        }
+        relayed.increment(total);
+        return total;
+    }
+
+    private int relayBatch() {
+        List<OutboxEvent> events = jdbcTemplate.query("select id, aggregate_type, aggregate_id, event_type, payload, created_at " +
+                        "from outbox order by id limit ? for update skip locked",
+                (rs, rowNum) -> new OutboxEvent(rs.getLong(1), rs.getString(2), rs.getLong(3), rs.getString(4),
+                        rs.getString(5), rs.getTimestamp(6).toLocalDateTime()),
+                batchSize);
+        if (events.isEmpty()) {
+            return 0;
+        }
+        for (OutboxSink sink : sinks) {
+            sink.deliver(events);
+        }
+        jdbcTemplate.batchUpdate("delete from outbox where id = ?", events.stream()
+                .map(event -> new Object[]{event.id()})
+                .toList());
+        return events.size();
+    }
+
+    private Object[] event(OutboxEventType type, Long aggregateId, Map<String, Object> payload) {
+        try {
+            return new Object[]{type.getAggregateType(), aggregateId, type.name(), objectMapper.writeValueAsString(payload),
+                    Timestamp.valueOf(LocalDateTime.now())};
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize the payload of a " + type + " event", e);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.repository.TransactionRepository;
+import com.example.bankcards.service.CardService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Books PENDING transfers on a bounded pool of workers, grouped by source card.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "bankcards.engine.mode", havingValue = "jpa", matchIfMissing = true)
+public class PendingTransferWorker {
+
+    private final TransactionRepository transactionRepository;
+    private final CardService cardService;
+    private final ThreadPoolExecutor executor;
+    private final int batchSize;
+    private final Set<Long> cardsInProgress = ConcurrentHashMap.newKeySet();
+
+    public PendingTransferWorker(TransactionRepository transactionRepository,
+                                 CardService cardService,
+                                 @Value("${bankcards.async-transfer.workers:4}") int workers,
+                                 @Value("${bankcards.async-transfer.queue-capacity:100}") int queueCapacity,
+                                 @Value("${bankcards.async-transfer.batch-size:100}") int batchSize) {
+        this.transactionRepository = transactionRepository;
+        this.cardService = cardService;
+        this.batchSize = batchSize;
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "pending-transfer-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @Scheduled(fixedDelayString = "${bankcards.async-transfer.poll-interval-ms:200}")
+    public void dispatch() {
+        int free = executor.getQueue().remainingCapacity();
+        if (free == 0) {
+            return;
+        }
+        for (Long cardId : transactionRepository.findPendingSourceCardIds(PageRequest.of(0, free))) {
+            // A card already being drained is skipped rather than queued twice.
+            if (!cardsInProgress.add(cardId)) {
+                continue;
+            }
+            try {
+                executor.execute(() -> drain(cardId));
+            } catch (RejectedExecutionException e) {
+                cardsInProgress.remove(cardId);
+                return;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private void drain(Long cardId) {
+        try {
+            // A full batch means more transfers may be waiting for this card.
+            int processed;
+            do {
+                processed = cardService.processPendingTransfers(cardId, batchSize);
+            } while (processed == batchSize);
+        } catch (DataAccessException e) {
+            log.warn("Could not process pending transfers of card {}, will retry", cardId, e);
+        } finally {
+            cardsInProgress.remove(cardId);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.dto.ScheduledTransferDto;
+import com.example.bankcards.dto.ScheduledTransferRequestDto;
+import com.example.bankcards.entity.ScheduledTransfer;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.entity.enums.ScheduleFrequency;
+import com.example.bankcards.entity.enums.ScheduledTransferStatus;
+import com.example.bankcards.exception.InvalidOperationException;
+import com.example.bankcards.exception.ResourceNotFoundException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.ScheduledTransferRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.ScheduledTransferService;
+import com.example.bankcards.service.schedule.ScheduledTransferEngine;
+import com.example.bankcards.util.mapper.ScheduledTransferMapper;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Objects;
+
+@Service
+public class ScheduledTransferServiceImpl implements ScheduledTransferService {
+
+    private final ScheduledTransferRepository scheduledTransferRepository;
+    private final CardRepository cardRepository;
+    private final UserRepository userRepository;
+    private final ScheduledTransferMapper scheduledTransferMapper;
+    // Absent while the in-memory balance engine is enabled.
+    private final ScheduledTransferEngine engine;
+
+    public ScheduledTransferServiceImpl(ScheduledTransferRepository scheduledTransferRepository,
+                                        CardRepository cardRepository,
+                                        UserRepository userRepository,
+                                        ScheduledTransferMapper scheduledTransferMapper,
+                                        ObjectProvider<ScheduledTransferEngine> engine) {
+        this.scheduledTransferRepository = scheduledTransferRepository;
+        this.cardRepository = cardRepository;
+        this.userRepository = userRepository;
+        this.scheduledTransferMapper = scheduledTransferMapper;
+        this.engine = engine.getIfAvailable();
+    }
+
+    @Override
+    @Transactional
+    public ScheduledTransferDto createScheduledTransfer(String username, ScheduledTransferRequestDto request) {
+        if (engine == null) {
+            throw new InvalidOperationException("Scheduled transfers are not supported while the in-memory balance engine is enabled.");
+        }
+        if (Objects.equals(request.getFromCardId(), request.getToCardId())) {
+            throw new InvalidOperationException("Source and destination cards cannot be the same.");
+        }
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new ResourceNotFoundException("User with username " + username + " not found."));
+        // Funds, card status and exchange rates are checked at each run.
+        List<Long> cardIds = List.of(request.getFromCardId(), request.getToCardId());
+        if (cardRepository.findCurrencies(cardIds, username).size() != cardIds.size()) {
+            throw new ResourceNotFoundException("Cards " + cardIds + " not found or do not belong to user " + user.getId());
+        }
+
+        ScheduledTransfer schedule = new ScheduledTransfer();
+        schedule.setOwner(user);
+        schedule.setCardFrom(cardRepository.getReferenceById(request.getFromCardId()));
+        schedule.setCardTo(cardRepository.getReferenceById(request.getToCardId()));
+        schedule.setAmount(request.getAmount());
+        schedule.setFrequency(request.getFrequency() == null ? ScheduleFrequency.ONCE : request.getFrequency());
+        schedule.setStartsAt(request.getFirstRunAt());
+        schedule.setNextRunAt(request.getFirstRunAt());
+        schedule = scheduledTransferRepository.save(schedule);
+
+        Long scheduleId = schedule.getId();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                engine.schedule(scheduleId, request.getFirstRunAt());
+            }
+        });
+        return scheduledTransferMapper.toDto(schedule);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<ScheduledTransferDto> getScheduledTransfers(String username, Pageable pageable) {
+        return scheduledTransferRepository.findByOwnerUsernameOrderById(username, pageable).map(scheduledTransferMapper::toDto);
+    }
+
+    @Override
+    @Transactional
+    public ScheduledTransferDto cancelScheduledTransfer(Long scheduleId, String username) {
+        ScheduledTransfer schedule = scheduledTransferRepository.findByIdAndOwnerUsernameForUpdate(scheduleId, username)
+                .orElseThrow(() -> new ResourceNotFoundException("Scheduled transfer with id " + scheduleId + " not found."));
+        if (schedule.getStatus() != ScheduledTransferStatus.ACTIVE) {
+            throw new InvalidOperationException("Scheduled transfer " + scheduleId + " is not active. Current status: " + schedule.getStatus());
+        }
+        schedule.setStatus(ScheduledTransferStatus.CANCELLED);
+        if (engine != null) {
+            engine.cancel(scheduleId);
+        }
+        return scheduledTransferMapper.toDto(schedule);
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.dto.StatementLineDto;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.InvalidOperationException;
+import com.example.bankcards.exception.ResourceNotFoundException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.TransactionRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.StatementExportService;
+import com.example.bankcards.service.archive.TransactionArchive;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+/**
+ * Streams card statements from the archive and a database cursor straight to the response.
+ */
+@Service
+public class StatementExportServiceImpl implements StatementExportService {
+
+    private static final String CSV_HEADER =
+            "id,created_at,card_from_id,card_to_id,amount,currency,status,description,credited_amount,credited_currency,fx_rate\n";
+
+    private final TransactionRepository transactionRepository;
+    private final CardRepository cardRepository;
+    private final UserRepository userRepository;
+    private final TransactionArchive transactionArchive;
+    private final ObjectWriter jsonWriter;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public StatementExportServiceImpl(TransactionRepository transactionRepository,
+                                      CardRepository cardRepository,
+                                      UserRepository userRepository,
+                                      TransactionArchive transactionArchive,
+                                      ObjectMapper objectMapper,
+                                      PlatformTransactionManager transactionManager) {
+        this.transactionRepository = transactionRepository;
+        this.cardRepository = cardRepository;
+        this.userRepository = userRepository;
+        this.transactionArchive = transactionArchive;
+        this.jsonWriter = objectMapper.writerFor(StatementLineDto.class);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @Override
+    public StreamingResponseBody exportCardStatement(Long cardId, String username, LocalDate from, LocalDate to, Format format) {
+        if (from.isAfter(to)) {
+            throw new InvalidOperationException("The start of the period must not be after its end.");
+        }
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new ResourceNotFoundException("User " + username + " not found."));
+        cardRepository.findById(cardId)
+                .filter(card -> card.getOwner().getId().equals(user.getId()))
+                .orElseThrow(() -> new ResourceNotFoundException("Card with id " + cardId + " not found or does not belong to user " + user.getId()));
+
+        LocalDateTime start = from.atStartOfDay();
+        LocalDateTime end = to.plusDays(1).atStartOfDay();
+        return outputStream -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), 64 * 1024);
+            if (format == Format.CSV) {
+                writer.write(CSV_HEADER);
+            }
+            // Archived transactions come first: they are older than any settled one left in the database.
+            transactionArchive.forEach(cardId, start, end, line -> {
+                write(writer, line, format);
+                return true;
+            });
+            // The cursor needs an open transaction, PostgreSQL only honours the fetch size inside one.
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<StatementLineDto> lines = transactionRepository.streamStatement(cardId, start, end)) {
+                    lines.forEach(line -> write(writer, line, format));
+                }
+            });
+            writer.flush();
+        };
+    }
+
+    private void write(Writer writer, StatementLineDto line, Format format) {
+        try {
+            if (format == Format.CSV) {
+                writer.write(toCsv(line));
+            } else {
+                writer.write(jsonWriter.writeValueAsString(line));
+            }
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String toCsv(StatementLineDto line) {
+        return line.getId() + "," + line.getCreatedAt() + "," + nullToEmpty(line.getCardFromId()) + ","
+                + nullToEmpty(line.getCardToId()) + "," + line.getAmount().toPlainString() + ","
+                + nullToEmpty(line.getCurrency()) + "," + nullToEmpty(line.getStatus()) + "," + csvField(line.getDescription())
+                + "," + (line.getCreditedAmount() == null ? "" : line.getCreditedAmount().toPlainString()) + ","
+                + nullToEmpty(line.getCreditedCurrency()) + "," + (line.getFxRate() == null ? "" : line.getFxRate().toPlainString());
+    }
+
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static String nullToEmpty(Object value) {
+        return value == null ? "" : value.toString();
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.dto.TransactionDto;
+import com.example.bankcards.dto.TransactionPageDto;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.InvalidOperationException;
+import com.example.bankcards.exception.ResourceNotFoundException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.TransactionRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.TransactionHistoryService;
+import com.example.bankcards.service.archive.TransactionArchive;
+import com.example.bankcards.util.mapper.TransactionMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Keyset-paged transaction history, newest first, continued from the {@link TransactionArchive}.
+ */
+@Service
+@RequiredArgsConstructor
+public class TransactionHistoryServiceImpl implements TransactionHistoryService {
+
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private static final Comparator<TransactionDto> NEWEST_FIRST = Comparator
+            .comparing(TransactionDto::getCreatedAt, Comparator.reverseOrder())
+            .thenComparing(TransactionDto::getId, Comparator.reverseOrder());
+    // Starting point of the first page, later than any stored transaction.
+    private static final LocalDateTime LATEST = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    private final TransactionRepository transactionRepository;
+    private final CardRepository cardRepository;
+    private final UserRepository userRepository;
+    private final TransactionMapper transactionMapper;
+    private final TransactionArchive transactionArchive;
+
+    @Override
+    @Transactional(readOnly = true)
+    public TransactionPageDto getUserTransactions(Long userId, String cursor, int size) {
+        if (!userRepository.existsById(userId)) {
+            throw new ResourceNotFoundException("User with id " + userId + " not found.");
+        }
+        return readPage(cardRepository.findIdsByOwnerId(userId), cursor, size);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public TransactionPageDto getCardTransactions(Long cardId, String username, String cursor, int size) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new ResourceNotFoundException("User " + username + " not found."));
+        cardRepository.findById(cardId)
+                .filter(card -> card.getOwner().getId().equals(user.getId()))
+                .orElseThrow(() -> new ResourceNotFoundException("Card with id " + cardId + " not found or does not belong to user " + user.getId()));
+        return readPage(List.of(cardId), cursor, size);
+    }
+
+    private TransactionPageDto readPage(List<Long> cardIds, String cursor, int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new InvalidOperationException("Page size must be between 1 and " + MAX_PAGE_SIZE + ".");
+        }
+        Position after = cursor != null ? decodeCursor(cursor) : new Position(LATEST, Long.MAX_VALUE);
+
+        // One extra row per range tells whether an older page exists; transfers between two listed cards
+        // show up in both ranges and are kept once.
+        TreeSet<TransactionDto> merged = new TreeSet<>(NEWEST_FIRST);
+        for (Long cardId : cardIds) {
+            transactionRepository.findOutgoingBefore(cardId, after.createdAt(), after.id(), size + 1)
+                    .forEach(transaction -> merged.add(transactionMapper.toDto(transaction)));
+            transactionRepository.findIncomingBefore(cardId, after.createdAt(), after.id(), size + 1)
+                    .forEach(transaction -> merged.add(transactionMapper.toDto(transaction)));
+        }
+        // Archived transactions are older than the ones left in the database, so the archive is only read
+        // once the database runs out.
+        if (merged.size() <= size) {
+            for (Long cardId : cardIds) {
+                transactionArchive.findBefore(cardId, after.createdAt(), after.id(), size + 1)
+                        .forEach(line -> merged.add(transactionMapper.fromStatementLine(line)));
+            }
+        }
+
+        List<TransactionDto> page = new ArrayList<>(size);
+        for (TransactionDto transaction : merged) {
+            if (page.size() == size) {
+                break;
+            }
+            page.add(transaction);
+        }
+
+        TransactionPageDto result = new TransactionPageDto();
+        result.setContent(page);
+        result.setSize(page.size());
+        if (merged.size() > size) {
+            result.setNextCursor(encodeCursor(page.get(page.size() - 1)));
+        }
+        return result;
+    }
+
+    private static String encodeCursor(TransactionDto transaction) {
+        String position = transaction.getCreatedAt() + "|" + transaction.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Position decodeCursor(String cursor) {
+        try {
+            String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (position.length != 2) {
+                throw new IllegalArgumentException(cursor);
+            }
+            return new Position(LocalDateTime.parse(position[0]), Long.parseLong(position[1]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidOperationException("Invalid page cursor.");
+        }
+    }
+
+    private record Position(LocalDateTime createdAt, long id) {
+    }
+}
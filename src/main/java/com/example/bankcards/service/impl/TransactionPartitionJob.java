@@ -0,0 +1,150 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.service.archive.TransactionArchiver;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Creates the coming monthly partitions of {@code transactions} and detaches or drops expired ones.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "bankcards.partitioning.enabled", havingValue = "true")
+public class TransactionPartitionJob {
+
+    private static final Pattern BOUND = Pattern.compile("FROM \\((.+)\\) TO \\((.+)\\)");
+    private static final DateTimeFormatter BOUND_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int monthsAhead;
+    private final int retentionMonths;
+    private final boolean dropExpired;
+    private final TransactionArchiver archiver;
+
+    public TransactionPartitionJob(JdbcTemplate jdbcTemplate,
+                                   ObjectProvider<TransactionArchiver> archiver,
+                                   @Value("${bankcards.partitioning.months-ahead:3}") int monthsAhead,
+                                   @Value("${bankcards.partitioning.retention-months:0}") int retentionMonths,
+                                   @Value("${bankcards.partitioning.retention-action:detach}") String retentionAction) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+        this.dropExpired = "drop".equalsIgnoreCase(retentionAction);
+        this.archiver = archiver.getIfAvailable();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${bankcards.partitioning.maintenance-cron:0 0 3 * * *}")
+    public void maintainPartitions() {
+        try {
+            createUpcomingPartitions(YearMonth.now());
+            if (retentionMonths > 0) {
+                removeExpiredPartitions(YearMonth.now().minusMonths(retentionMonths).atDay(1).atStartOfDay());
+            }
+        } catch (DataAccessException e) {
+            log.error("Could not maintain the partitions of table transactions, will retry", e);
+        }
+    }
+
+    void createUpcomingPartitions(YearMonth current) {
+        List<Partition> partitions = findPartitions();
+        for (int i = 0; i <= monthsAhead; i++) {
+            YearMonth month = current.plusMonths(i);
+            LocalDateTime from = month.atDay(1).atStartOfDay();
+            LocalDateTime to = month.plusMonths(1).atDay(1).atStartOfDay();
+            // The partition attached when the table was converted covers everything up to some month end.
+            if (partitions.stream().anyMatch(partition -> partition.overlaps(from, to))) {
+                continue;
+            }
+            String name = "transactions_p" + month.format(NAME_FORMAT);
+            jdbcTemplate.execute("CREATE TABLE " + name + " PARTITION OF transactions FOR VALUES FROM ('"
+                    + from.format(BOUND_FORMAT) + "') TO ('" + to.format(BOUND_FORMAT) + "')");
+            log.info("Created partition {} of table transactions", name);
+        }
+    }
+
+    void removeExpiredPartitions(LocalDateTime cutoff) {
+        for (Partition partition : findPartitions()) {
+            if (partition.to() == null || partition.to().isAfter(cutoff)) {
+                continue;
+            }
+            // A pending transfer has not moved its money yet, so it must settle before its partition can go.
+            Integer pending = jdbcTemplate.queryForObject("select count(*) from " + partition.name()
+                    + " where status = 'PENDING'", Integer.class);
+            if (pending != null && pending > 0) {
+                log.error("Expired partition {} of table transactions still holds {} pending transfers, it is kept",
+                        partition.name(), pending);
+                continue;
+            }
+            if (archiver != null) {
+                int exported = archiver.exportTable(partition.name());
+                log.info("Exported {} transactions of partition {} to the archive", exported, partition.name());
+            }
+            releaseReferences(partition.name());
+            if (dropExpired) {
+                jdbcTemplate.execute("DROP TABLE " + partition.name());
+                log.info("Dropped expired partition {} of table transactions", partition.name());
+            } else {
+                jdbcTemplate.execute("ALTER TABLE transactions DETACH PARTITION " + partition.name());
+                log.info("Detached expired partition {} from table transactions", partition.name());
+            }
+        }
+    }
+
+    private void releaseReferences(String partition) {
+        int keys = jdbcTemplate.update("delete from idempotency_keys where transaction_id in (select id from "
+                + partition + ")");
+        int entries = jdbcTemplate.update("update ledger_entries set transaction_id = null where transaction_id in "
+                + "(select id from " + partition + ")");
+        if (keys > 0 || entries > 0) {
+            log.info("Released {} idempotency keys and {} ledger entries referencing partition {}", keys, entries, partition);
+        }
+    }
+
+    private List<Partition> findPartitions() {
+        return jdbcTemplate.query("select c.relname, pg_get_expr(c.relpartbound, c.oid) from pg_inherits i " +
+                        "join pg_class c on c.oid = i.inhrelid where i.inhparent = 'transactions'::regclass " +
+                        "and pg_get_expr(c.relpartbound, c.oid) <> 'DEFAULT'",
+                (rs, rowNum) -> Partition.parse(rs.getString(1), rs.getString(2)));
+    }
+
+    // A null bound stands for MINVALUE or MAXVALUE.
+    record Partition(String name, LocalDateTime from, LocalDateTime to) {
+
+        static Partition parse(String name, String bound) {
+            Matcher matcher = BOUND.matcher(bound);
+            if (!matcher.find()) {
+                throw new IllegalStateException("Unexpected bound of partition " + name + ": " + bound);
+            }
+            return new Partition(name, parseValue(matcher.group(1)), parseValue(matcher.group(2)));
+        }
+
+        private static LocalDateTime parseValue(String value) {
+            if (!value.startsWith("'")) {
+                return null;
+            }
+            String timestamp = value.substring(1, value.indexOf('\'', 1));
+            return LocalDateTime.parse(timestamp.length() > 19 ? timestamp.substring(0, 19) : timestamp, BOUND_FORMAT);
+        }
+
+        boolean overlaps(LocalDateTime start, LocalDateTime end) {
+            return (from == null || from.isBefore(end)) && (to == null || to.isAfter(start));
+        }
+    }
+}
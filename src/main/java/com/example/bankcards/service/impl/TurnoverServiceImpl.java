@@ -0,0 +1,249 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.dto.CardTurnoverDto;
+import com.example.bankcards.dto.DailyTurnoverDto;
+import com.example.bankcards.dto.TurnoverRebuildDto;
+import com.example.bankcards.entity.LedgerEntry;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.entity.enums.LedgerEntryType;
+import com.example.bankcards.exception.InvalidOperationException;
+import com.example.bankcards.exception.ResourceNotFoundException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.TurnoverService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Daily inbound and outbound totals per card, appended as deltas and folded in batches.
+ */
+@Slf4j
+@Service
+public class TurnoverServiceImpl implements TurnoverService {
+
+    private static final String INSERT_DELTA = "insert into card_turnover_deltas " +
+            "(card_id, turnover_date, inbound_amount, inbound_count, outbound_amount, outbound_count) values (?, ?, ?, ?, ?, ?)";
+    // MERGE runs on H2 and on PostgreSQL 15 and later.
+    private static final String MERGE_DELTA = "merge into card_daily_turnover t " +
+            "using (select cast(? as bigint) as card_id, cast(? as date) as turnover_date, " +
+            "              cast(? as numeric(17,2)) as inbound_amount, cast(? as bigint) as inbound_count, " +
+            "              cast(? as numeric(17,2)) as outbound_amount, cast(? as bigint) as outbound_count) d " +
+            "on t.card_id = d.card_id and t.turnover_date = d.turnover_date " +
+            "when matched then update set inbound_amount = t.inbound_amount + d.inbound_amount, " +
+            "     inbound_count = t.inbound_count + d.inbound_count, " +
+            "     outbound_amount = t.outbound_amount + d.outbound_amount, " +
+            "     outbound_count = t.outbound_count + d.outbound_count " +
+            "when not matched then insert (card_id, turnover_date, inbound_amount, inbound_count, outbound_amount, outbound_count) " +
+            "     values (d.card_id, d.turnover_date, d.inbound_amount, d.inbound_count, d.outbound_amount, d.outbound_count)";
+    private static final String SELECT_DAYS = "select turnover_date, sum(inbound_amount), sum(inbound_count), " +
+            "       sum(outbound_amount), sum(outbound_count) " +
+            "from (select turnover_date, inbound_amount, inbound_count, outbound_amount, outbound_count " +
+            "      from card_daily_turnover where card_id = ? and turnover_date between ? and ? " +
+            "      union all " +
+            "      select turnover_date, inbound_amount, inbound_count, outbound_amount, outbound_count " +
+            "      from card_turnover_deltas where card_id = ? and turnover_date between ? and ?) d " +
+            "group by turnover_date order by turnover_date";
+    private static final String REBUILD_RANGE = "insert into card_daily_turnover " +
+            "(card_id, turnover_date, inbound_amount, inbound_count, outbound_amount, outbound_count) " +
+            "select card_id, cast(created_at as date), " +
+            "       sum(case when entry_type = 'CREDIT' then amount else 0 end), " +
+            "       sum(case when entry_type = 'CREDIT' then 1 else 0 end), " +
+            "       sum(case when entry_type = 'DEBIT' then amount else 0 end), " +
+            "       sum(case when entry_type = 'DEBIT' then 1 else 0 end) " +
+            "from ledger_entries where card_id between ? and ? and created_at < ? " +
+            "group by card_id, cast(created_at as date)";
+
+    private static final Comparator<Day> CARD_THEN_DATE = Comparator.comparing(Day::cardId).thenComparing(Day::date);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CardRepository cardRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int foldBatchSize;
+    private final int rebuildThreads;
+    private final long rebuildCardsPerChunk;
+    private final long rebuildLagMs;
+
+    public TurnoverServiceImpl(JdbcTemplate jdbcTemplate,
+                               CardRepository cardRepository,
+                               UserRepository userRepository,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${bankcards.turnover.fold-batch-size:5000}") int foldBatchSize,
+                               @Value("${bankcards.turnover.rebuild-threads:4}") int rebuildThreads,
+                               @Value("${bankcards.turnover.rebuild-cards-per-chunk:1000}") long rebuildCardsPerChunk,
+                               @Value("${bankcards.turnover.rebuild-lag-ms:60000}") long rebuildLagMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.cardRepository = cardRepository;
+        this.userRepository = userRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.foldBatchSize = foldBatchSize;
+        this.rebuildThreads = rebuildThreads;
+        this.rebuildCardsPerChunk = rebuildCardsPerChunk;
+        this.rebuildLagMs = rebuildLagMs;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordEntries(List<LedgerEntry> entries) {
+        Map<Day, Turnover> deltas = new HashMap<>();
+        for (LedgerEntry entry : entries) {
+            Day day = new Day(entry.getCard().getId(), entry.getCreatedAt().toLocalDate());
+            deltas.computeIfAbsent(day, key -> new Turnover()).add(entry.getEntryType(), entry.getAmount());
+        }
+        jdbcTemplate.batchUpdate(INSERT_DELTA, toArgs(deltas));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CardTurnoverDto getCardTurnover(Long cardId, String username, LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new InvalidOperationException("The start of the period must not be after its end.");
+        }
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new ResourceNotFoundException("User " + username + " not found."));
+        cardRepository.findOwnerId(cardId)
+                .filter(ownerId -> ownerId.equals(user.getId()))
+                .orElseThrow(() -> new ResourceNotFoundException("Card with id " + cardId + " not found or does not belong to user " + user.getId()));
+
+        List<DailyTurnoverDto> days = jdbcTemplate.query(SELECT_DAYS, (rs, rowNum) -> new DailyTurnoverDto(
+                        rs.getDate(1).toLocalDate(), rs.getBigDecimal(2), rs.getLong(3), rs.getBigDecimal(4), rs.getLong(5)),
+                cardId, Date.valueOf(from), Date.valueOf(to), cardId, Date.valueOf(from), Date.valueOf(to));
+
+        CardTurnoverDto turnover = new CardTurnoverDto();
+        turnover.setCardId(cardId);
+        turnover.setFrom(from);
+        turnover.setTo(to);
+        turnover.setInboundAmount(days.stream().map(DailyTurnoverDto::getInboundAmount).reduce(BigDecimal.ZERO, BigDecimal::add));
+        turnover.setInboundCount(days.stream().mapToLong(DailyTurnoverDto::getInboundCount).sum());
+        turnover.setOutboundAmount(days.stream().map(DailyTurnoverDto::getOutboundAmount).reduce(BigDecimal.ZERO, BigDecimal::add));
+        turnover.setOutboundCount(days.stream().mapToLong(DailyTurnoverDto::getOutboundCount).sum());
+        turnover.setDays(days);
+        return turnover;
+    }
+
+    @Override
+    @Transactional
+    @Scheduled(fixedDelayString = "${bankcards.turnover.fold-interval-ms:1000}",
+            initialDelayString = "${bankcards.turnover.fold-interval-ms:1000}")
+    public int foldDeltas() {
+        // Deltas locked by another aggregator are left to it; the rollup rows are merged in card and date order
+        // so two aggregators never wait on each other crosswise.
+        Map<Day, Turnover> folded = new TreeMap<>(CARD_THEN_DATE);
+        List<Object[]> ids = new ArrayList<>();
+        jdbcTemplate.query("select id, card_id, turnover_date, inbound_amount, inbound_count, outbound_amount, outbound_count " +
+                "from card_turnover_deltas order by id limit ? for update skip locked", rs -> {
+            ids.add(new Object[]{rs.getLong(1)});
+            Day day = new Day(rs.getLong(2), rs.getDate(3).toLocalDate());
+            folded.computeIfAbsent(day, key -> new Turnover())
+                    .add(rs.getBigDecimal(4), rs.getLong(5), rs.getBigDecimal(6), rs.getLong(7));
+        }, foldBatchSize);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        jdbcTemplate.batchUpdate(MERGE_DELTA, toArgs(folded));
+        jdbcTemplate.batchUpdate("delete from card_turnover_deltas where id = ?", ids);
+        return ids.size();
+    }
+
+    @Override
+    public TurnoverRebuildDto rebuild() {
+        // Transfers still in flight may belong to the current day, so it stays with the aggregator.
+        LocalDate before = LocalDateTime.now().minusNanos(rebuildLagMs * 1_000_000).toLocalDate();
+        Long minId = jdbcTemplate.queryForObject("select min(id) from cards", Long.class);
+        Long maxId = jdbcTemplate.queryForObject("select max(id) from cards", Long.class);
+        if (minId == null) {
+            return new TurnoverRebuildDto(before, 0, 0);
+        }
+
+        ExecutorService workers = Executors.newFixedThreadPool(rebuildThreads);
+        try {
+            List<Future<Integer>> chunks = new ArrayList<>();
+            for (long start = minId; start <= maxId; start += rebuildCardsPerChunk) {
+                long first = start;
+                long last = Math.min(start + rebuildCardsPerChunk - 1, maxId);
+                chunks.add(workers.submit(() -> transactionTemplate.execute(status -> rebuildRange(first, last, before))));
+            }
+            long rows = 0;
+            for (Future<Integer> chunk : chunks) {
+                rows += chunk.get();
+            }
+            log.info("Rebuilt {} daily turnover rows before {} in {} chunks", rows, before, chunks.size());
+            return new TurnoverRebuildDto(before, chunks.size(), rows);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while rebuilding the daily turnover", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Could not rebuild the daily turnover", e.getCause());
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    // Deltas go first, in the order the aggregator locks them, then the rollup rows.
+    private int rebuildRange(long firstCardId, long lastCardId, LocalDate before) {
+        jdbcTemplate.update("delete from card_turnover_deltas where card_id between ? and ? and turnover_date < ?",
+                firstCardId, lastCardId, Date.valueOf(before));
+        jdbcTemplate.update("delete from card_daily_turnover where card_id between ? and ? and turnover_date < ?",
+                firstCardId, lastCardId, Date.valueOf(before));
+        return jdbcTemplate.update(REBUILD_RANGE, firstCardId, lastCardId, Timestamp.valueOf(before.atStartOfDay()));
+    }
+
+    private static List<Object[]> toArgs(Map<Day, Turnover> turnovers) {
+        return turnovers.entrySet().stream()
+                .map(turnover -> new Object[]{turnover.getKey().cardId(), Date.valueOf(turnover.getKey().date()),
+                        turnover.getValue().inboundAmount, turnover.getValue().inboundCount,
+                        turnover.getValue().outboundAmount, turnover.getValue().outboundCount})
+                .toList();
+    }
+
+    private record Day(long cardId, LocalDate date) {
+    }
+
+    private static final class Turnover {
+        private BigDecimal inboundAmount = BigDecimal.ZERO;
+        private long inboundCount;
+        private BigDecimal outboundAmount = BigDecimal.ZERO;
+        private long outboundCount;
+
+        void add(LedgerEntryType type, BigDecimal amount) {
+            if (type == LedgerEntryType.CREDIT) {
+                add(amount, 1, BigDecimal.ZERO, 0);
+            } else {
+                add(BigDecimal.ZERO, 0, amount, 1);
+            }
+        }
+
+        void add(BigDecimal inAmount, long inCount, BigDecimal outAmount, long outCount) {
+            inboundAmount = inboundAmount.add(inAmount);
+            inboundCount += inCount;
+            outboundAmount = outboundAmount.add(outAmount);
+            outboundCount += outCount;
+        }
+    }
+}
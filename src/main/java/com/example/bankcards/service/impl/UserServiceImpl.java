@@ -1,20 +1,28 @@
 package com.example.bankcards.service.impl;
 
+import com.example.bankcards.dto.ChangePasswordRequestDto;
 import com.example.bankcards.dto.RegistrationRequestDto;
+import com.example.bankcards.dto.UpdateUserRolesRequestDto;
 import com.example.bankcards.dto.UserDto;
 import com.example.bankcards.entity.Role;
 import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.InvalidOperationException;
+import com.example.bankcards.exception.ResourceNotFoundException;
 import com.example.bankcards.exception.UserAlreadyExistsException;
+import com.example.bankcards.security.UserSecurityChangedEvent;
 import com.example.bankcards.util.mapper.UserMapper;
 import com.example.bankcards.repository.RoleRepository;
 import com.example.bankcards.repository.UserRepository;
 import com.example.bankcards.service.UserService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Collections;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -23,6 +31,7 @@ public class UserServiceImpl implements UserService {
     private final RoleRepository roleRepository;
     private final UserMapper userMapper;
     private final PasswordEncoder passwordEncoder;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     @Transactional
@@ -38,6 +47,57 @@ public class UserServiceImpl implements UserService {
         return userMapper.toDto(savedUser);
     }
 
+    @Override
+    @Transactional
+    public void revokeTokens(Long userId) {
+        invalidateCredentials(findUser(userId));
+    }
+
+    @Override
+    @Transactional
+    public void changePassword(String username, ChangePasswordRequestDto requestDto) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new ResourceNotFoundException("User " + username + " not found."));
+        if (!passwordEncoder.matches(requestDto.getCurrentPassword(), user.getPassword())) {
+            throw new InvalidOperationException("Current password is incorrect.");
+        }
+        user.setPassword(passwordEncoder.encode(requestDto.getNewPassword()));
+        invalidateCredentials(user);
+    }
+
+    @Override
+    @Transactional
+    public UserDto setEnabled(Long userId, boolean enabled) {
+        User user = findUser(userId);
+        user.setEnabled(enabled);
+        invalidateCredentials(user);
+        return userMapper.toDto(user);
+    }
+
+    @Override
+    @Transactional
+    public UserDto updateRoles(Long userId, UpdateUserRolesRequestDto requestDto) {
+        User user = findUser(userId);
+        Set<Role> roles = requestDto.getRoles().stream()
+                .map(name -> roleRepository.findByName(name)
+                        .orElseThrow(() -> new InvalidOperationException("Role " + name + " does not exist.")))
+                .collect(Collectors.toSet());
+        user.setRoles(roles);
+        invalidateCredentials(user);
+        return userMapper.toDto(user);
+    }
+
+    private User findUser(Long userId) {
+        return userRepository.findById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("User with id " + userId + " not found."));
+    }
+
+    // Flushes the change, revokes every token issued so far and drops the cached principal and token version on commit.
+    private void invalidateCredentials(User user) {
+        userRepository.incrementTokenVersion(user.getId());
+        eventPublisher.publishEvent(new UserSecurityChangedEvent(user.getId(), user.getUsername()));
+    }
+
     private void validateUserDoesNotExist(RegistrationRequestDto requestDto) {
         if (userRepository.existsByUsername(requestDto.getUsername())) {
             throw new UserAlreadyExistsException("Username " + requestDto.getUsername() + " is already taken.");
@@ -0,0 +1,282 @@
+package com.example.bankcards.service.limit;
+
+import com.example.bankcards.exception.SpendingLimitExceededException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory 24-hour and 30-day outbound spending of recently active cards, for the card limits.
+ */
+@Component
+public class SpendingLimiter {
+
+    private static final int HOURS = 24;
+    private static final int DAYS = 30;
+    private static final long NO_LIMIT = Long.MAX_VALUE;
+    private static final long HOUR_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Stripe[] stripes;
+    private final int maxCardsPerStripe;
+    private final long idleTtlNanos;
+
+    public SpendingLimiter(JdbcTemplate jdbcTemplate,
+                           @Value("${bankcards.limits.stripes:64}") int stripes,
+                           @Value("${bankcards.limits.max-cards:100000}") int maxCards,
+                           @Value("${bankcards.limits.idle-ttl-ms:3600000}") long idleTtlMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.stripes = new Stripe[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new Stripe();
+        }
+        this.maxCardsPerStripe = Math.max(1, maxCards / stripes);
+        this.idleTtlNanos = TimeUnit.MILLISECONDS.toNanos(idleTtlMs);
+    }
+
+    /**
+     * Counts the amount against the limits of the card, or throws if it would exceed one. Inside a transaction the
+     * reservation is completed with it; otherwise the caller has to {@link #complete} it.
+     */
+    public Reservation reserve(Long cardId, BigDecimal amount) {
+        long cents = amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        long hour = System.currentTimeMillis() / HOUR_MILLIS;
+        Stripe stripe = stripeOf(cardId);
+        Window loaded = null;
+        while (true) {
+            synchronized (stripe) {
+                Window window = stripe.windows.get(cardId);
+                if (window == null && loaded != null) {
+                    window = loaded;
+                    stripe.windows.put(cardId, window);
+                    evictEldest(stripe);
+                }
+                if (window != null) {
+                    window.advance(hour);
+                    if (window.hourTotal() + cents > window.dailyLimitCents) {
+                        throw new SpendingLimitExceededException("Daily spending limit of card " + cardId + " would be exceeded.");
+                    }
+                    if (window.dayTotal() + cents > window.monthlyLimitCents) {
+                        throw new SpendingLimitExceededException("Monthly spending limit of card " + cardId + " would be exceeded.");
+                    }
+                    window.add(hour, cents);
+                    window.inFlight++;
+                    window.lastUsedNanos = System.nanoTime();
+                    break;
+                }
+            }
+            // Loaded outside the lock; if another thread installs the card first, its window wins.
+            loaded = load(cardId, hour);
+        }
+
+        Reservation reservation = new Reservation(cardId, hour, cents);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    complete(reservation, status == STATUS_COMMITTED);
+                }
+            });
+        }
+        return reservation;
+    }
+
+    /**
+     * Keeps the amount counted, or gives it back if the transfer was not booked. Only the first call for a
+     * reservation counts.
+     */
+    public void complete(Reservation reservation, boolean booked) {
+        Stripe stripe = stripeOf(reservation.cardId);
+        synchronized (stripe) {
+            if (reservation.completed) {
+                return;
+            }
+            reservation.completed = true;
+            // Cards with reservations in flight are never evicted.
+            Window window = stripe.windows.get(reservation.cardId);
+            window.inFlight--;
+            if (!booked) {
+                window.add(reservation.hour, -reservation.cents);
+            }
+        }
+    }
+
+    /**
+     * Applies new limits of the card to its window once the current transaction commits, or at once outside one.
+     */
+    public void updateLimits(Long cardId, BigDecimal dailyLimit, BigDecimal monthlyLimit) {
+        Runnable apply = () -> {
+            Stripe stripe = stripeOf(cardId);
+            synchronized (stripe) {
+                Window window = stripe.windows.get(cardId);
+                if (window != null) {
+                    window.dailyLimitCents = toLimitCents(dailyLimit);
+                    window.monthlyLimitCents = toLimitCents(monthlyLimit);
+                }
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${bankcards.limits.eviction-interval-ms:60000}",
+            initialDelayString = "${bankcards.limits.eviction-interval-ms:60000}")
+    public int evictIdle() {
+        long now = System.nanoTime();
+        int evicted = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                Iterator<Window> windows = stripe.windows.values().iterator();
+                while (windows.hasNext()) {
+                    Window window = windows.next();
+                    if (window.inFlight == 0 && now - window.lastUsedNanos > idleTtlNanos) {
+                        windows.remove();
+                        evicted++;
+                    }
+                }
+            }
+        }
+        return evicted;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.windows.size();
+            }
+        }
+        return size;
+    }
+
+    // Least recently used cards go first, skipping those with reservations in flight.
+    private void evictEldest(Stripe stripe) {
+        Iterator<Window> windows = stripe.windows.values().iterator();
+        while (stripe.windows.size() > maxCardsPerStripe && windows.hasNext()) {
+            if (windows.next().inFlight == 0) {
+                windows.remove();
+            }
+        }
+    }
+
+    private Window load(Long cardId, long hour) {
+        Window window = new Window(hour);
+        jdbcTemplate.query("select daily_limit, monthly_limit from cards where id = ?", rs -> {
+            window.dailyLimitCents = toLimitCents(rs.getBigDecimal(1));
+            window.monthlyLimitCents = toLimitCents(rs.getBigDecimal(2));
+        }, cardId);
+        long firstHour = (hour / HOURS - DAYS + 1) * HOURS;
+        // Buckets are UTC hours, like the live path. Debits are summed per quarter hour of their stored time, which
+        // lies within one UTC hour whatever the offset of the zone it was written in, and converted by the driver.
+        jdbcTemplate.query("select date_trunc('hour', created_at), floor(extract(minute from created_at) / 15), sum(amount) " +
+                "from ledger_entries where card_id = ? and entry_type = 'DEBIT' and created_at >= ? " +
+                "group by date_trunc('hour', created_at), floor(extract(minute from created_at) / 15)", rs -> {
+            Instant quarter = rs.getTimestamp(1).toInstant().plus(rs.getLong(2) * 15, ChronoUnit.MINUTES);
+            window.add(quarter.toEpochMilli() / HOUR_MILLIS,
+                    rs.getBigDecimal(3).setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+        }, cardId, Timestamp.from(Instant.ofEpochMilli(firstHour * HOUR_MILLIS)));
+        return window;
+    }
+
+    private Stripe stripeOf(Long cardId) {
+        return stripes[(int) Math.floorMod(cardId, (long) stripes.length)];
+    }
+
+    private static long toLimitCents(BigDecimal limit) {
+        return limit == null ? NO_LIMIT : limit.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static final class Reservation {
+        private final long cardId;
+        private final long hour;
+        private final long cents;
+        private boolean completed;
+
+        private Reservation(long cardId, long hour, long cents) {
+            this.cardId = cardId;
+            this.hour = hour;
+            this.cents = cents;
+        }
+    }
+
+    private static final class Stripe {
+        private final Map<Long, Window> windows = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    // Ring buffers of spent cents; a bucket is cleared when the window moves past it.
+    private static final class Window {
+        private final long[] hours = new long[HOURS];
+        private final long[] days = new long[DAYS];
+        private long latestHour;
+        private long latestDay;
+        private long dailyLimitCents = NO_LIMIT;
+        private long monthlyLimitCents = NO_LIMIT;
+        private int inFlight;
+        private long lastUsedNanos = System.nanoTime();
+
+        Window(long hour) {
+            this.latestHour = hour;
+            this.latestDay = hour / HOURS;
+        }
+
+        void advance(long hour) {
+            for (long h = Math.max(latestHour + 1, hour - HOURS + 1); h <= hour; h++) {
+                hours[(int) (h % HOURS)] = 0;
+            }
+            latestHour = Math.max(latestHour, hour);
+            long day = hour / HOURS;
+            for (long d = Math.max(latestDay + 1, day - DAYS + 1); d <= day; d++) {
+                days[(int) (d % DAYS)] = 0;
+            }
+            latestDay = Math.max(latestDay, day);
+        }
+
+        // Amounts outside the window are ignored; they no longer count against either limit.
+        void add(long hour, long cents) {
+            if (hour > latestHour - HOURS && hour <= latestHour) {
+                hours[(int) (hour % HOURS)] += cents;
+            }
+            long day = hour / HOURS;
+            if (day > latestDay - DAYS && day <= latestDay) {
+                days[(int) (day % DAYS)] += cents;
+            }
+        }
+
+        long hourTotal() {
+            long total = 0;
+            for (long cents : hours) {
+                total += cents;
+            }
+            return total;
+        }
+
+        long dayTotal() {
+            long total = 0;
+            for (long cents : days) {
+                total += cents;
+            }
+            return total;
+        }
+    }
+}
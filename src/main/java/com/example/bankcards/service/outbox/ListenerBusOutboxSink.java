@@ -0,0 +1,20 @@
+package com.example.bankcards.service.outbox;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// In-process consumers subscribe with @EventListener on OutboxEvent; they run on the relay thread.
+@Component
+@RequiredArgsConstructor
+public class ListenerBusOutboxSink implements OutboxSink {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public void deliver(List<OutboxEvent> events) {
+        events.forEach(eventPublisher::publishEvent);
+    }
+}
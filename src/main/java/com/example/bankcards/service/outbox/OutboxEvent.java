@@ -0,0 +1,12 @@
+package com.example.bankcards.service.outbox;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+import java.time.LocalDateTime;
+
+/**
+ * An event read from the outbox. Delivery is at least once, so consumers should skip ids they have already seen.
+ */
+public record OutboxEvent(long id, String aggregateType, long aggregateId, String eventType,
+                          @JsonRawValue String payload, LocalDateTime createdAt) {
+}
@@ -0,0 +1,11 @@
+package com.example.bankcards.service.outbox;
+
+import java.util.List;
+
+public interface OutboxSink {
+    /**
+     * Delivers a batch of events in id order. If this throws, the batch stays in the outbox and is delivered
+     * again, to every sink, on a later run.
+     */
+    void deliver(List<OutboxEvent> events);
+}
@@ -0,0 +1,86 @@
+package com.example.bankcards.service.schedule;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hashed timer wheel of ids, each handed out at most one tick after its deadline.
+ */
+public class HashedTimerWheel {
+
+    private final long tickMillis;
+    private final int mask;
+    private final List<List<Long>> buckets;
+    // Current deadline of every id on the wheel; bucket entries that no longer match it are dropped lazily.
+    private final Map<Long, Long> deadlines = new HashMap<>();
+    // Last tick handed out.
+    private long cursor;
+
+    public HashedTimerWheel(long tickMillis, int bucketCount, long startMillis) {
+        int size = bucketCount <= 1 ? 1 : Integer.highestOneBit(bucketCount - 1) << 1;
+        this.tickMillis = Math.max(1, tickMillis);
+        this.mask = size - 1;
+        this.buckets = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            buckets.add(new ArrayList<>());
+        }
+        this.cursor = Math.floorDiv(startMillis, this.tickMillis);
+    }
+
+    public synchronized void schedule(long id, long deadlineMillis) {
+        Long previous = deadlines.put(id, deadlineMillis);
+        if (previous != null && bucketOf(previous) == bucketOf(deadlineMillis)) {
+            return;
+        }
+        buckets.get(bucketOf(deadlineMillis)).add(id);
+    }
+
+    public synchronized void cancel(long id) {
+        deadlines.remove(id);
+    }
+
+    /**
+     * Moves the wheel up to the given moment and returns the ids whose deadline it passed, in no particular order.
+     */
+    public synchronized List<Long> advance(long nowMillis) {
+        long target = Math.floorDiv(nowMillis, tickMillis);
+        List<Long> expired = new ArrayList<>();
+        if (target <= cursor) {
+            return expired;
+        }
+        long ticks = Math.min(target - cursor, buckets.size());
+        for (long tick = target - ticks + 1; tick <= target; tick++) {
+            int bucket = (int) (tick & mask);
+            Iterator<Long> ids = buckets.get(bucket).iterator();
+            while (ids.hasNext()) {
+                Long id = ids.next();
+                Long deadline = deadlines.get(id);
+                if (deadline == null || bucketOf(deadline) != bucket) {
+                    ids.remove();
+                } else if (tickOf(deadline) <= target) {
+                    ids.remove();
+                    deadlines.remove(id);
+                    expired.add(id);
+                }
+            }
+        }
+        cursor = target;
+        return expired;
+    }
+
+    public synchronized int size() {
+        return deadlines.size();
+    }
+
+    // Overdue deadlines go into the next tick, the first one still to be handed out.
+    private int bucketOf(long deadlineMillis) {
+        return (int) (Math.max(tickOf(deadlineMillis), cursor + 1) & mask);
+    }
+
+    private long tickOf(long deadlineMillis) {
+        return Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis);
+    }
+}
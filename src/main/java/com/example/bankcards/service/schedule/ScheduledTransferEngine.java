@@ -0,0 +1,110 @@
+package com.example.bankcards.service.schedule;
+
+import com.example.bankcards.repository.ScheduledTransferRepository;
+import com.example.bankcards.service.CardService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * Fires due scheduled transfers from an in-memory {@link HashedTimerWheel} loaded from the table.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "bankcards.engine.mode", havingValue = "jpa", matchIfMissing = true)
+public class ScheduledTransferEngine {
+
+    private final ScheduledTransferRepository scheduledTransferRepository;
+    private final CardService cardService;
+    private final HashedTimerWheel wheel;
+    private final long windowMillis;
+    private final int maxLoaded;
+    private final int batchSize;
+    private final Counter executed;
+
+    public ScheduledTransferEngine(ScheduledTransferRepository scheduledTransferRepository,
+                                   CardService cardService,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${bankcards.scheduled-transfers.tick-ms:1000}") long tickMillis,
+                                   @Value("${bankcards.scheduled-transfers.wheel-size:512}") int wheelSize,
+                                   @Value("${bankcards.scheduled-transfers.window-ms:60000}") long windowMillis,
+                                   @Value("${bankcards.scheduled-transfers.max-loaded:100000}") int maxLoaded,
+                                   @Value("${bankcards.scheduled-transfers.batch-size:100}") int batchSize) {
+        this.scheduledTransferRepository = scheduledTransferRepository;
+        this.cardService = cardService;
+        this.wheel = new HashedTimerWheel(tickMillis, wheelSize, System.currentTimeMillis());
+        this.windowMillis = windowMillis;
+        this.maxLoaded = maxLoaded;
+        this.batchSize = batchSize;
+        this.executed = meterRegistry.counter("bankcards.scheduled-transfers.executed");
+        meterRegistry.gauge("bankcards.scheduled-transfers.wheel.size", wheel, HashedTimerWheel::size);
+    }
+
+    @Scheduled(fixedDelayString = "${bankcards.scheduled-transfers.load-interval-ms:10000}")
+    public void load() {
+        load(System.currentTimeMillis());
+    }
+
+    @Scheduled(fixedDelayString = "${bankcards.scheduled-transfers.tick-ms:1000}")
+    public void tick() {
+        tick(System.currentTimeMillis());
+    }
+
+    /**
+     * Puts a schedule on the wheel if it is due within the current window; later ones are left to a load.
+     */
+    public void schedule(Long scheduleId, LocalDateTime runAt) {
+        long deadline = toMillis(runAt);
+        if (deadline < System.currentTimeMillis() + windowMillis) {
+            wheel.schedule(scheduleId, deadline);
+        }
+    }
+
+    public void cancel(Long scheduleId) {
+        wheel.cancel(scheduleId);
+    }
+
+    int load(long nowMillis) {
+        List<Object[]> due = scheduledTransferRepository.findDueBefore(toDateTime(nowMillis + windowMillis), PageRequest.of(0, maxLoaded));
+        due.forEach(row -> wheel.schedule((Long) row[0], toMillis((LocalDateTime) row[1])));
+        if (due.size() == maxLoaded) {
+            log.warn("Loaded the first {} due scheduled transfers only, the rest wait for the next load", maxLoaded);
+        }
+        return due.size();
+    }
+
+    int tick(long nowMillis) {
+        List<Long> due = wheel.advance(nowMillis);
+        int fired = 0;
+        for (int from = 0; from < due.size(); from += batchSize) {
+            List<Long> batch = due.subList(from, Math.min(from + batchSize, due.size()));
+            try {
+                fired += cardService.executeScheduledTransfers(batch);
+            } catch (DataAccessException e) {
+                // Still due in the table, so the next load puts them back on the wheel.
+                log.warn("Could not execute scheduled transfers {}, will retry", batch, e);
+            }
+        }
+        executed.increment(fired);
+        return fired;
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime toDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.bankcards.util;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+// Stored as the first day of the month, so the column stays a plain indexable DATE.
+@Converter
+public class YearMonthAttributeConverter implements AttributeConverter<YearMonth, LocalDate> {
+
+    @Override
+    public LocalDate convertToDatabaseColumn(YearMonth attribute) {
+        return attribute == null ? null : attribute.atDay(1);
+    }
+
+    @Override
+    public YearMonth convertToEntityAttribute(LocalDate dbData) {
+        return dbData == null ? null : YearMonth.from(dbData);
+    }
+}
@@ -7,10 +7,18 @@ import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.Named;
 
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+
 @Mapper(componentModel = "spring")
 public interface CardMapper {
+    // Cards show and accept expiry dates as MM/YYYY.
+    DateTimeFormatter EXPIRY_DATE_FORMAT = DateTimeFormatter.ofPattern("MM/yyyy");
+
     @Mapping(source = "panLast4", target = "maskedPan", qualifiedByName = "formatMaskedPan")
     @Mapping(source = "status", target = "status")
+    @Mapping(source = "totalBalance", target = "balance")
+    @Mapping(source = "expiryDate", target = "expiryDate", qualifiedByName = "formatExpiryDate")
     CardDto toDto(Card card);
 
     @Mapping(target = "id", ignore = true)
@@ -20,6 +28,12 @@ public interface CardMapper {
     @Mapping(target = "status", ignore = true)
     @Mapping(target = "balance", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "stripeCount", ignore = true)
+    @Mapping(target = "slotBalance", ignore = true)
+    @Mapping(target = "dailyLimit", ignore = true)
+    @Mapping(target = "monthlyLimit", ignore = true)
+    @Mapping(source = "expiryDate", target = "expiryDate", qualifiedByName = "parseExpiryDate")
     Card toEntity(CreateCardRequest request);
 
     @Named("formatMaskedPan")
@@ -29,4 +43,14 @@ public interface CardMapper {
         }
         return "**** **** **** " + panLast4;
     }
+
+    @Named("formatExpiryDate")
+    default String formatExpiryDate(YearMonth expiryDate) {
+        return expiryDate == null ? null : expiryDate.format(EXPIRY_DATE_FORMAT);
+    }
+
+    @Named("parseExpiryDate")
+    default YearMonth parseExpiryDate(String expiryDate) {
+        return expiryDate == null ? null : YearMonth.parse(expiryDate, EXPIRY_DATE_FORMAT);
+    }
 }
\ No newline at end of file
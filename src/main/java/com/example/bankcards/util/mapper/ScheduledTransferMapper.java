@@ -0,0 +1,14 @@
+package com.example.bankcards.util.mapper;
+
+import com.example.bankcards.dto.ScheduledTransferDto;
+import com.example.bankcards.entity.ScheduledTransfer;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+@Mapper(componentModel = "spring")
+public interface ScheduledTransferMapper {
+
+    @Mapping(source = "cardFrom.id", target = "cardFromId")
+    @Mapping(source = "cardTo.id", target = "cardToId")
+    ScheduledTransferDto toDto(ScheduledTransfer scheduledTransfer);
+}
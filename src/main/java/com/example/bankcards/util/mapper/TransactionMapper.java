@@ -1,5 +1,6 @@
 package com.example.bankcards.util.mapper;
 
+import com.example.bankcards.dto.StatementLineDto;
 import com.example.bankcards.dto.TransactionDto;
 import com.example.bankcards.entity.Transaction;
 import org.mapstruct.Mapper;
@@ -11,4 +12,6 @@ public interface TransactionMapper {
     @Mapping(source = "cardFrom.id", target = "cardFromId")
     @Mapping(source = "cardTo.id", target = "cardToId")
     TransactionDto toDto(Transaction transaction);
+
+    TransactionDto fromStatementLine(StatementLineDto line);
 }
\ No newline at end of file
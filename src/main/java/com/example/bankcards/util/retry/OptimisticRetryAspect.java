@@ -0,0 +1,59 @@
+package com.example.bankcards.util.retry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.OptimisticLockException;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+// Ordered before the transaction interceptor, so every attempt runs in a fresh transaction.
+@Aspect
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+public class OptimisticRetryAspect {
+
+    private final MeterRegistry meterRegistry;
+    private final int maxAttempts;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+
+    public OptimisticRetryAspect(MeterRegistry meterRegistry,
+                                 @Value("${bankcards.retry.max-attempts:5}") int maxAttempts,
+                                 @Value("${bankcards.retry.initial-backoff-ms:10}") long initialBackoffMs,
+                                 @Value("${bankcards.retry.max-backoff-ms:200}") long maxBackoffMs) {
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+    }
+
+    @Around("@annotation(com.example.bankcards.util.retry.RetryOnConflict)")
+    public Object retryOnConflict(ProceedingJoinPoint joinPoint) throws Throwable {
+        String operation = joinPoint.getSignature().getName();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return joinPoint.proceed();
+            } catch (OptimisticLockingFailureException | OptimisticLockException ex) {
+                if (attempt >= maxAttempts) {
+                    meterRegistry.counter("bankcards.card.conflict.exhausted", "operation", operation).increment();
+                    throw ex;
+                }
+                meterRegistry.counter("bankcards.card.conflict.retries", "operation", operation).increment();
+                Thread.sleep(backoffMs(attempt));
+            }
+        }
+    }
+
+    // Exponential backoff capped at maxBackoffMs, with the actual delay drawn from the upper half of the window.
+    private long backoffMs(int attempt) {
+        long ceiling = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempt - 1, 16));
+        return ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
+    }
+}
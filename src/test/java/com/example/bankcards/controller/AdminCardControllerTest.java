@@ -1,10 +1,14 @@
 package com.example.bankcards.controller;
 
 import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.CardLimitsRequest;
 import com.example.bankcards.dto.CreateCardRequest;
+import com.example.bankcards.dto.TurnoverRebuildDto;
 import com.example.bankcards.security.CustomUserDetailsService;
 import com.example.bankcards.security.JwtService;
+import com.example.bankcards.security.TokenVersionService;
 import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.TurnoverService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -18,14 +22,18 @@ import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.Collections;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -43,8 +51,12 @@ class AdminCardControllerTest {
     @MockitoBean
     private CardService cardService;
     @MockitoBean
+    private TurnoverService turnoverService;
+    @MockitoBean
     private JwtService jwtService;
     @MockitoBean
+    private TokenVersionService tokenVersionService;
+    @MockitoBean
     private CustomUserDetailsService customUserDetailsService;
 
     @Test
@@ -100,4 +112,44 @@ class AdminCardControllerTest {
         mockMvc.perform(delete("/api/admin/cards/1"))
                 .andExpect(status().isNoContent());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should update balance stripes and return 200 OK")
+    void updateBalanceStripes_Success() throws Exception {
+        when(cardService.updateBalanceStripes(1L, 8)).thenReturn(new CardDto());
+        mockMvc.perform(put("/api/admin/cards/1/balance-stripes").param("count", "8"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("Should update spending limits and return 200 OK")
+    void updateSpendingLimits_Success() throws Exception {
+        CardLimitsRequest request = new CardLimitsRequest();
+        request.setDailyLimit(new BigDecimal("500.00"));
+        when(cardService.updateSpendingLimits(eq(1L), any(CardLimitsRequest.class))).thenReturn(new CardDto());
+        mockMvc.perform(put("/api/admin/cards/1/limits")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("Should return 400 Bad Request for a negative spending limit")
+    void updateSpendingLimits_Negative_BadRequest() throws Exception {
+        CardLimitsRequest request = new CardLimitsRequest();
+        request.setMonthlyLimit(new BigDecimal("-1.00"));
+        mockMvc.perform(put("/api/admin/cards/1/limits")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Should rebuild the daily turnover and return 200 OK")
+    void rebuildTurnover_Success() throws Exception {
+        when(turnoverService.rebuild()).thenReturn(new TurnoverRebuildDto(LocalDate.of(2025, 1, 31), 2, 40));
+        mockMvc.perform(post("/api/admin/turnover/rebuild"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rows", is(40)));
+    }
+}
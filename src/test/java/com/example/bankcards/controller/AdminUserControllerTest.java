@@ -0,0 +1,98 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.config.SecurityConfig;
+import com.example.bankcards.dto.UpdateUserRolesRequestDto;
+import com.example.bankcards.dto.UserDto;
+import com.example.bankcards.security.CustomUserDetailsService;
+import com.example.bankcards.security.JwtService;
+import com.example.bankcards.security.TokenVersionService;
+import com.example.bankcards.service.UserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(AdminUserController.class)
+@Import(SecurityConfig.class)
+@DisplayName("Admin User Controller Tests")
+class AdminUserControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockitoBean
+    private UserService userService;
+
+    @MockitoBean
+    private JwtService jwtService;
+    @MockitoBean
+    private TokenVersionService tokenVersionService;
+    @MockitoBean
+    private CustomUserDetailsService customUserDetailsService;
+
+    @Test
+    @DisplayName("Should disable a user and return 200 OK when ADMIN requests it")
+    @WithMockUser(roles = "ADMIN")
+    void disableUser_AsAdmin_Success() throws Exception {
+        UserDto responseDto = new UserDto();
+        responseDto.setId(3L);
+        responseDto.setEnabled(false);
+        when(userService.setEnabled(3L, false)).thenReturn(responseDto);
+
+        mockMvc.perform(post("/api/admin/users/3/disable").with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.enabled", is(false)));
+    }
+
+    @Test
+    @DisplayName("Should return 403 Forbidden when USER tries to disable a user")
+    @WithMockUser(roles = "USER")
+    void disableUser_AsUser_Forbidden() throws Exception {
+        mockMvc.perform(post("/api/admin/users/3/disable").with(csrf()))
+                .andExpect(status().isForbidden());
+        verify(userService, never()).setEnabled(anyLong(), anyBoolean());
+    }
+
+    @Test
+    @DisplayName("Should replace the roles of a user and return 200 OK when ADMIN requests it")
+    @WithMockUser(roles = "ADMIN")
+    void updateUserRoles_AsAdmin_Success() throws Exception {
+        UpdateUserRolesRequestDto request = new UpdateUserRolesRequestDto();
+        request.setRoles(Set.of("ADMIN"));
+        UserDto responseDto = new UserDto();
+        responseDto.setRoles(Set.of("ADMIN"));
+        when(userService.updateRoles(eq(3L), any(UpdateUserRolesRequestDto.class))).thenReturn(responseDto);
+
+        mockMvc.perform(put("/api/admin/users/3/roles")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.roles[0]", is("ADMIN")));
+    }
+}
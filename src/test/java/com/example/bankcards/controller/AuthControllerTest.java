@@ -4,9 +4,13 @@ import com.example.bankcards.dto.LoginRequestDto;
 import com.example.bankcards.dto.RegistrationRequestDto;
 import com.example.bankcards.dto.UserDto;
 import com.example.bankcards.exception.UserAlreadyExistsException;
+import com.example.bankcards.exception.TooManyLoginAttemptsException;
 import com.example.bankcards.security.JwtService;
+import com.example.bankcards.security.LoginAttemptLimiter;
+import com.example.bankcards.security.TokenVersionService;
 import com.example.bankcards.service.UserService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.ServletException;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -15,6 +19,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.http.MediaType;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.User;
@@ -26,7 +31,12 @@ import org.springframework.test.web.servlet.ResultActions;
 import java.util.Collections;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
@@ -49,9 +59,15 @@ class AuthControllerTest {
     @MockitoBean
     private JwtService jwtService;
 
+    @MockitoBean
+    private TokenVersionService tokenVersionService;
+
     @MockitoBean
     private AuthenticationManager authenticationManager;
 
+    @MockitoBean
+    private LoginAttemptLimiter loginAttemptLimiter;
+
     @Nested
     @DisplayName("User Registration Tests")
     class RegistrationTests {
@@ -119,6 +135,43 @@ class AuthControllerTest {
 
             response.andExpect(status().isOk())
                     .andExpect(jsonPath("$.accessToken", is(expectedToken)));
+            verify(loginAttemptLimiter).onSuccess("testuser", "127.0.0.1");
+            verify(loginAttemptLimiter, never()).onFailure(any(), any());
+        }
+
+        @Test
+        @DisplayName("Should count a login with bad credentials as a failure of the user and address")
+        void authenticateUser_BadCredentials_FailureCounted() throws Exception {
+            LoginRequestDto loginRequest = new LoginRequestDto();
+            loginRequest.setUsername("testuser");
+            loginRequest.setPassword("wrong");
+            when(authenticationManager.authenticate(any())).thenThrow(new BadCredentialsException("Bad credentials"));
+
+            ServletException exception = assertThrows(ServletException.class, () -> mockMvc.perform(post("/api/auth/login")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(loginRequest))));
+
+            assertInstanceOf(BadCredentialsException.class, exception.getCause());
+            verify(loginAttemptLimiter).onFailure("testuser", "127.0.0.1");
+            verify(loginAttemptLimiter, never()).onSuccess(any(), any());
+        }
+
+        @Test
+        @DisplayName("Should return 429 Too Many Requests without authenticating when attempts are over the limit")
+        void authenticateUser_Throttled() throws Exception {
+            LoginRequestDto loginRequest = new LoginRequestDto();
+            loginRequest.setUsername("testuser");
+            loginRequest.setPassword("password123");
+            doThrow(new TooManyLoginAttemptsException("Too many login attempts, please retry later."))
+                    .when(loginAttemptLimiter).check("testuser", "127.0.0.1");
+
+            ResultActions response = mockMvc.perform(post("/api/auth/login")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(loginRequest)));
+
+            response.andExpect(status().isTooManyRequests())
+                    .andExpect(jsonPath("$.error", is("Too many login attempts, please retry later.")));
+            verify(authenticationManager, never()).authenticate(any());
         }
     }
 }
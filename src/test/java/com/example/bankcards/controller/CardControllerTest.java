@@ -0,0 +1,143 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.config.SecurityConfig;
+import com.example.bankcards.dto.CardTurnoverDto;
+import com.example.bankcards.dto.TransactionPageDto;
+import com.example.bankcards.exception.InvalidOperationException;
+import com.example.bankcards.security.CustomUserDetailsService;
+import com.example.bankcards.security.JwtService;
+import com.example.bankcards.security.TokenVersionService;
+import com.example.bankcards.service.StatementExportService;
+import com.example.bankcards.service.TransactionHistoryService;
+import com.example.bankcards.service.TurnoverService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(CardController.class)
+@Import(SecurityConfig.class)
+@DisplayName("Card Controller Tests")
+class CardControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private TransactionHistoryService transactionHistoryService;
+    @MockitoBean
+    private StatementExportService statementExportService;
+    @MockitoBean
+    private TurnoverService turnoverService;
+
+    @MockitoBean
+    private JwtService jwtService;
+    @MockitoBean
+    private TokenVersionService tokenVersionService;
+    @MockitoBean
+    private CustomUserDetailsService customUserDetailsService;
+
+    @Test
+    @DisplayName("Should return the first page of card transactions with the default size")
+    @WithMockUser(username = "testuser", roles = "USER")
+    void getCardTransactions_AsUser_Success() throws Exception {
+        TransactionPageDto page = new TransactionPageDto();
+        page.setContent(List.of());
+        when(transactionHistoryService.getCardTransactions(15L, "testuser", null, 20)).thenReturn(page);
+
+        mockMvc.perform(get("/api/cards/15/transactions"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size", is(0)));
+    }
+
+    @Test
+    @DisplayName("Should return 400 Bad Request for a malformed cursor")
+    @WithMockUser(username = "testuser", roles = "USER")
+    void getCardTransactions_InvalidCursor_BadRequest() throws Exception {
+        when(transactionHistoryService.getCardTransactions(any(), any(), any(), any(Integer.class)))
+                .thenThrow(new InvalidOperationException("Invalid page cursor."));
+
+        mockMvc.perform(get("/api/cards/15/transactions").param("cursor", "%%%"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Should return 403 Forbidden when ADMIN requests card transactions")
+    @WithMockUser(roles = "ADMIN")
+    void getCardTransactions_AsAdmin_Forbidden() throws Exception {
+        mockMvc.perform(get("/api/cards/15/transactions"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @DisplayName("Should stream a CSV statement as an attachment")
+    @WithMockUser(username = "testuser", roles = "USER")
+    void exportStatement_Csv_Streamed() throws Exception {
+        StreamingResponseBody body = outputStream -> outputStream.write("id\n1\n".getBytes(StandardCharsets.UTF_8));
+        when(statementExportService.exportCardStatement(15L, "testuser", LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 31),
+                StatementExportService.Format.CSV)).thenReturn(body);
+
+        MvcResult result = mockMvc.perform(get("/api/cards/15/statement")
+                        .param("from", "2025-01-01").param("to", "2025-01-31").param("format", "CSV"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, containsString("card-15-statement-2025-01-01-2025-01-31.csv")))
+                .andExpect(content().string("id\n1\n"));
+    }
+
+    @Test
+    @DisplayName("Should return the turnover of own card for the period")
+    @WithMockUser(username = "testuser", roles = "USER")
+    void getCardTurnover_Success() throws Exception {
+        CardTurnoverDto turnover = new CardTurnoverDto();
+        turnover.setCardId(15L);
+        turnover.setInboundAmount(new BigDecimal("120.00"));
+        turnover.setInboundCount(3);
+        turnover.setDays(List.of());
+        when(turnoverService.getCardTurnover(15L, "testuser", LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 31)))
+                .thenReturn(turnover);
+
+        mockMvc.perform(get("/api/cards/15/turnover").param("from", "2025-01-01").param("to", "2025-01-31"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.cardId", is(15)))
+                .andExpect(jsonPath("$.inboundCount", is(3)));
+    }
+
+    @Test
+    @DisplayName("Should return 400 Bad Request for a turnover period that ends before it starts")
+    @WithMockUser(username = "testuser", roles = "USER")
+    void getCardTurnover_InvalidPeriod_BadRequest() throws Exception {
+        when(turnoverService.getCardTurnover(any(), any(), any(), any()))
+                .thenThrow(new InvalidOperationException("The start of the period must not be after its end."));
+
+        mockMvc.perform(get("/api/cards/15/turnover").param("from", "2025-02-01").param("to", "2025-01-01"))
+                .andExpect(status().isBadRequest());
+    }
+}
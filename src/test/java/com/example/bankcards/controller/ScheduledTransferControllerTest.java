@@ -0,0 +1,125 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.config.SecurityConfig;
+import com.example.bankcards.dto.ScheduledTransferDto;
+import com.example.bankcards.dto.ScheduledTransferRequestDto;
+import com.example.bankcards.entity.enums.ScheduleFrequency;
+import com.example.bankcards.security.CustomUserDetailsService;
+import com.example.bankcards.security.JwtService;
+import com.example.bankcards.security.TokenVersionService;
+import com.example.bankcards.service.ScheduledTransferService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(ScheduledTransferController.class)
+@Import(SecurityConfig.class)
+@DisplayName("Scheduled Transfer Controller Tests")
+class ScheduledTransferControllerTest {
+    @TestConfiguration
+    static class TestConfig {
+        @Bean
+        public UserDetailsService userDetailsService() {
+            return Mockito.mock(CustomUserDetailsService.class);
+        }
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockitoBean
+    private ScheduledTransferService scheduledTransferService;
+
+    @MockitoBean
+    private JwtService jwtService;
+
+    @MockitoBean
+    private TokenVersionService tokenVersionService;
+
+    @Test
+    @DisplayName("Should schedule a transfer and return 201 Created with its location")
+    @WithMockUser(username = "testuser", roles = "USER")
+    void createScheduledTransfer_AsUser_Created() throws Exception {
+        ScheduledTransferDto responseDto = new ScheduledTransferDto();
+        responseDto.setId(7L);
+        responseDto.setFrequency("MONTHLY");
+        responseDto.setStatus("ACTIVE");
+        when(scheduledTransferService.createScheduledTransfer(eq("testuser"), any(ScheduledTransferRequestDto.class))).thenReturn(responseDto);
+
+        mockMvc.perform(post("/api/transactions/scheduled")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request(LocalDateTime.now().plusDays(1)))))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Location", "/api/transactions/scheduled/7"))
+                .andExpect(jsonPath("$.frequency", is("MONTHLY")))
+                .andExpect(jsonPath("$.status", is("ACTIVE")));
+    }
+
+    @Test
+    @DisplayName("Should return 400 Bad Request for a first run in the past")
+    @WithMockUser(username = "testuser", roles = "USER")
+    void createScheduledTransfer_FirstRunInPast_BadRequest() throws Exception {
+        mockMvc.perform(post("/api/transactions/scheduled")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request(LocalDateTime.now().minusMinutes(1)))))
+                .andExpect(status().isBadRequest());
+        verify(scheduledTransferService, never()).createScheduledTransfer(anyString(), any(ScheduledTransferRequestDto.class));
+    }
+
+    @Test
+    @DisplayName("Should cancel an own scheduled transfer")
+    @WithMockUser(username = "testuser", roles = "USER")
+    void cancelScheduledTransfer_AsUser_Ok() throws Exception {
+        ScheduledTransferDto responseDto = new ScheduledTransferDto();
+        responseDto.setId(7L);
+        responseDto.setStatus("CANCELLED");
+        when(scheduledTransferService.cancelScheduledTransfer(7L, "testuser")).thenReturn(responseDto);
+
+        mockMvc.perform(delete("/api/transactions/scheduled/7").with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is("CANCELLED")));
+    }
+
+    private ScheduledTransferRequestDto request(LocalDateTime firstRunAt) {
+        ScheduledTransferRequestDto request = new ScheduledTransferRequestDto();
+        request.setFromCardId(1L);
+        request.setToCardId(2L);
+        request.setAmount(new BigDecimal("50.00"));
+        request.setFirstRunAt(firstRunAt);
+        request.setFrequency(ScheduleFrequency.MONTHLY);
+        return request;
+    }
+}
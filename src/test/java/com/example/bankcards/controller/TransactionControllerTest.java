@@ -1,11 +1,17 @@
 package com.example.bankcards.controller;
 
 import com.example.bankcards.config.SecurityConfig;
+import com.example.bankcards.dto.BatchTransferRequestDto;
+import com.example.bankcards.dto.BatchTransferResultDto;
 import com.example.bankcards.dto.TransactionDto;
 import com.example.bankcards.dto.TransferRequestDto;
+import com.example.bankcards.exception.SuspiciousTransferException;
 import com.example.bankcards.security.CustomUserDetailsService;
 import com.example.bankcards.security.JwtService;
+import com.example.bankcards.security.TokenVersionService;
 import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.IdempotentTransferService;
+import com.example.bankcards.service.fraud.VelocityGate;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -24,14 +30,22 @@ import org.springframework.test.web.servlet.ResultActions;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -56,9 +70,18 @@ class TransactionControllerTest {
     @MockitoBean
     private CardService cardService;
 
+    @MockitoBean
+    private IdempotentTransferService idempotentTransferService;
+
+    @MockitoBean
+    private VelocityGate velocityGate;
+
     @MockitoBean
     private JwtService jwtService;
 
+    @MockitoBean
+    private TokenVersionService tokenVersionService;
+
     @Test
     @DisplayName("Should create transfer and return 201 Created for USER role")
     @WithMockUser(username = "testuser", roles = "USER")
@@ -86,6 +109,49 @@ class TransactionControllerTest {
                 .andExpect(jsonPath("$.createdAt", notNullValue()));
     }
 
+    @Test
+    @DisplayName("Should route transfer with Idempotency-Key header through the idempotent service")
+    @WithMockUser(username = "testuser", roles = "USER")
+    void createTransfer_WithIdempotencyKey_Success() throws Exception {
+        TransferRequestDto requestDto = new TransferRequestDto();
+        requestDto.setFromCardId(1L);
+        requestDto.setToCardId(2L);
+        requestDto.setAmount(new BigDecimal("100.00"));
+        TransactionDto responseDto = new TransactionDto();
+        responseDto.setId(99L);
+        when(idempotentTransferService.transfer(eq("testuser"), eq("key-1"), any(TransferRequestDto.class))).thenReturn(responseDto);
+
+        mockMvc.perform(post("/api/transactions/transfer")
+                        .with(csrf())
+                        .header("Idempotency-Key", "key-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requestDto)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id", is(99)));
+        verify(cardService, never()).transferBetweenOwnCards(anyString(), any(TransferRequestDto.class));
+        verify(velocityGate, never()).check(anyString(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Should return 429 without touching the cards when the velocity gate rejects the transfer")
+    @WithMockUser(username = "testuser", roles = "USER")
+    void createTransfer_RejectedByVelocityGate_TooManyRequests() throws Exception {
+        TransferRequestDto requestDto = new TransferRequestDto();
+        requestDto.setFromCardId(1L);
+        requestDto.setToCardId(2L);
+        requestDto.setAmount(new BigDecimal("100.00"));
+        doThrow(new SuspiciousTransferException("Too many transfers from card 1, please try again later."))
+                .when(velocityGate).check(eq("testuser"), eq(1L), any(BigDecimal.class));
+
+        mockMvc.perform(post("/api/transactions/transfer")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requestDto)))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(jsonPath("$.error", is("Too many transfers from card 1, please try again later.")));
+        verify(cardService, never()).transferBetweenOwnCards(anyString(), any(TransferRequestDto.class));
+    }
+
     @Test
     @DisplayName("Should return 400 Bad Request for invalid transfer request")
     @WithMockUser(roles = "USER")
@@ -133,4 +199,80 @@ class TransactionControllerTest {
                         .content(objectMapper.writeValueAsString(requestDto)))
                 .andExpect(status().isForbidden());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should process transfer batch and return 200 OK for USER role")
+    @WithMockUser(username = "testuser", roles = "USER")
+    void createTransferBatch_AsUser_Success() throws Exception {
+        TransferRequestDto transfer = new TransferRequestDto();
+        transfer.setFromCardId(1L);
+        transfer.setToCardId(2L);
+        transfer.setAmount(new BigDecimal("100.00"));
+        BatchTransferRequestDto requestDto = new BatchTransferRequestDto();
+        requestDto.setTransfers(List.of(transfer));
+        BatchTransferResultDto responseDto = new BatchTransferResultDto();
+        responseDto.setMode("ALL_OR_NOTHING");
+        responseDto.setCompleted(1);
+        when(cardService.transferBatchBetweenOwnCards(eq("testuser"), any(BatchTransferRequestDto.class))).thenReturn(responseDto);
+
+        mockMvc.perform(post("/api/transactions/transfers/batch")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requestDto)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.mode", is("ALL_OR_NOTHING")))
+                .andExpect(jsonPath("$.completed", is(1)));
+        verify(velocityGate).checkBatch("testuser", Map.of(1L, List.of(new BigDecimal("100.00"))));
+    }
+
+    @Test
+    @DisplayName("Should return 400 Bad Request for an empty transfer batch")
+    @WithMockUser(roles = "USER")
+    void createTransferBatch_Empty_BadRequest() throws Exception {
+        BatchTransferRequestDto requestDto = new BatchTransferRequestDto();
+        requestDto.setTransfers(List.of());
+
+        mockMvc.perform(post("/api/transactions/transfers/batch")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requestDto)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors.transfers", is("Transfers cannot be empty")));
+    }
+
+    @Test
+    @DisplayName("Should accept an asynchronous transfer with 202 and point to its status")
+    @WithMockUser(username = "testuser", roles = "USER")
+    void submitTransfer_AsUser_Accepted() throws Exception {
+        TransferRequestDto requestDto = new TransferRequestDto();
+        requestDto.setFromCardId(1L);
+        requestDto.setToCardId(2L);
+        requestDto.setAmount(new BigDecimal("100.00"));
+        TransactionDto responseDto = new TransactionDto();
+        responseDto.setId(99L);
+        responseDto.setStatus("PENDING");
+        when(cardService.submitTransfer(eq("testuser"), any(TransferRequestDto.class))).thenReturn(responseDto);
+
+        mockMvc.perform(post("/api/transactions/transfers/async")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requestDto)))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/transactions/99"))
+                .andExpect(jsonPath("$.status", is("PENDING")));
+    }
+
+    @Test
+    @DisplayName("Should return a transaction of the user with 200 OK")
+    @WithMockUser(username = "testuser", roles = "USER")
+    void getTransaction_AsUser_Success() throws Exception {
+        TransactionDto responseDto = new TransactionDto();
+        responseDto.setId(99L);
+        responseDto.setStatus("COMPLETED");
+        when(cardService.getTransaction(99L, "testuser")).thenReturn(responseDto);
+
+        mockMvc.perform(get("/api/transactions/99"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is("COMPLETED")));
+    }
+}
@@ -1,13 +1,21 @@
 package com.example.bankcards.controller;
 
 import com.example.bankcards.config.SecurityConfig;
+import com.example.bankcards.dto.CardBalanceDto;
 import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.ChangePasswordRequestDto;
+import com.example.bankcards.dto.TransactionDto;
+import com.example.bankcards.dto.TransactionPageDto;
 import com.example.bankcards.entity.enums.CardStatus;
 import com.example.bankcards.security.CustomUserDetails;
 import com.example.bankcards.security.CustomUserDetailsService;
 import com.example.bankcards.security.JwtService;
+import com.example.bankcards.security.TokenVersionService;
 import com.example.bankcards.security.WithMockCustomUser;
 import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.LedgerService;
+import com.example.bankcards.service.TransactionHistoryService;
+import com.example.bankcards.service.UserService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -19,11 +27,14 @@ import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
 
@@ -31,10 +42,13 @@ import static org.hamcrest.CoreMatchers.is;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -51,10 +65,18 @@ class UserControllerTest {
 
     @MockitoBean
     private CardService cardService;
+    @MockitoBean
+    private LedgerService ledgerService;
+    @MockitoBean
+    private TransactionHistoryService transactionHistoryService;
+    @MockitoBean
+    private UserService userService;
 
     @MockitoBean
     private JwtService jwtService;
     @MockitoBean
+    private TokenVersionService tokenVersionService;
+    @MockitoBean
     private CustomUserDetailsService customUserDetailsService;
 
     @Nested
@@ -98,6 +120,34 @@ class UserControllerTest {
         }
     }
 
+    @Nested
+    @DisplayName("User Transactions Endpoint Tests")
+    class UserTransactionsTests {
+        @Test
+        @DisplayName("Should return a page of own transactions with the cursor passed through")
+        @WithMockCustomUser(id = 1L, username = "testuser", roles = "USER")
+        void getUserTransactions_AsOwner_Success() throws Exception {
+            TransactionPageDto page = new TransactionPageDto();
+            page.setContent(List.of(new TransactionDto()));
+            page.setSize(1);
+            page.setNextCursor("next");
+            when(transactionHistoryService.getUserTransactions(1L, "abc", 10)).thenReturn(page);
+
+            mockMvc.perform(get("/api/users/1/transactions").param("cursor", "abc").param("size", "10"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.size", is(1)))
+                    .andExpect(jsonPath("$.nextCursor", is("next")));
+        }
+
+        @Test
+        @DisplayName("Should return 403 Forbidden when USER requests another user's transactions")
+        @WithMockCustomUser(id = 1L, username = "testuser", roles = "USER")
+        void getUserTransactions_AsDifferentUser_Forbidden() throws Exception {
+            mockMvc.perform(get("/api/users/99/transactions"))
+                    .andExpect(status().isForbidden());
+        }
+    }
+
     @Nested
     @DisplayName("Request Card Block Endpoint Tests")
     class RequestCardBlockTests {
@@ -127,4 +177,74 @@ class UserControllerTest {
                     .andExpect(status().isForbidden());
         }
     }
-}
\ No newline at end of file
+
+    @Nested
+    @DisplayName("Card Balance Endpoint Tests")
+    class CardBalanceTests {
+
+        @Test
+        @DisplayName("Should return 200 OK with the ledger balance at the requested moment")
+        @WithMockUser(username = "testuser", roles = "USER")
+        void getCardBalance_AsUser_Success() throws Exception {
+            CardBalanceDto balance = new CardBalanceDto();
+            balance.setCardId(15L);
+            balance.setBalance(new BigDecimal("42.50"));
+            when(ledgerService.getBalance(15L, "testuser", LocalDateTime.of(2025, 1, 31, 23, 59, 59))).thenReturn(balance);
+
+            mockMvc.perform(get("/api/users/cards/15/balance").param("at", "2025-01-31T23:59:59"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.balance", is(42.50)));
+        }
+
+        @Test
+        @DisplayName("Should return 403 Forbidden when anonymous user requests a balance")
+        void getCardBalance_AsAnonymous_Forbidden() throws Exception {
+            mockMvc.perform(get("/api/users/cards/15/balance"))
+                    .andExpect(status().isForbidden());
+        }
+    }
+
+    @Nested
+    @DisplayName("Change Password Endpoint Tests")
+    class ChangePasswordTests {
+
+        @Test
+        @DisplayName("Should return 204 No Content when USER changes their password")
+        @WithMockUser(username = "testuser", roles = "USER")
+        void changePassword_AsUser_NoContent() throws Exception {
+            ChangePasswordRequestDto request = new ChangePasswordRequestDto();
+            request.setCurrentPassword("oldPassword");
+            request.setNewPassword("newPassword1");
+
+            mockMvc.perform(put("/api/users/password")
+                            .with(csrf())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isNoContent());
+            verify(userService).changePassword(eq("testuser"), any(ChangePasswordRequestDto.class));
+        }
+    }
+
+    @Nested
+    @DisplayName("Revoke Tokens Endpoint Tests")
+    class RevokeTokensTests {
+
+        @Test
+        @DisplayName("Should return 204 No Content when USER revokes their own tokens")
+        @WithMockCustomUser(id = 1L, username = "testuser", roles = "USER")
+        void revokeTokens_AsOwner_NoContent() throws Exception {
+            mockMvc.perform(post("/api/users/1/tokens/revoke").with(csrf()))
+                    .andExpect(status().isNoContent());
+            verify(userService).revokeTokens(1L);
+        }
+
+        @Test
+        @DisplayName("Should return 403 Forbidden when USER revokes the tokens of another user")
+        @WithMockCustomUser(id = 1L, username = "testuser", roles = "USER")
+        void revokeTokens_AsAnotherUser_Forbidden() throws Exception {
+            mockMvc.perform(post("/api/users/2/tokens/revoke").with(csrf()))
+                    .andExpect(status().isForbidden());
+            verify(userService, never()).revokeTokens(anyLong());
+        }
+    }
+}
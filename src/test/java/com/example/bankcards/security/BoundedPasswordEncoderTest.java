@@ -0,0 +1,134 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("Bounded Password Encoder Tests")
+class BoundedPasswordEncoderTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("Should hash and match through the pool and record the hash latency")
+    void encodeMatches_ThroughPool_Recorded() throws Exception {
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(4), meterRegistry, 1, 1, 5_000);
+        try {
+            String hash = encoder.encode("password123");
+
+            assertTrue(encoder.matches("password123", hash));
+            assertFalse(encoder.matches("wrong", hash));
+            assertEquals(3, meterRegistry.get("bankcards.password-hash.latency").timer().count());
+        } finally {
+            encoder.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject hashing at once when the pool and its queue are full")
+    void encode_Saturated_Rejected() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(blockingEncoder(release), meterRegistry, 1, 1, 5_000);
+        try {
+            CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> encoder.encode("a"));
+            CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> encoder.encode("b"));
+            while (meterRegistry.get("bankcards.password-hash.queue.depth").gauge().value() < 1) {
+                Thread.onSpinWait();
+            }
+
+            assertThrows(ServiceOverloadedException.class, () -> encoder.encode("c"));
+            assertEquals(1.0, meterRegistry.get("bankcards.password-hash.rejected").counter().count());
+
+            release.countDown();
+            assertEquals("a", running.get(5, TimeUnit.SECONDS));
+            assertEquals("b", queued.get(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            encoder.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Should give up on a hash that has not started within the wait timeout and take it off the queue")
+    void matches_QueuedPastTimeout_Rejected() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(blockingEncoder(started, release), meterRegistry, 1, 1, 50);
+        try {
+            CompletableFuture<Boolean> running = CompletableFuture.supplyAsync(() -> encoder.matches("a", "a"));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            assertThrows(ServiceOverloadedException.class, () -> encoder.matches("b", "b"));
+            assertEquals(1.0, meterRegistry.get("bankcards.password-hash.rejected").counter().count());
+            assertEquals(0.0, meterRegistry.get("bankcards.password-hash.queue.depth").gauge().value());
+
+            release.countDown();
+            assertTrue(running.get(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            encoder.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Should wait for a started hash past the wait timeout")
+    void matches_StartedSlowHash_Completed() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(blockingEncoder(started, release), meterRegistry, 1, 1, 50);
+        try {
+            CompletableFuture<Boolean> slow = CompletableFuture.supplyAsync(() -> encoder.matches("a", "a"));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Thread.sleep(200);
+            release.countDown();
+
+            assertTrue(slow.get(5, TimeUnit.SECONDS));
+            assertEquals(0.0, meterRegistry.get("bankcards.password-hash.rejected").counter().count());
+        } finally {
+            release.countDown();
+            encoder.shutdown();
+        }
+    }
+
+    private PasswordEncoder blockingEncoder(CountDownLatch release) {
+        return blockingEncoder(new CountDownLatch(1), release);
+    }
+
+    private PasswordEncoder blockingEncoder(CountDownLatch started, CountDownLatch release) {
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                started.countDown();
+                await(release);
+                return rawPassword.toString();
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                started.countDown();
+                await(release);
+                return rawPassword.toString().equals(encodedPassword);
+            }
+        };
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
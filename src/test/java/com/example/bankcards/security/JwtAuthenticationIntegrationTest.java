@@ -0,0 +1,121 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.dto.RegistrationRequestDto;
+import com.example.bankcards.dto.UpdateUserRolesRequestDto;
+import com.example.bankcards.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.DisabledException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("JWT Authentication Integration Tests")
+class JwtAuthenticationIntegrationTest {
+
+    @Autowired
+    private JwtAuthenticationFilter jwtAuthenticationFilter;
+    @Autowired
+    private JwtService jwtService;
+    @Autowired
+    private CustomUserDetailsService customUserDetailsService;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private AuthenticationManager authenticationManager;
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Should authenticate from the token claims until the tokens of the user are revoked")
+    void statelessToken_Revoked_Rejected() throws Exception {
+        CustomUserDetails user = (CustomUserDetails) customUserDetailsService.loadUserByUsername("john.doe");
+        String token = jwtService.generateToken(user);
+
+        Authentication authentication = authenticate(token);
+        assertEquals(user.getId(), ((CustomUserDetails) authentication.getPrincipal()).getId());
+        assertEquals(user.getAuthorities(), Set.copyOf(authentication.getAuthorities()));
+
+        userService.revokeTokens(user.getId());
+
+        assertNull(authenticate(token));
+        String renewed = jwtService.generateToken(customUserDetailsService.loadUserByUsername("john.doe"));
+        assertEquals("john.doe", authenticate(renewed).getName());
+    }
+
+    @Test
+    @DisplayName("Should drop the cached principal and the tokens of a user whose roles change")
+    void cachedPrincipal_RolesChanged_Reloaded() throws Exception {
+        RegistrationRequestDto registration = new RegistrationRequestDto();
+        registration.setUsername("cache.user");
+        registration.setEmail("cache.user@example.com");
+        registration.setPassword("password123");
+        Long userId = userService.registerNewUser(registration).getId();
+        UserDetails cached = customUserDetailsService.loadUserByUsername("cache.user");
+        String token = jwtService.generateToken(cached);
+
+        UpdateUserRolesRequestDto roles = new UpdateUserRolesRequestDto();
+        roles.setRoles(Set.of("USER", "ADMIN"));
+        userService.updateRoles(userId, roles);
+
+        UserDetails reloaded = customUserDetailsService.loadUserByUsername("cache.user");
+        assertEquals(Set.of("ROLE_USER", "ROLE_ADMIN"), AuthorityUtils.authorityListToSet(reloaded.getAuthorities()));
+        assertNull(authenticate(token));
+    }
+
+    @Test
+    @DisplayName("Should log in again with a cached principal after the first login erased its credentials")
+    void login_Twice_CachedPrincipalKeepsPassword() {
+        assertTrue(authenticationManager.authenticate(
+                UsernamePasswordAuthenticationToken.unauthenticated("john.doe", "password123")).isAuthenticated());
+        assertTrue(authenticationManager.authenticate(
+                UsernamePasswordAuthenticationToken.unauthenticated("john.doe", "password123")).isAuthenticated());
+    }
+
+    @Test
+    @DisplayName("Should refuse to log in a disabled user")
+    void login_DisabledUser_Refused() {
+        RegistrationRequestDto registration = new RegistrationRequestDto();
+        registration.setUsername("disabled.user");
+        registration.setEmail("disabled.user@example.com");
+        registration.setPassword("password123");
+        Long userId = userService.registerNewUser(registration).getId();
+        assertTrue(authenticationManager.authenticate(
+                UsernamePasswordAuthenticationToken.unauthenticated("disabled.user", "password123")).isAuthenticated());
+
+        userService.setEnabled(userId, false);
+
+        assertThrows(DisabledException.class, () -> authenticationManager.authenticate(
+                UsernamePasswordAuthenticationToken.unauthenticated("disabled.user", "password123")));
+    }
+
+    private Authentication authenticate(String token) throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/cards");
+        request.addHeader("Authorization", "Bearer " + token);
+        jwtAuthenticationFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.bankcards.security;
+
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("JWT Service Tests")
+class JwtServiceTest {
+
+    private static final String SECRET = "bXktc3VwZXItc2VjdXJlLWFuZC1sb25nLWVub3VnaC1zZWNyZXQta2V5LWZvci1qd3QtMjU2LWJpdHM=";
+    private static final String OTHER_SECRET = "YW5vdGhlci1zZWNyZXQta2V5LXRoYXQtaXMtbG9uZy1lbm91Z2gtZm9yLWhtYWMtc2hhMjU2";
+
+    private final UserDetails user = User.withUsername("john.doe").password("secret").roles("USER").build();
+
+    @Test
+    @DisplayName("Should return the claims of a token it issued")
+    void validateToken_OwnToken_Claims() {
+        JwtService jwtService = new JwtService(SECRET, 60_000);
+
+        Optional<Claims> claims = jwtService.validateToken(jwtService.generateToken(user));
+
+        assertTrue(claims.isPresent());
+        assertEquals("john.doe", claims.get().getSubject());
+    }
+
+    @Test
+    @DisplayName("Should rebuild the principal from the claims of a token issued to a known user")
+    void toPrincipal_CustomUserToken_Principal() {
+        JwtService jwtService = new JwtService(SECRET, 60_000);
+        CustomUserDetails customUser = new CustomUserDetails(42L, "john.doe", "secret",
+                List.of(new SimpleGrantedAuthority("ROLE_USER"), new SimpleGrantedAuthority("ROLE_ADMIN")), 3);
+
+        CustomUserDetails principal = jwtService.validateToken(jwtService.generateToken(customUser))
+                .flatMap(jwtService::toPrincipal)
+                .orElseThrow();
+
+        assertEquals(42L, principal.getId());
+        assertEquals("john.doe", principal.getUsername());
+        assertEquals(3, principal.getTokenVersion());
+        assertEquals(customUser.getAuthorities(), principal.getAuthorities());
+        assertTrue(jwtService.validateToken(jwtService.generateToken(user)).flatMap(jwtService::toPrincipal).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should reject expired, foreign and malformed tokens without throwing")
+    void validateToken_InvalidTokens_Empty() {
+        JwtService jwtService = new JwtService(SECRET, 60_000);
+        String expired = new JwtService(SECRET, -1_000).generateToken(user);
+        String foreign = new JwtService(OTHER_SECRET, 60_000).generateToken(user);
+        String tampered = jwtService.generateToken(user).replaceFirst("\\.[^.]", ".x");
+
+        assertTrue(jwtService.validateToken(expired).isEmpty());
+        assertTrue(jwtService.validateToken(foreign).isEmpty());
+        assertTrue(jwtService.validateToken(tampered).isEmpty());
+        assertTrue(jwtService.validateToken("not-a-token").isEmpty());
+        assertTrue(jwtService.validateToken("").isEmpty());
+    }
+}
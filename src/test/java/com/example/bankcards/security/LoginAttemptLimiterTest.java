@@ -0,0 +1,70 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.exception.TooManyLoginAttemptsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("Login Attempt Limiter Tests")
+class LoginAttemptLimiterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("Should refuse a username from an address after its failures until a login succeeds")
+    void check_UserFailuresOverLimit_Throttled() {
+        LoginAttemptLimiter limiter = new LoginAttemptLimiter(meterRegistry, true, 3, 100, 60_000, 1_000);
+
+        for (int i = 0; i < 3; i++) {
+            limiter.check("john.doe", "10.0.0.1");
+            limiter.onFailure("john.doe", "10.0.0.1");
+        }
+        assertThrows(TooManyLoginAttemptsException.class, () -> limiter.check("john.doe", "10.0.0.1"));
+        assertDoesNotThrow(() -> limiter.check("john.doe", "10.0.0.2"));
+        assertDoesNotThrow(() -> limiter.check("jane.doe", "10.0.0.1"));
+        assertEquals(1.0, meterRegistry.get("bankcards.login.throttled").counter().count());
+
+        limiter.onSuccess("john.doe", "10.0.0.1");
+        assertDoesNotThrow(() -> limiter.check("john.doe", "10.0.0.1"));
+    }
+
+    @Test
+    @DisplayName("Should not count successful logins")
+    void check_SuccessfulLogins_NotCounted() {
+        LoginAttemptLimiter limiter = new LoginAttemptLimiter(meterRegistry, true, 3, 3, 60_000, 1_000);
+
+        for (int i = 0; i < 10; i++) {
+            limiter.check("john.doe", "10.0.0.1");
+            limiter.onSuccess("john.doe", "10.0.0.1");
+        }
+        assertDoesNotThrow(() -> limiter.check("john.doe", "10.0.0.1"));
+    }
+
+    @Test
+    @DisplayName("Should refuse an address after its failures whatever the username")
+    void check_AddressFailuresOverLimit_Throttled() {
+        LoginAttemptLimiter limiter = new LoginAttemptLimiter(meterRegistry, true, 100, 3, 60_000, 1_000);
+
+        for (int i = 0; i < 3; i++) {
+            limiter.onFailure("user-" + i, "10.0.0.1");
+        }
+        limiter.onSuccess("user-0", "10.0.0.1");
+        assertThrows(TooManyLoginAttemptsException.class, () -> limiter.check("user-9", "10.0.0.1"));
+        assertDoesNotThrow(() -> limiter.check("user-9", "10.0.0.2"));
+    }
+
+    @Test
+    @DisplayName("Should start a new window once the previous one has passed")
+    void check_WindowPassed_Allowed() throws InterruptedException {
+        LoginAttemptLimiter limiter = new LoginAttemptLimiter(meterRegistry, true, 1, 100, 50, 1_000);
+
+        limiter.onFailure("john.doe", "10.0.0.1");
+        assertThrows(TooManyLoginAttemptsException.class, () -> limiter.check("john.doe", "10.0.0.1"));
+        Thread.sleep(100);
+        assertDoesNotThrow(() -> limiter.check("john.doe", "10.0.0.1"));
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.bankcards.security;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time of one login password check per BCrypt strength on this host, and the highest strength that stays within a
+ * target latency, to set as {@code security.password-hashing.bcrypt-strength}. Not part of the test run:
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -DtargetMs=250 -cp target/test-classes:target/classes:$(cat target/cp.txt) com.example.bankcards.security.PasswordCostBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class PasswordCostBenchmark {
+
+    @Param({"10", "11", "12", "13", "14"})
+    public int strength;
+
+    private BCryptPasswordEncoder encoder;
+    private String hash;
+
+    @Setup
+    public void setUp() {
+        encoder = new BCryptPasswordEncoder(strength);
+        hash = encoder.encode("correct horse battery staple");
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return encoder.matches("correct horse battery staple", hash);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        long targetMs = Long.getLong("targetMs", 250);
+        Collection<RunResult> results = new Runner(new OptionsBuilder()
+                .include(PasswordCostBenchmark.class.getSimpleName()).build()).run();
+        int chosen = -1;
+        for (RunResult result : results) {
+            int resultStrength = Integer.parseInt(result.getParams().getParam("strength"));
+            if (result.getPrimaryResult().getScore() <= targetMs && resultStrength > chosen) {
+                chosen = resultStrength;
+            }
+        }
+        if (chosen < 0) {
+            System.out.printf("No strength from 10 up checks a password within %d ms on this host; keep 10.%n", targetMs);
+        } else {
+            System.out.printf("security.password-hashing.bcrypt-strength: %d checks a password within %d ms on this host.%n",
+                    chosen, targetMs);
+        }
+    }
+}
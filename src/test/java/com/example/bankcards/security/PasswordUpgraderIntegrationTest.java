@@ -0,0 +1,58 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.dto.RegistrationRequestDto;
+import com.example.bankcards.service.UserService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("Password Upgrader Integration Tests")
+class PasswordUpgraderIntegrationTest {
+
+    @Autowired
+    private AuthenticationManager authenticationManager;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Should re-encode a plain low-cost hash to the configured algorithm and cost after a login")
+    void login_OutdatedHash_UpgradedInBackground() throws InterruptedException {
+        RegistrationRequestDto registration = new RegistrationRequestDto();
+        registration.setUsername("rehash.user");
+        registration.setEmail("rehash.user@example.com");
+        registration.setPassword("password123");
+        Long userId = userService.registerNewUser(registration).getId();
+        assertTrue(passwordHash(userId).startsWith("{bcrypt}$2a$10$"));
+        jdbcTemplate.update("update users set password_hash = ? where id = ?", new BCryptPasswordEncoder(4).encode("password123"), userId);
+
+        assertTrue(login("rehash.user").isAuthenticated());
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!passwordHash(userId).startsWith("{bcrypt}$2a$10$") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(passwordHash(userId).startsWith("{bcrypt}$2a$10$"));
+        assertTrue(login("rehash.user").isAuthenticated());
+    }
+
+    private Authentication login(String username) {
+        return authenticationManager.authenticate(UsernamePasswordAuthenticationToken.unauthenticated(username, "password123"));
+    }
+
+    private String passwordHash(Long userId) {
+        return jdbcTemplate.queryForObject("select password_hash from users where id = ?", String.class, userId);
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.bankcards.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("Principal Cache Tests")
+class PrincipalCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("Should serve repeated lookups from the cache and count hits, misses and evictions")
+    void get_RepeatedLookups_CachedAndCounted() {
+        PrincipalCache cache = new PrincipalCache(meterRegistry, true, 2, 60_000);
+        AtomicInteger loads = new AtomicInteger();
+        Function<String, CustomUserDetails> loader = username -> {
+            loads.incrementAndGet();
+            return principal(username);
+        };
+
+        CustomUserDetails first = cache.get("alice", loader);
+        assertSame(first, cache.get("alice", loader));
+        cache.get("bob", loader);
+        cache.get("carol", loader);
+
+        assertEquals(3, loads.get());
+        assertEquals(1.0, meterRegistry.get("bankcards.principal-cache.hits").counter().count());
+        assertEquals(3.0, meterRegistry.get("bankcards.principal-cache.misses").counter().count());
+        assertEquals(1.0, meterRegistry.get("bankcards.principal-cache.evictions").functionCounter().count());
+        assertEquals(2.0, meterRegistry.get("bankcards.principal-cache.size").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Should load a user once for concurrent misses and not cache failed loads")
+    void get_ConcurrentMisses_SingleLoad() throws Exception {
+        PrincipalCache cache = new PrincipalCache(meterRegistry, true, 100, 60_000);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        Function<String, CustomUserDetails> slowLoader = username -> {
+            loads.incrementAndGet();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return principal(username);
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<CustomUserDetails>> lookups = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                lookups.add(executor.submit(() -> cache.get("alice", slowLoader)));
+            }
+            while (meterRegistry.get("bankcards.principal-cache.misses").counter().count() < 8) {
+                Thread.onSpinWait();
+            }
+            // Lets the last of them get from the miss to the shared load before it completes.
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<CustomUserDetails> lookup : lookups) {
+                assertEquals("alice", lookup.get(5, TimeUnit.SECONDS).getUsername());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+
+        assertThrows(UsernameNotFoundException.class, () -> cache.get("ghost", username -> {
+            throw new UsernameNotFoundException(username);
+        }));
+        assertEquals("ghost", cache.get("ghost", this::principal).getUsername());
+    }
+
+    @Test
+    @DisplayName("Should drop a principal on a security change and not cache a load that raced with it")
+    void onUserSecurityChanged_CachedAndLoading_Dropped() {
+        PrincipalCache cache = new PrincipalCache(meterRegistry, true, 100, 60_000);
+        CustomUserDetails stale = cache.get("alice", this::principal);
+
+        cache.onUserSecurityChanged(new UserSecurityChangedEvent(1L, "alice"));
+        CustomUserDetails racing = cache.get("alice", username -> {
+            cache.invalidate(username);
+            return principal(username);
+        });
+        CustomUserDetails fresh = cache.get("alice", this::principal);
+
+        assertTrue(stale != racing && racing != fresh);
+        assertSame(fresh, cache.get("alice", this::principal));
+    }
+
+    private CustomUserDetails principal(String username) {
+        return new CustomUserDetails(1L, username, "hash", List.of(new SimpleGrantedAuthority("ROLE_USER")), 0);
+    }
+}
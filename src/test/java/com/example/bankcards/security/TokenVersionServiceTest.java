@@ -0,0 +1,54 @@
+package com.example.bankcards.security;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisplayName("Token Version Service Tests")
+class TokenVersionServiceTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final TokenVersionService tokenVersionService = new TokenVersionService(jdbcTemplate, 100, 60_000);
+
+    @Test
+    @DisplayName("Should cache the current version and drop it on a security change")
+    void isCurrent_CachedUntilSecurityChange() {
+        when(jdbcTemplate.queryForList(anyString(), eq(Integer.class), eq(1L))).thenReturn(List.of(0), List.of(1));
+
+        assertTrue(tokenVersionService.isCurrent(1L, 0));
+        assertTrue(tokenVersionService.isCurrent(1L, 0));
+        tokenVersionService.onUserSecurityChanged(new UserSecurityChangedEvent(1L, "john.doe"));
+
+        assertFalse(tokenVersionService.isCurrent(1L, 0));
+        assertTrue(tokenVersionService.isCurrent(1L, 1));
+        verify(jdbcTemplate, times(2)).queryForList(anyString(), eq(Integer.class), eq(1L));
+    }
+
+    @Test
+    @DisplayName("Should not cache a version read before a security change that landed during the lookup")
+    void isCurrent_InvalidatedDuringLookup_NotCached() {
+        when(jdbcTemplate.queryForList(anyString(), eq(Integer.class), eq(1L)))
+                .thenAnswer(invocation -> {
+                    // The revoking transaction commits after the SELECT has read the old version.
+                    tokenVersionService.onUserSecurityChanged(new UserSecurityChangedEvent(1L, "john.doe"));
+                    return List.of(0);
+                })
+                .thenReturn(List.of(1));
+
+        assertTrue(tokenVersionService.isCurrent(1L, 0));
+
+        assertFalse(tokenVersionService.isCurrent(1L, 0));
+        assertTrue(tokenVersionService.isCurrent(1L, 1));
+    }
+}
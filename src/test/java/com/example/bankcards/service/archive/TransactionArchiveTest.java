@@ -0,0 +1,130 @@
+package com.example.bankcards.service.archive;
+
+import com.example.bankcards.dto.StatementLineDto;
+import com.example.bankcards.entity.enums.TransactionStatus;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@DisplayName("Transaction Archive Tests")
+class TransactionArchiveTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2020, 1, 1, 0, 0);
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    @DisplayName("Should read back the transactions of a card across segments, oldest first and without repeats")
+    void forEach_OverlappingSegments_MergedInOrder() throws Exception {
+        TransactionArchive archive = new TransactionArchive(directory, 4);
+        List<StatementLineDto> first = new ArrayList<>();
+        List<StatementLineDto> second = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            (i % 2 == 0 ? first : second).add(line(i + 1, START.plusMinutes(i), 1L, i % 3 == 0 ? 2L : 3L));
+        }
+        second.add(first.get(0)); // archived again, as after a crash before the database commit
+        archive.append(first);
+        archive.append(second);
+
+        List<StatementLineDto> read = new ArrayList<>();
+        archive.forEach(1L, START, START.plusDays(1), read::add);
+
+        assertEquals(20, read.size());
+        for (int i = 0; i < read.size(); i++) {
+            assertEquals(i + 1, read.get(i).getId());
+        }
+        assertEquals(first.get(0), read.get(0));
+    }
+
+    @Test
+    @DisplayName("Should page backwards from a position and keep the data after a reopen")
+    void findBefore_AfterReopen_NewestFirst() throws Exception {
+        TransactionArchive archive = new TransactionArchive(directory, 3);
+        List<StatementLineDto> lines = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            lines.add(line(i + 1, START.plusHours(i), 7L, null));
+        }
+        archive.append(lines);
+        Files.writeString(directory.resolve("00000000000000000002.tmp"), "torn");
+
+        TransactionArchive reopened = new TransactionArchive(directory, 3);
+        reopened.open();
+        List<StatementLineDto> page = reopened.findBefore(7L, START.plusHours(6), 7L, 4);
+
+        assertEquals(List.of(6L, 5L, 4L, 3L), page.stream().map(StatementLineDto::getId).toList());
+        assertNull(page.get(0).getCardToId());
+        assertEquals(0, new BigDecimal("12.34").compareTo(page.get(0).getAmount()));
+        assertFalse(Files.exists(directory.resolve("00000000000000000002.tmp")));
+        assertEquals(List.of(), reopened.findBefore(8L, START.plusDays(1), Long.MAX_VALUE, 4));
+    }
+
+    @Test
+    @DisplayName("Should keep the conversion of a cross-currency transfer")
+    void append_CrossCurrency_ConversionKept() throws Exception {
+        TransactionArchive archive = new TransactionArchive(directory, 4);
+        StatementLineDto line = new StatementLineDto(1L, START, 1L, 2L, new BigDecimal("10.00"), "USD",
+                TransactionStatus.COMPLETED, null, new BigDecimal("32.70"), "BYN", new BigDecimal("3.27000000"));
+        archive.append(List.of(line, line(2, START.plusMinutes(1), 1L, 2L)));
+
+        List<StatementLineDto> read = new ArrayList<>();
+        archive.forEach(2L, START, START.plusDays(1), read::add);
+
+        assertEquals(line, read.get(0));
+        assertNull(read.get(1).getCreditedAmount());
+        assertNull(read.get(1).getFxRate());
+    }
+
+    @Test
+    @DisplayName("Should read segments written before the conversion was archived")
+    void open_VersionOneSegment_Read() throws Exception {
+        byte[] description = "Legacy".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer record = ByteBuffer.allocate(Integer.BYTES + 5 * Long.BYTES + 1 + 2 * Short.BYTES + 3 + description.length);
+        record.putInt(record.capacity() - Integer.BYTES).putLong(5L).putLong(ArchiveSegment.toMicros(START)).putLong(1L)
+                .putLong(0L).putLong(1234L).put((byte) TransactionStatus.COMPLETED.ordinal())
+                .putShort((short) 3).put("BYN".getBytes(StandardCharsets.UTF_8))
+                .putShort((short) description.length).put(description);
+        Deflater deflater = new Deflater();
+        deflater.setInput(record.array());
+        deflater.finish();
+        byte[] block = new byte[256];
+        int length = deflater.deflate(block);
+        deflater.end();
+
+        ByteBuffer segment = ByteBuffer.allocate(Integer.BYTES + 1 + length + Integer.BYTES + 4 * Long.BYTES + 3 * Integer.BYTES
+                + Long.BYTES + Integer.BYTES);
+        segment.putInt(ArchiveSegment.MAGIC).put((byte) 1).put(block, 0, length);
+        long indexOffset = segment.position();
+        segment.putInt(1).putLong(1L).putLong(ArchiveSegment.toMicros(START)).putLong(ArchiveSegment.toMicros(START))
+                .putLong(Integer.BYTES + 1).putInt(length).putInt(record.capacity()).putInt(1)
+                .putLong(indexOffset).putInt(ArchiveSegment.MAGIC);
+        Files.write(directory.resolve("00000000000000000001.archive"), segment.array());
+
+        TransactionArchive archive = new TransactionArchive(directory, 4);
+        archive.open();
+        List<StatementLineDto> read = new ArrayList<>();
+        archive.forEach(1L, START, START.plusDays(1), read::add);
+
+        assertEquals(List.of(new StatementLineDto(5L, START, 1L, null, new BigDecimal("12.34"), "BYN",
+                TransactionStatus.COMPLETED, "Legacy", null, null, null)), read);
+    }
+
+    private StatementLineDto line(long id, LocalDateTime createdAt, Long from, Long to) {
+        return new StatementLineDto(id, createdAt, from, to, new BigDecimal("12.34"), "BYN", TransactionStatus.COMPLETED,
+                id % 2 == 0 ? "Transfer, \"quoted\"" : null, null, null, null);
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.bankcards.service.archive;
+
+import com.example.bankcards.dto.TransactionDto;
+import com.example.bankcards.dto.TransactionPageDto;
+import com.example.bankcards.dto.TransferRequestDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.TransactionRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.StatementExportService;
+import com.example.bankcards.service.TransactionHistoryService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("Transaction Archiver Integration Tests")
+class TransactionArchiverIntegrationTest {
+
+    private static final LocalDateTime LONG_AGO = LocalDateTime.of(2001, 3, 1, 12, 0);
+
+    @Autowired
+    private TransactionArchive transactionArchive;
+    @Autowired
+    private TransactionHistoryService transactionHistoryService;
+    @Autowired
+    private StatementExportService statementExportService;
+    @Autowired
+    private CardService cardService;
+    @Autowired
+    private CardRepository cardRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private TransactionRepository transactionRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    @DisplayName("Should move old transactions out of the database and keep serving them from the archive")
+    void archiveOlderThan_OldTransactions_ServedFromArchive() throws Exception {
+        User owner = userRepository.findByUsername("john.doe").orElseThrow();
+        Long card = createActiveCard(owner);
+        Long other = createActiveCard(owner);
+        List<Long> oldIds = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            oldIds.add(cardService.transferBetweenOwnCards("john.doe", transfer(i % 2 == 0 ? card : other, i % 2 == 0 ? other : card)).getId());
+        }
+        for (int i = 0; i < oldIds.size(); i++) {
+            jdbcTemplate.update("update transactions set created_at = ? where id = ?", Timestamp.valueOf(LONG_AGO.plusDays(i)), oldIds.get(i));
+        }
+        Long recentId = cardService.transferBetweenOwnCards("john.doe", transfer(card, other)).getId();
+
+        TransactionArchiver archiver = new TransactionArchiver(jdbcTemplate, transactionManager, transactionArchive, 365, 3);
+        int archived = archiver.archiveOlderThan(LocalDateTime.of(2002, 1, 1, 0, 0));
+
+        assertEquals(8, archived);
+        assertTrue(transactionRepository.findAllById(oldIds).isEmpty());
+
+        List<Long> history = new ArrayList<>();
+        String cursor = null;
+        do {
+            TransactionPageDto page = transactionHistoryService.getCardTransactions(card, "john.doe", cursor, 4);
+            page.getContent().stream().map(TransactionDto::getId).forEach(history::add);
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        List<Long> expected = new ArrayList<>(List.of(recentId));
+        for (int i = oldIds.size() - 1; i >= 0; i--) {
+            expected.add(oldIds.get(i));
+        }
+        assertEquals(expected, history);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        statementExportService.exportCardStatement(card, "john.doe", LocalDate.of(2001, 1, 1), LocalDate.now(),
+                StatementExportService.Format.CSV).writeTo(out);
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(1 + 8 + 1, lines.size());
+        assertTrue(lines.get(1).startsWith(oldIds.get(0) + ",2001-03-01T12:00"));
+        assertTrue(lines.get(9).startsWith(recentId + ","));
+    }
+
+    private Long createActiveCard(User owner) {
+        Card card = new Card();
+        card.setOwner(owner);
+        card.setPan("4000000000000000");
+        card.setPanLast4("0000");
+        card.setHolderName("JOHN DOE");
+        card.setExpiryDate(YearMonth.of(2030, 12));
+        card.setBalance(new BigDecimal("100.00"));
+        return cardRepository.save(card).getId();
+    }
+
+    private TransferRequestDto transfer(Long from, Long to) {
+        TransferRequestDto request = new TransferRequestDto();
+        request.setFromCardId(from);
+        request.setToCardId(to);
+        request.setAmount(new BigDecimal("1.00"));
+        return request;
+    }
+}
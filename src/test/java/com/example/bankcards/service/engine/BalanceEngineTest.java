@@ -0,0 +1,190 @@
+package com.example.bankcards.service.engine;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.InsufficientFundsException;
+import com.example.bankcards.exception.ResourceNotFoundException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.TransactionRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.OutboxService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("Balance Engine Tests")
+class BalanceEngineTest {
+
+    private static final long NO_SCHEDULED_FLUSH = TimeUnit.HOURS.toMillis(1);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private CardRepository cardRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private TransactionRepository transactionRepository;
+    @Autowired
+    private OutboxService outboxService;
+
+    @TempDir
+    private Path journalDir;
+
+    private final List<BalanceEngine> engines = new ArrayList<>();
+
+    @AfterEach
+    void stopEngines() throws Exception {
+        for (BalanceEngine engine : engines) {
+            engine.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("Should apply parallel transfers in memory and write them behind with their events without changing the total balance")
+    void submit_ParallelTransfers_FlushedToDatabase() throws Exception {
+        User owner = userRepository.findByUsername("john.doe").orElseThrow();
+        List<Long> cardIds = List.of(createActiveCard(owner, "100.00"), createActiveCard(owner, "100.00"), createActiveCard(owner, "100.00"));
+        long transactionsBefore = transactionRepository.count();
+        long eventsBefore = transferEvents();
+        BalanceEngine engine = startEngine();
+
+        List<CompletableFuture<JournalRecord>> futures = new ArrayList<>();
+        for (int i = 0; i < 900; i++) {
+            futures.add(engine.submit(owner.getId(), cardIds.get(i % 3), cardIds.get((i + 1) % 3), new BigDecimal("7.25")));
+        }
+        int completed = 0;
+        for (CompletableFuture<JournalRecord> future : futures) {
+            try {
+                future.get(30, TimeUnit.SECONDS);
+                completed++;
+            } catch (ExecutionException e) {
+                assertInstanceOf(InsufficientFundsException.class, e.getCause());
+            }
+        }
+        engine.flush();
+
+        assertTrue(completed > 0);
+        assertEquals(0, new BigDecimal("300.00").compareTo(totalBalance(cardIds)));
+        assertEquals(transactionsBefore + completed, transactionRepository.count());
+        assertEquals(completed, outboundTurnoverCount(cardIds));
+        assertEquals(eventsBefore + completed, transferEvents());
+    }
+
+    @Test
+    @DisplayName("Should refuse transfers that overdraw a card or use a card of another user")
+    void submit_InvalidTransfers_Rejected() throws Exception {
+        User owner = userRepository.findByUsername("john.doe").orElseThrow();
+        User other = userRepository.findByUsername("admin").orElseThrow();
+        Long from = createActiveCard(owner, "10.00");
+        Long to = createActiveCard(owner, "0.00");
+        Long foreign = createActiveCard(other, "0.00");
+        BalanceEngine engine = startEngine();
+
+        ExecutionException overdraft = assertThrows(ExecutionException.class,
+                () -> engine.submit(owner.getId(), from, to, new BigDecimal("10.01")).get(10, TimeUnit.SECONDS));
+        ExecutionException notOwned = assertThrows(ExecutionException.class,
+                () -> engine.submit(owner.getId(), from, foreign, new BigDecimal("5.00")).get(10, TimeUnit.SECONDS));
+        engine.submit(owner.getId(), from, to, new BigDecimal("10.00")).get(10, TimeUnit.SECONDS);
+        engine.flush();
+
+        assertInstanceOf(InsufficientFundsException.class, overdraft.getCause());
+        assertInstanceOf(ResourceNotFoundException.class, notOwned.getCause());
+        assertEquals(0, BigDecimal.ZERO.compareTo(balance(from)));
+        assertEquals(0, new BigDecimal("10.00").compareTo(balance(to)));
+        assertEquals(0, BigDecimal.ZERO.compareTo(balance(foreign)));
+    }
+
+    @Test
+    @DisplayName("Should replay journaled transfers that were never flushed exactly once after a restart")
+    void start_UnflushedJournal_ReplayedOnce() throws Exception {
+        User owner = userRepository.findByUsername("john.doe").orElseThrow();
+        Long from = createActiveCard(owner, "50.00");
+        Long to = createActiveCard(owner, "0.00");
+
+        // The first engine is abandoned without a flush, as if the process had crashed.
+        BalanceEngine crashed = new BalanceEngine(jdbcTemplate, new TransactionTemplate(transactionManager), outboxService,
+                journalDir, true, 1024, 2, 100, NO_SCHEDULED_FLUSH);
+        crashed.start();
+        for (int i = 0; i < 30; i++) {
+            crashed.submit(owner.getId(), from, to, new BigDecimal("1.00")).get(10, TimeUnit.SECONDS);
+        }
+        assertEquals(0, new BigDecimal("50.00").compareTo(balance(from)));
+
+        startEngine();
+        assertEquals(0, new BigDecimal("20.00").compareTo(balance(from)));
+        assertEquals(0, new BigDecimal("30.00").compareTo(balance(to)));
+
+        startEngine();
+        assertEquals(0, new BigDecimal("20.00").compareTo(balance(from)));
+        assertEquals(0, new BigDecimal("30.00").compareTo(balance(to)));
+    }
+
+    private BalanceEngine startEngine() throws Exception {
+        if (!engines.isEmpty()) {
+            engines.remove(engines.size() - 1).stop();
+        }
+        BalanceEngine engine = new BalanceEngine(jdbcTemplate, new TransactionTemplate(transactionManager), outboxService,
+                journalDir, true, 1024, 2, 100, NO_SCHEDULED_FLUSH);
+        engine.start();
+        engines.add(engine);
+        return engine;
+    }
+
+    private Long createActiveCard(User owner, String balance) {
+        Card card = new Card();
+        card.setOwner(owner);
+        card.setPan("4000000000000000");
+        card.setPanLast4("0000");
+        card.setHolderName("JOHN DOE");
+        card.setExpiryDate(YearMonth.of(2030, 12));
+        card.setBalance(new BigDecimal(balance));
+        return cardRepository.save(card).getId();
+    }
+
+    private long outboundTurnoverCount(List<Long> cardIds) {
+        String ids = String.join(",", cardIds.stream().map(String::valueOf).toList());
+        return jdbcTemplate.queryForObject("select coalesce(sum(outbound_count), 0) from (" +
+                "select outbound_count from card_daily_turnover where card_id in (" + ids + ") union all " +
+                "select outbound_count from card_turnover_deltas where card_id in (" + ids + ")) t", Long.class);
+    }
+
+    private long transferEvents() {
+        return jdbcTemplate.queryForObject("select count(*) from outbox where event_type = 'TRANSFER_COMPLETED'", Long.class);
+    }
+
+    private BigDecimal balance(Long cardId) {
+        return cardRepository.findById(cardId).orElseThrow().getBalance();
+    }
+
+    private BigDecimal totalBalance(List<Long> cardIds) {
+        return cardRepository.findAllById(cardIds).stream()
+                .map(Card::getBalance)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+}
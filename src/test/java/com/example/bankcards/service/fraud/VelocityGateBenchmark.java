@@ -0,0 +1,81 @@
+package com.example.bankcards.service.fraud;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one velocity check with the default rules, over 10000 cards of 1000 users. Not part of the test run:
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.example.bankcards.service.fraud.VelocityGateBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VelocityGateBenchmark {
+
+    private static final int CARDS = 10_000;
+    private static final int USERS = 1_000;
+
+    private VelocityGate gate;
+    private String[] usernames;
+
+    @Setup
+    public void setUp() {
+        gate = new VelocityGate(new SimpleMeterRegistry(), true, 16384, 64, 10, 10_000, VelocityGate.Action.REJECT,
+                10.0, 16, 5, new BigDecimal("1000.00"), VelocityGate.Action.FLAG);
+        usernames = new String[USERS];
+        for (int i = 0; i < USERS; i++) {
+            usernames[i] = "user-" + i;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private long sequence;
+        private long nowMillis;
+
+        // Cards come round often enough to fill their rings, but rarely enough not to look like a burst.
+        long next() {
+            nowMillis += 2;
+            return sequence++;
+        }
+    }
+
+    @Benchmark
+    public int check(Cursor cursor) {
+        long n = cursor.next();
+        int card = (int) (n % CARDS);
+        return gate.evaluate(usernames[card % USERS], card + 1, 1_000 + (n & 0xFFF), cursor.nowMillis).ordinal();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int checkContended(Cursor cursor) {
+        return check(cursor);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(VelocityGateBenchmark.class.getSimpleName()).build()).run();
+    }
+}
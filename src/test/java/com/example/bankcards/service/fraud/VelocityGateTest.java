@@ -0,0 +1,161 @@
+package com.example.bankcards.service.fraud;
+
+import com.example.bankcards.exception.SuspiciousTransferException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("Velocity Gate Tests")
+class VelocityGateTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("Should reject a burst of transfers and let the card transfer again once the window has passed")
+    void evaluate_Burst_RejectedUntilWindowPassed() {
+        VelocityGate gate = gate(VelocityGate.Action.REJECT, VelocityGate.Action.FLAG);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(VelocityGate.Verdict.PASS, gate.evaluate("john.doe", 1L, 100, 1_000 + i));
+        }
+        assertEquals(VelocityGate.Verdict.BURST_REJECTED, gate.evaluate("john.doe", 1L, 100, 1_500));
+        // Rejected attempts are not recorded, so only the three accepted ones have to leave the window.
+        assertEquals(VelocityGate.Verdict.BURST_REJECTED, gate.evaluate("john.doe", 1L, 100, 1_999));
+        assertEquals(VelocityGate.Verdict.PASS, gate.evaluate("john.doe", 1L, 100, 2_000));
+    }
+
+    @Test
+    @DisplayName("Should keep the history of each user and card apart")
+    void evaluate_OtherUserOrCard_Independent() {
+        VelocityGate gate = gate(VelocityGate.Action.REJECT, VelocityGate.Action.FLAG);
+        for (int i = 0; i < 3; i++) {
+            gate.evaluate("mallory", 1L, 100, 1_000);
+        }
+
+        assertEquals(VelocityGate.Verdict.BURST_REJECTED, gate.evaluate("mallory", 1L, 100, 1_000));
+        assertEquals(VelocityGate.Verdict.PASS, gate.evaluate("john.doe", 1L, 100, 1_000));
+        assertEquals(VelocityGate.Verdict.PASS, gate.evaluate("mallory", 2L, 100, 1_000));
+    }
+
+    @Test
+    @DisplayName("Should keep the history of a card that other pairs of its set are busy with")
+    void evaluate_CollidingPairs_HistoryKept() {
+        VelocityGate gate = singleSetGate();
+        for (int i = 0; i < 3; i++) {
+            gate.evaluate("mallory", 1L, 100, 1_000);
+        }
+        for (long card = 2; card <= 4; card++) {
+            gate.evaluate("mallory", card, 100, 1_000);
+        }
+
+        assertEquals(VelocityGate.Verdict.BURST_REJECTED, gate.evaluate("mallory", 1L, 100, 1_000));
+    }
+
+    @Test
+    @DisplayName("Should treat a pair as a burst while every slot of its set is in its window")
+    void evaluate_SetFullWithinWindow_Burst() {
+        VelocityGate gate = singleSetGate();
+        for (long card = 1; card <= 4; card++) {
+            gate.evaluate("john.doe", card, 100, 1_000);
+        }
+
+        assertEquals(VelocityGate.Verdict.BURST_REJECTED, gate.evaluate("john.doe", 5L, 100, 1_999));
+        assertEquals(VelocityGate.Verdict.PASS, gate.evaluate("john.doe", 5L, 100, 2_000));
+        assertEquals(VelocityGate.Verdict.PASS, gate.evaluate("john.doe", 5L, 100, 2_000));
+    }
+
+    @Test
+    @DisplayName("Should flag an amount far above the recent average and reject it when configured to")
+    void evaluate_AmountSpike_FlaggedOrRejected() {
+        VelocityGate flagging = gate(VelocityGate.Action.REJECT, VelocityGate.Action.FLAG);
+        VelocityGate rejecting = gate(VelocityGate.Action.REJECT, VelocityGate.Action.REJECT);
+        for (VelocityGate gate : new VelocityGate[]{flagging, rejecting}) {
+            gate.evaluate("john.doe", 1L, 1_000, 0);
+            gate.evaluate("john.doe", 1L, 3_000, 10_000);
+        }
+
+        assertEquals(VelocityGate.Verdict.PASS, flagging.evaluate("john.doe", 1L, 19_999, 20_000));
+        assertEquals(VelocityGate.Verdict.SPIKE_FLAGGED, flagging.evaluate("john.doe", 1L, 500_000, 30_000));
+        assertEquals(VelocityGate.Verdict.SPIKE_REJECTED, rejecting.evaluate("john.doe", 1L, 500_000, 20_000));
+    }
+
+    @Test
+    @DisplayName("Should throw on rejection and count flagged and rejected transfers")
+    void check_Verdicts_ThrownAndCounted() {
+        VelocityGate gate = gate(VelocityGate.Action.REJECT, VelocityGate.Action.FLAG);
+        gate.check("john.doe", 1L, new BigDecimal("10.00"));
+        gate.check("john.doe", 1L, new BigDecimal("10.00"));
+        gate.check("john.doe", 1L, new BigDecimal("900.00"));
+
+        assertThrows(SuspiciousTransferException.class, () -> gate.check("john.doe", 1L, new BigDecimal("10.00")));
+        assertEquals(1.0, meterRegistry.counter("bankcards.fraud.flagged", "rule", "spike").count());
+        assertEquals(1.0, meterRegistry.counter("bankcards.fraud.rejected", "rule", "burst").count());
+    }
+
+    @Test
+    @DisplayName("Should count every transfer of a batch against the shipped burst limit")
+    void checkBatch_ManyTransfersFromOneCard_CountedPerItem() {
+        // The defaults of application.yml: at most 10 transfers from a card within 10 seconds.
+        VelocityGate gate = new VelocityGate(meterRegistry, true, 16384, 64, 10, 10_000, VelocityGate.Action.REJECT,
+                10.0, 16, 5, new BigDecimal("1000.00"), VelocityGate.Action.FLAG);
+
+        assertThrows(SuspiciousTransferException.class,
+                () -> gate.checkBatch("john.doe", Map.of(1L, Collections.nCopies(11, new BigDecimal("10.00")))));
+        assertDoesNotThrow(() -> gate.checkBatch("john.doe", Map.of(1L, Collections.nCopies(8, new BigDecimal("10.00")))));
+        assertThrows(SuspiciousTransferException.class,
+                () -> gate.checkBatch("john.doe", Map.of(1L, Collections.nCopies(3, new BigDecimal("10.00")))));
+        gate.check("john.doe", 1L, new BigDecimal("10.00"));
+        gate.check("john.doe", 1L, new BigDecimal("10.00"));
+        assertThrows(SuspiciousTransferException.class, () -> gate.check("john.doe", 1L, new BigDecimal("10.00")));
+    }
+
+    @Test
+    @DisplayName("Should keep every amount of a batch as spike history")
+    void checkBatch_Amounts_RecordedPerItem() {
+        VelocityGate gate = gate(VelocityGate.Action.FLAG, VelocityGate.Action.REJECT);
+        gate.checkBatch("john.doe", Map.of(1L, Collections.nCopies(4, new BigDecimal("100.00"))));
+
+        // Four known amounts averaging 100.00, enough history for the spike rule.
+        assertThrows(SuspiciousTransferException.class, () -> gate.check("john.doe", 1L, new BigDecimal("1500.00")));
+    }
+
+    @Test
+    @DisplayName("Should record nothing of a batch rejected for one of its cards")
+    void checkBatch_OneCardRejected_NothingRecorded() {
+        VelocityGate gate = gate(VelocityGate.Action.REJECT, VelocityGate.Action.FLAG);
+        for (int i = 0; i < 3; i++) {
+            gate.check("john.doe", 2L, new BigDecimal("10.00"));
+        }
+        Map<Long, List<BigDecimal>> batch = new LinkedHashMap<>();
+        batch.put(1L, List.of(new BigDecimal("10.00"), new BigDecimal("20.00")));
+        batch.put(2L, List.of(new BigDecimal("10.00")));
+
+        assertThrows(SuspiciousTransferException.class, () -> gate.checkBatch("john.doe", batch));
+        for (int i = 0; i < 3; i++) {
+            gate.check("john.doe", 1L, new BigDecimal("10.00"));
+        }
+        assertThrows(SuspiciousTransferException.class, () -> gate.check("john.doe", 1L, new BigDecimal("10.00")));
+    }
+
+    // One set of 4 slots, so every pair collides.
+    private VelocityGate singleSetGate() {
+        return new VelocityGate(meterRegistry, true, 4, 1, 3, 1_000, VelocityGate.Action.REJECT,
+                10.0, 4, 2, new BigDecimal("100.00"), VelocityGate.Action.FLAG);
+    }
+
+    // At most 3 transfers per second; spikes above 10x the average of the last 4, from 100.00 on, with 2 known.
+    private VelocityGate gate(VelocityGate.Action burstAction, VelocityGate.Action spikeAction) {
+        return new VelocityGate(meterRegistry, true, 64, 4, 3, 1_000, burstAction,
+                10.0, 4, 2, new BigDecimal("100.00"), spikeAction);
+    }
+}
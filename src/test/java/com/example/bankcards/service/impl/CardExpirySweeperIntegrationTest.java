@@ -0,0 +1,112 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.dto.CreateCardRequest;
+import com.example.bankcards.dto.TransferRequestDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.entity.enums.CardStatus;
+import com.example.bankcards.exception.InvalidOperationException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.OutboxService;
+import com.example.bankcards.service.engine.BalanceEngine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("Card Expiry Sweeper Integration Tests")
+class CardExpirySweeperIntegrationTest {
+
+    // Far enough back that the cards of the other tests and the seeded ones are all still valid.
+    private static final YearMonth CURRENT = YearMonth.of(2001, 6);
+
+    @Autowired
+    private CardService cardService;
+    @Autowired
+    private OutboxService outboxService;
+    @Autowired
+    private CardRepository cardRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private ObjectProvider<BalanceEngine> balanceEngine;
+
+    @Test
+    @DisplayName("Should expire active cards past their month in chunks and leave the rest alone")
+    void sweep_ExpiredActiveCards_ExpiredInChunks() {
+        User owner = userRepository.findByUsername("john.doe").orElseThrow();
+        Long[] expired = {createCard(owner, CURRENT.minusMonths(1), CardStatus.ACTIVE), createCard(owner, CURRENT.minusYears(1), CardStatus.ACTIVE),
+                createCard(owner, CURRENT.minusMonths(3), CardStatus.ACTIVE)};
+        Long current = createCard(owner, CURRENT, CardStatus.ACTIVE);
+        Long blocked = createCard(owner, CURRENT.minusMonths(1), CardStatus.BLOCKED);
+
+        assertEquals(3, sweeper(2).sweep(CURRENT));
+
+        for (Long cardId : expired) {
+            assertEquals(CardStatus.EXPIRED, cardRepository.findById(cardId).orElseThrow().getStatus());
+            assertEquals(1, jdbcTemplate.queryForObject("select count(*) from outbox where event_type = 'CARD_EXPIRED' and aggregate_id = ?",
+                    Integer.class, cardId));
+        }
+        assertEquals(CardStatus.ACTIVE, cardRepository.findById(current).orElseThrow().getStatus());
+        assertEquals(CardStatus.BLOCKED, cardRepository.findById(blocked).orElseThrow().getStatus());
+        assertEquals(0, sweeper(2).sweep(CURRENT));
+    }
+
+    @Test
+    @DisplayName("Should refuse transfers from expired cards and cards created or activated past their month")
+    void expiredCard_TransferCreateActivate_Refused() {
+        User owner = userRepository.findByUsername("john.doe").orElseThrow();
+        Long expired = createCard(owner, CURRENT.minusMonths(1), CardStatus.ACTIVE);
+        Long other = createCard(owner, YearMonth.of(2030, 12), CardStatus.ACTIVE);
+        sweeper(1000).sweep(CURRENT);
+        TransferRequestDto transfer = new TransferRequestDto();
+        transfer.setFromCardId(expired);
+        transfer.setToCardId(other);
+        transfer.setAmount(new BigDecimal("1.00"));
+        CreateCardRequest request = new CreateCardRequest();
+        request.setOwnerId(owner.getId());
+        request.setHolderName("JOHN DOE");
+        request.setExpiryDate("05/2001");
+
+        assertThrows(InvalidOperationException.class, () -> cardService.transferBetweenOwnCards("john.doe", transfer));
+        assertThrows(InvalidOperationException.class, () -> cardService.activateCard(expired));
+        assertThrows(InvalidOperationException.class, () -> cardService.createCard(request));
+        assertEquals(LocalDate.of(2030, 12, 1), jdbcTemplate.queryForObject("select expiry_date from cards where id = ?", LocalDate.class, other));
+    }
+
+    private CardExpirySweeper sweeper(int chunkSize) {
+        return new CardExpirySweeper(jdbcTemplate, transactionManager, outboxService, balanceEngine, new SimpleMeterRegistry(), chunkSize);
+    }
+
+    private Long createCard(User owner, YearMonth expiryDate, CardStatus status) {
+        Card card = new Card();
+        card.setOwner(owner);
+        card.setPan("4000000000000000");
+        card.setPanLast4("0000");
+        card.setHolderName("JOHN DOE");
+        card.setExpiryDate(expiryDate);
+        card.setStatus(status);
+        card.setBalance(new BigDecimal("100.00"));
+        return cardRepository.save(card).getId();
+    }
+}
@@ -0,0 +1,259 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.dto.BatchTransferRequestDto;
+import com.example.bankcards.dto.TransferRequestDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.InsufficientFundsException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.TransactionRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.CardService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("Card Service Concurrency Tests")
+class CardServiceImplConcurrencyTest {
+
+    private static final int CARDS = 4;
+    private static final int THREADS = 16;
+    private static final int TRANSFERS = 2000;
+    private static final int BATCHES = 200;
+    private static final int BATCH_SIZE = 20;
+
+    @Autowired
+    private CardService cardService;
+    @Autowired
+    private CardRepository cardRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Test
+    @DisplayName("Should keep the total balance unchanged under thousands of parallel transfers in both directions")
+    void transferBetweenOwnCards_ParallelTransfers_PreserveTotalBalance() throws Exception {
+        User owner = userRepository.findByUsername("john.doe").orElseThrow();
+        List<Long> cardIds = new ArrayList<>();
+        for (int i = 0; i < CARDS; i++) {
+            cardIds.add(createActiveCard(owner, new BigDecimal("1000.00")));
+        }
+        BigDecimal totalBefore = totalBalance(cardIds);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < TRANSFERS; i++) {
+            int from = i % CARDS;
+            int to = (from + 1 + (i / CARDS) % (CARDS - 1)) % CARDS;
+            TransferRequestDto request = new TransferRequestDto();
+            request.setFromCardId(cardIds.get(from));
+            request.setToCardId(cardIds.get(to));
+            request.setAmount(BigDecimal.valueOf(1 + i % 50));
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    cardService.transferBetweenOwnCards("john.doe", request);
+                    completed.incrementAndGet();
+                } catch (InsufficientFundsException e) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(TRANSFERS, completed.get() + rejected.get());
+        assertTrue(completed.get() > 0);
+        assertEquals(0, totalBefore.compareTo(totalBalance(cardIds)));
+        for (Long cardId : cardIds) {
+            assertTrue(cardRepository.findById(cardId).orElseThrow().getBalance().signum() >= 0);
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep the total balance unchanged under parallel transfer batches")
+    void transferBatchBetweenOwnCards_ParallelBatches_PreserveTotalBalance() throws Exception {
+        User owner = userRepository.findByUsername("john.doe").orElseThrow();
+        List<Long> cardIds = new ArrayList<>();
+        for (int i = 0; i < CARDS; i++) {
+            cardIds.add(createActiveCard(owner, new BigDecimal("1000.00")));
+        }
+        BigDecimal totalBefore = totalBalance(cardIds);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger completed = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int b = 0; b < BATCHES; b++) {
+            BatchTransferRequestDto batch = new BatchTransferRequestDto();
+            batch.setMode(b % 2 == 0 ? BatchTransferRequestDto.Mode.BEST_EFFORT : BatchTransferRequestDto.Mode.ALL_OR_NOTHING);
+            List<TransferRequestDto> transfers = new ArrayList<>();
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                int from = (b + i) % CARDS;
+                int to = (from + 1 + i % (CARDS - 1)) % CARDS;
+                TransferRequestDto request = new TransferRequestDto();
+                request.setFromCardId(cardIds.get(from));
+                request.setToCardId(cardIds.get(to));
+                request.setAmount(BigDecimal.valueOf(1 + (b * i) % 200));
+                transfers.add(request);
+            }
+            batch.setTransfers(transfers);
+            futures.add(executor.submit(() -> {
+                start.await();
+                completed.addAndGet(cardService.transferBatchBetweenOwnCards("john.doe", batch).getCompleted());
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertTrue(completed.get() > 0);
+        assertEquals(0, totalBefore.compareTo(totalBalance(cardIds)));
+        for (Long cardId : cardIds) {
+            assertTrue(cardRepository.findById(cardId).orElseThrow().getBalance().signum() >= 0);
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep the total balance unchanged when a striped card is credited, debited and folded in parallel")
+    void transferBetweenOwnCards_StripedHotCard_PreserveTotalBalance() throws Exception {
+        User owner = userRepository.findByUsername("john.doe").orElseThrow();
+        List<Long> cardIds = new ArrayList<>();
+        for (int i = 0; i < CARDS; i++) {
+            cardIds.add(createActiveCard(owner, new BigDecimal("1000.00")));
+        }
+        Long hotCardId = cardIds.get(0);
+        cardService.updateBalanceStripes(hotCardId, 8);
+        BigDecimal totalBefore = totalBalance(cardIds);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger completed = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < TRANSFERS / 2; i++) {
+            // Three of four transfers go into the hot card, the rest spend more than that from it.
+            boolean outbound = i % 4 == 0;
+            Long other = cardIds.get(1 + i % (CARDS - 1));
+            TransferRequestDto request = new TransferRequestDto();
+            request.setFromCardId(outbound ? hotCardId : other);
+            request.setToCardId(outbound ? other : hotCardId);
+            request.setAmount(BigDecimal.valueOf(outbound ? 10 : 1 + i % 5));
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    cardService.transferBetweenOwnCards("john.doe", request);
+                    completed.incrementAndGet();
+                } catch (InsufficientFundsException ignored) {
+                }
+                return null;
+            }));
+            if (i % 50 == 0) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    cardService.foldBalanceStripes(hotCardId);
+                    return null;
+                }));
+            }
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        cardService.foldBalanceStripes(hotCardId);
+
+        assertTrue(completed.get() > 0);
+        assertEquals(0, totalBefore.compareTo(totalBalance(cardIds)));
+        for (Long cardId : cardIds) {
+            assertTrue(cardRepository.findById(cardId).orElseThrow().getBalance().signum() >= 0);
+        }
+    }
+
+    @Test
+    @DisplayName("Should drain submitted asynchronous transfers without changing the total balance")
+    void submitTransfer_ParallelSubmissions_DrainedByWorkers() throws Exception {
+        User owner = userRepository.findByUsername("john.doe").orElseThrow();
+        List<Long> cardIds = new ArrayList<>();
+        for (int i = 0; i < CARDS; i++) {
+            cardIds.add(createActiveCard(owner, new BigDecimal("100.00")));
+        }
+        BigDecimal totalBefore = totalBalance(cardIds);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < TRANSFERS / 4; i++) {
+            int from = i % CARDS;
+            TransferRequestDto request = new TransferRequestDto();
+            request.setFromCardId(cardIds.get(from));
+            request.setToCardId(cardIds.get((from + 1 + i % (CARDS - 1)) % CARDS));
+            request.setAmount(BigDecimal.valueOf(1 + i % 30));
+            futures.add(executor.submit(() -> cardService.submitTransfer("john.doe", request)));
+        }
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(60);
+        while (hasPendingTransfers(cardIds)) {
+            assertTrue(System.currentTimeMillis() < deadline, "pending transfers were not drained");
+            Thread.sleep(50);
+        }
+
+        assertEquals(0, totalBefore.compareTo(totalBalance(cardIds)));
+        for (Long cardId : cardIds) {
+            assertTrue(cardRepository.findById(cardId).orElseThrow().getBalance().signum() >= 0);
+        }
+    }
+
+    private Long createActiveCard(User owner, BigDecimal balance) {
+        Card card = new Card();
+        card.setOwner(owner);
+        card.setPan("4000000000000000");
+        card.setPanLast4("0000");
+        card.setHolderName("JOHN DOE");
+        card.setExpiryDate(YearMonth.of(2030, 12));
+        card.setBalance(balance);
+        return cardRepository.save(card).getId();
+    }
+
+    private boolean hasPendingTransfers(List<Long> cardIds) {
+        return transactionRepository.findPendingSourceCardIds(PageRequest.of(0, 1000)).stream().anyMatch(cardIds::contains);
+    }
+
+    private BigDecimal totalBalance(List<Long> cardIds) {
+        return cardRepository.findAllById(cardIds).stream()
+                .map(Card::getTotalBalance)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+}
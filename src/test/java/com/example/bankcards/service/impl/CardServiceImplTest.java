@@ -1,19 +1,33 @@
 package com.example.bankcards.service.impl;
 
+import com.example.bankcards.dto.BatchTransferItemResultDto;
+import com.example.bankcards.dto.BatchTransferRequestDto;
+import com.example.bankcards.dto.BatchTransferResultDto;
 import com.example.bankcards.dto.CardDto;
 import com.example.bankcards.dto.CreateCardRequest;
 import com.example.bankcards.dto.TransactionDto;
 import com.example.bankcards.dto.TransferRequestDto;
 import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.IdempotencyKey;
 import com.example.bankcards.entity.Transaction;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.entity.enums.CardStatus;
+import com.example.bankcards.entity.enums.OutboxEventType;
+import com.example.bankcards.entity.enums.TransactionStatus;
 import com.example.bankcards.exception.InsufficientFundsException;
 import com.example.bankcards.exception.InvalidOperationException;
 import com.example.bankcards.exception.ResourceNotFoundException;
+import com.example.bankcards.exception.SpendingLimitExceededException;
+import com.example.bankcards.repository.CardBalanceSlotRepository;
 import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.IdempotencyKeyRepository;
+import com.example.bankcards.repository.ScheduledTransferRepository;
 import com.example.bankcards.repository.TransactionRepository;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.FxRateService;
+import com.example.bankcards.service.LedgerService;
+import com.example.bankcards.service.OutboxService;
+import com.example.bankcards.service.limit.SpendingLimiter;
 import com.example.bankcards.util.mapper.CardMapper;
 import com.example.bankcards.util.mapper.TransactionMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -21,6 +35,7 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -28,17 +43,22 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
 import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.anyLong;
 import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -51,10 +71,24 @@ class CardServiceImplTest {
     @Mock
     private CardRepository cardRepository;
     @Mock
+    private CardBalanceSlotRepository cardBalanceSlotRepository;
+    @Mock
     private UserRepository userRepository;
     @Mock
     private TransactionRepository transactionRepository;
     @Mock
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+    @Mock
+    private ScheduledTransferRepository scheduledTransferRepository;
+    @Mock
+    private LedgerService ledgerService;
+    @Mock
+    private OutboxService outboxService;
+    @Mock
+    private FxRateService fxRateService;
+    @Mock
+    private SpendingLimiter spendingLimiter;
+    @Mock
     private CardMapper cardMapper;
     @Mock
     private TransactionMapper transactionMapper;
@@ -90,6 +124,31 @@ class CardServiceImplTest {
     @Nested
     @DisplayName("Transfer Tests")
     class TransferTests {
+        @Test
+        @DisplayName("Should credit the converted amount to a card in another currency")
+        void transferBetweenOwnCards_CrossCurrency_CreditsConvertedAmount() {
+            TransferRequestDto request = new TransferRequestDto();
+            request.setFromCardId(10L);
+            request.setToCardId(20L);
+            request.setAmount(new BigDecimal("100.00"));
+            when(cardRepository.findCurrencies(List.of(10L, 20L), "testuser"))
+                    .thenReturn(List.of(new Object[]{10L, "USD"}, new Object[]{20L, "BYN"}));
+            when(fxRateService.convert(new BigDecimal("100.00"), "USD", "BYN"))
+                    .thenReturn(new FxRateService.Conversion(new BigDecimal("3.27000000"), new BigDecimal("327.00")));
+            when(cardRepository.debitBalance(10L, "testuser", new BigDecimal("100.00"))).thenReturn(1);
+            when(cardRepository.creditBalance(20L, "testuser", new BigDecimal("327.00"))).thenReturn(1);
+            when(cardRepository.getReferenceById(10L)).thenReturn(cardFrom);
+            when(cardRepository.getReferenceById(20L)).thenReturn(cardTo);
+            when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+            cardService.transferBetweenOwnCards("testuser", request);
+
+            verify(spendingLimiter).reserve(10L, new BigDecimal("100.00"));
+            verify(transactionRepository).save(argThat(transaction -> "USD".equals(transaction.getCurrency())
+                    && new BigDecimal("327.00").equals(transaction.getCreditedAmount())
+                    && "BYN".equals(transaction.getCreditedCurrency())));
+        }
+
         @Test
         @DisplayName("Should transfer money successfully")
         void transferBetweenOwnCards_Success() {
@@ -97,17 +156,21 @@ class CardServiceImplTest {
             request.setFromCardId(10L);
             request.setToCardId(20L);
             request.setAmount(new BigDecimal("100.00"));
-            when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
-            when(cardRepository.findById(10L)).thenReturn(Optional.of(cardFrom));
-            when(cardRepository.findById(20L)).thenReturn(Optional.of(cardTo));
+            when(cardRepository.debitBalance(10L, "testuser", new BigDecimal("100.00"))).thenReturn(1);
+            when(cardRepository.creditBalance(20L, "testuser", new BigDecimal("100.00"))).thenReturn(1);
+            when(cardRepository.getReferenceById(10L)).thenReturn(cardFrom);
+            when(cardRepository.getReferenceById(20L)).thenReturn(cardTo);
+            when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
             when(transactionMapper.toDto(any())).thenReturn(new TransactionDto());
 
             cardService.transferBetweenOwnCards("testuser", request);
 
-            assertEquals(new BigDecimal("900.00"), cardFrom.getBalance());
-            assertEquals(new BigDecimal("600.00"), cardTo.getBalance());
-            verify(cardRepository, times(2)).save(any(Card.class));
+            verify(cardRepository, never()).findById(anyLong());
+            verify(cardRepository, never()).save(any());
+            verify(userRepository, never()).findByUsername(any());
             verify(transactionRepository, times(1)).save(any(Transaction.class));
+            verify(ledgerService, times(1)).recordTransfers(argThat(transactions -> transactions.size() == 1));
+            verify(outboxService, times(1)).recordTransfers(argThat(transactions -> transactions.size() == 1));
         }
 
         @Test
@@ -117,12 +180,31 @@ class CardServiceImplTest {
             request.setFromCardId(10L);
             request.setToCardId(20L);
             request.setAmount(new BigDecimal("2000.00"));
+            when(cardRepository.debitBalance(10L, "testuser", new BigDecimal("2000.00"))).thenReturn(0);
             when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
             when(cardRepository.findById(10L)).thenReturn(Optional.of(cardFrom));
-            when(cardRepository.findById(20L)).thenReturn(Optional.of(cardTo));
 
             assertThrows(InsufficientFundsException.class, () -> cardService.transferBetweenOwnCards("testuser", request));
-            verify(cardRepository, never()).save(any());
+            verify(cardRepository, never()).creditBalance(anyLong(), any(), any());
+            verify(transactionRepository, never()).save(any());
+        }
+
+        @Test
+        @DisplayName("Should refuse a transfer over the spending limit of the source card")
+        void transferBetweenOwnCards_SpendingLimitExceeded() {
+            TransferRequestDto request = new TransferRequestDto();
+            request.setFromCardId(10L);
+            request.setToCardId(20L);
+            request.setAmount(new BigDecimal("100.00"));
+            when(cardRepository.debitBalance(10L, "testuser", new BigDecimal("100.00"))).thenReturn(1);
+            when(cardRepository.creditBalance(20L, "testuser", new BigDecimal("100.00"))).thenReturn(1);
+            when(spendingLimiter.reserve(10L, new BigDecimal("100.00")))
+                    .thenThrow(new SpendingLimitExceededException("Daily spending limit of card 10 would be exceeded."));
+
+            assertThrows(SpendingLimitExceededException.class, () -> cardService.transferBetweenOwnCards("testuser", request));
+            verify(transactionRepository, never()).save(any());
+            verify(ledgerService, never()).recordTransfers(any());
+            verify(outboxService, never()).recordTransfers(any());
         }
 
         @Test
@@ -133,12 +215,334 @@ class CardServiceImplTest {
             request.setFromCardId(10L);
             request.setToCardId(20L);
             request.setAmount(new BigDecimal("100.00"));
+            when(cardRepository.debitBalance(10L, "testuser", new BigDecimal("100.00"))).thenReturn(0);
             when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
             when(cardRepository.findById(10L)).thenReturn(Optional.of(cardFrom));
-            when(cardRepository.findById(20L)).thenReturn(Optional.of(cardTo));
 
             assertThrows(InvalidOperationException.class, () -> cardService.transferBetweenOwnCards("testuser", request));
         }
+
+        @Test
+        @DisplayName("Should throw ResourceNotFoundException when 'to' card belongs to another user")
+        void transferBetweenOwnCards_ToCardNotOwned() {
+            User anotherUser = new User();
+            anotherUser.setId(2L);
+            cardTo.setOwner(anotherUser);
+            TransferRequestDto request = new TransferRequestDto();
+            request.setFromCardId(10L);
+            request.setToCardId(20L);
+            request.setAmount(new BigDecimal("100.00"));
+            when(cardRepository.debitBalance(10L, "testuser", new BigDecimal("100.00"))).thenReturn(1);
+            when(cardRepository.creditBalance(20L, "testuser", new BigDecimal("100.00"))).thenReturn(0);
+            when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
+            when(cardRepository.findById(20L)).thenReturn(Optional.of(cardTo));
+
+            assertThrows(ResourceNotFoundException.class, () -> cardService.transferBetweenOwnCards("testuser", request));
+            verify(transactionRepository, never()).save(any());
+        }
+
+        @Test
+        @DisplayName("Should return the stored transfer for a known idempotency key without touching cards")
+        void transferBetweenOwnCards_KnownIdempotencyKey_Replayed() {
+            TransferRequestDto request = new TransferRequestDto();
+            request.setFromCardId(10L);
+            request.setToCardId(20L);
+            request.setAmount(new BigDecimal("100.00"));
+            Transaction storedTransaction = new Transaction();
+            IdempotencyKey storedKey = new IdempotencyKey();
+            storedKey.setTransaction(storedTransaction);
+            TransactionDto storedDto = new TransactionDto();
+            when(idempotencyKeyRepository.findByUsernameAndKey("testuser", "key-1")).thenReturn(Optional.of(storedKey));
+            when(transactionMapper.toDto(storedTransaction)).thenReturn(storedDto);
+
+            TransactionDto result = cardService.transferBetweenOwnCards("testuser", request, "key-1");
+
+            assertEquals(storedDto, result);
+            verify(cardRepository, never()).debitBalance(anyLong(), any(), any());
+            verify(idempotencyKeyRepository, never()).saveAndFlush(any());
+        }
+
+        @Test
+        @DisplayName("Should store the idempotency key together with a new transfer")
+        void transferBetweenOwnCards_NewIdempotencyKey_Stored() {
+            TransferRequestDto request = new TransferRequestDto();
+            request.setFromCardId(10L);
+            request.setToCardId(20L);
+            request.setAmount(new BigDecimal("100.00"));
+            TransactionDto createdDto = new TransactionDto();
+            createdDto.setId(99L);
+            when(idempotencyKeyRepository.findByUsernameAndKey("testuser", "key-1")).thenReturn(Optional.empty());
+            when(cardRepository.debitBalance(10L, "testuser", new BigDecimal("100.00"))).thenReturn(1);
+            when(cardRepository.creditBalance(20L, "testuser", new BigDecimal("100.00"))).thenReturn(1);
+            when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
+            when(transactionMapper.toDto(any())).thenReturn(createdDto);
+
+            cardService.transferBetweenOwnCards("testuser", request, "key-1");
+
+            verify(idempotencyKeyRepository, times(1)).saveAndFlush(argThat(key -> "key-1".equals(key.getKey()) && "testuser".equals(key.getUsername())));
+        }
+
+        @Test
+        @DisplayName("Should update cards in ascending id order for a reverse transfer")
+        void transferBetweenOwnCards_UpdatesInIdOrder() {
+            TransferRequestDto request = new TransferRequestDto();
+            request.setFromCardId(20L);
+            request.setToCardId(10L);
+            request.setAmount(new BigDecimal("100.00"));
+            when(cardRepository.creditBalance(10L, "testuser", new BigDecimal("100.00"))).thenReturn(1);
+            when(cardRepository.debitBalance(20L, "testuser", new BigDecimal("100.00"))).thenReturn(1);
+            when(cardRepository.getReferenceById(10L)).thenReturn(cardFrom);
+            when(cardRepository.getReferenceById(20L)).thenReturn(cardTo);
+            when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
+            when(transactionMapper.toDto(any())).thenReturn(new TransactionDto());
+
+            cardService.transferBetweenOwnCards("testuser", request);
+
+            InOrder inOrder = inOrder(cardRepository);
+            inOrder.verify(cardRepository).creditBalance(10L, "testuser", new BigDecimal("100.00"));
+            inOrder.verify(cardRepository).debitBalance(20L, "testuser", new BigDecimal("100.00"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Batch Transfer Tests")
+    class BatchTransferTests {
+        @BeforeEach
+        void setUpBatchLimit() {
+            ReflectionTestUtils.setField(cardService, "batchMaxSize", 10);
+        }
+
+        @Test
+        @DisplayName("Should apply valid transfers and report failed ones in BEST_EFFORT mode")
+        void transferBatch_BestEffort_PartialSuccess() {
+            BatchTransferRequestDto request = batchRequest(BatchTransferRequestDto.Mode.BEST_EFFORT,
+                    transfer(10L, 20L, "300.00"), transfer(10L, 20L, "800.00"), transfer(20L, 10L, "50.00"));
+            when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
+            when(cardRepository.findAllByIdInAndOwnerIdForUpdate(any(), eq(1L))).thenReturn(List.of(cardFrom, cardTo));
+            when(transactionRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+            when(transactionMapper.toDto(any())).thenReturn(new TransactionDto());
+
+            BatchTransferResultDto result = cardService.transferBatchBetweenOwnCards("testuser", request);
+
+            assertEquals(2, result.getCompleted());
+            assertEquals(1, result.getFailed());
+            assertEquals(BatchTransferItemResultDto.FAILED, result.getResults().get(1).getStatus());
+            assertEquals("Insufficient funds on card 10", result.getResults().get(1).getError());
+            assertEquals(new BigDecimal("750.00"), cardFrom.getBalance());
+            assertEquals(new BigDecimal("750.00"), cardTo.getBalance());
+            verify(transactionRepository, times(1)).saveAll(argThat(list -> ((List<?>) list).size() == 2));
+        }
+
+        @Test
+        @DisplayName("Should apply nothing in ALL_OR_NOTHING mode when one transfer fails")
+        void transferBatch_AllOrNothing_RolledBack() {
+            BatchTransferRequestDto request = batchRequest(BatchTransferRequestDto.Mode.ALL_OR_NOTHING,
+                    transfer(10L, 20L, "100.00"), transfer(10L, 99L, "100.00"));
+            when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
+            when(cardRepository.findAllByIdInAndOwnerIdForUpdate(any(), eq(1L))).thenReturn(List.of(cardFrom, cardTo));
+
+            BatchTransferResultDto result = cardService.transferBatchBetweenOwnCards("testuser", request);
+
+            assertEquals(0, result.getCompleted());
+            assertEquals(1, result.getFailed());
+            assertEquals(BatchTransferItemResultDto.SKIPPED, result.getResults().get(0).getStatus());
+            assertEquals(BatchTransferItemResultDto.FAILED, result.getResults().get(1).getStatus());
+            assertEquals(new BigDecimal("1000.00"), cardFrom.getBalance());
+            assertEquals(new BigDecimal("500.00"), cardTo.getBalance());
+            verify(transactionRepository, never()).saveAll(any());
+        }
+
+        @Test
+        @DisplayName("Should report a transfer over the spending limit as failed in BEST_EFFORT mode")
+        void transferBatch_BestEffort_SpendingLimitExceeded() {
+            BatchTransferRequestDto request = batchRequest(BatchTransferRequestDto.Mode.BEST_EFFORT,
+                    transfer(10L, 20L, "300.00"), transfer(10L, 20L, "100.00"));
+            when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
+            when(cardRepository.findAllByIdInAndOwnerIdForUpdate(any(), eq(1L))).thenReturn(List.of(cardFrom, cardTo));
+            when(spendingLimiter.reserve(10L, new BigDecimal("300.00")))
+                    .thenThrow(new SpendingLimitExceededException("Daily spending limit of card 10 would be exceeded."));
+            when(transactionRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+            when(transactionMapper.toDto(any())).thenReturn(new TransactionDto());
+
+            BatchTransferResultDto result = cardService.transferBatchBetweenOwnCards("testuser", request);
+
+            assertEquals(1, result.getCompleted());
+            assertEquals(BatchTransferItemResultDto.FAILED, result.getResults().get(0).getStatus());
+            assertEquals(new BigDecimal("900.00"), cardFrom.getBalance());
+        }
+
+        @Test
+        @DisplayName("Should reject a batch larger than the configured limit")
+        void transferBatch_TooLarge() {
+            List<TransferRequestDto> transfers = Collections.nCopies(11, transfer(10L, 20L, "1.00"));
+            BatchTransferRequestDto request = batchRequest(BatchTransferRequestDto.Mode.BEST_EFFORT, transfers.toArray(new TransferRequestDto[0]));
+
+            assertThrows(InvalidOperationException.class, () -> cardService.transferBatchBetweenOwnCards("testuser", request));
+            verify(cardRepository, never()).findAllByIdInAndOwnerIdForUpdate(any(), any());
+        }
+
+        private TransferRequestDto transfer(Long fromCardId, Long toCardId, String amount) {
+            TransferRequestDto transfer = new TransferRequestDto();
+            transfer.setFromCardId(fromCardId);
+            transfer.setToCardId(toCardId);
+            transfer.setAmount(new BigDecimal(amount));
+            return transfer;
+        }
+
+        private BatchTransferRequestDto batchRequest(BatchTransferRequestDto.Mode mode, TransferRequestDto... transfers) {
+            BatchTransferRequestDto request = new BatchTransferRequestDto();
+            request.setMode(mode);
+            request.setTransfers(List.of(transfers));
+            return request;
+        }
+    }
+
+    @Nested
+    @DisplayName("Balance Stripe Tests")
+    class BalanceStripeTests {
+        @Test
+        @DisplayName("Should credit a striped card through one of its slots without touching the card row")
+        void transferBetweenOwnCards_ToStripedCard_CreditsSlot() {
+            TransferRequestDto request = new TransferRequestDto();
+            request.setFromCardId(10L);
+            request.setToCardId(20L);
+            request.setAmount(new BigDecimal("100.00"));
+            when(cardRepository.debitBalance(10L, "testuser", new BigDecimal("100.00"))).thenReturn(1);
+            when(cardBalanceSlotRepository.creditSlot(eq(20L), eq("testuser"), eq(new BigDecimal("100.00")), anyInt())).thenReturn(1);
+            when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+            cardService.transferBetweenOwnCards("testuser", request);
+
+            verify(cardRepository, never()).creditBalance(anyLong(), any(), any());
+        }
+
+        @Test
+        @DisplayName("Should debit a striped card against its row and slot balances together")
+        void transferBetweenOwnCards_FromStripedCard_UsesSlotBalance() {
+            TransferRequestDto request = new TransferRequestDto();
+            request.setFromCardId(10L);
+            request.setToCardId(20L);
+            request.setAmount(new BigDecimal("1500.00"));
+            when(cardRepository.debitBalance(10L, "testuser", new BigDecimal("1500.00"))).thenReturn(0);
+            when(cardRepository.lockStripeCount(10L)).thenReturn(4);
+            when(cardBalanceSlotRepository.sumBalance(10L)).thenReturn(new BigDecimal("600.00"));
+            when(cardRepository.debitStripedBalance(10L, "testuser", new BigDecimal("1500.00"), new BigDecimal("600.00"))).thenReturn(1);
+            when(cardRepository.creditBalance(20L, "testuser", new BigDecimal("1500.00"))).thenReturn(1);
+            when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+            cardService.transferBetweenOwnCards("testuser", request);
+
+            verify(transactionRepository, times(1)).save(any(Transaction.class));
+            verify(userRepository, never()).findByUsername(any());
+        }
+
+        @Test
+        @DisplayName("Should sum the slots of the striped cards of a page in one query and skip the others")
+        void getAllCards_StripedCard_SlotBalanceLoaded() {
+            cardFrom.setStripeCount(1);
+            cardTo.setStripeCount(4);
+            when(cardRepository.findAll(any(Pageable.class))).thenReturn(new PageImpl<>(List.of(cardFrom, cardTo)));
+            when(cardBalanceSlotRepository.sumBalances(argThat(ids -> ids.size() == 1 && ids.contains(20L))))
+                    .thenReturn(Collections.singletonList(new Object[]{20L, new BigDecimal("75.00")}));
+
+            cardService.getAllCards(Pageable.unpaged());
+
+            assertEquals(new BigDecimal("1000.00"), cardFrom.getTotalBalance());
+            assertEquals(new BigDecimal("575.00"), cardTo.getTotalBalance());
+            verify(cardBalanceSlotRepository, times(1)).sumBalances(any());
+        }
+
+        @Test
+        @DisplayName("Should fold the slots and recreate them when the stripe count changes")
+        void updateBalanceStripes_Success() {
+            when(cardRepository.lockStripeCount(10L)).thenReturn(4);
+            when(cardBalanceSlotRepository.lockSlots(10L)).thenReturn(List.of(1L, 2L, 3L, 4L));
+            when(cardBalanceSlotRepository.sumBalance(10L)).thenReturn(new BigDecimal("25.00"));
+            when(cardRepository.getReferenceById(10L)).thenReturn(cardFrom);
+            when(cardRepository.findById(10L)).thenReturn(Optional.of(cardFrom));
+            when(cardMapper.toDto(cardFrom)).thenReturn(new CardDto());
+
+            cardService.updateBalanceStripes(10L, 8);
+
+            InOrder inOrder = inOrder(cardRepository, cardBalanceSlotRepository);
+            inOrder.verify(cardRepository).addBalance(10L, new BigDecimal("25.00"));
+            inOrder.verify(cardBalanceSlotRepository).resetBalances(10L);
+            inOrder.verify(cardBalanceSlotRepository).deleteByCardId(10L);
+            inOrder.verify(cardBalanceSlotRepository).saveAll(argThat(slots -> ((List<?>) slots).size() == 8));
+            inOrder.verify(cardRepository).updateStripeCount(10L, 8);
+        }
+
+        @Test
+        @DisplayName("Should reject a stripe count out of range")
+        void updateBalanceStripes_OutOfRange() {
+            assertThrows(InvalidOperationException.class, () -> cardService.updateBalanceStripes(10L, 65));
+            verify(cardRepository, never()).lockStripeCount(anyLong());
+        }
+    }
+
+    @Nested
+    @DisplayName("Asynchronous Transfer Tests")
+    class AsyncTransferTests {
+        @Test
+        @DisplayName("Should store a submitted transfer as PENDING without moving money")
+        void submitTransfer_SavesPendingTransaction() {
+            TransferRequestDto request = new TransferRequestDto();
+            request.setFromCardId(10L);
+            request.setToCardId(20L);
+            request.setAmount(new BigDecimal("100.00"));
+            when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
+            when(cardRepository.findById(10L)).thenReturn(Optional.of(cardFrom));
+            when(cardRepository.findById(20L)).thenReturn(Optional.of(cardTo));
+            when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
+            when(transactionMapper.toDto(any())).thenReturn(new TransactionDto());
+
+            cardService.submitTransfer("testuser", request);
+
+            verify(transactionRepository).save(argThat(transaction -> transaction.getStatus() == TransactionStatus.PENDING));
+            verify(cardRepository, never()).debitBalance(anyLong(), any(), any());
+            assertEquals(0, new BigDecimal("1000.00").compareTo(cardFrom.getBalance()));
+        }
+
+        @Test
+        @DisplayName("Should complete pending transfers that are covered and fail the rest")
+        void processPendingTransfers_CompletesAndFails() {
+            Transaction first = pending(cardFrom, cardTo, "700.00");
+            Transaction second = pending(cardFrom, cardTo, "400.00");
+            when(cardRepository.findOwnerId(10L)).thenReturn(Optional.of(1L));
+            when(transactionRepository.findPendingTargetCardIds(eq(10L), any())).thenReturn(List.of(20L));
+            when(cardRepository.findAllByIdInAndOwnerIdForUpdate(any(), eq(1L))).thenReturn(List.of(cardFrom, cardTo));
+            when(transactionRepository.findPendingBySourceCard(eq(10L), any())).thenReturn(List.of(first, second));
+
+            int processed = cardService.processPendingTransfers(10L, 10);
+
+            assertEquals(2, processed);
+            assertEquals(TransactionStatus.COMPLETED, first.getStatus());
+            assertEquals(TransactionStatus.FAILED, second.getStatus());
+            assertEquals(0, new BigDecimal("300.00").compareTo(cardFrom.getBalance()));
+            assertEquals(0, new BigDecimal("1200.00").compareTo(cardTo.getBalance()));
+            verify(ledgerService).recordTransfers(List.of(first));
+        }
+
+        @Test
+        @DisplayName("Should not show a transaction to a user who owns neither of its cards")
+        void getTransaction_NotOwned_ThrowsNotFound() {
+            User other = new User();
+            other.setId(2L);
+            other.setUsername("other");
+            when(userRepository.findByUsername("other")).thenReturn(Optional.of(other));
+            when(transactionRepository.findWithCardsById(5L)).thenReturn(Optional.of(pending(cardFrom, cardTo, "1.00")));
+
+            assertThrows(ResourceNotFoundException.class, () -> cardService.getTransaction(5L, "other"));
+        }
+
+        private Transaction pending(Card from, Card to, String amount) {
+            Transaction transaction = new Transaction();
+            transaction.setCardFrom(from);
+            transaction.setCardTo(to);
+            transaction.setAmount(new BigDecimal(amount));
+            transaction.setStatus(TransactionStatus.PENDING);
+            return transaction;
+        }
     }
 
     @Nested
@@ -161,6 +565,19 @@ class CardServiceImplTest {
             verify(cardRepository, times(1)).save(any(Card.class));
         }
 
+        @Test
+        @DisplayName("Should refuse to open a card in a currency without exchange rates")
+        void createCard_UnsupportedCurrency() {
+            CreateCardRequest request = new CreateCardRequest();
+            request.setOwnerId(1L);
+            request.setCurrency("XYZ");
+            when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+            when(fxRateService.isSupported("XYZ")).thenReturn(false);
+
+            assertThrows(InvalidOperationException.class, () -> cardService.createCard(request));
+            verify(cardRepository, never()).save(any(Card.class));
+        }
+
         @Test
         @DisplayName("Should throw ResourceNotFoundException when creating card for non-existent user")
         void createCard_UserNotFound() {
@@ -182,6 +599,7 @@ class CardServiceImplTest {
 
             assertEquals(CardStatus.BLOCKED, cardFrom.getStatus());
             verify(cardRepository, times(1)).save(cardFrom);
+            verify(outboxService).recordCardEvent(OutboxEventType.CARD_BLOCKED, cardFrom);
         }
 
         @Test
@@ -205,6 +623,7 @@ class CardServiceImplTest {
             cardService.deleteCard(10L);
 
             verify(cardRepository, times(1)).deleteById(10L);
+            verify(outboxService).recordCardDeleted(10L);
         }
 
         @Test
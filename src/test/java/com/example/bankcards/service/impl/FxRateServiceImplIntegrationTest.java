@@ -0,0 +1,117 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.dto.BatchTransferRequestDto;
+import com.example.bankcards.dto.BatchTransferResultDto;
+import com.example.bankcards.dto.TransactionDto;
+import com.example.bankcards.dto.TransferRequestDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.InvalidOperationException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.FxRateService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("FX Rate Service Integration Tests")
+class FxRateServiceImplIntegrationTest {
+
+    @Autowired
+    private FxRateService fxRateService;
+    @Autowired
+    private CardService cardService;
+    @Autowired
+    private CardRepository cardRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Should convert with stored, inverse and cross rates rounded to cents")
+    void convert_SeededRates_DerivedAndRounded() {
+        FxRateService.Conversion direct = fxRateService.convert(new BigDecimal("100.00"), "USD", "BYN");
+        FxRateService.Conversion inverse = fxRateService.convert(new BigDecimal("100.00"), "BYN", "USD");
+        FxRateService.Conversion cross = fxRateService.convert(new BigDecimal("100.00"), "USD", "EUR");
+
+        assertEquals(new BigDecimal("327.00"), direct.amount());
+        assertEquals(new BigDecimal("0.30581040"), inverse.rate());
+        assertEquals(new BigDecimal("30.58"), inverse.amount());
+        assertEquals(new BigDecimal("0.92112676"), cross.rate());
+        assertEquals(new BigDecimal("92.11"), cross.amount());
+        assertThrows(InvalidOperationException.class, () -> fxRateService.convert(BigDecimal.ONE, "USD", "XYZ"));
+        assertThrows(InvalidOperationException.class, () -> fxRateService.convert(new BigDecimal("0.01"), "RUB", "BYN"));
+    }
+
+    @Test
+    @DisplayName("Should only see new rates after a refresh")
+    void refresh_NewRate_SwappedIn() {
+        jdbcTemplate.update("merge into fx_rates (base_currency, quote_currency, rate, updated_at) key (base_currency, quote_currency) " +
+                "values ('PLN', 'BYN', 0.80000000, current_timestamp)");
+        assertFalse(fxRateService.isSupported("PLN"));
+
+        fxRateService.refresh();
+
+        assertTrue(fxRateService.isSupported("PLN"));
+        assertEquals(new BigDecimal("80.00"), fxRateService.convert(new BigDecimal("100.00"), "PLN", "BYN").amount());
+    }
+
+    @Test
+    @DisplayName("Should debit the source currency and credit the converted amount on single and batch transfers")
+    void transfer_CrossCurrency_LedgerInCardCurrencies() {
+        User owner = userRepository.findByUsername("john.doe").orElseThrow();
+        Long usd = createActiveCard(owner, "USD");
+        Long byn = createActiveCard(owner, "BYN");
+
+        TransactionDto single = cardService.transferBetweenOwnCards("john.doe", transfer(usd, byn, "10.00"));
+        BatchTransferRequestDto batch = new BatchTransferRequestDto();
+        batch.setTransfers(List.of(transfer(byn, usd, "32.70")));
+        BatchTransferResultDto batchResult = cardService.transferBatchBetweenOwnCards("john.doe", batch);
+
+        assertEquals("USD", single.getCurrency());
+        assertEquals(0, new BigDecimal("32.70").compareTo(single.getCreditedAmount()));
+        assertEquals("BYN", single.getCreditedCurrency());
+        assertEquals(0, new BigDecimal("10.00").compareTo(batchResult.getResults().get(0).getTransaction().getCreditedAmount()));
+        assertEquals(0, new BigDecimal("100.00").compareTo(cardRepository.findById(usd).orElseThrow().getBalance()));
+        assertEquals(0, new BigDecimal("100.00").compareTo(cardRepository.findById(byn).orElseThrow().getBalance()));
+        assertEquals(0, new BigDecimal("32.70").compareTo(jdbcTemplate.queryForObject(
+                "select amount from ledger_entries where card_id = ? and entry_type = 'CREDIT' and transaction_id = ?",
+                BigDecimal.class, byn, single.getId())));
+    }
+
+    private Long createActiveCard(User owner, String currency) {
+        Card card = new Card();
+        card.setOwner(owner);
+        card.setPan("4000000000000000");
+        card.setPanLast4("0000");
+        card.setHolderName("JOHN DOE");
+        card.setExpiryDate(YearMonth.of(2030, 12));
+        card.setBalance(new BigDecimal("100.00"));
+        card.setCurrency(currency);
+        return cardRepository.save(card).getId();
+    }
+
+    private TransferRequestDto transfer(Long from, Long to, String amount) {
+        TransferRequestDto request = new TransferRequestDto();
+        request.setFromCardId(from);
+        request.setToCardId(to);
+        request.setAmount(new BigDecimal(amount));
+        return request;
+    }
+}
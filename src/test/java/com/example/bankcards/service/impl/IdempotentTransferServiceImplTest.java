@@ -0,0 +1,146 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.dto.TransactionDto;
+import com.example.bankcards.dto.TransferRequestDto;
+import com.example.bankcards.exception.InsufficientFundsException;
+import com.example.bankcards.exception.InvalidOperationException;
+import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.fraud.VelocityGate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Idempotent Transfer Service Implementation Tests")
+class IdempotentTransferServiceImplTest {
+
+    @Mock
+    private CardService cardService;
+
+    @Mock
+    private VelocityGate velocityGate;
+
+    private IdempotentTransferServiceImpl idempotentTransferService;
+    private TransferRequestDto request;
+    private TransactionDto transaction;
+
+    @BeforeEach
+    void setUp() {
+        idempotentTransferService = new IdempotentTransferServiceImpl(cardService, velocityGate, 100, 60_000, 5_000);
+
+        request = new TransferRequestDto();
+        request.setFromCardId(10L);
+        request.setToCardId(20L);
+        request.setAmount(new BigDecimal("100.00"));
+
+        transaction = new TransactionDto();
+        transaction.setId(99L);
+        transaction.setCardFromId(10L);
+        transaction.setCardToId(20L);
+        transaction.setAmount(new BigDecimal("100.00"));
+    }
+
+    @Test
+    @DisplayName("Should serve a repeated key from the cache without a second transfer")
+    void transfer_RepeatedKey_ServedFromCache() {
+        when(cardService.transferBetweenOwnCards("testuser", request, "key-1")).thenReturn(transaction);
+
+        TransactionDto first = idempotentTransferService.transfer("testuser", "key-1", request);
+        TransactionDto second = idempotentTransferService.transfer("testuser", "key-1", request);
+
+        assertSame(first, second);
+        verify(cardService, times(1)).transferBetweenOwnCards("testuser", request, "key-1");
+        verify(velocityGate, times(1)).check("testuser", 10L, request.getAmount());
+    }
+
+    @Test
+    @DisplayName("Should return a stored transfer without passing it through the velocity gate again")
+    void transfer_StoredKey_NotCheckedAgain() {
+        when(cardService.findTransferByIdempotencyKey("testuser", "key-1")).thenReturn(Optional.of(transaction));
+
+        TransactionDto result = idempotentTransferService.transfer("testuser", "key-1", request);
+
+        assertEquals(99L, result.getId());
+        verify(velocityGate, never()).check(any(), any(), any());
+        verify(cardService, never()).transferBetweenOwnCards(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Should reject a reused key with a different transfer")
+    void transfer_ReusedKeyDifferentRequest_Rejected() {
+        when(cardService.transferBetweenOwnCards("testuser", request, "key-1")).thenReturn(transaction);
+        idempotentTransferService.transfer("testuser", "key-1", request);
+
+        TransferRequestDto otherRequest = new TransferRequestDto();
+        otherRequest.setFromCardId(10L);
+        otherRequest.setToCardId(20L);
+        otherRequest.setAmount(new BigDecimal("500.00"));
+
+        assertThrows(InvalidOperationException.class, () -> idempotentTransferService.transfer("testuser", "key-1", otherRequest));
+    }
+
+    @Test
+    @DisplayName("Should make a concurrent duplicate wait for the first request")
+    void transfer_ConcurrentDuplicate_WaitsForFirst() throws Exception {
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        when(cardService.transferBetweenOwnCards("testuser", request, "key-1")).thenAnswer(invocation -> {
+            firstStarted.countDown();
+            releaseFirst.await(5, TimeUnit.SECONDS);
+            return transaction;
+        });
+
+        CompletableFuture<TransactionDto> first = CompletableFuture.supplyAsync(() -> idempotentTransferService.transfer("testuser", "key-1", request));
+        firstStarted.await(5, TimeUnit.SECONDS);
+        CompletableFuture<TransactionDto> duplicate = CompletableFuture.supplyAsync(() -> idempotentTransferService.transfer("testuser", "key-1", request));
+        releaseFirst.countDown();
+
+        assertEquals(99L, first.get(5, TimeUnit.SECONDS).getId());
+        assertEquals(99L, duplicate.get(5, TimeUnit.SECONDS).getId());
+        verify(cardService, times(1)).transferBetweenOwnCards(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Should return the stored transfer when another instance saved the key first")
+    void transfer_KeyStoredConcurrently_ReturnsStoredTransfer() {
+        when(cardService.transferBetweenOwnCards("testuser", request, "key-1"))
+                .thenThrow(new DataIntegrityViolationException("uq_idempotency_keys_user_key"));
+        when(cardService.findTransferByIdempotencyKey("testuser", "key-1"))
+                .thenReturn(Optional.empty(), Optional.of(transaction));
+
+        TransactionDto result = idempotentTransferService.transfer("testuser", "key-1", request);
+
+        assertEquals(99L, result.getId());
+    }
+
+    @Test
+    @DisplayName("Should not cache a failed transfer")
+    void transfer_Failure_NotCached() {
+        when(cardService.transferBetweenOwnCards(eq("testuser"), any(), eq("key-1")))
+                .thenThrow(new InsufficientFundsException("Insufficient funds on card 10"))
+                .thenReturn(transaction);
+
+        assertThrows(InsufficientFundsException.class, () -> idempotentTransferService.transfer("testuser", "key-1", request));
+        assertEquals(99L, idempotentTransferService.transfer("testuser", "key-1", request).getId());
+    }
+}
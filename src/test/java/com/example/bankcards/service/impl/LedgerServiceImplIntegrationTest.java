@@ -0,0 +1,128 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.dto.TransferRequestDto;
+import com.example.bankcards.entity.BalanceSnapshot;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.BalanceSnapshotRepository;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.LedgerService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("Ledger Service Integration Tests")
+class LedgerServiceImplIntegrationTest {
+
+    @Autowired
+    private CardService cardService;
+    @Autowired
+    private LedgerService ledgerService;
+    @Autowired
+    private CardRepository cardRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private BalanceSnapshotRepository balanceSnapshotRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Should keep the ledger balance equal to the card balance across snapshot compaction")
+    void getBalance_AfterTransfersAndCompaction_MatchesCardBalance() throws Exception {
+        User owner = userRepository.findByUsername("john.doe").orElseThrow();
+        Long from = createCardWithOpeningCredit(owner);
+        Long to = createCardWithOpeningCredit(owner);
+        LocalDateTime beforeTransfers = LocalDateTime.now();
+        Thread.sleep(5);
+
+        for (int i = 0; i < 5; i++) {
+            cardService.transferBetweenOwnCards("john.doe", transfer(from, to, "10.00"));
+        }
+        assertTrue(compactEveryCard() >= 2);
+        cardService.transferBetweenOwnCards("john.doe", transfer(to, from, "5.00"));
+
+        assertEquals(0, balance(from).compareTo(ledgerService.getBalance(from, "john.doe", null).getBalance()));
+        assertEquals(0, balance(to).compareTo(ledgerService.getBalance(to, "john.doe", null).getBalance()));
+        assertEquals(0, new BigDecimal("100.00").compareTo(ledgerService.getBalance(from, "john.doe", beforeTransfers).getBalance()));
+        assertEquals(2, balanceSnapshotRepository.findAll().stream().filter(s -> s.getCard().getId().equals(from)).count());
+    }
+
+    @Test
+    @DisplayName("Should count an entry committed after a snapshot that predates it, once")
+    void getBalance_EntryCommittedAfterSnapshot_Counted() {
+        User owner = userRepository.findByUsername("john.doe").orElseThrow();
+        Long from = createCardWithOpeningCredit(owner);
+        Long to = createCardWithOpeningCredit(owner);
+        cardService.transferBetweenOwnCards("john.doe", transfer(from, to, "10.00"));
+        LocalDateTime beforeSnapshot = LocalDateTime.now().minusMinutes(10);
+        assertTrue(compactEveryCard() >= 2);
+
+        // As the write-behind of the in-memory engine does: the entry carries the time of its transfer.
+        jdbcTemplate.update("insert into ledger_entries (id, card_id, entry_type, amount, created_at) " +
+                "values (nextval('ledger_entries_id_seq'), ?, 'CREDIT', 7.00, ?)", to, Timestamp.valueOf(beforeSnapshot));
+
+        assertEquals(0, new BigDecimal("117.00").compareTo(ledgerService.getBalance(to, "john.doe", null).getBalance()));
+        assertTrue(compactEveryCard() >= 1);
+        assertEquals(0, new BigDecimal("117.00").compareTo(ledgerService.getBalance(to, "john.doe", null).getBalance()));
+        assertEquals(0, new BigDecimal("90.00").compareTo(ledgerService.getBalance(from, "john.doe", null).getBalance()));
+    }
+
+    private int compactEveryCard() {
+        LedgerServiceImpl target = AopTestUtils.getTargetObject(ledgerService);
+        Object minEntries = ReflectionTestUtils.getField(target, "compactionMinEntries");
+        ReflectionTestUtils.setField(target, "compactionMinEntries", 1L);
+        try {
+            return ledgerService.compactSnapshots();
+        } finally {
+            ReflectionTestUtils.setField(target, "compactionMinEntries", minEntries);
+        }
+    }
+
+    // Cards created straight through the repository get an opening snapshot, as the ledger migration does.
+    private Long createCardWithOpeningCredit(User owner) {
+        Card card = new Card();
+        card.setOwner(owner);
+        card.setPan("4000000000000000");
+        card.setPanLast4("0000");
+        card.setHolderName("JOHN DOE");
+        card.setExpiryDate(YearMonth.of(2030, 12));
+        card.setBalance(new BigDecimal("100.00"));
+        Card saved = cardRepository.save(card);
+        BalanceSnapshot snapshot = new BalanceSnapshot();
+        snapshot.setCard(saved);
+        snapshot.setBalance(saved.getBalance());
+        snapshot.setAsOf(LocalDateTime.now());
+        balanceSnapshotRepository.save(snapshot);
+        return saved.getId();
+    }
+
+    private TransferRequestDto transfer(Long from, Long to, String amount) {
+        TransferRequestDto request = new TransferRequestDto();
+        request.setFromCardId(from);
+        request.setToCardId(to);
+        request.setAmount(new BigDecimal(amount));
+        return request;
+    }
+
+    private BigDecimal balance(Long cardId) {
+        return cardRepository.findById(cardId).orElseThrow().getBalance();
+    }
+}
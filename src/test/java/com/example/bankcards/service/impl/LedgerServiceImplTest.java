@@ -0,0 +1,125 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.dto.CardBalanceDto;
+import com.example.bankcards.entity.BalanceSnapshot;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.LedgerEntry;
+import com.example.bankcards.entity.Transaction;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.entity.enums.LedgerEntryType;
+import com.example.bankcards.exception.ResourceNotFoundException;
+import com.example.bankcards.repository.BalanceSnapshotRepository;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.LedgerEntryRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.TurnoverService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Ledger Service Implementation Tests")
+class LedgerServiceImplTest {
+
+    @Mock
+    private LedgerEntryRepository ledgerEntryRepository;
+    @Mock
+    private BalanceSnapshotRepository balanceSnapshotRepository;
+    @Mock
+    private CardRepository cardRepository;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private TurnoverService turnoverService;
+
+    @InjectMocks
+    private LedgerServiceImpl ledgerService;
+
+    private User testUser;
+    private Card card;
+
+    @BeforeEach
+    void setUp() {
+        testUser = new User();
+        testUser.setId(1L);
+        testUser.setUsername("testuser");
+
+        card = new Card();
+        card.setId(10L);
+        card.setOwner(testUser);
+    }
+
+    @Test
+    @DisplayName("Should record a debit and a credit entry per transfer")
+    void recordTransfers_WritesBothSides() {
+        Card cardTo = new Card();
+        cardTo.setId(20L);
+        Transaction transaction = new Transaction();
+        transaction.setCardFrom(card);
+        transaction.setCardTo(cardTo);
+        transaction.setAmount(new BigDecimal("15.00"));
+
+        ledgerService.recordTransfers(List.of(transaction));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<LedgerEntry>> captor = ArgumentCaptor.forClass(List.class);
+        verify(ledgerEntryRepository).saveAll(captor.capture());
+        List<LedgerEntry> entries = captor.getValue();
+        assertEquals(2, entries.size());
+        assertEquals(LedgerEntryType.DEBIT, entries.get(0).getEntryType());
+        assertEquals(card, entries.get(0).getCard());
+        assertEquals(LedgerEntryType.CREDIT, entries.get(1).getEntryType());
+        assertEquals(cardTo, entries.get(1).getCard());
+        verify(turnoverService).recordEntries(entries);
+    }
+
+    @Test
+    @DisplayName("Should add the entries since the latest snapshot to the snapshot balance")
+    void getBalance_SnapshotPlusEntries() {
+        LocalDateTime at = LocalDateTime.of(2025, 2, 1, 0, 0);
+        BalanceSnapshot snapshot = new BalanceSnapshot();
+        snapshot.setBalance(new BigDecimal("100.00"));
+        snapshot.setAsOf(LocalDateTime.of(2025, 1, 31, 0, 0));
+        snapshot.setSeq(3);
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
+        when(cardRepository.findById(10L)).thenReturn(Optional.of(card));
+        when(balanceSnapshotRepository.findFirstByCardIdAndAsOfLessThanEqualOrderByAsOfDesc(10L, at)).thenReturn(Optional.of(snapshot));
+        when(ledgerEntryRepository.sumAmounts(10L, snapshot.getAsOf(), 3L, at)).thenReturn(new BigDecimal("-25.50"));
+
+        CardBalanceDto balance = ledgerService.getBalance(10L, "testuser", at);
+
+        assertEquals(new BigDecimal("74.50"), balance.getBalance());
+        assertEquals(at, balance.getAt());
+    }
+
+    @Test
+    @DisplayName("Should throw ResourceNotFoundException for a card of another user")
+    void getBalance_CardNotOwned() {
+        User anotherUser = new User();
+        anotherUser.setId(2L);
+        card.setOwner(anotherUser);
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
+        when(cardRepository.findById(10L)).thenReturn(Optional.of(card));
+
+        assertThrows(ResourceNotFoundException.class, () -> ledgerService.getBalance(10L, "testuser", null));
+        verify(ledgerEntryRepository, never()).sumAmounts(any(), any(), anyLong(), any());
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.dto.TransferRequestDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.InsufficientFundsException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.OutboxService;
+import com.example.bankcards.service.outbox.FileOutboxSink;
+import com.example.bankcards.service.outbox.OutboxEvent;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@RecordApplicationEvents
+@DisplayName("Outbox Service Integration Tests")
+class OutboxServiceImplIntegrationTest {
+
+    @Autowired
+    private OutboxService outboxService;
+    @Autowired
+    private CardService cardService;
+    @Autowired
+    private CardRepository cardRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private ApplicationEvents applicationEvents;
+
+    @Test
+    @DisplayName("Should relay transfer and card events to the listener bus and remove them from the outbox")
+    void relay_TransferAndBlock_PublishedAndDeleted() {
+        User owner = userRepository.findByUsername("john.doe").orElseThrow();
+        Long card = createActiveCard(owner);
+        Long other = createActiveCard(owner);
+        Long transactionId = cardService.transferBetweenOwnCards("john.doe", transfer(card, other, "10.00")).getId();
+        cardService.blockCard(card);
+
+        outboxService.relay();
+
+        List<OutboxEvent> events = applicationEvents.stream(OutboxEvent.class).toList();
+        assertTrue(events.stream().anyMatch(event -> event.eventType().equals("TRANSFER_COMPLETED")
+                && event.aggregateId() == transactionId && event.payload().contains("\"fromCardId\":" + card)));
+        assertTrue(events.stream().anyMatch(event -> event.eventType().equals("CARD_BLOCKED")
+                && event.aggregateId() == card && event.payload().contains("\"status\":\"BLOCKED\"")));
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from outbox where (aggregate_type = 'CARD' and aggregate_id = ?) " +
+                "or (aggregate_type = 'TRANSACTION' and aggregate_id = ?)", Integer.class, card, transactionId));
+    }
+
+    @Test
+    @DisplayName("Should write no event for a transfer that was rolled back")
+    void transfer_Failed_NoEvent() {
+        User owner = userRepository.findByUsername("john.doe").orElseThrow();
+        Long card = createActiveCard(owner);
+        Long other = createActiveCard(owner);
+        int before = countTransferEvents();
+
+        assertThrows(InsufficientFundsException.class,
+                () -> cardService.transferBetweenOwnCards("john.doe", transfer(card, other, "1000.00")));
+
+        assertEquals(before, countTransferEvents());
+    }
+
+    @Test
+    @DisplayName("Should keep a batch in the outbox when a sink fails")
+    void relay_SinkFails_BatchKept() {
+        User owner = userRepository.findByUsername("john.doe").orElseThrow();
+        Long card = createActiveCard(owner);
+        cardService.blockCard(card);
+        OutboxServiceImpl failing = new OutboxServiceImpl(jdbcTemplate, transactionManager, objectMapper,
+                List.of(events -> {
+                    throw new IllegalStateException("sink down");
+                }), new SimpleMeterRegistry(), 100_000, 1);
+
+        assertEquals(0, failing.relay());
+
+        assertEquals(1, jdbcTemplate.queryForObject("select count(*) from outbox where aggregate_type = 'CARD' and aggregate_id = ? " +
+                "and event_type = 'CARD_BLOCKED'", Integer.class, card));
+    }
+
+    @Test
+    @DisplayName("Should append one JSON line per event to the file sink")
+    void fileSink_Events_AppendedAsJsonLines(@TempDir Path directory) throws Exception {
+        Path file = directory.resolve("outbox/events.ndjson");
+        FileOutboxSink sink = new FileOutboxSink(objectMapper, file, true);
+        LocalDateTime now = LocalDateTime.now();
+
+        sink.deliver(List.of(new OutboxEvent(1, "CARD", 7, "CARD_DELETED", "{\"cardId\":7}", now)));
+        sink.deliver(List.of(new OutboxEvent(2, "CARD", 8, "CARD_DELETED", "{\"cardId\":8}", now)));
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(2, lines.size());
+        JsonNode first = objectMapper.readTree(lines.get(0));
+        assertEquals("CARD_DELETED", first.get("eventType").asText());
+        assertEquals(7, first.get("payload").get("cardId").asLong());
+    }
+
+    private int countTransferEvents() {
+        return jdbcTemplate.queryForObject("select count(*) from outbox where event_type = 'TRANSFER_COMPLETED'", Integer.class);
+    }
+
+    private Long createActiveCard(User owner) {
+        Card card = new Card();
+        card.setOwner(owner);
+        card.setPan("4000000000000000");
+        card.setPanLast4("0000");
+        card.setHolderName("JOHN DOE");
+        card.setExpiryDate(YearMonth.of(2030, 12));
+        card.setBalance(new BigDecimal("100.00"));
+        return cardRepository.save(card).getId();
+    }
+
+    private TransferRequestDto transfer(Long from, Long to, String amount) {
+        TransferRequestDto request = new TransferRequestDto();
+        request.setFromCardId(from);
+        request.setToCardId(to);
+        request.setAmount(new BigDecimal(amount));
+        return request;
+    }
+}
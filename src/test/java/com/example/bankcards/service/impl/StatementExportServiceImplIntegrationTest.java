@@ -0,0 +1,139 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.dto.TransferRequestDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.InvalidOperationException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.StatementExportService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("Statement Export Integration Tests")
+class StatementExportServiceImplIntegrationTest {
+
+    @Autowired
+    private StatementExportService statementExportService;
+    @Autowired
+    private CardService cardService;
+    @Autowired
+    private CardRepository cardRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    @DisplayName("Should stream every transaction of the card in the period as NDJSON, oldest first")
+    void exportCardStatement_Ndjson_AllLinesInOrder() throws Exception {
+        User owner = userRepository.findByUsername("john.doe").orElseThrow();
+        Long card = createActiveCard(owner);
+        Long other = createActiveCard(owner);
+        for (int i = 0; i < 12; i++) {
+            cardService.transferBetweenOwnCards("john.doe", transfer(i % 2 == 0 ? card : other, i % 2 == 0 ? other : card));
+        }
+
+        List<String> lines = export(card, LocalDate.now(), LocalDate.now(), StatementExportService.Format.NDJSON);
+
+        assertEquals(12, lines.size());
+        long previousId = 0;
+        for (String line : lines) {
+            JsonNode node = objectMapper.readTree(line);
+            assertTrue(node.get("id").asLong() > previousId);
+            assertTrue(node.get("cardFromId").asLong() == card || node.get("cardToId").asLong() == card);
+            previousId = node.get("id").asLong();
+        }
+    }
+
+    @Test
+    @DisplayName("Should write a CSV header and nothing else for a period without transactions")
+    void exportCardStatement_CsvEmptyPeriod_HeaderOnly() throws Exception {
+        User owner = userRepository.findByUsername("john.doe").orElseThrow();
+        Long card = createActiveCard(owner);
+        cardService.transferBetweenOwnCards("john.doe", transfer(card, createActiveCard(owner)));
+
+        List<String> lines = export(card, LocalDate.of(2020, 1, 1), LocalDate.of(2020, 12, 31), StatementExportService.Format.CSV);
+
+        assertEquals(List.of("id,created_at,card_from_id,card_to_id,amount,currency,status,description,"
+                + "credited_amount,credited_currency,fx_rate"), lines);
+    }
+
+    @Test
+    @DisplayName("Should show what the receiving card got on a cross-currency transfer")
+    void exportCardStatement_CrossCurrency_CreditedAmountShown() throws Exception {
+        User owner = userRepository.findByUsername("john.doe").orElseThrow();
+        Long usd = createActiveCard(owner, "USD");
+        Long byn = createActiveCard(owner, "BYN");
+        TransferRequestDto request = transfer(usd, byn);
+        request.setAmount(new BigDecimal("10.00"));
+        cardService.transferBetweenOwnCards("john.doe", request);
+
+        JsonNode line = objectMapper.readTree(export(byn, LocalDate.now(), LocalDate.now(), StatementExportService.Format.NDJSON).get(0));
+        List<String> csv = export(byn, LocalDate.now(), LocalDate.now(), StatementExportService.Format.CSV);
+
+        assertEquals("USD", line.get("currency").asText());
+        assertEquals(0, new BigDecimal("32.70").compareTo(line.get("creditedAmount").decimalValue()));
+        assertEquals("BYN", line.get("creditedCurrency").asText());
+        assertTrue(csv.get(1).contains(",10.00,USD,COMPLETED,") && csv.get(1).contains(",32.70,BYN,3.27"));
+    }
+
+    @Test
+    @DisplayName("Should reject a period that ends before it starts")
+    void exportCardStatement_InvertedPeriod_Rejected() {
+        User owner = userRepository.findByUsername("john.doe").orElseThrow();
+        Long card = createActiveCard(owner);
+
+        assertThrows(InvalidOperationException.class, () -> statementExportService.exportCardStatement(card, "john.doe",
+                LocalDate.of(2025, 2, 1), LocalDate.of(2025, 1, 1), StatementExportService.Format.CSV));
+    }
+
+    private List<String> export(Long cardId, LocalDate from, LocalDate to, StatementExportService.Format format) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        statementExportService.exportCardStatement(cardId, "john.doe", from, to, format).writeTo(out);
+        return out.toString(StandardCharsets.UTF_8).lines().toList();
+    }
+
+    private Long createActiveCard(User owner) {
+        return createActiveCard(owner, "BYN");
+    }
+
+    private Long createActiveCard(User owner, String currency) {
+        Card card = new Card();
+        card.setOwner(owner);
+        card.setPan("4000000000000000");
+        card.setPanLast4("0000");
+        card.setHolderName("JOHN DOE");
+        card.setExpiryDate(YearMonth.of(2030, 12));
+        card.setBalance(new BigDecimal("100.00"));
+        card.setCurrency(currency);
+        return cardRepository.save(card).getId();
+    }
+
+    private TransferRequestDto transfer(Long from, Long to) {
+        TransferRequestDto request = new TransferRequestDto();
+        request.setFromCardId(from);
+        request.setToCardId(to);
+        request.setAmount(new BigDecimal("1.00"));
+        return request;
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.dto.TransactionDto;
+import com.example.bankcards.dto.TransactionPageDto;
+import com.example.bankcards.dto.TransferRequestDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.InvalidOperationException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.TransactionHistoryService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("Transaction History Integration Tests")
+class TransactionHistoryServiceImplIntegrationTest {
+
+    private static final Comparator<TransactionDto> NEWEST_FIRST = Comparator
+            .comparing(TransactionDto::getCreatedAt, Comparator.reverseOrder())
+            .thenComparing(TransactionDto::getId, Comparator.reverseOrder());
+
+    @Autowired
+    private TransactionHistoryService transactionHistoryService;
+    @Autowired
+    private CardService cardService;
+    @Autowired
+    private CardRepository cardRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    @DisplayName("Should walk the whole card history page by page, newest first and without gaps or repeats")
+    void getCardTransactions_AllPages_CoverHistoryOnce() {
+        User owner = userRepository.findByUsername("john.doe").orElseThrow();
+        Long card = createActiveCard(owner);
+        Long other = createActiveCard(owner);
+        for (int i = 0; i < 25; i++) {
+            boolean outgoing = i % 3 != 0;
+            cardService.transferBetweenOwnCards("john.doe", transfer(outgoing ? card : other, outgoing ? other : card));
+        }
+
+        List<TransactionDto> all = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            TransactionPageDto page = transactionHistoryService.getCardTransactions(card, "john.doe", cursor, 10);
+            all.addAll(page.getContent());
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(3, pages);
+        assertEquals(25, all.size());
+        assertEquals(25, new HashSet<>(all.stream().map(TransactionDto::getId).toList()).size());
+        List<TransactionDto> sorted = new ArrayList<>(all);
+        sorted.sort(NEWEST_FIRST);
+        assertEquals(sorted, all);
+    }
+
+    @Test
+    @DisplayName("Should list a transfer between two cards of the user once in the user history")
+    void getUserTransactions_OwnCardTransfer_ListedOnce() {
+        User owner = userRepository.findByUsername("john.doe").orElseThrow();
+        Long from = createActiveCard(owner);
+        Long to = createActiveCard(owner);
+        TransactionDto transfer = cardService.transferBetweenOwnCards("john.doe", transfer(from, to));
+
+        TransactionPageDto page = transactionHistoryService.getUserTransactions(owner.getId(), null, 5);
+
+        assertEquals(transfer.getId(), page.getContent().get(0).getId());
+        assertEquals(5, new HashSet<>(page.getContent().stream().map(TransactionDto::getId).toList()).size());
+    }
+
+    @Test
+    @DisplayName("Should return no cursor on the last page and reject a malformed cursor")
+    void getCardTransactions_LastPageAndInvalidCursor() {
+        User owner = userRepository.findByUsername("john.doe").orElseThrow();
+        Long card = createActiveCard(owner);
+
+        TransactionPageDto page = transactionHistoryService.getCardTransactions(card, "john.doe", null, 10);
+
+        assertEquals(0, page.getSize());
+        assertNull(page.getNextCursor());
+        assertThrows(InvalidOperationException.class,
+                () -> transactionHistoryService.getCardTransactions(card, "john.doe", "not-a-cursor", 10));
+    }
+
+    private Long createActiveCard(User owner) {
+        Card card = new Card();
+        card.setOwner(owner);
+        card.setPan("4000000000000000");
+        card.setPanLast4("0000");
+        card.setHolderName("JOHN DOE");
+        card.setExpiryDate(YearMonth.of(2030, 12));
+        card.setBalance(new BigDecimal("100.00"));
+        return cardRepository.save(card).getId();
+    }
+
+    private TransferRequestDto transfer(Long from, Long to) {
+        TransferRequestDto request = new TransferRequestDto();
+        request.setFromCardId(from);
+        request.setToCardId(to);
+        request.setAmount(new BigDecimal("1.00"));
+        return request;
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.service.archive.TransactionArchiver;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Transaction Partition Job Tests")
+class TransactionPartitionJobTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private ObjectProvider<TransactionArchiver> archiver;
+
+    @Test
+    @DisplayName("Should read MINVALUE and timestamp bounds of a partition")
+    void parse_PartitionBounds() {
+        TransactionPartitionJob.Partition partition = TransactionPartitionJob.Partition.parse("transactions_legacy",
+                "FOR VALUES FROM (MINVALUE) TO ('2025-11-01 00:00:00')");
+
+        assertNull(partition.from());
+        assertEquals(LocalDateTime.of(2025, 11, 1, 0, 0), partition.to());
+    }
+
+    @Test
+    @DisplayName("Should create only the upcoming months that no partition covers yet")
+    void createUpcomingPartitions_SkipsCoveredMonths() {
+        TransactionPartitionJob job = new TransactionPartitionJob(jdbcTemplate, archiver, 2, 0, "detach");
+        stubPartitions(
+                TransactionPartitionJob.Partition.parse("transactions_legacy", "FOR VALUES FROM (MINVALUE) TO ('2025-11-01 00:00:00')"),
+                TransactionPartitionJob.Partition.parse("transactions_p2025_11", "FOR VALUES FROM ('2025-11-01 00:00:00') TO ('2025-12-01 00:00:00')"));
+
+        job.createUpcomingPartitions(YearMonth.of(2025, 10));
+
+        verify(jdbcTemplate).execute("CREATE TABLE transactions_p2025_12 PARTITION OF transactions " +
+                "FOR VALUES FROM ('2025-12-01 00:00:00') TO ('2026-01-01 00:00:00')");
+        verify(jdbcTemplate, never()).execute("CREATE TABLE transactions_p2025_11 PARTITION OF transactions " +
+                "FOR VALUES FROM ('2025-11-01 00:00:00') TO ('2025-12-01 00:00:00')");
+    }
+
+    @Test
+    @DisplayName("Should detach partitions that end before the retention cutoff and keep the rest")
+    void removeExpiredPartitions_DetachesOldOnly() {
+        stubPendingCount(0);
+        TransactionPartitionJob job = new TransactionPartitionJob(jdbcTemplate, archiver, 3, 24, "detach");
+        stubPartitions(
+                TransactionPartitionJob.Partition.parse("transactions_legacy", "FOR VALUES FROM (MINVALUE) TO ('2023-06-01 00:00:00')"),
+                TransactionPartitionJob.Partition.parse("transactions_p2023_06", "FOR VALUES FROM ('2023-06-01 00:00:00') TO ('2023-07-01 00:00:00')"));
+
+        job.removeExpiredPartitions(LocalDateTime.of(2023, 6, 1, 0, 0));
+
+        verify(jdbcTemplate).execute("ALTER TABLE transactions DETACH PARTITION transactions_legacy");
+        verify(jdbcTemplate, never()).execute("ALTER TABLE transactions DETACH PARTITION transactions_p2023_06");
+    }
+
+    @Test
+    @DisplayName("Should drop expired partitions when the retention action is drop")
+    void removeExpiredPartitions_DropAction() {
+        stubPendingCount(0);
+        TransactionPartitionJob job = new TransactionPartitionJob(jdbcTemplate, archiver, 3, 24, "drop");
+        stubPartitions(TransactionPartitionJob.Partition.parse("transactions_p2023_05",
+                "FOR VALUES FROM ('2023-05-01 00:00:00') TO ('2023-06-01 00:00:00')"));
+
+        job.removeExpiredPartitions(LocalDateTime.of(2023, 6, 1, 0, 0));
+
+        verify(jdbcTemplate).execute("DROP TABLE transactions_p2023_05");
+    }
+
+    @Test
+    @DisplayName("Should export a partition to the archive and release its references before detaching it")
+    void removeExpiredPartitions_ExportsBeforeDetach() {
+        TransactionArchiver transactionArchiver = mock(TransactionArchiver.class);
+        when(archiver.getIfAvailable()).thenReturn(transactionArchiver);
+        TransactionPartitionJob job = new TransactionPartitionJob(jdbcTemplate, archiver, 3, 24, "detach");
+        stubPartitions(TransactionPartitionJob.Partition.parse("transactions_p2023_05",
+                "FOR VALUES FROM ('2023-05-01 00:00:00') TO ('2023-06-01 00:00:00')"));
+        stubPendingCount(0);
+
+        job.removeExpiredPartitions(LocalDateTime.of(2023, 6, 1, 0, 0));
+
+        InOrder order = inOrder(transactionArchiver, jdbcTemplate);
+        order.verify(transactionArchiver).exportTable("transactions_p2023_05");
+        order.verify(jdbcTemplate).update("delete from idempotency_keys where transaction_id in " +
+                "(select id from transactions_p2023_05)");
+        order.verify(jdbcTemplate).update("update ledger_entries set transaction_id = null where transaction_id in " +
+                "(select id from transactions_p2023_05)");
+        order.verify(jdbcTemplate).execute("ALTER TABLE transactions DETACH PARTITION transactions_p2023_05");
+        verify(transactionArchiver, never()).archiveOlderThan(any());
+    }
+
+    @Test
+    @DisplayName("Should keep an expired partition that still holds pending transfers")
+    void removeExpiredPartitions_PendingTransfers_Kept() {
+        TransactionArchiver transactionArchiver = mock(TransactionArchiver.class);
+        when(archiver.getIfAvailable()).thenReturn(transactionArchiver);
+        TransactionPartitionJob job = new TransactionPartitionJob(jdbcTemplate, archiver, 3, 24, "drop");
+        stubPartitions(TransactionPartitionJob.Partition.parse("transactions_p2023_05",
+                "FOR VALUES FROM ('2023-05-01 00:00:00') TO ('2023-06-01 00:00:00')"));
+        stubPendingCount(2);
+
+        job.removeExpiredPartitions(LocalDateTime.of(2023, 6, 1, 0, 0));
+
+        verify(transactionArchiver, never()).exportTable(anyString());
+        verify(jdbcTemplate, never()).update(anyString());
+        verify(jdbcTemplate, never()).execute("DROP TABLE transactions_p2023_05");
+    }
+
+    private void stubPendingCount(int pending) {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class))).thenReturn(pending);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void stubPartitions(TransactionPartitionJob.Partition... partitions) {
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class))).thenReturn(List.of(partitions));
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.service.archive.TransactionArchive;
+import com.example.bankcards.service.archive.TransactionArchiver;
+import liquibase.integration.spring.SpringLiquibase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the partitioning migration over a PostgreSQL database that already holds transactions, then the maintenance
+ * of {@link TransactionPartitionJob} on the result. Skipped where Docker is not available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DisplayName("Transaction Partitioning PostgreSQL Tests")
+class TransactionPartitioningPostgresTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static final LocalDateTime LONG_AGO = LocalDateTime.of(2020, 1, 10, 12, 0);
+
+    @TempDir
+    private Path archiveDirectory;
+
+    private DataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private Long cardId;
+    private Long settledId;
+    private Long pendingId;
+    private Long recentId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dataSource = new DriverManagerDataSource(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword());
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("DROP SCHEMA public CASCADE");
+        jdbcTemplate.execute("CREATE SCHEMA public");
+
+        migrate("classpath:db/changelog-before-partitioning.yaml");
+        List<Long> cards = jdbcTemplate.queryForList("select id from cards order by id limit 2", Long.class);
+        cardId = cards.get(0);
+        settledId = seed(cards.get(0), cards.get(1), "COMPLETED", LONG_AGO, "settled-key");
+        pendingId = seed(cards.get(0), cards.get(1), "PENDING", LONG_AGO.plusDays(1), "pending-key");
+        recentId = seed(cards.get(0), cards.get(1), "COMPLETED", LocalDateTime.now().minusHours(1), "recent-key");
+        migrate("classpath:db/migration/db.changelog-master.yaml");
+    }
+
+    @Test
+    @DisplayName("Should convert transactions into a partitioned table in place and keep its rows")
+    void migrate_ExistingRows_PartitionedInPlace() {
+        YearMonth next = YearMonth.now().plusMonths(1);
+
+        assertEquals("p", jdbcTemplate.queryForObject("select relkind::text from pg_class where oid = 'transactions'::regclass",
+                String.class));
+        assertEquals(List.of("id", "created_at"), jdbcTemplate.queryForList("select a.attname from pg_index i " +
+                "join unnest(i.indkey) with ordinality k(attnum, n) on true " +
+                "join pg_attribute a on a.attrelid = i.indrelid and a.attnum = k.attnum " +
+                "where i.indrelid = 'transactions'::regclass and i.indisprimary order by k.n", String.class));
+        assertEquals(List.of("transactions_legacy", "transactions_p" + next.toString().replace('-', '_')), partitions());
+        assertEquals(3, count("select count(*) from transactions_legacy"));
+        assertEquals(0, count("select count(*) from pg_constraint where conname in " +
+                "('fk_ledger_entries_transaction', 'fk_idempotency_keys_transaction')"));
+
+        Long routed = jdbcTemplate.queryForObject("insert into transactions (amount, created_at) values (1.00, ?) returning id",
+                Long.class, Timestamp.valueOf(next.atDay(2).atStartOfDay()));
+        assertEquals("transactions_p" + next.toString().replace('-', '_'), jdbcTemplate.queryForObject(
+                "select tableoid::regclass::text from transactions where id = ?", String.class, routed));
+        assertTrue(routed > recentId);
+    }
+
+    @Test
+    @DisplayName("Should keep a partition with pending transfers, then export it whole before detaching it")
+    void removeExpiredPartitions_Detach_ExportsAndReleasesReferences() throws Exception {
+        TransactionArchive archive = new TransactionArchive(archiveDirectory, 16);
+        archive.open();
+        TransactionArchiver archiver = new TransactionArchiver(jdbcTemplate, new DataSourceTransactionManager(dataSource),
+                archive, 365, 2);
+        TransactionPartitionJob job = new TransactionPartitionJob(jdbcTemplate, provider(archiver), 3, 24, "detach");
+        YearMonth current = YearMonth.now();
+        LocalDateTime cutoff = current.plusMonths(1).atDay(1).atStartOfDay();
+
+        job.createUpcomingPartitions(current);
+        job.createUpcomingPartitions(current);
+
+        List<String> expected = new ArrayList<>(List.of("transactions_legacy"));
+        for (int i = 1; i <= 3; i++) {
+            expected.add("transactions_p" + current.plusMonths(i).toString().replace('-', '_'));
+        }
+        assertEquals(expected, partitions());
+
+        job.removeExpiredPartitions(cutoff);
+
+        assertEquals(expected, partitions());
+        assertEquals(List.of(), archived(archive));
+
+        jdbcTemplate.update("update transactions set status = 'FAILED' where id = ?", pendingId);
+        job.removeExpiredPartitions(cutoff);
+
+        assertEquals(expected.subList(1, expected.size()), partitions());
+        assertEquals(3, count("select count(*) from transactions_legacy"));
+        assertEquals(List.of(settledId, pendingId, recentId), archived(archive));
+        assertEquals(0, count("select count(*) from idempotency_keys"));
+        assertEquals(0, count("select count(*) from ledger_entries where transaction_id is not null"));
+        assertEquals(3, count("select count(*) from ledger_entries"));
+    }
+
+    @Test
+    @DisplayName("Should drop an expired partition with its rows and release the references to them")
+    void removeExpiredPartitions_Drop_ReleasesReferences() {
+        TransactionPartitionJob job = new TransactionPartitionJob(jdbcTemplate, provider(null), 3, 24, "drop");
+        jdbcTemplate.update("update transactions set status = 'FAILED' where id = ?", pendingId);
+
+        job.removeExpiredPartitions(YearMonth.now().plusMonths(1).atDay(1).atStartOfDay());
+
+        assertNull(jdbcTemplate.queryForObject("select to_regclass('transactions_legacy')::text", String.class));
+        assertEquals(0, count("select count(*) from transactions"));
+        assertEquals(0, count("select count(*) from idempotency_keys"));
+        assertEquals(0, count("select count(*) from ledger_entries where transaction_id is not null"));
+    }
+
+    private void migrate(String changeLog) throws Exception {
+        SpringLiquibase liquibase = new SpringLiquibase();
+        liquibase.setDataSource(dataSource);
+        liquibase.setChangeLog(changeLog);
+        liquibase.setResourceLoader(new DefaultResourceLoader());
+        liquibase.afterPropertiesSet();
+    }
+
+    private Long seed(Long from, Long to, String status, LocalDateTime createdAt, String key) {
+        Long id = jdbcTemplate.queryForObject("insert into transactions (card_from_id, card_to_id, amount, status, created_at) " +
+                "values (?, ?, ?, ?, ?) returning id", Long.class, from, to, new BigDecimal("10.00"), status,
+                Timestamp.valueOf(createdAt));
+        jdbcTemplate.update("insert into idempotency_keys (username, idempotency_key, transaction_id) values ('john.doe', ?, ?)",
+                key, id);
+        jdbcTemplate.update("insert into ledger_entries (id, card_id, transaction_id, entry_type, amount, created_at) " +
+                "values (nextval('ledger_entries_id_seq'), ?, ?, 'DEBIT', ?, ?)", from, id, new BigDecimal("10.00"),
+                Timestamp.valueOf(createdAt));
+        return id;
+    }
+
+    private List<String> partitions() {
+        return jdbcTemplate.queryForList("select c.relname from pg_inherits i join pg_class c on c.oid = i.inhrelid " +
+                "where i.inhparent = 'transactions'::regclass order by c.relname", String.class);
+    }
+
+    private List<Long> archived(TransactionArchive archive) {
+        List<Long> ids = new ArrayList<>();
+        archive.forEach(cardId, LONG_AGO.minusDays(1), LocalDateTime.now().plusDays(1), line -> ids.add(line.getId()));
+        return ids;
+    }
+
+    private int count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Integer.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ObjectProvider<TransactionArchiver> provider(TransactionArchiver archiver) {
+        ObjectProvider<TransactionArchiver> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(archiver);
+        return provider;
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.dto.BatchTransferRequestDto;
+import com.example.bankcards.dto.CardTurnoverDto;
+import com.example.bankcards.dto.DailyTurnoverDto;
+import com.example.bankcards.dto.TransferRequestDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.InvalidOperationException;
+import com.example.bankcards.exception.ResourceNotFoundException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.TurnoverService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("Turnover Service Integration Tests")
+class TurnoverServiceImplIntegrationTest {
+
+    @Autowired
+    private TurnoverService turnoverService;
+    @Autowired
+    private CardService cardService;
+    @Autowired
+    private CardRepository cardRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Should count single and batch transfers of the day, before and after the deltas are folded")
+    void getCardTurnover_Transfers_CountedBeforeAndAfterFolding() {
+        User owner = userRepository.findByUsername("john.doe").orElseThrow();
+        Long card = createActiveCard(owner);
+        Long other = createActiveCard(owner);
+        cardService.transferBetweenOwnCards("john.doe", transfer(card, other, "10.00"));
+        cardService.transferBetweenOwnCards("john.doe", transfer(other, card, "4.50"));
+        BatchTransferRequestDto batch = new BatchTransferRequestDto();
+        batch.setTransfers(List.of(transfer(card, other, "1.00"), transfer(card, other, "2.00")));
+        cardService.transferBatchBetweenOwnCards("john.doe", batch);
+        LocalDate today = LocalDate.now();
+
+        CardTurnoverDto beforeFolding = turnoverService.getCardTurnover(card, "john.doe", today, today);
+        int folded;
+        do {
+            folded = turnoverService.foldDeltas();
+        } while (folded > 0);
+        CardTurnoverDto afterFolding = turnoverService.getCardTurnover(card, "john.doe", today, today);
+
+        for (CardTurnoverDto turnover : List.of(beforeFolding, afterFolding)) {
+            assertEquals(0, new BigDecimal("4.50").compareTo(turnover.getInboundAmount()));
+            assertEquals(1, turnover.getInboundCount());
+            assertEquals(0, new BigDecimal("13.00").compareTo(turnover.getOutboundAmount()));
+            assertEquals(3, turnover.getOutboundCount());
+            assertEquals(1, turnover.getDays().size());
+        }
+        assertEquals(0, countRows("card_turnover_deltas", card));
+        assertEquals(1, countRows("card_daily_turnover", card));
+    }
+
+    @Test
+    @DisplayName("Should rebuild past days from the ledger and leave the current day to the aggregator")
+    void rebuild_PastDays_RecomputedFromLedger() {
+        User owner = userRepository.findByUsername("john.doe").orElseThrow();
+        Long card = createActiveCard(owner);
+        Long other = createActiveCard(owner);
+        cardService.transferBetweenOwnCards("john.doe", transfer(card, other, "3.00"));
+        LocalDate today = LocalDate.now();
+        LocalDate threeDaysAgo = today.minusDays(3);
+        // Ledger entries the rollup never saw, and a rollup row without entries behind it.
+        insertLedgerEntry(card, "CREDIT", "20.00", threeDaysAgo);
+        insertLedgerEntry(card, "CREDIT", "5.00", threeDaysAgo);
+        insertLedgerEntry(card, "DEBIT", "7.00", threeDaysAgo);
+        jdbcTemplate.update("insert into card_daily_turnover (card_id, turnover_date, inbound_amount, inbound_count, outbound_amount, outbound_count) " +
+                "values (?, ?, 999.00, 9, 0, 0)", card, Date.valueOf(today.minusDays(5)));
+
+        turnoverService.rebuild();
+
+        CardTurnoverDto turnover = turnoverService.getCardTurnover(card, "john.doe", today.minusDays(7), today);
+        assertEquals(2, turnover.getDays().size());
+        DailyTurnoverDto past = turnover.getDays().get(0);
+        assertEquals(threeDaysAgo, past.getDate());
+        assertEquals(0, new BigDecimal("25.00").compareTo(past.getInboundAmount()));
+        assertEquals(2, past.getInboundCount());
+        assertEquals(0, new BigDecimal("7.00").compareTo(past.getOutboundAmount()));
+        assertEquals(1, past.getOutboundCount());
+        DailyTurnoverDto current = turnover.getDays().get(1);
+        assertEquals(today, current.getDate());
+        assertEquals(0, new BigDecimal("3.00").compareTo(current.getOutboundAmount()));
+    }
+
+    @Test
+    @DisplayName("Should reject an inverted period and a card of another user")
+    void getCardTurnover_InvalidRequests_Rejected() {
+        User owner = userRepository.findByUsername("john.doe").orElseThrow();
+        User other = userRepository.findByUsername("admin").orElseThrow();
+        Long card = createActiveCard(owner);
+        Long foreign = createActiveCard(other);
+
+        assertThrows(InvalidOperationException.class, () -> turnoverService.getCardTurnover(card, "john.doe",
+                LocalDate.of(2025, 2, 1), LocalDate.of(2025, 1, 1)));
+        assertThrows(ResourceNotFoundException.class, () -> turnoverService.getCardTurnover(foreign, "john.doe",
+                LocalDate.of(2025, 1, 1), LocalDate.of(2025, 2, 1)));
+    }
+
+    private void insertLedgerEntry(Long cardId, String type, String amount, LocalDate day) {
+        jdbcTemplate.update("insert into ledger_entries (id, card_id, transaction_id, entry_type, amount, created_at) " +
+                        "values (nextval('ledger_entries_id_seq'), ?, null, ?, ?, ?)",
+                cardId, type, new BigDecimal(amount), Timestamp.valueOf(day.atTime(12, 0)));
+    }
+
+    private int countRows(String table, Long cardId) {
+        return jdbcTemplate.queryForObject("select count(*) from " + table + " where card_id = ?", Integer.class, cardId);
+    }
+
+    private Long createActiveCard(User owner) {
+        Card card = new Card();
+        card.setOwner(owner);
+        card.setPan("4000000000000000");
+        card.setPanLast4("0000");
+        card.setHolderName("JOHN DOE");
+        card.setExpiryDate(YearMonth.of(2030, 12));
+        card.setBalance(new BigDecimal("100.00"));
+        return cardRepository.save(card).getId();
+    }
+
+    private TransferRequestDto transfer(Long from, Long to, String amount) {
+        TransferRequestDto request = new TransferRequestDto();
+        request.setFromCardId(from);
+        request.setToCardId(to);
+        request.setAmount(new BigDecimal(amount));
+        return request;
+    }
+}
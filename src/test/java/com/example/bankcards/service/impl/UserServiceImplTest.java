@@ -1,10 +1,13 @@
 package com.example.bankcards.service.impl;
 
+import com.example.bankcards.dto.ChangePasswordRequestDto;
 import com.example.bankcards.dto.RegistrationRequestDto;
 import com.example.bankcards.dto.UserDto;
 import com.example.bankcards.entity.Role;
 import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.InvalidOperationException;
 import com.example.bankcards.exception.UserAlreadyExistsException;
+import com.example.bankcards.security.UserSecurityChangedEvent;
 import com.example.bankcards.repository.RoleRepository;
 import com.example.bankcards.repository.UserRepository;
 import com.example.bankcards.util.mapper.UserMapper;
@@ -15,6 +18,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.util.Optional;
@@ -41,6 +45,8 @@ class UserServiceImplTest {
     private UserMapper userMapper;
     @Mock
     private PasswordEncoder passwordEncoder;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
 
     @InjectMocks
     private UserServiceImpl userService;
@@ -124,4 +130,39 @@ class UserServiceImplTest {
         assertEquals("Default role USER not found in database.", exception.getMessage());
         verify(userRepository, never()).save(any(User.class));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should change the password, revoke the tokens and publish the change")
+    void changePassword_CorrectCurrentPassword_Invalidated() {
+        user.setId(5L);
+        user.setPassword("oldHash");
+        when(userRepository.findByUsername("newUser")).thenReturn(Optional.of(user));
+        when(passwordEncoder.matches("oldPassword", "oldHash")).thenReturn(true);
+        when(passwordEncoder.encode("newPassword1")).thenReturn("newHash");
+
+        userService.changePassword("newUser", changePasswordRequest("oldPassword"));
+
+        assertEquals("newHash", user.getPassword());
+        verify(userRepository).incrementTokenVersion(5L);
+        verify(eventPublisher).publishEvent(new UserSecurityChangedEvent(5L, "newUser"));
+    }
+
+    @Test
+    @DisplayName("Should throw InvalidOperationException if the current password is wrong")
+    void changePassword_WrongCurrentPassword_Rejected() {
+        user.setPassword("oldHash");
+        when(userRepository.findByUsername("newUser")).thenReturn(Optional.of(user));
+        when(passwordEncoder.matches("wrongPassword", "oldHash")).thenReturn(false);
+
+        assertThrows(InvalidOperationException.class, () -> userService.changePassword("newUser", changePasswordRequest("wrongPassword")));
+        assertEquals("oldHash", user.getPassword());
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    private ChangePasswordRequestDto changePasswordRequest(String currentPassword) {
+        ChangePasswordRequestDto request = new ChangePasswordRequestDto();
+        request.setCurrentPassword(currentPassword);
+        request.setNewPassword("newPassword1");
+        return request;
+    }
+}
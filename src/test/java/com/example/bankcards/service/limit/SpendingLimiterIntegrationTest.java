@@ -0,0 +1,176 @@
+package com.example.bankcards.service.limit;
+
+import com.example.bankcards.dto.BatchTransferRequestDto;
+import com.example.bankcards.dto.BatchTransferResultDto;
+import com.example.bankcards.dto.CardLimitsRequest;
+import com.example.bankcards.dto.TransferRequestDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.SpendingLimitExceededException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.CardService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("Spending Limiter Integration Tests")
+class SpendingLimiterIntegrationTest {
+
+    @Autowired
+    private CardService cardService;
+    @Autowired
+    private CardRepository cardRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private DataSourceProperties dataSourceProperties;
+
+    @Test
+    @DisplayName("Should refuse transfers over the daily limit and count the spending again after a restart")
+    void transfer_DailyLimit_EnforcedAndRehydrated() {
+        User owner = userRepository.findByUsername("john.doe").orElseThrow();
+        Long card = createActiveCard(owner);
+        Long other = createActiveCard(owner);
+        cardService.updateSpendingLimits(card, limits("50.00", null));
+
+        cardService.transferBetweenOwnCards("john.doe", transfer(card, other, "20.00"));
+        cardService.transferBetweenOwnCards("john.doe", transfer(card, other, "20.00"));
+        assertThrows(SpendingLimitExceededException.class,
+                () -> cardService.transferBetweenOwnCards("john.doe", transfer(card, other, "20.00")));
+        cardService.transferBetweenOwnCards("john.doe", transfer(card, other, "10.00"));
+
+        assertEquals(0, new BigDecimal("50.00").compareTo(cardRepository.findById(card).orElseThrow().getBalance()));
+        SpendingLimiter restarted = new SpendingLimiter(jdbcTemplate, 4, 100, 3_600_000);
+        assertThrows(SpendingLimitExceededException.class, () -> restarted.reserve(card, new BigDecimal("0.01")));
+    }
+
+    @Test
+    @DisplayName("Should give back the amounts of a batch that was not applied")
+    void transferBatch_AllOrNothingFailed_ReservationsReturned() {
+        User owner = userRepository.findByUsername("john.doe").orElseThrow();
+        User admin = userRepository.findByUsername("admin").orElseThrow();
+        Long card = createActiveCard(owner);
+        Long other = createActiveCard(owner);
+        Long foreign = createActiveCard(admin);
+        cardService.updateSpendingLimits(card, limits("50.00", null));
+
+        BatchTransferRequestDto batch = new BatchTransferRequestDto();
+        batch.setTransfers(List.of(transfer(card, other, "30.00"), transfer(card, foreign, "5.00")));
+        BatchTransferResultDto result = cardService.transferBatchBetweenOwnCards("john.doe", batch);
+
+        assertEquals(0, result.getCompleted());
+        cardService.transferBetweenOwnCards("john.doe", transfer(card, other, "45.00"));
+    }
+
+    @Test
+    @DisplayName("Should load the monthly spending of a card from the ledger")
+    void reserve_MonthlyLimit_LoadedFromLedger() {
+        User owner = userRepository.findByUsername("john.doe").orElseThrow();
+        Long card = createActiveCard(owner);
+        cardService.updateSpendingLimits(card, limits(null, "100.00"));
+        jdbcTemplate.update("insert into ledger_entries (id, card_id, transaction_id, entry_type, amount, created_at) " +
+                        "values (nextval('ledger_entries_id_seq'), ?, null, 'DEBIT', 90.00, ?)",
+                card, Timestamp.valueOf(LocalDateTime.now().minusDays(10)));
+        SpendingLimiter limiter = new SpendingLimiter(jdbcTemplate, 4, 100, 3_600_000);
+
+        limiter.complete(limiter.reserve(card, new BigDecimal("10.00")), true);
+
+        assertThrows(SpendingLimitExceededException.class, () -> limiter.reserve(card, new BigDecimal("0.01")));
+    }
+
+    @Test
+    @DisplayName("Should put debits loaded on a host with a half-hour offset in the same UTC hours as live ones")
+    void reserve_NonUtcZone_LedgerDebitsInUtcHours() {
+        User owner = userRepository.findByUsername("john.doe").orElseThrow();
+        Long card = createActiveCard(owner);
+        cardService.updateSpendingLimits(card, limits("100.00", null));
+        TimeZone defaultZone = TimeZone.getDefault();
+        SingleConnectionDataSource dataSource = new SingleConnectionDataSource(dataSourceProperties.getUrl(),
+                dataSourceProperties.getUsername(), dataSourceProperties.getPassword(), true);
+        try {
+            TimeZone.setDefault(TimeZone.getTimeZone("Asia/Kolkata"));
+            JdbcTemplate kolkata = new JdbcTemplate(dataSource);
+            kolkata.execute("set time zone 'Asia/Kolkata'");
+            // Ten minutes into the oldest UTC hour of the daily window. At +05:30 that is twenty to a local hour,
+            // which began twenty minutes before the window.
+            long hourMillis = TimeUnit.HOURS.toMillis(1);
+            Instant debitedAt = Instant.ofEpochMilli((System.currentTimeMillis() / hourMillis - 23) * hourMillis)
+                    .plusSeconds(600);
+            kolkata.update("insert into ledger_entries (id, card_id, transaction_id, entry_type, amount, created_at) " +
+                    "values (nextval('ledger_entries_id_seq'), ?, null, 'DEBIT', 90.00, ?)", card, Timestamp.from(debitedAt));
+            SpendingLimiter limiter = new SpendingLimiter(kolkata, 4, 100, 3_600_000);
+
+            limiter.complete(limiter.reserve(card, new BigDecimal("10.00")), true);
+
+            assertThrows(SpendingLimitExceededException.class, () -> limiter.reserve(card, new BigDecimal("0.01")));
+        } finally {
+            TimeZone.setDefault(defaultZone);
+            dataSource.destroy();
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep at most the configured number of cards and drop idle ones")
+    void reserve_ManyCards_BoundedAndEvicted() {
+        User owner = userRepository.findByUsername("john.doe").orElseThrow();
+        SpendingLimiter limiter = new SpendingLimiter(jdbcTemplate, 1, 2, 0);
+        for (int i = 0; i < 5; i++) {
+            limiter.complete(limiter.reserve(createActiveCard(owner), BigDecimal.ONE), true);
+        }
+        SpendingLimiter.Reservation inFlight = limiter.reserve(createActiveCard(owner), BigDecimal.ONE);
+
+        assertEquals(2, limiter.size());
+        assertEquals(1, limiter.evictIdle());
+        limiter.complete(inFlight, false);
+        assertEquals(1, limiter.evictIdle());
+        assertEquals(0, limiter.size());
+    }
+
+    private Long createActiveCard(User owner) {
+        Card card = new Card();
+        card.setOwner(owner);
+        card.setPan("4000000000000000");
+        card.setPanLast4("0000");
+        card.setHolderName("JOHN DOE");
+        card.setExpiryDate(YearMonth.of(2030, 12));
+        card.setBalance(new BigDecimal("100.00"));
+        return cardRepository.save(card).getId();
+    }
+
+    private CardLimitsRequest limits(String daily, String monthly) {
+        CardLimitsRequest request = new CardLimitsRequest();
+        request.setDailyLimit(daily == null ? null : new BigDecimal(daily));
+        request.setMonthlyLimit(monthly == null ? null : new BigDecimal(monthly));
+        return request;
+    }
+
+    private TransferRequestDto transfer(Long from, Long to, String amount) {
+        TransferRequestDto request = new TransferRequestDto();
+        request.setFromCardId(from);
+        request.setToCardId(to);
+        request.setAmount(new BigDecimal(amount));
+        return request;
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.bankcards.service.schedule;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("Hashed Timer Wheel Tests")
+class HashedTimerWheelTest {
+
+    @Test
+    @DisplayName("Should hand out an id at the first tick at or after its deadline, never before")
+    void advance_Deadlines_NotBeforeDue() {
+        HashedTimerWheel wheel = new HashedTimerWheel(100, 8, 0);
+        wheel.schedule(1, 150);
+        wheel.schedule(2, 200);
+
+        assertTrue(wheel.advance(199).isEmpty());
+        assertEquals(List.of(1L, 2L), wheel.advance(200));
+        assertTrue(wheel.advance(1_000).isEmpty());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    @DisplayName("Should keep deadlines beyond one turn of the wheel until their turn comes round")
+    void advance_DeadlineBeyondOneTurn_KeptForLaterRound() {
+        HashedTimerWheel wheel = new HashedTimerWheel(100, 4, 0);
+        wheel.schedule(1, 100);
+        wheel.schedule(2, 500);
+
+        assertEquals(List.of(1L), wheel.advance(100));
+        assertTrue(wheel.advance(400).isEmpty());
+        assertEquals(List.of(2L), wheel.advance(500));
+    }
+
+    @Test
+    @DisplayName("Should hand out overdue ids at the next tick and everything passed in a long gap")
+    void advance_OverdueAndLongGap_AllHandedOut() {
+        HashedTimerWheel wheel = new HashedTimerWheel(100, 4, 1_000);
+        wheel.schedule(1, 500);
+        wheel.schedule(2, 1_700);
+        wheel.schedule(3, 5_000);
+
+        assertEquals(List.of(1L), wheel.advance(1_100));
+        List<Long> late = wheel.advance(10_000);
+        assertEquals(2, late.size());
+        assertTrue(late.containsAll(List.of(2L, 3L)));
+    }
+
+    @Test
+    @DisplayName("Should move a rescheduled id and drop a cancelled one")
+    void scheduleAndCancel_RescheduledAndCancelled_HandedOutOnce() {
+        HashedTimerWheel wheel = new HashedTimerWheel(100, 8, 0);
+        wheel.schedule(1, 200);
+        wheel.schedule(1, 400);
+        wheel.schedule(1, 400);
+        wheel.schedule(2, 300);
+        wheel.cancel(2);
+
+        assertTrue(wheel.advance(300).isEmpty());
+        assertEquals(List.of(1L), wheel.advance(400));
+        assertTrue(wheel.advance(2_000).isEmpty());
+    }
+}
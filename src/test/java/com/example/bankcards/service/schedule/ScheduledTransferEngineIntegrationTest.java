@@ -0,0 +1,160 @@
+package com.example.bankcards.service.schedule;
+
+import com.example.bankcards.dto.ScheduledTransferDto;
+import com.example.bankcards.dto.ScheduledTransferRequestDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.entity.enums.ScheduleFrequency;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.ScheduledTransferRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.ScheduledTransferService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("Scheduled Transfer Engine Integration Tests")
+class ScheduledTransferEngineIntegrationTest {
+
+    @Autowired
+    private ScheduledTransferService scheduledTransferService;
+    @Autowired
+    private ScheduledTransferRepository scheduledTransferRepository;
+    @Autowired
+    private CardService cardService;
+    @Autowired
+    private CardRepository cardRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Should fire an overdue recurring run once across instances and move it to its next run")
+    void tick_TwoInstances_FiredOnce() throws Exception {
+        User owner = userRepository.findByUsername("john.doe").orElseThrow();
+        Long from = createActiveCard(owner, "100.00");
+        Long to = createActiveCard(owner, "0.00");
+        Long scheduleId = schedule(from, to, "10.00", ScheduleFrequency.DAILY);
+        // Started two and a half days ago and missed while nothing was running.
+        LocalDateTime start = LocalDateTime.now().minusHours(60).withNano(0);
+        jdbcTemplate.update("update scheduled_transfers set starts_at = ?, next_run_at = ? where id = ?",
+                Timestamp.valueOf(start), Timestamp.valueOf(start), scheduleId);
+
+        // Two engines freshly started on the same table, as after a restart of two instances.
+        ScheduledTransferEngine first = engine();
+        ScheduledTransferEngine second = engine();
+        long now = System.currentTimeMillis();
+        assertTrue(first.load(now) >= 1);
+        assertTrue(second.load(now) >= 1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Integer> a = executor.submit(() -> first.tick(now + 1_000));
+            Future<Integer> b = executor.submit(() -> second.tick(now + 1_000));
+            a.get();
+            b.get();
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(0, new BigDecimal("90.00").compareTo(cardRepository.findById(from).orElseThrow().getBalance()));
+        assertEquals(0, new BigDecimal("10.00").compareTo(cardRepository.findById(to).orElseThrow().getBalance()));
+        assertEquals(1, jdbcTemplate.queryForObject("select count(*) from transactions where card_from_id = ?", Integer.class, from));
+        ScheduledTransferDto after = scheduledTransferService.getScheduledTransfers("john.doe", Pageable.unpaged())
+                .stream().filter(dto -> dto.getId().equals(scheduleId)).findFirst().orElseThrow();
+        assertEquals("ACTIVE", after.getStatus());
+        assertEquals(start.plusDays(3), after.getNextRunAt());
+        assertNotNull(after.getLastRunAt());
+    }
+
+    @Test
+    @DisplayName("Should fail a one-off run without funds and leave schedules outside the window alone")
+    void tick_OneOffWithoutFunds_FailedAndLaterOnesKept() {
+        User owner = userRepository.findByUsername("john.doe").orElseThrow();
+        Long from = createActiveCard(owner, "5.00");
+        Long to = createActiveCard(owner, "0.00");
+        Long due = schedule(from, to, "10.00", ScheduleFrequency.ONCE);
+        Long later = schedule(from, to, "1.00", ScheduleFrequency.ONCE);
+        jdbcTemplate.update("update scheduled_transfers set next_run_at = ? where id = ?",
+                Timestamp.valueOf(LocalDateTime.now().minusMinutes(1)), due);
+
+        ScheduledTransferEngine engine = engine();
+        long now = System.currentTimeMillis();
+        engine.load(now);
+        engine.tick(now + 1_000);
+
+        assertEquals("FAILED", jdbcTemplate.queryForObject("select status from scheduled_transfers where id = ?", String.class, due));
+        assertEquals("Insufficient funds on card " + from,
+                jdbcTemplate.queryForObject("select last_error from scheduled_transfers where id = ?", String.class, due));
+        assertEquals("ACTIVE", jdbcTemplate.queryForObject("select status from scheduled_transfers where id = ?", String.class, later));
+        assertEquals(0, new BigDecimal("5.00").compareTo(cardRepository.findById(from).orElseThrow().getBalance()));
+    }
+
+    @Test
+    @DisplayName("Should not fire a cancelled schedule that is already on the wheel")
+    void tick_Cancelled_NotFired() {
+        User owner = userRepository.findByUsername("john.doe").orElseThrow();
+        Long from = createActiveCard(owner, "100.00");
+        Long to = createActiveCard(owner, "0.00");
+        Long scheduleId = schedule(from, to, "10.00", ScheduleFrequency.WEEKLY);
+        jdbcTemplate.update("update scheduled_transfers set next_run_at = ? where id = ?",
+                Timestamp.valueOf(LocalDateTime.now().minusMinutes(1)), scheduleId);
+        ScheduledTransferEngine engine = engine();
+        long now = System.currentTimeMillis();
+        engine.load(now);
+
+        scheduledTransferService.cancelScheduledTransfer(scheduleId, "john.doe");
+
+        assertEquals(0, cardService.executeScheduledTransfers(List.of(scheduleId)));
+        engine.tick(now + 1_000);
+        assertEquals(0, new BigDecimal("100.00").compareTo(cardRepository.findById(from).orElseThrow().getBalance()));
+        assertEquals("CANCELLED", jdbcTemplate.queryForObject("select status from scheduled_transfers where id = ?", String.class, scheduleId));
+    }
+
+    private ScheduledTransferEngine engine() {
+        return new ScheduledTransferEngine(scheduledTransferRepository, cardService, new SimpleMeterRegistry(),
+                100, 64, 60_000, 100_000, 100);
+    }
+
+    private Long schedule(Long from, Long to, String amount, ScheduleFrequency frequency) {
+        ScheduledTransferRequestDto request = new ScheduledTransferRequestDto();
+        request.setFromCardId(from);
+        request.setToCardId(to);
+        request.setAmount(new BigDecimal(amount));
+        request.setFirstRunAt(LocalDateTime.now().plusDays(1));
+        request.setFrequency(frequency);
+        return scheduledTransferService.createScheduledTransfer("john.doe", request).getId();
+    }
+
+    private Long createActiveCard(User owner, String balance) {
+        Card card = new Card();
+        card.setOwner(owner);
+        card.setPan("4000000000000000");
+        card.setPanLast4("0000");
+        card.setHolderName("JOHN DOE");
+        card.setExpiryDate(YearMonth.of(2030, 12));
+        card.setBalance(new BigDecimal(balance));
+        return cardRepository.save(card).getId();
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.bankcards.util.retry;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("Optimistic Retry Aspect Tests")
+class OptimisticRetryAspectTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ConflictingOperation target;
+    private ConflictingOperation proxy;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        target = new ConflictingOperation();
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.addAspect(new OptimisticRetryAspect(meterRegistry, 3, 1, 2));
+        proxy = factory.getProxy();
+    }
+
+    @Test
+    @DisplayName("Should retry conflicting operation until it succeeds")
+    void retryOnConflict_SucceedsAfterRetries() {
+        target.conflictsLeft = 2;
+
+        assertEquals("done", proxy.update());
+        assertEquals(3, target.calls.get());
+        assertEquals(2.0, meterRegistry.counter("bankcards.card.conflict.retries", "operation", "update").count());
+    }
+
+    @Test
+    @DisplayName("Should rethrow the conflict once attempts are exhausted")
+    void retryOnConflict_Exhausted() {
+        target.conflictsLeft = 10;
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> proxy.update());
+        assertEquals(3, target.calls.get());
+        assertEquals(1.0, meterRegistry.counter("bankcards.card.conflict.exhausted", "operation", "update").count());
+    }
+
+    @Test
+    @DisplayName("Should not retry other failures")
+    void retryOnConflict_OtherFailureNotRetried() {
+        assertThrows(InvalidDataAccessApiUsageException.class, () -> proxy.fail());
+        assertEquals(1, target.calls.get());
+    }
+
+    static class ConflictingOperation {
+        private final AtomicInteger calls = new AtomicInteger();
+        private int conflictsLeft;
+
+        @RetryOnConflict
+        public String update() {
+            calls.incrementAndGet();
+            if (conflictsLeft-- > 0) {
+                throw new ObjectOptimisticLockingFailureException(Object.class, 1L);
+            }
+            return "done";
+        }
+
+        @RetryOnConflict
+        public String fail() {
+            calls.incrementAndGet();
+            throw new InvalidDataAccessApiUsageException("boom");
+        }
+    }
+}